@@ -0,0 +1,277 @@
+/*******************************************************************************************************
+ *
+ * AgentGrid.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.List;
+
+import gama.core.common.geometry.Envelope3D;
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.shape.IShape;
+import gama.core.runtime.IScope;
+
+/**
+ * An immutable uniform grid over a snapshot of agents, used to answer many distance queries against the same set of
+ * agents (e.g. all the agents of a species perceiving the same target species during a cycle).
+ *
+ * Each agent is stored once, with a copy of its shape, in the cell of the center of its envelope, and the agents are laid
+ * out contiguously cell by cell, so that a query only visits the cells around the source and does not allocate
+ * anything. The distances are computed to the copied shapes: the agents are found where they were when the grid was
+ * built, even if they have moved since. The queries are answered in a deterministic order (cell by cell, then in the
+ * order of the snapshot). The grid can be queried by several threads at the same time.
+ */
+public class AgentGrid {
+
+	/**
+	 * A visitor of the agents found by a query.
+	 */
+	public interface Visitor {
+
+		/**
+		 * Visits an agent.
+		 *
+		 * @param agent
+		 *            the agent
+		 * @return false to stop the query
+		 */
+		boolean visit(IAgent agent);
+	}
+
+	/**
+	 * A visitor of the positions, in the snapshot, of the agents found by a query.
+	 */
+	public interface IndexVisitor {
+
+		/**
+		 * Visits an agent.
+		 *
+		 * @param index
+		 *            the position of the agent in the snapshot used to build the grid
+		 */
+		void visit(int index);
+	}
+
+	/** The maximal number of cells per agent. */
+	private static final int CELLS_PER_AGENT = 4;
+
+	/** The agents, sorted by cell. */
+	private final IAgent[] agents;
+
+	/** The shapes of the agents when the grid was built, sorted by cell. */
+	private final IShape[] shapes;
+
+	/** The positions of the agents in the snapshot, sorted by cell. */
+	private final int[] positions;
+
+	/** For each cell, the index of its first agent in {@link #agents}, followed by the number of agents. */
+	private final int[] cellStart;
+
+	/** The coordinates of the lower corner of the grid. */
+	private final double minX, minY;
+
+	/** The size of the cells. */
+	private final double cellSize;
+
+	/** The number of columns and rows. */
+	private final int columns, rows;
+
+	/** The greatest half width and half height of the envelopes of the agents. */
+	private final double maxHalfWidth, maxHalfHeight;
+
+	/**
+	 * Builds a grid over the given agents. The dead agents are ignored.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param snapshot
+	 *            the agents
+	 * @param preferredCellSize
+	 *            the preferred size of the cells, usually the distance of the queries
+	 */
+	public AgentGrid(final IScope scope, final List<? extends IAgent> snapshot, final double preferredCellSize) {
+		final int n = snapshot.size();
+		final IAgent[] alive = new IAgent[n];
+		final IShape[] copies = new IShape[n];
+		final int[] indices = new int[n];
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
+		int count = 0;
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+		double halfWidth = 0, halfHeight = 0;
+		for (int k = 0; k < n; k++) {
+			final IAgent agent = snapshot.get(k);
+			if (agent == null || agent.dead()) { continue; }
+			final IShape shape = agent.getGeometry().copy(scope);
+			final Envelope3D env = shape.getEnvelope();
+			alive[count] = agent;
+			copies[count] = shape;
+			indices[count] = k;
+			xs[count] = (env.getMinX() + env.getMaxX()) / 2;
+			ys[count] = (env.getMinY() + env.getMaxY()) / 2;
+			halfWidth = Math.max(halfWidth, env.getWidth() / 2);
+			halfHeight = Math.max(halfHeight, env.getHeight() / 2);
+			x0 = Math.min(x0, xs[count]);
+			y0 = Math.min(y0, ys[count]);
+			x1 = Math.max(x1, xs[count]);
+			y1 = Math.max(y1, ys[count]);
+			count++;
+		}
+		maxHalfWidth = halfWidth;
+		maxHalfHeight = halfHeight;
+		if (count == 0) {
+			agents = new IAgent[0];
+			shapes = new IShape[0];
+			positions = new int[0];
+			cellStart = new int[] { 0, 0 };
+			minX = minY = 0;
+			cellSize = 1;
+			columns = rows = 1;
+			return;
+		}
+		minX = x0;
+		minY = y0;
+		// Keep the number of cells proportional to the number of agents
+		double size = preferredCellSize > 0 ? preferredCellSize : Math.max(x1 - x0, y1 - y0) + 1;
+		final long maxCells = Math.max(16L, (long) CELLS_PER_AGENT * count);
+		while ((long) ((x1 - x0) / size + 1) * (long) ((y1 - y0) / size + 1) > maxCells) {
+			size *= 2;
+		}
+		cellSize = size;
+		columns = (int) ((x1 - x0) / size) + 1;
+		rows = (int) ((y1 - y0) / size) + 1;
+		// Counting sort of the agents by cell
+		final int[] cells = new int[count];
+		cellStart = new int[columns * rows + 1];
+		for (int i = 0; i < count; i++) {
+			cells[i] = cell(xs[i], ys[i]);
+			cellStart[cells[i] + 1]++;
+		}
+		for (int c = 0; c < columns * rows; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		agents = new IAgent[count];
+		shapes = new IShape[count];
+		positions = new int[count];
+		final int[] next = new int[columns * rows];
+		for (int i = 0; i < count; i++) {
+			final int slot = cellStart[cells[i]] + next[cells[i]]++;
+			agents[slot] = alive[i];
+			shapes[slot] = copies[i];
+			positions[slot] = indices[i];
+		}
+	}
+
+	/**
+	 * Returns the cell containing the given point.
+	 *
+	 * @param x
+	 *            the x coordinate
+	 * @param y
+	 *            the y coordinate
+	 * @return the index of the cell
+	 */
+	private int cell(final double x, final double y) {
+		return row(y) * columns + column(x);
+	}
+
+	/**
+	 * Returns the column containing the given abscissa, clamped to the grid.
+	 *
+	 * @param x
+	 *            the x coordinate
+	 * @return the column
+	 */
+	private int column(final double x) {
+		return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / cellSize)));
+	}
+
+	/**
+	 * Returns the row containing the given ordinate, clamped to the grid.
+	 *
+	 * @param y
+	 *            the y coordinate
+	 * @return the row
+	 */
+	private int row(final double y) {
+		return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / cellSize)));
+	}
+
+	/**
+	 * Returns the number of agents in the grid.
+	 *
+	 * @return the number of agents
+	 */
+	public int size() {
+		return agents.length;
+	}
+
+	/**
+	 * Visits the agents of the grid, other than the source, that are alive and whose euclidean distance to the source,
+	 * from their shape when the grid was built, is lower than or equal to the given distance.
+	 *
+	 * @param source
+	 *            the source of the query
+	 * @param distance
+	 *            the distance
+	 * @param visitor
+	 *            the visitor
+	 * @return false if the visitor has stopped the query, true otherwise
+	 */
+	public boolean visitWithin(final IAgent source, final double distance, final Visitor visitor) {
+		if (agents.length == 0) return true;
+		final Envelope3D env = source.getEnvelope();
+		final int c0 = column(env.getMinX() - distance - maxHalfWidth);
+		final int c1 = column(env.getMaxX() + distance + maxHalfWidth);
+		final int r0 = row(env.getMinY() - distance - maxHalfHeight);
+		final int r1 = row(env.getMaxY() + distance + maxHalfHeight);
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				final int cell = r * columns + c;
+				for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+					final IAgent candidate = agents[i];
+					if (candidate == source || candidate.dead()) { continue; }
+					if (source.euclidianDistanceTo(shapes[i]) <= distance && !visitor.visit(candidate)) return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Same as {@link #visitWithin(IAgent, double, Visitor)}, but visits the positions of the agents in the snapshot.
+	 *
+	 * @param source
+	 *            the source of the query
+	 * @param distance
+	 *            the distance
+	 * @param visitor
+	 *            the visitor
+	 */
+	public void visitIndicesWithin(final IAgent source, final double distance, final IndexVisitor visitor) {
+		if (agents.length == 0) return;
+		final Envelope3D env = source.getEnvelope();
+		final int c0 = column(env.getMinX() - distance - maxHalfWidth);
+		final int c1 = column(env.getMaxX() + distance + maxHalfWidth);
+		final int r0 = row(env.getMinY() - distance - maxHalfHeight);
+		final int r1 = row(env.getMaxY() + distance + maxHalfHeight);
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				final int cell = r * columns + c;
+				for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+					final IAgent candidate = agents[i];
+					if (candidate == source || candidate.dead()) { continue; }
+					if (source.euclidianDistanceTo(shapes[i]) <= distance) { visitor.visit(positions[i]); }
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,849 @@
+/*******************************************************************************************************
+ *
+ * BdiSnapshot.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.population.IPopulation;
+import gama.core.metamodel.shape.GamaPoint;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.core.util.GamaListFactory;
+import gama.core.util.GamaMapFactory;
+import gama.core.util.IList;
+import gama.core.util.IMap;
+import gaml.core.types.Types;
+
+/**
+ * A compact binary codec for the BDI state of a set of agents (see the {@code save_bdi_state} and
+ * {@code restore_bdi_state} actions of {@link SimpleBdiArchitecture}), used to checkpoint long simulations and to
+ * restore them in order to explore alternative scenarios.
+ *
+ * For each agent, the snapshot contains its personality (the float attributes of the architecture), its belief,
+ * desire, intention, obligation, uncertainty and ideal bases, its emotion and social link bases and the names of its
+ * current plan and norm. The plans, norms, sanctions and laws are not saved, as they are defined by the species.
+ *
+ * The format is made to be written and read quickly:
+ * <ul>
+ * <li>each string (e.g. the names of the predicates and of their values) is only written once, and then referred to by
+ * its position in the table of the strings already written;</li>
+ * <li>the mental states, predicates and emotions are written once, and then referred to by their position in the table
+ * of the objects already written, which also keeps the links between the intentions and their subintentions;</li>
+ * <li>the agents are referred to by the name of their species and their index, followed by a reference to their host
+ * for the agents of micro-species, and are found again, when the snapshot is restored, in the populations of the
+ * simulation or of their host (the agents that cannot be found are replaced by nil).</li>
+ * </ul>
+ * The values of the predicates can be nil, booleans, integers, floats, strings, points, agents, lists, maps,
+ * predicates, mental states and emotions.
+ */
+@SuppressWarnings ("unchecked")
+public class BdiSnapshot {
+
+	/** The first bytes of a snapshot ("BDI" followed by the version). */
+	private static final int MAGIC = 0x42444902;
+
+	/** The float attributes saved with each agent. */
+	private static final String[] PERSONALITY = { SimpleBdiArchitecture.PERSISTENCE_COEFFICIENT_PLANS,
+			SimpleBdiArchitecture.PERSISTENCE_COEFFICIENT_INTENTIONS, SimpleBdiArchitecture.OBEDIENCE,
+			SimpleBdiArchitecture.CHARISMA, SimpleBdiArchitecture.RECEPTIVITY, SimpleBdiArchitecture.OPENNESS,
+			SimpleBdiArchitecture.CONSCIENTIOUSNESS, SimpleBdiArchitecture.EXTRAVERSION,
+			SimpleBdiArchitecture.AGREEABLENESS, SimpleBdiArchitecture.NEUROTISM };
+
+	/** The bases of mental states saved with each agent. */
+	private static final String[] BASES = { SimpleBdiArchitecture.BELIEF_BASE, SimpleBdiArchitecture.DESIRE_BASE,
+			SimpleBdiArchitecture.INTENTION_BASE, SimpleBdiArchitecture.OBLIGATION_BASE,
+			SimpleBdiArchitecture.UNCERTAINTY_BASE, SimpleBdiArchitecture.IDEAL_BASE };
+
+	/** The tags of the objects that can be shared. */
+	private static final int NIL = 0, REFERENCE = 1, NEW = 2;
+
+	/** The tags of the values. */
+	private static final int V_NIL = 0, V_FALSE = 1, V_TRUE = 2, V_INT = 3, V_FLOAT = 4, V_STRING = 5, V_POINT = 6,
+			V_AGENT = 7, V_LIST = 8, V_MAP = 9, V_PREDICATE = 10, V_MENTAL_STATE = 11, V_EMOTION = 12;
+
+	/**
+	 * Writes the BDI state of agents.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param agents
+	 *            the agents (the dead ones are ignored)
+	 * @param stream
+	 *            the stream, which is not closed
+	 * @return the number of agents written
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static int write(final IScope scope, final List<? extends IAgent> agents, final OutputStream stream)
+			throws IOException {
+		final Encoder encoder = new Encoder(scope, new DataOutputStream(stream));
+		final List<IAgent> alive = new ArrayList<>(agents.size());
+		for (final IAgent agent : agents) {
+			if (agent != null && !agent.dead()) { alive.add(agent); }
+		}
+		encoder.out.writeInt(MAGIC);
+		encoder.writeSize(alive.size());
+		for (final IAgent agent : alive) {
+			encoder.writeAgentState(agent);
+		}
+		encoder.out.flush();
+		return alive.size();
+	}
+
+	/**
+	 * Reads a snapshot and restores the BDI state of the agents it contains.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param stream
+	 *            the stream, which is not closed
+	 * @return the number of agents restored
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static int read(final IScope scope, final InputStream stream) throws IOException {
+		final Decoder decoder = new Decoder(scope, new DataInputStream(stream));
+		if (decoder.in.readInt() != MAGIC)
+			throw GamaRuntimeException.error("This file does not contain a BDI snapshot", scope);
+		final int n = decoder.readSize();
+		int restored = 0;
+		for (int i = 0; i < n; i++) {
+			if (decoder.readAgentState()) { restored++; }
+		}
+		return restored;
+	}
+
+	/**
+	 * The writer of a snapshot.
+	 */
+	private static class Encoder {
+
+		/** The scope. */
+		final IScope scope;
+
+		/** The stream. */
+		final DataOutputStream out;
+
+		/** The strings already written, with their position. */
+		final Map<String, Integer> strings = new HashMap<>();
+
+		/** The mental states, predicates and emotions already written, with their position. */
+		final Map<Object, Integer> objects = new IdentityHashMap<>();
+
+		/**
+		 * Instantiates a new encoder.
+		 *
+		 * @param scope
+		 *            the scope
+		 * @param out
+		 *            the stream
+		 */
+		Encoder(final IScope scope, final DataOutputStream out) {
+			this.scope = scope;
+			this.out = out;
+		}
+
+		/**
+		 * Writes the BDI state of an agent.
+		 *
+		 * @param agent
+		 *            the agent
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeAgentState(final IAgent agent) throws IOException {
+			writeAgent(agent);
+			for (final String attribute : PERSONALITY) {
+				out.writeDouble(gaml.core.operators.Cast.asFloat(scope, agent.getAttribute(attribute)));
+			}
+			for (final String base : BASES) {
+				writeMentalStates((List<MentalState>) agent.getAttribute(base));
+			}
+			final List<Emotion> emotions = (List<Emotion>) agent.getAttribute(SimpleBdiArchitecture.EMOTION_BASE);
+			writeSize(emotions == null ? 0 : emotions.size());
+			if (emotions != null) {
+				for (final Emotion emotion : emotions) {
+					writeEmotion(emotion);
+				}
+			}
+			final List<SocialLink> links = (List<SocialLink>) agent.getAttribute(SimpleBdiArchitecture.SOCIALLINK_BASE);
+			writeSize(links == null ? 0 : links.size());
+			if (links != null) {
+				for (final SocialLink link : links) {
+					writeSocialLink(link);
+				}
+			}
+			writeString(agent.getAttribute(SimpleBdiArchitecture.CURRENT_PLAN) instanceof BDIPlan plan
+					? plan.getName() : null);
+			writeString(agent.getAttribute(SimpleBdiArchitecture.CURRENT_NORM) instanceof Norm norm ? norm.getName()
+					: null);
+		}
+
+		/**
+		 * Writes a positive integer on 1 to 5 bytes.
+		 *
+		 * @param size
+		 *            the integer
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeSize(final int size) throws IOException {
+			int value = size;
+			while ((value & ~0x7F) != 0) {
+				out.writeByte(value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+
+		/**
+		 * Writes a string, or its position if it has already been written.
+		 *
+		 * @param string
+		 *            the string (possibly null)
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeString(final String string) throws IOException {
+			if (string == null) {
+				writeSize(0);
+				return;
+			}
+			final Integer position = strings.get(string);
+			if (position != null) {
+				writeSize(position + 2);
+				return;
+			}
+			strings.put(string, strings.size());
+			writeSize(1);
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeSize(bytes.length);
+			out.write(bytes);
+		}
+
+		/**
+		 * Writes a nullable float.
+		 *
+		 * @param value
+		 *            the value
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeDouble(final Double value) throws IOException {
+			out.writeBoolean(value != null);
+			if (value != null) { out.writeDouble(value); }
+		}
+
+		/**
+		 * Writes a reference to an agent.
+		 *
+		 * @param agent
+		 *            the agent (possibly null or dead, in which case nil is written)
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeAgent(final IAgent agent) throws IOException {
+			if (agent == null || agent.dead()) {
+				writeString(null);
+				return;
+			}
+			writeString(agent.getSpeciesName());
+			writeSize(agent.getIndex());
+			// The agents of micro-species are found in the population of their host
+			final IAgent host = agent.getHost();
+			final boolean micro = agent != scope.getSimulation() && host != null && host != scope.getSimulation();
+			out.writeBoolean(micro);
+			if (micro) { writeAgent(host); }
+		}
+
+		/**
+		 * Writes the tag of an object that can be shared, and registers it if it has not been written yet.
+		 *
+		 * @param object
+		 *            the object
+		 * @return true, if the content of the object must then be written
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		boolean writeTag(final Object object) throws IOException {
+			if (object == null) {
+				writeSize(NIL);
+				return false;
+			}
+			final Integer position = objects.get(object);
+			if (position != null) {
+				writeSize(REFERENCE);
+				writeSize(position);
+				return false;
+			}
+			objects.put(object, objects.size());
+			writeSize(NEW);
+			return true;
+		}
+
+		/**
+		 * Writes a list of mental states.
+		 *
+		 * @param list
+		 *            the list (possibly null)
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeMentalStates(final List<MentalState> list) throws IOException {
+			if (list == null) {
+				writeSize(0);
+				return;
+			}
+			writeSize(list.size() + 1);
+			for (final MentalState mental : list) {
+				writeMentalState(mental);
+			}
+		}
+
+		/**
+		 * Writes a mental state.
+		 *
+		 * @param mental
+		 *            the mental state
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeMentalState(final MentalState mental) throws IOException {
+			if (!writeTag(mental)) return;
+			writeString(mental.modality);
+			writePredicate(mental.predicate);
+			writeMentalState(mental.mental);
+			writeEmotion(mental.emo);
+			writeDouble(mental.strength);
+			out.writeInt(mental.lifetime);
+			out.writeBoolean(mental.isUpdated);
+			writeAgent(mental.owner);
+			writeMentalStates(mental.onHoldUntil);
+			writeMentalStates(mental.subintentions);
+			writeMentalState(mental.superIntention);
+		}
+
+		/**
+		 * Writes a predicate.
+		 *
+		 * @param predicate
+		 *            the predicate
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writePredicate(final Predicate predicate) throws IOException {
+			if (!writeTag(predicate)) return;
+			writeString(predicate.name);
+			if (predicate.values == null) {
+				writeSize(0);
+			} else {
+				writeSize(predicate.values.size() + 1);
+				for (final Map.Entry<String, Object> entry : predicate.values.entrySet()) {
+					writeString(entry.getKey());
+					writeValue(entry.getValue());
+				}
+			}
+			writeDouble(predicate.date);
+			writeAgent(predicate.agentCause);
+			out.writeBoolean(predicate.everyPossibleValues);
+			out.writeBoolean(predicate.is_true);
+			out.writeBoolean(predicate.isUpdated);
+			out.writeBoolean(predicate.noAgentCause);
+			writeMentalStates(predicate.onHoldUntil);
+			writeMentalStates(predicate.subintentions);
+			writeMentalState(predicate.superIntention);
+		}
+
+		/**
+		 * Writes an emotion.
+		 *
+		 * @param emotion
+		 *            the emotion
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeEmotion(final Emotion emotion) throws IOException {
+			if (!writeTag(emotion)) return;
+			writeString(emotion.name);
+			writeDouble(emotion.intensity);
+			writePredicate(emotion.about);
+			writeDouble(emotion.decay);
+			writeAgent(emotion.agentCause);
+			writeAgent(emotion.owner);
+			out.writeBoolean(emotion.noAgentCause);
+			out.writeBoolean(emotion.noIntensity);
+			out.writeBoolean(emotion.noAbout);
+		}
+
+		/**
+		 * Writes a social link.
+		 *
+		 * @param link
+		 *            the social link
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeSocialLink(final SocialLink link) throws IOException {
+			writeAgent(link.agent);
+			writeDouble(link.liking);
+			writeDouble(link.dominance);
+			writeDouble(link.solidarity);
+			writeDouble(link.familiarity);
+			writeDouble(link.trust);
+			out.writeByte((Boolean.TRUE.equals(link.noLiking) ? 1 : 0) | (Boolean.TRUE.equals(link.noDominance) ? 2 : 0)
+					| (Boolean.TRUE.equals(link.noSolidarity) ? 4 : 0)
+					| (Boolean.TRUE.equals(link.noFamiliarity) ? 8 : 0) | (Boolean.TRUE.equals(link.noTrust) ? 16 : 0));
+		}
+
+		/**
+		 * Writes a value of a predicate.
+		 *
+		 * @param value
+		 *            the value
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeValue(final Object value) throws IOException {
+			if (value == null) {
+				writeSize(V_NIL);
+			} else if (value instanceof Boolean b) {
+				writeSize(b ? V_TRUE : V_FALSE);
+			} else if (value instanceof Integer i) {
+				writeSize(V_INT);
+				out.writeInt(i);
+			} else if (value instanceof Double d) {
+				writeSize(V_FLOAT);
+				out.writeDouble(d);
+			} else if (value instanceof String s) {
+				writeSize(V_STRING);
+				writeString(s);
+			} else if (value instanceof GamaPoint p) {
+				writeSize(V_POINT);
+				out.writeDouble(p.getX());
+				out.writeDouble(p.getY());
+				out.writeDouble(p.getZ());
+			} else if (value instanceof IAgent a) {
+				writeSize(V_AGENT);
+				writeAgent(a);
+			} else if (value instanceof Predicate p) {
+				writeSize(V_PREDICATE);
+				writePredicate(p);
+			} else if (value instanceof MentalState m) {
+				writeSize(V_MENTAL_STATE);
+				writeMentalState(m);
+			} else if (value instanceof Emotion e) {
+				writeSize(V_EMOTION);
+				writeEmotion(e);
+			} else if (value instanceof IMap<?, ?> m) {
+				writeSize(V_MAP);
+				writeSize(m.size());
+				for (final Map.Entry<?, ?> entry : m.entrySet()) {
+					writeValue(entry.getKey());
+					writeValue(entry.getValue());
+				}
+			} else if (value instanceof IList<?> l) {
+				writeSize(V_LIST);
+				writeSize(l.size());
+				for (final Object o : l) {
+					writeValue(o);
+				}
+			} else
+				throw GamaRuntimeException.error("The value " + value + " of type "
+						+ value.getClass().getSimpleName() + " cannot be saved in a BDI snapshot", scope);
+		}
+
+	}
+
+	/**
+	 * The reader of a snapshot.
+	 */
+	private static class Decoder {
+
+		/** The scope. */
+		final IScope scope;
+
+		/** The stream. */
+		final DataInputStream in;
+
+		/** The strings already read, in order. */
+		final List<String> strings = new ArrayList<>();
+
+		/** The mental states, predicates and emotions already read, in order. */
+		final List<Object> objects = new ArrayList<>();
+
+		/** The agents of the populations already looked for, by index. */
+		final Map<IPopulation<? extends IAgent>, Map<Integer, IAgent>> populations = new IdentityHashMap<>();
+
+		/**
+		 * Instantiates a new decoder.
+		 *
+		 * @param scope
+		 *            the scope
+		 * @param in
+		 *            the stream
+		 */
+		Decoder(final IScope scope, final DataInputStream in) {
+			this.scope = scope;
+			this.in = in;
+		}
+
+		/**
+		 * Reads the BDI state of an agent and restores it.
+		 *
+		 * @return true, if the agent has been found and restored
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		boolean readAgentState() throws IOException {
+			final IAgent agent = readAgent();
+			final double[] personality = new double[PERSONALITY.length];
+			for (int i = 0; i < personality.length; i++) {
+				personality[i] = in.readDouble();
+			}
+			final List<IList<MentalState>> bases = new ArrayList<>(BASES.length);
+			for (final String base : BASES) {
+				bases.add(readMentalStates());
+			}
+			final IList<Emotion> emotions = GamaListFactory.create(Types.get(EmotionType.EMOTIONTYPE_ID));
+			for (int i = readSize(); i > 0; i--) {
+				emotions.add(readEmotion());
+			}
+			final IList<SocialLink> links = GamaListFactory.create(Types.get(SocialLinkType.id));
+			for (int i = readSize(); i > 0; i--) {
+				links.add(readSocialLink());
+			}
+			final String plan = readString();
+			final String norm = readString();
+			if (agent == null) return false;
+
+			for (int i = 0; i < personality.length; i++) {
+				agent.setAttribute(PERSONALITY[i], personality[i]);
+			}
+			for (int i = 0; i < BASES.length; i++) {
+				agent.setAttribute(BASES[i], bases.get(i) == null
+						? GamaListFactory.create(Types.get(MentalStateType.id)) : bases.get(i));
+			}
+			agent.setAttribute(SimpleBdiArchitecture.EMOTION_BASE, emotions);
+			agent.setAttribute(SimpleBdiArchitecture.SOCIALLINK_BASE, links);
+			agent.setAttribute(SimpleBdiArchitecture.CURRENT_PLAN,
+					find((List<BDIPlan>) agent.getAttribute(SimpleBdiArchitecture.PLAN_BASE), plan));
+			agent.setAttribute(SimpleBdiArchitecture.CURRENT_NORM,
+					find((List<Norm>) agent.getAttribute(SimpleBdiArchitecture.NORM_BASE), norm));
+			return true;
+		}
+
+		/**
+		 * Finds a plan or a norm by its name.
+		 *
+		 * @param list
+		 *            the plans or norms of the agent (possibly null)
+		 * @param name
+		 *            the name (possibly null)
+		 * @return the plan or norm, or null if it cannot be found
+		 */
+		Object find(final List<?> list, final String name) {
+			if (list == null || name == null) return null;
+			for (final Object o : list) {
+				if (o instanceof BDIPlan plan && name.equals(plan.getName())
+						|| o instanceof Norm n && name.equals(n.getName()))
+					return o;
+			}
+			return null;
+		}
+
+		/**
+		 * Reads a positive integer written on 1 to 5 bytes.
+		 *
+		 * @return the integer
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		int readSize() throws IOException {
+			int value = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = in.readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		/**
+		 * Reads a string.
+		 *
+		 * @return the string (possibly null)
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		String readString() throws IOException {
+			final int tag = readSize();
+			if (tag == 0) return null;
+			if (tag > 1) return strings.get(tag - 2);
+			final byte[] bytes = new byte[readSize()];
+			in.readFully(bytes);
+			final String string = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(string);
+			return string;
+		}
+
+		/**
+		 * Reads a nullable float.
+		 *
+		 * @return the value
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		Double readDouble() throws IOException {
+			return in.readBoolean() ? in.readDouble() : null;
+		}
+
+		/**
+		 * Reads a reference to an agent and finds it in the simulation.
+		 *
+		 * @return the agent, or null if it cannot be found
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		IAgent readAgent() throws IOException {
+			final String species = readString();
+			if (species == null) return null;
+			final int index = readSize();
+			final IAgent host = in.readBoolean() ? readAgent() : scope.getSimulation();
+			final IPopulation<? extends IAgent> population = host == null ? null : host.getPopulationFor(species);
+			if (population == null) return null;
+			final IAgent agent = populations.computeIfAbsent(population, this::indexPopulation).get(index);
+			return agent == null || agent.dead() ? null : agent;
+		}
+
+		/**
+		 * Indexes the agents of a population.
+		 *
+		 * @param population
+		 *            the population
+		 * @return the agents, by index
+		 */
+		Map<Integer, IAgent> indexPopulation(final IPopulation<? extends IAgent> population) {
+			final Map<Integer, IAgent> result = new HashMap<>();
+			for (final IAgent agent : population) {
+				result.put(agent.getIndex(), agent);
+			}
+			return result;
+		}
+
+		/**
+		 * Reads the tag of an object that can be shared.
+		 *
+		 * @return NIL, NEW, or the position of an object already read plus 3
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		int readTag() throws IOException {
+			final int tag = readSize();
+			if (tag == REFERENCE) return readSize() + 3;
+			return tag;
+		}
+
+		/**
+		 * Reads a list of mental states.
+		 *
+		 * @return the list (possibly null)
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		IList<MentalState> readMentalStates() throws IOException {
+			final int size = readSize();
+			if (size == 0) return null;
+			final IList<MentalState> result = GamaListFactory.create(Types.get(MentalStateType.id));
+			for (int i = 1; i < size; i++) {
+				result.add(readMentalState());
+			}
+			return result;
+		}
+
+		/**
+		 * Reads a mental state.
+		 *
+		 * @return the mental state
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		MentalState readMentalState() throws IOException {
+			final int tag = readTag();
+			if (tag == NIL) return null;
+			if (tag != NEW) return (MentalState) objects.get(tag - 3);
+			final MentalState mental = new MentalState();
+			objects.add(mental);
+			mental.modality = readString();
+			mental.predicate = readPredicate();
+			mental.mental = readMentalState();
+			mental.emo = readEmotion();
+			mental.strength = readDouble();
+			mental.lifetime = in.readInt();
+			mental.isUpdated = in.readBoolean();
+			mental.owner = readAgent();
+			mental.onHoldUntil = readMentalStates();
+			mental.subintentions = readMentalStates();
+			mental.superIntention = readMentalState();
+			return mental;
+		}
+
+		/**
+		 * Reads a predicate.
+		 *
+		 * @return the predicate
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		Predicate readPredicate() throws IOException {
+			final int tag = readTag();
+			if (tag == NIL) return null;
+			if (tag != NEW) return (Predicate) objects.get(tag - 3);
+			final Predicate predicate = new Predicate(readString());
+			objects.add(predicate);
+			final int size = readSize();
+			if (size > 0) {
+				predicate.values = GamaMapFactory.create(Types.STRING, Types.NO_TYPE, size - 1);
+				for (int i = 1; i < size; i++) {
+					final String key = readString();
+					predicate.values.put(key, readValue());
+				}
+			}
+			predicate.date = readDouble();
+			predicate.agentCause = readAgent();
+			predicate.everyPossibleValues = in.readBoolean();
+			predicate.is_true = in.readBoolean();
+			predicate.isUpdated = in.readBoolean();
+			predicate.noAgentCause = in.readBoolean();
+			predicate.onHoldUntil = readMentalStates();
+			predicate.subintentions = readMentalStates();
+			predicate.superIntention = readMentalState();
+			return predicate;
+		}
+
+		/**
+		 * Reads an emotion.
+		 *
+		 * @return the emotion
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		Emotion readEmotion() throws IOException {
+			final int tag = readTag();
+			if (tag == NIL) return null;
+			if (tag != NEW) return (Emotion) objects.get(tag - 3);
+			final Emotion emotion = new Emotion();
+			objects.add(emotion);
+			emotion.name = readString();
+			emotion.intensity = readDouble();
+			emotion.about = readPredicate();
+			emotion.decay = readDouble();
+			emotion.agentCause = readAgent();
+			emotion.owner = readAgent();
+			emotion.noAgentCause = in.readBoolean();
+			emotion.noIntensity = in.readBoolean();
+			emotion.noAbout = in.readBoolean();
+			return emotion;
+		}
+
+		/**
+		 * Reads a social link.
+		 *
+		 * @return the social link
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		SocialLink readSocialLink() throws IOException {
+			final SocialLink link = new SocialLink();
+			link.agent = readAgent();
+			link.liking = readDouble();
+			link.dominance = readDouble();
+			link.solidarity = readDouble();
+			link.familiarity = readDouble();
+			link.trust = readDouble();
+			final int flags = in.readUnsignedByte();
+			link.noLiking = (flags & 1) != 0;
+			link.noDominance = (flags & 2) != 0;
+			link.noSolidarity = (flags & 4) != 0;
+			link.noFamiliarity = (flags & 8) != 0;
+			link.noTrust = (flags & 16) != 0;
+			return link;
+		}
+
+		/**
+		 * Reads a value of a predicate.
+		 *
+		 * @return the value
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		Object readValue() throws IOException {
+			final int tag = readSize();
+			switch (tag) {
+				case V_NIL:
+					return null;
+				case V_FALSE:
+					return false;
+				case V_TRUE:
+					return true;
+				case V_INT:
+					return in.readInt();
+				case V_FLOAT:
+					return in.readDouble();
+				case V_STRING:
+					return readString();
+				case V_POINT:
+					return new GamaPoint(in.readDouble(), in.readDouble(), in.readDouble());
+				case V_AGENT:
+					return readAgent();
+				case V_PREDICATE:
+					return readPredicate();
+				case V_MENTAL_STATE:
+					return readMentalState();
+				case V_EMOTION:
+					return readEmotion();
+				case V_MAP: {
+					final int size = readSize();
+					final IMap<Object, Object> map = GamaMapFactory.create(Types.NO_TYPE, Types.NO_TYPE, size);
+					for (int i = 0; i < size; i++) {
+						final Object key = readValue();
+						map.put(key, readValue());
+					}
+					return map;
+				}
+				case V_LIST: {
+					final int size = readSize();
+					final IList<Object> list = GamaListFactory.create();
+					for (int i = 0; i < size; i++) {
+						list.add(readValue());
+					}
+					return list;
+				}
+				default:
+					throw GamaRuntimeException.error("Corrupted BDI snapshot (unknown value " + tag + ")", scope);
+			}
+		}
+
+	}
+
+}
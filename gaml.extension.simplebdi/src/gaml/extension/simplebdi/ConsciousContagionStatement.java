@@ -174,7 +174,8 @@ public class ConsciousContagionStatement extends AbstractStatement {
 							}
 						}
 						tempEmo.setIntensity(intensityValue);
-						SimpleBdiArchitecture.addEmotion(scopeMySelf, tempEmo);
+						SimpleBdiArchitectureParallel.writeOrDefer(scopeMySelf,
+								s -> SimpleBdiArchitecture.addEmotion(s, tempEmo));
 					}
 				}
 			}
@@ -0,0 +1,188 @@
+/*******************************************************************************************************
+ *
+ * ContagionKernel.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.runtime.GAMA;
+import gama.core.runtime.IScope;
+import gama.core.util.IList;
+
+/**
+ * The unconscious emotional contagion of a whole population in a single pass (see the {@code spread_emotion} action of
+ * {@link SimpleBdiArchitecture}), instead of one {@code emotional_contagion} statement per pair of agents.
+ *
+ * The contagion is computed in three phases:
+ * <ul>
+ * <li>the emotion, charisma and receptivity of the agents are read once into arrays, so that every receiver sees the
+ * emotions of the emitters as they were before the contagion (whereas, with the statements, an agent that has already
+ * been infected can in turn infect the agents that perceive it later in the same step);</li>
+ * <li>the emitters close enough to each receiver, and whose charisma is sufficient, are found in parallel, using an
+ * {@link AgentGrid} built over the emitters;</li>
+ * <li>the emotions are added to the receivers sequentially, in the order of the receivers and, for each receiver, in
+ * the order of the emitters, exactly as {@code emotional_contagion} does (same intensity, decay and cause, same merge
+ * with the emotions already in the base).</li>
+ * </ul>
+ */
+public class ContagionKernel {
+
+	/** The emotion to spread. */
+	private final Emotion emotion;
+
+	/** The minimal value of charisma * receptivity for the contagion to happen. */
+	private final double threshold;
+
+	/** The decay of the created emotions, or null to keep the one of the emitted emotions. */
+	private final Double decay;
+
+	/**
+	 * Instantiates a new contagion kernel.
+	 *
+	 * @param emotion
+	 *            the emotion to spread
+	 * @param threshold
+	 *            the threshold of the contagion
+	 * @param decay
+	 *            the decay of the created emotions (possibly null)
+	 */
+	public ContagionKernel(final Emotion emotion, final double threshold, final Double decay) {
+		this.emotion = emotion;
+		this.threshold = threshold;
+		this.decay = decay == null ? null : Math.max(0.0, Math.min(1.0, decay));
+	}
+
+	/**
+	 * Spreads the emotion from the emitters to the receivers located within the given distance.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param emitters
+	 *            the agents that can transmit the emotion
+	 * @param receivers
+	 *            the agents that can receive the emotion
+	 * @param distance
+	 *            the distance of the contagion
+	 * @return the number of receivers whose emotion base has been modified
+	 */
+	public int spread(final IScope scope, final List<IAgent> emitters, final List<IAgent> receivers,
+			final double distance) {
+		// Snapshot of the emitters: the ones that do not have the emotion are left out of the grid
+		final int m = emitters.size();
+		final Emotion[] emitted = new Emotion[m];
+		final double[] charisma = new double[m];
+		final List<IAgent> carriers = new ArrayList<>(m);
+		for (int k = 0; k < m; k++) {
+			final IAgent emitter = emitters.get(k);
+			emitted[k] = emitter == null || emitter.dead() ? null : emittedBy(emitter);
+			if (emitted[k] != null) {
+				charisma[k] = gaml.core.operators.Cast.asFloat(scope,
+						emitter.getAttribute(SimpleBdiArchitecture.CHARISMA));
+			}
+			carriers.add(emitted[k] == null ? null : emitter);
+		}
+		final AgentGrid grid = new AgentGrid(scope, carriers, distance);
+		if (grid.size() == 0) return 0;
+
+		// Snapshot of the receivers
+		final int n = receivers.size();
+		final double[] receptivity = new double[n];
+		for (int r = 0; r < n; r++) {
+			final IAgent receiver = receivers.get(r);
+			if (receiver != null && !receiver.dead()) {
+				receptivity[r] = gaml.core.operators.Cast.asFloat(scope,
+						receiver.getAttribute(SimpleBdiArchitecture.RECEPTIVITY));
+			}
+		}
+
+		// Neighbourhood queries, in parallel: for each receiver, the emitters that infect it, in the order of the emitters
+		final int[][] sources = new int[n][];
+		IntStream.range(0, n).parallel().forEach(r -> {
+			final IAgent receiver = receivers.get(r);
+			if (receiver == null || receiver.dead()) return;
+			final double rec = receptivity[r];
+			final int[][] buffer = { new int[Math.min(m, 8)] };
+			final int[] count = new int[1];
+			grid.visitIndicesWithin(receiver, distance, k -> {
+				if (charisma[k] * rec < threshold) return;
+				if (count[0] == buffer[0].length) { buffer[0] = Arrays.copyOf(buffer[0], 2 * count[0]); }
+				buffer[0][count[0]++] = k;
+			});
+			if (count[0] == 0) return;
+			final int[] result = Arrays.copyOf(buffer[0], count[0]);
+			Arrays.sort(result);
+			sources[r] = result;
+		});
+
+		// Updates of the emotion bases, sequentially
+		int updated = 0;
+		for (int r = 0; r < n; r++) {
+			if (sources[r] == null) { continue; }
+			final IAgent receiver = receivers.get(r);
+			final IScope receiverScope = receiver.getScope().copy("in ContagionKernel");
+			receiverScope.push(receiver);
+			try {
+				for (final int k : sources[r]) {
+					SimpleBdiArchitecture.addEmotion(receiverScope,
+							transmitted(scope, emitted[k], emitters.get(k), charisma[k] * receptivity[r]));
+				}
+			} finally {
+				GAMA.releaseScope(receiverScope);
+			}
+			updated++;
+		}
+		return updated;
+	}
+
+	/**
+	 * Returns the emotion of the base of the emitter that is equal to the emotion to spread.
+	 *
+	 * @param emitter
+	 *            the emitter
+	 * @return the emotion, or null if the emitter does not have it
+	 */
+	private Emotion emittedBy(final IAgent emitter) {
+		if (!(emitter.getAttribute(SimpleBdiArchitecture.EMOTION_BASE) instanceof IList<?> base)) return null;
+		for (final Object e : base) {
+			if (emotion.equals(e)) return (Emotion) e;
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the emotion received from an emitter, as {@code emotional_contagion} does.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param source
+	 *            the emotion of the emitter
+	 * @param emitter
+	 *            the emitter
+	 * @param factor
+	 *            the product of the charisma of the emitter and of the receptivity of the receiver
+	 * @return the received emotion
+	 */
+	private Emotion transmitted(final IScope scope, final Emotion source, final IAgent emitter, final double factor) {
+		final Emotion temp;
+		if (!source.getNoIntensity()) {
+			temp = new Emotion(source.getName(), source.getIntensity() * factor, source.getAbout(), source.getDecay());
+		} else {
+			temp = (Emotion) source.copy(scope);
+		}
+		temp.setAgentCause(emitter);
+		if (decay != null) { temp.setDecay(decay); }
+		return temp;
+	}
+
+}
@@ -69,13 +69,13 @@ public class Emotion implements IValue {
 	IAgent owner;
 	
 	/** The no agent cause. */
-	private boolean noAgentCause = true;
+	boolean noAgentCause = true;
 	
 	/** The no intensity. */
-	private boolean noIntensity = true;
+	boolean noIntensity = true;
 	
 	/** The no about. */
-	private boolean noAbout = true;
+	boolean noAbout = true;
 
 	/**
 	 * Gets the name.
@@ -152,6 +152,7 @@ public class Emotion implements IValue {
 	 * @param name the new name
 	 */
 	public void setName(final String name) {
+		if (this.name != null && !this.name.equals(name)) { EmotionBase.renamed(); }
 		this.name = name;
 	}
 
@@ -190,6 +191,7 @@ public class Emotion implements IValue {
 	 * @param ag the new agent cause
 	 */
 	public void setAgentCause(final IAgent ag) {
+		if (agentCause != null && agentCause != ag) { EmotionBase.renamed(); }
 		this.agentCause = ag;
 		this.noAgentCause = false;
 	}
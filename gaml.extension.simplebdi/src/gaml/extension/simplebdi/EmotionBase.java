@@ -0,0 +1,320 @@
+/*******************************************************************************************************
+ *
+ * EmotionBase.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.runtime.IScope;
+import gama.core.util.IList;
+
+/**
+ * An index over the emotion base of a simple_bdi agent. Like {@link MentalStateBase}, the base itself remains the
+ * GAML-visible {@link IList}, replaced by an equal {@link WatchedList} the first time it is modified through the
+ * architecture, so that the index follows its modifications. A stale index is only rebuilt by the paths of the running
+ * agent that modify its base ({@link #of(IScope, String)}). The queries only use it if it is up to date
+ * ({@link #current(IScope, String)}), which takes constant time, and never use the index of another agent.
+ *
+ * It keeps track of the emotions whose intensity can change or that must be removed (i.e. the ones with a decay, and the
+ * ones whose intensity has already dropped to 0), so that their intensity can be updated without sweeping the whole base
+ * (see {@link SimpleBdiArchitecture#USE_LIFETIME_SCHEDULER}). Its modifications are stamped by emotion name, in the
+ * same way as the ones of the mental state bases.
+ *
+ * It also groups the emotions by agent cause, in the order of the base, so that the update of a social link only visits
+ * the emotions caused by the agent of the link. The index becomes stale if an emotion of the base has been replaced,
+ * or if the name or the agent cause of an emotion has been changed in place, which is counted globally
+ * ({@link #renamed()}).
+ */
+public class EmotionBase implements WatchedList.Watcher<Emotion> {
+
+	/** The number of emotions whose name or agent cause has been changed in place. */
+	private static final AtomicLong RENAMES = new AtomicLong();
+
+	/** The indexed list. */
+	private final IList<Emotion> base;
+
+	/** The emotions of the base that had a decay (or no intensity left) when they were indexed. */
+	private final List<Emotion> decaying = new ArrayList<>();
+
+	/** The emotions of the base that have an agent cause, by cause, in the order of the base. */
+	private final Map<IAgent, List<Emotion>> byCause = new HashMap<>();
+
+	/** The key used for emotions that have no name. */
+	private static final String NO_NAME = "%no_name";
+
+	/** The stamp of the last modification of each emotion name. */
+	private final Map<String, Long> stamps = new HashMap<>();
+
+	/** The stamp of the last creation or rebuilding of the index. */
+	private long generation;
+
+	/** Whether the index follows the modifications of the list (false for the transient indexes of arguments). */
+	private final boolean watching;
+
+	/** Whether the list has been modified in a way the index could not follow. */
+	private boolean stale;
+
+	/** The value of {@link #RENAMES} when the index was last rebuilt. */
+	private long renames;
+
+	/**
+	 * Instantiates a new emotion base.
+	 *
+	 * @param base
+	 *            the base to index
+	 */
+	private EmotionBase(final IList<Emotion> base) {
+		this.base = base;
+		watching = base instanceof WatchedList;
+		if (watching) { ((WatchedList<Emotion>) base).setWatcher(this); }
+		rebuild();
+	}
+
+	/**
+	 * Returns the index of the given emotion base of the current agent, creating or rebuilding it if necessary. It must
+	 * only be used by the paths that modify the base: the queries use {@link #current(IScope, String)}.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @return the index, or null if the agent has no such base
+	 */
+	public static EmotionBase of(final IScope scope, final String basename) {
+		final IList<Emotion> list = SimpleBdiArchitecture.getEmotionBase(scope, basename);
+		if (list == null) return null;
+		if (list instanceof WatchedList<Emotion> watched && watched.getWatcher() instanceof EmotionBase index) {
+			if (!index.isSynchronized()) { index.rebuild(); }
+			return index;
+		}
+		// A base passed as argument that is not watched is only indexed for the duration of the call
+		if (scope.hasArg(basename) || list instanceof WatchedList) return new EmotionBase(list);
+		final WatchedList<Emotion> watched = new WatchedList<>(list.getGamlType().getContentType(), list);
+		scope.getAgent().setAttribute(basename, watched);
+		return new EmotionBase(watched);
+	}
+
+	/**
+	 * Returns the index of the given emotion base of the current agent if it exists and still reflects the list.
+	 * Unlike {@link #of(IScope, String)}, it never creates nor rebuilds the index.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @return the index, or null if the base is not indexed or is stale
+	 */
+	public static EmotionBase current(final IScope scope, final String basename) {
+		final IList<Emotion> list = SimpleBdiArchitecture.getEmotionBase(scope, basename);
+		if (list instanceof WatchedList<Emotion> watched && watched.getWatcher() instanceof EmotionBase index
+				&& index.isSynchronized())
+			return index;
+		return null;
+	}
+
+	/**
+	 * Checks if the intensity of the emotion can change or if the emotion must be removed at the next update.
+	 *
+	 * @param emo
+	 *            the emotion
+	 * @return true, if the emotion must be tracked
+	 */
+	private static boolean isDecaying(final Emotion emo) {
+		if (emo == null) return false;
+		final Double decay = emo.getDecay();
+		final Double intensity = emo.getIntensity();
+		return decay != null && decay != 0.0 || intensity != null && intensity <= 0 && intensity != -1.0;
+	}
+
+	/**
+	 * Records that the name or the agent cause of an emotion has been changed in place. The indexes that existed before
+	 * are no longer used until they are rebuilt.
+	 */
+	static void renamed() {
+		RENAMES.incrementAndGet();
+	}
+
+	/**
+	 * Checks if the index still reflects the list.
+	 *
+	 * @return true, if the index reflects the list
+	 */
+	private boolean isSynchronized() {
+		return watching && !stale && renames == RENAMES.get();
+	}
+
+	/**
+	 * Rebuilds the index from the list.
+	 */
+	private void rebuild() {
+		renames = RENAMES.get();
+		stale = false;
+		decaying.clear();
+		byCause.clear();
+		for (final Emotion emo : base) {
+			if (isDecaying(emo)) { decaying.add(emo); }
+			indexCause(emo);
+		}
+		generation = MentalStateBase.nextStamp();
+	}
+
+	@Override
+	public void added(final Emotion emo) {
+		if (stale) return;
+		if (isDecaying(emo)) { decaying.add(emo); }
+		indexCause(emo);
+		touch(emo);
+	}
+
+	@Override
+	public void removed(final Emotion emo) {
+		if (stale) return;
+		decaying.removeIf(e -> e == emo);
+		if (emo != null) { unindexCause(emo); }
+		touch(emo);
+	}
+
+	@Override
+	public void invalidated() {
+		stale = true;
+	}
+
+	/**
+	 * Stamps a modification of the emotions that have the name of the given emotion.
+	 *
+	 * @param emo
+	 *            the emotion
+	 */
+	private void touch(final Emotion emo) {
+		stamps.put(emo == null || emo.getName() == null ? NO_NAME : emo.getName(), MentalStateBase.nextStamp());
+	}
+
+	/**
+	 * Returns the stamp of the last modification of the emotions that have the given name.
+	 *
+	 * @param name
+	 *            the name of the emotion
+	 * @return the stamp
+	 */
+	public long stamp(final String name) {
+		final Long stamp = stamps.get(name == null ? NO_NAME : name);
+		return stamp == null ? generation : Math.max(generation, stamp);
+	}
+
+	/**
+	 * Indexes an emotion under its agent cause, if any.
+	 *
+	 * @param emo
+	 *            the emotion
+	 */
+	private void indexCause(final Emotion emo) {
+		if (emo == null || emo.getAgentCause() == null) return;
+		byCause.computeIfAbsent(emo.getAgentCause(), k -> new ArrayList<>(2)).add(emo);
+	}
+
+	/**
+	 * Removes an emotion from the index of the agent causes.
+	 *
+	 * @param emo
+	 *            the emotion
+	 */
+	private void unindexCause(final Emotion emo) {
+		final List<Emotion> caused = emo.getAgentCause() == null ? null : byCause.get(emo.getAgentCause());
+		if (caused != null && caused.removeIf(e -> e == emo)) {
+			if (caused.isEmpty()) { byCause.remove(emo.getAgentCause()); }
+			return;
+		}
+		// The cause has been changed in place
+		byCause.values().removeIf(list -> list.removeIf(e -> e == emo) && list.isEmpty());
+	}
+
+	/**
+	 * Returns the emotions of the base caused by the given agent, in the order of the base. The list must not be
+	 * modified.
+	 *
+	 * @param cause
+	 *            the agent cause (possibly null)
+	 * @return the emotions (possibly empty)
+	 */
+	public List<Emotion> causedBy(final IAgent cause) {
+		if (cause == null) return Collections.emptyList();
+		final List<Emotion> caused = byCause.get(cause);
+		return caused == null ? Collections.emptyList() : caused;
+	}
+
+	/**
+	 * Finds the first emotion of the base that is equal to the given one.
+	 *
+	 * @param emo
+	 *            the emotion to look for
+	 * @return the emotion of the base, or null
+	 */
+	public Emotion find(final Emotion emo) {
+		for (final Emotion candidate : base) {
+			if (candidate == emo || emo != null && emo.equals(candidate)) return candidate;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the emotion at the end of the base, replacing the first emotion equal to it if any.
+	 *
+	 * @param emo
+	 *            the emotion
+	 * @return true, if it has been added
+	 */
+	public boolean add(final Emotion emo) {
+		remove(emo);
+		base.add(emo);
+		if (!watching) { added(emo); }
+		return true;
+	}
+
+	/**
+	 * Removes the first emotion of the base equal to the given one.
+	 *
+	 * @param emo
+	 *            the emotion
+	 * @return true, if an emotion has been removed
+	 */
+	public boolean remove(final Emotion emo) {
+		final Emotion found = find(emo);
+		if (found == null) return false;
+		for (int i = 0, n = base.size(); i < n; i++) {
+			if (base.get(i) == found) {
+				base.remove(i);
+				break;
+			}
+		}
+		if (!watching) { removed(found); }
+		return true;
+	}
+
+	/**
+	 * Decays the intensity of the tracked emotions.
+	 *
+	 * @return the emotions whose intensity has dropped to 0 and that must be removed
+	 */
+	public List<Emotion> updateIntensities() {
+		final List<Emotion> expired = new ArrayList<>();
+		for (final Emotion emo : decaying) {
+			emo.decayIntensity();
+			if (emo.getIntensity() <= 0 && emo.getIntensity() != -1.0) { expired.add(emo); }
+		}
+		return expired;
+	}
+
+}
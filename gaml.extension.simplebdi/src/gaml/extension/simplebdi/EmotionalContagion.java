@@ -208,7 +208,8 @@ public class EmotionalContagion extends AbstractStatement {
 						if (intensityValue < 0.0) { intensityValue = 0.0; }
 					}
 					tempEmo.setIntensity(intensityValue);
-					SimpleBdiArchitecture.addEmotion(scopeMySelf, tempEmo);
+					SimpleBdiArchitectureParallel.writeOrDefer(scopeMySelf,
+							s -> SimpleBdiArchitecture.addEmotion(s, tempEmo));
 				} else {
 					final Emotion tempEmo =
 							SimpleBdiArchitecture.getEmotion(scope, (Emotion) emotionDetected.value(scope));
@@ -226,7 +227,9 @@ public class EmotionalContagion extends AbstractStatement {
 						if (decayValue < 0.0) { decayValue = 0.0; }
 						temp.setDecay(decayValue);
 					}
-					SimpleBdiArchitecture.addEmotion(scopeMySelf, temp);
+					final Emotion created = temp;
+					SimpleBdiArchitectureParallel.writeOrDefer(scopeMySelf,
+							s -> SimpleBdiArchitecture.addEmotion(s, created));
 				}
 			}
 		}
@@ -149,12 +149,15 @@ public class EnforcementStatement extends AbstractStatement {
 				scopeMySelf = mySelfAgent.getScope().copy("in EnforcementStatement");
 				scopeMySelf.push(mySelfAgent);
 			}
+			// The names of the sanction and of the reward are only evaluated once
+			final Object sanctionName = sanction == null ? null : sanction.value(scopeMySelf);
+			final Object rewardName = reward == null ? null : reward.value(scopeMySelf);
 			if (norm != null) {
 				// on recherche la norme avec le même nom chez l'autre et on regarde si elle est violée
 				Norm normToTest = null;
-				// Améliorable en temps de calcul
+				final Object normName = norm.value(scopeMySelf);
 				for (final Norm tempNorm : SimpleBdiArchitecture.getNorms(scope)) {
-					if (tempNorm.getName().equals(norm.value(scopeMySelf))) {
+					if (tempNorm.getName().equals(normName)) {
 						normToTest = tempNorm;
 					}
 				}
@@ -164,7 +167,7 @@ public class EnforcementStatement extends AbstractStatement {
 						Sanction sanctionToExecute = null;
 						// Améliorable en temps de calcul
 						for (final Sanction tempSanction : SimpleBdiArchitecture.getSanctions(scopeMySelf)) {
-							if (tempSanction.getName().equals(sanction.value(scopeMySelf))) {
+							if (tempSanction.getName().equals(sanctionName)) {
 								sanctionToExecute = tempSanction;
 							}
 						}
@@ -179,7 +182,7 @@ public class EnforcementStatement extends AbstractStatement {
 						Sanction rewardToExecute = null;
 						// Améliorable en temps de calcul
 						for (final Sanction tempReward : SimpleBdiArchitecture.getSanctions(scopeMySelf)) {
-							if (tempReward.getName().equals(reward.value(scopeMySelf))) {
+							if (tempReward.getName().equals(rewardName)) {
 								rewardToExecute = tempReward;
 							}
 						}
@@ -201,8 +204,8 @@ public class EnforcementStatement extends AbstractStatement {
 					// si ma norme en cours répond à l'obligation , reward, sinon punition.
 					Norm tempNorm = null;// new Norm ((NormStatement)scope.getAgent().getAttribute("CURRENT_NORM"));
 					for (final Norm testNorm : SimpleBdiArchitecture.getNorms(scope)) {
-						if (testNorm.getObligation(scope) != null
-								&& testNorm.getObligation(scope).equals(tempObligation.getPredicate())) {
+						final Predicate testObligation = testNorm.getObligation(scope);
+						if (testObligation != null && testObligation.equals(tempObligation.getPredicate())) {
 							tempNorm = testNorm;
 						}
 					}
@@ -216,7 +219,7 @@ public class EnforcementStatement extends AbstractStatement {
 							Sanction rewardToExecute = null;
 							// Améliorable en temps de calcul
 							for (final Sanction tempReward : SimpleBdiArchitecture.getSanctions(scopeMySelf)) {
-								if (tempReward.getName().equals(reward.value(scopeMySelf))) {
+								if (tempReward.getName().equals(rewardName)) {
 									rewardToExecute = tempReward;
 								}
 							}
@@ -238,7 +241,7 @@ public class EnforcementStatement extends AbstractStatement {
 								Sanction sanctionToExecute = null;
 								// Améliorable en temps de calcul
 								for (final Sanction tempSanction : SimpleBdiArchitecture.getSanctions(scopeMySelf)) {
-									if (tempSanction.getName().equals(sanction.value(scopeMySelf))) {
+									if (tempSanction.getName().equals(sanctionName)) {
 										sanctionToExecute = tempSanction;
 									}
 								}
@@ -259,9 +262,9 @@ public class EnforcementStatement extends AbstractStatement {
 				LawStatement lawToTest = null;
 				Double obedienceValue = (Double) scope.getAgent().getAttribute("obedience");
 				Boolean isViolated = true;
-				// Améliorable en temps de calcul
+				final Object lawName = law.value(scopeMySelf);
 				for (final LawStatement tempLaw : SimpleBdiArchitecture.getLaws(scope)) {
-					if (tempLaw.getName().equals(law.value(scopeMySelf))) {
+					if (tempLaw.getName().equals(lawName)) {
 						lawToTest = tempLaw;
 					}
 				}
@@ -284,7 +287,7 @@ public class EnforcementStatement extends AbstractStatement {
 									Sanction rewardToExecute = null;
 									// Améliorable en temps de calcul
 									for (final Sanction tempReward : SimpleBdiArchitecture.getSanctions(scopeMySelf)) {
-										if (tempReward.getName().equals(reward.value(scopeMySelf))) {
+										if (tempReward.getName().equals(rewardName)) {
 											rewardToExecute = tempReward;
 										}
 									}
@@ -301,7 +304,7 @@ public class EnforcementStatement extends AbstractStatement {
 									// Améliorable en temps de calcul
 									for (final Sanction tempSanction : SimpleBdiArchitecture
 											.getSanctions(scopeMySelf)) {
-										if (tempSanction.getName().equals(sanction.value(scopeMySelf))) {
+										if (tempSanction.getName().equals(sanctionName)) {
 											sanctionToExecute = tempSanction;
 										}
 									}
@@ -10,7 +10,6 @@
  ********************************************************************************************************/
 package gaml.extension.simplebdi;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import gama.core.annotations.common.interfaces.IKeyword;
@@ -240,16 +239,11 @@ public class LawStatement extends AbstractStatement {
 				tempBelief.setPredicate((Predicate) belief.value(scope));
 				has_belief = SimpleBdiArchitecture.hasBelief(scope, tempBelief);
 				if (has_belief) {
-					predBeliefList = new ArrayList<>();
-					for (final MentalState mental : SimpleBdiArchitecture.getBase(scope,
-							SimpleBdiArchitecture.BELIEF_BASE)) {
-						if (mental.getPredicate() != null && tempBelief.getPredicate().equals(mental.getPredicate())) {
-							predBeliefList.add(mental.getPredicate());
-						}
-					}
+					predBeliefList = MentalStateBase.matchingPredicates(scope,
+							SimpleBdiArchitecture.BELIEF_BASE, tempBelief);
 				}
 			}
-			if ((belief == null || SimpleBdiArchitecture.hasBelief(scope, tempBelief))
+			if (has_belief
 					&& (beliefs == null || hasBeliefs(scope, (List<Predicate>) beliefs.value(scope)))) {
 				if (threshold == null || obedienceValue >= (Double) threshold.value(scope)) {
 					if (newObligation != null) {
@@ -11,6 +11,7 @@
 package gaml.extension.simplebdi;
 
 import java.util.List;
+import java.util.Objects;
 
 import gama.core.annotations.precompiler.GamlAnnotations.doc;
 import gama.core.annotations.precompiler.GamlAnnotations.getter;
@@ -203,6 +204,9 @@ public class MentalState implements IValue {
 	 * @param pred the new predicate
 	 */
 	public void setPredicate(final Predicate pred) {
+		if (predicate != null && (pred == null || !Objects.equals(predicate.getName(), pred.getName()))) {
+			MentalStateBase.renamed();
+		}
 		this.predicate = pred;
 	}
 
@@ -0,0 +1,487 @@
+/*******************************************************************************************************
+ *
+ * MentalStateBase.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gama.core.runtime.IScope;
+import gama.core.util.IList;
+
+/**
+ * An index over one of the mental state bases (belief_base, desire_base, ...) of a simple_bdi agent. The base itself
+ * remains the GAML-visible {@link IList}: the index only partitions its elements by predicate name so that membership
+ * tests and name lookups only visit the mental states that can possibly match.
+ *
+ * Two mental states can only be equal if their predicates have the same name (or if they both have no predicate), so
+ * the partition is exact and the results are the same as the ones of a linear scan of the list. Values are not hashed
+ * because {@link Predicate#equals(Object)} only compares the keys shared by both predicates.
+ *
+ * The index watches the list it is built on (see {@link WatchedList}): the first time a base is modified through the
+ * architecture ({@link #of(IScope, String)}), it is replaced in the agent by an equal watched list, so that the index
+ * follows all its later modifications, including the ones made directly from GAML, without ever comparing the index
+ * with the list. Modifications that cannot be followed element by element (e.g. sorting the base) make the index stale,
+ * as does changing in place the name of a predicate or the predicate of a mental state (e.g. with the set_predicate
+ * operator), which is counted globally ({@link #renamed()}). Only the paths that modify the base rebuild a stale index:
+ * the queries ({@link #contains(IScope, String, MentalState)}, {@link #withName(IScope, String, String)}, ...) use it
+ * only if it is up to date, and otherwise scan the list as before, so that querying a base never modifies the agent.
+ * All these checks take constant time.
+ *
+ * It also keeps track of the mental states that have a finite lifetime, so that their lifetime can be updated without
+ * sweeping the whole base (see {@link SimpleBdiArchitecture#USE_LIFETIME_SCHEDULER}).
+ *
+ * Finally, each modification made through the index is stamped, per predicate name, with a value taken from a global
+ * clock, so that the rule network can tell whether the mental states a rule depends on may have changed since the rule
+ * was last evaluated (see {@link RuleNetwork}). Creating or rebuilding the index stamps every name at once.
+ */
+public class MentalStateBase implements WatchedList.Watcher<MentalState> {
+
+	/** The key used for mental states that have no predicate (mental states about mental states or emotions). */
+	private static final String NO_PREDICATE = "%no_predicate";
+
+	/** The clock used to stamp the modifications of the bases. Its values are shared by all the bases. */
+	private static final AtomicLong CLOCK = new AtomicLong();
+
+	/** The number of predicates renamed, or of mental states whose predicate has been replaced, in place. */
+	private static final AtomicLong RENAMES = new AtomicLong();
+
+	/** The indexed list. */
+	private final IList<MentalState> base;
+
+	/** The mental states, partitioned by predicate name, in the order of the list. */
+	private final Map<String, List<MentalState>> byName = new HashMap<>();
+
+	/** The mental states of the base that had a finite lifetime when they were indexed. */
+	private final List<MentalState> expiring = new ArrayList<>();
+
+	/** The stamp of the last modification of each predicate name. */
+	private final Map<String, Long> stamps = new HashMap<>();
+
+	/** The stamp of the last creation or rebuilding of the index. */
+	private long generation;
+
+	/** The stamp of the last modification of the base. */
+	private long modification;
+
+	/** Whether the index follows the modifications of the list (false for the transient indexes of arguments). */
+	private final boolean watching;
+
+	/** Whether the list has been modified in a way the index could not follow. */
+	private boolean stale;
+
+	/** The value of {@link #RENAMES} when the index was last rebuilt. */
+	private long renames;
+
+	/**
+	 * Instantiates a new mental state base.
+	 *
+	 * @param base
+	 *            the base to index
+	 */
+	private MentalStateBase(final IList<MentalState> base) {
+		this.base = base;
+		watching = base instanceof WatchedList;
+		if (watching) { ((WatchedList<MentalState>) base).setWatcher(this); }
+		rebuild();
+	}
+
+	/**
+	 * Returns the index of the given base of the current agent, creating or rebuilding it if necessary. It must only be
+	 * used by the paths that modify the base: the queries use {@link #current(IScope, String)}.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @return the index, or null if the agent has no such base
+	 */
+	public static MentalStateBase of(final IScope scope, final String basename) {
+		final IList<MentalState> list = SimpleBdiArchitecture.getBase(scope, basename);
+		if (list == null) return null;
+		if (list instanceof WatchedList<MentalState> watched && watched.getWatcher() instanceof MentalStateBase index) {
+			if (!index.isSynchronized()) { index.rebuild(); }
+			return index;
+		}
+		// A base passed as argument that is not watched is only indexed for the duration of the call
+		if (scope.hasArg(basename) || list instanceof WatchedList) return new MentalStateBase(list);
+		final WatchedList<MentalState> watched = new WatchedList<>(list.getGamlType().getContentType(), list);
+		scope.getAgent().setAttribute(basename, watched);
+		return new MentalStateBase(watched);
+	}
+
+	/**
+	 * Returns the index of the given base of the current agent if it exists and still reflects the list. Unlike
+	 * {@link #of(IScope, String)}, it never creates nor rebuilds the index.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @return the index, or null if the base is not indexed or is stale
+	 */
+	public static MentalStateBase current(final IScope scope, final String basename) {
+		final IList<MentalState> list = SimpleBdiArchitecture.getBase(scope, basename);
+		if (list instanceof WatchedList<MentalState> watched && watched.getWatcher() instanceof MentalStateBase index
+				&& index.isSynchronized())
+			return index;
+		return null;
+	}
+
+	/**
+	 * Checks if the given base of the current agent contains a mental state equal to the given one.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @param mental
+	 *            the mental state
+	 * @return true, if successful
+	 */
+	public static boolean contains(final IScope scope, final String basename, final MentalState mental) {
+		final MentalStateBase index = current(scope, basename);
+		if (index != null) return index.contains(mental);
+		final IList<MentalState> list = SimpleBdiArchitecture.getBase(scope, basename);
+		return list != null && list.contains(mental);
+	}
+
+	/**
+	 * Returns the mental states of the given base of the current agent whose predicate has the given name, in the
+	 * order of the base.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @param name
+	 *            the name of the predicate
+	 * @return an unmodifiable list (possibly empty)
+	 */
+	public static List<MentalState> withName(final IScope scope, final String basename, final String name) {
+		final MentalStateBase index = current(scope, basename);
+		if (index != null) return index.withName(name);
+		final IList<MentalState> list = SimpleBdiArchitecture.getBase(scope, basename);
+		if (name == null || list == null) return Collections.emptyList();
+		final List<MentalState> result = new ArrayList<>();
+		for (final MentalState mental : list) {
+			if (mental.getPredicate() != null && name.equals(mental.getPredicate().getName())) { result.add(mental); }
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns the first mental state of the given base of the current agent whose predicate has the given name.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @param name
+	 *            the name of the predicate
+	 * @return the mental state, or null
+	 */
+	public static MentalState firstWithName(final IScope scope, final String basename, final String name) {
+		final MentalStateBase index = current(scope, basename);
+		if (index != null) return index.firstWithName(name);
+		final IList<MentalState> list = SimpleBdiArchitecture.getBase(scope, basename);
+		if (name == null || list == null) return null;
+		for (final MentalState mental : list) {
+			if (mental.getPredicate() != null && name.equals(mental.getPredicate().getName())) return mental;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the predicates of the given base of the current agent that are equal to the predicate of the given
+	 * mental state.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param basename
+	 *            the name of the base
+	 * @param mental
+	 *            the mental state
+	 * @return the list of predicates (possibly empty)
+	 */
+	public static List<Predicate> matchingPredicates(final IScope scope, final String basename,
+			final MentalState mental) {
+		final MentalStateBase index = current(scope, basename);
+		if (index != null) return index.matchingPredicates(mental);
+		final List<Predicate> result = new ArrayList<>();
+		final IList<MentalState> list = SimpleBdiArchitecture.getBase(scope, basename);
+		if (mental == null || mental.getPredicate() == null || list == null) return result;
+		for (final MentalState candidate : list) {
+			if (candidate.getPredicate() != null && mental.getPredicate().equals(candidate.getPredicate())) {
+				result.add(candidate.getPredicate());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the key under which a mental state is indexed.
+	 *
+	 * @param mental
+	 *            the mental state
+	 * @return the key
+	 */
+	private static String keyOf(final MentalState mental) {
+		if (mental == null || mental.getPredicate() == null || mental.getPredicate().getName() == null)
+			return NO_PREDICATE;
+		return mental.getPredicate().getName();
+	}
+
+	/**
+	 * Returns a new stamp, greater than all the stamps returned before.
+	 *
+	 * @return the stamp
+	 */
+	static long nextStamp() {
+		return CLOCK.incrementAndGet();
+	}
+
+	/**
+	 * Records that the name of a predicate, or the predicate of a mental state, has been changed in place. The indexes
+	 * that existed before are no longer used until they are rebuilt.
+	 */
+	static void renamed() {
+		RENAMES.incrementAndGet();
+	}
+
+	/**
+	 * Checks if the index still reflects the list.
+	 *
+	 * @return true, if the index reflects the list
+	 */
+	private boolean isSynchronized() {
+		return watching && !stale && renames == RENAMES.get();
+	}
+
+	/**
+	 * Rebuilds the index from the list.
+	 */
+	private void rebuild() {
+		renames = RENAMES.get();
+		stale = false;
+		byName.clear();
+		expiring.clear();
+		for (final MentalState mental : base) {
+			byName.computeIfAbsent(keyOf(mental), k -> new ArrayList<>()).add(mental);
+			if (mental != null && mental.getLifeTime() >= 0) { expiring.add(mental); }
+		}
+		generation = modification = nextStamp();
+	}
+
+	@Override
+	public void added(final MentalState mental) {
+		if (stale) return;
+		byName.computeIfAbsent(keyOf(mental), k -> new ArrayList<>()).add(mental);
+		if (mental != null && mental.getLifeTime() >= 0) { expiring.add(mental); }
+		touch(keyOf(mental));
+	}
+
+	@Override
+	public void removed(final MentalState mental) {
+		if (stale) return;
+		final String key = keyOf(mental);
+		final List<MentalState> candidates = byName.get(key);
+		if (candidates == null || !candidates.removeIf(m -> m == mental)) {
+			// The predicate has been renamed in place
+			stale = true;
+			return;
+		}
+		if (candidates.isEmpty()) { byName.remove(key); }
+		expiring.removeIf(m -> m == mental);
+		touch(key);
+	}
+
+	@Override
+	public void invalidated() {
+		stale = true;
+	}
+
+	/**
+	 * Stamps a modification of the mental states indexed under the given key.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	private void touch(final String key) {
+		modification = nextStamp();
+		stamps.put(key, modification);
+	}
+
+	/**
+	 * Returns the stamp of the last modification of the base.
+	 *
+	 * @return the stamp
+	 */
+	public long stamp() {
+		return modification;
+	}
+
+	/**
+	 * Returns the stamp of the last modification of the mental states whose predicate has the given name. It only
+	 * increases as long as the index is used, and it is greater than any stamp returned before by another index.
+	 *
+	 * @param name
+	 *            the name of the predicate
+	 * @return the stamp
+	 */
+	public long stamp(final String name) {
+		final Long stamp = stamps.get(name == null ? NO_PREDICATE : name);
+		return stamp == null ? generation : Math.max(generation, stamp);
+	}
+
+	/**
+	 * Finds the first mental state of the base that is equal to the given one.
+	 *
+	 * @param mental
+	 *            the mental state to look for
+	 * @return the mental state of the base, or null
+	 */
+	public MentalState find(final MentalState mental) {
+		final List<MentalState> candidates = byName.get(keyOf(mental));
+		if (candidates == null) return null;
+		for (final MentalState candidate : candidates) {
+			if (candidate == mental || mental != null && mental.equals(candidate)) return candidate;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the base contains a mental state equal to the given one.
+	 *
+	 * @param mental
+	 *            the mental state
+	 * @return true, if successful
+	 */
+	public boolean contains(final MentalState mental) {
+		return find(mental) != null;
+	}
+
+	/**
+	 * Returns the mental states of the base whose predicate has the given name, in the order of the base.
+	 *
+	 * @param name
+	 *            the name of the predicate
+	 * @return an unmodifiable list (possibly empty)
+	 */
+	public List<MentalState> withName(final String name) {
+		if (name == null) return Collections.emptyList();
+		final List<MentalState> candidates = byName.get(name);
+		if (candidates == null) return Collections.emptyList();
+		return Collections.unmodifiableList(candidates);
+	}
+
+	/**
+	 * Returns the first mental state of the base whose predicate has the given name.
+	 *
+	 * @param name
+	 *            the name of the predicate
+	 * @return the mental state, or null
+	 */
+	public MentalState firstWithName(final String name) {
+		final List<MentalState> candidates = withName(name);
+		return candidates.isEmpty() ? null : candidates.get(0);
+	}
+
+	/**
+	 * Returns the predicates of the base that are equal to the predicate of the given mental state.
+	 *
+	 * @param mental
+	 *            the mental state
+	 * @return the list of predicates (possibly empty)
+	 */
+	public List<Predicate> matchingPredicates(final MentalState mental) {
+		final List<Predicate> result = new ArrayList<>();
+		if (mental == null || mental.getPredicate() == null) return result;
+		for (final MentalState candidate : withName(mental.getPredicate().getName())) {
+			if (candidate.getPredicate() != null && mental.getPredicate().equals(candidate.getPredicate())) {
+				result.add(candidate.getPredicate());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the mental state at the end of the base if it does not already contain an equal one.
+	 *
+	 * @param mental
+	 *            the mental state
+	 * @return true, if it has been added
+	 */
+	public boolean add(final MentalState mental) {
+		if (contains(mental)) return false;
+		base.add(mental);
+		if (!watching) { added(mental); }
+		return true;
+	}
+
+	/**
+	 * Removes the first mental state of the base equal to the given one.
+	 *
+	 * @param mental
+	 *            the mental state
+	 * @return true, if a mental state has been removed
+	 */
+	public boolean remove(final MentalState mental) {
+		final MentalState found = find(mental);
+		if (found == null) return false;
+		for (int i = 0, n = base.size(); i < n; i++) {
+			if (base.get(i) == found) {
+				base.remove(i);
+				break;
+			}
+		}
+		if (!watching) { removed(found); }
+		return true;
+	}
+
+	/**
+	 * Returns the mental states of the base that have a finite lifetime. The list must not be modified, and is only
+	 * valid until the base is modified.
+	 *
+	 * @return the list of these mental states
+	 */
+	public List<MentalState> expiring() {
+		return Collections.unmodifiableList(expiring);
+	}
+
+	/**
+	 * Decrements the lifetime of the mental states of the base that have a finite lifetime. Mental states whose
+	 * lifetime has been set back to infinite (-1) are no longer tracked. The index is rebuilt first if it has become
+	 * stale since it was obtained.
+	 *
+	 * @return the mental states whose lifetime has reached 0 and that must be removed
+	 */
+	public List<MentalState> updateLifetimes() {
+		if (watching && !isSynchronized()) { rebuild(); }
+		final List<MentalState> expired = new ArrayList<>();
+		final Iterator<MentalState> it = expiring.iterator();
+		while (it.hasNext()) {
+			final MentalState mental = it.next();
+			if (mental.getLifeTime() < 0) {
+				it.remove();
+				continue;
+			}
+			mental.updateLifetime();
+			if (mental.getLifeTime() == 0) { expired.add(mental); }
+		}
+		return expired;
+	}
+
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************************************
+ *
+ * NormStatistics.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.Arrays;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.runtime.IScope;
+import gama.core.util.GamaMapFactory;
+import gama.core.util.IMap;
+import gaml.core.types.Types;
+
+/**
+ * The counts of the norms tested for norm violation by the agents of a species during a cycle (see
+ * {@link SimpleBdiArchitecture#updateNormViolation(IScope)}), used to profile the models that use norms.
+ *
+ * The counts are kept by the simulation, one instance per species, so that the simulations of an experiment do not
+ * share them. The counts of the cycle being executed are accumulated apart from the ones of the last completed cycle,
+ * which are the only ones returned: a query made in the middle of a cycle never sees partial counts.
+ */
+public class NormStatistics {
+
+	/** The prefix of the simulation attributes holding the statistics of each species. */
+	private static final String PREFIX = "%norm_statistics_";
+
+	/** The index of the number of norms whose context has been evaluated. */
+	private static final int EVALUATED = 0;
+
+	/** The index of the number of norms whose intention and obligation did not match the current intention. */
+	private static final int SKIPPED = 1;
+
+	/** The index of the number of norms violated. */
+	private static final int VIOLATED = 2;
+
+	/** The index of the number of norms applied. */
+	private static final int APPLIED = 3;
+
+	/** The cycle of the counts being accumulated. */
+	private long cycle = -1;
+
+	/** The counts being accumulated. */
+	private final int[] counts = new int[4];
+
+	/** The cycle of the last completed counts. */
+	private long completedCycle = -1;
+
+	/** The last completed counts. */
+	private final int[] completed = new int[4];
+
+	/**
+	 * Returns the statistics of the species of the agent of the scope in its simulation, creating them if necessary.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the statistics
+	 */
+	public static NormStatistics of(final IScope scope) {
+		final IAgent simulation = scope.getSimulation();
+		final String key = PREFIX + scope.getAgent().getSpeciesName();
+		if (simulation.getAttribute(key) instanceof NormStatistics statistics) return statistics;
+		synchronized (simulation) {
+			if (simulation.getAttribute(key) instanceof NormStatistics statistics) return statistics;
+			final NormStatistics statistics = new NormStatistics();
+			simulation.setAttribute(key, statistics);
+			return statistics;
+		}
+	}
+
+	/**
+	 * Adds the counts of an agent.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param evaluatedByAgent
+	 *            the number of norms evaluated
+	 * @param skippedByAgent
+	 *            the number of norms skipped
+	 * @param violatedByAgent
+	 *            the number of norms violated
+	 * @param appliedByAgent
+	 *            the number of norms applied
+	 */
+	public synchronized void record(final IScope scope, final int evaluatedByAgent, final int skippedByAgent,
+			final int violatedByAgent, final int appliedByAgent) {
+		final long now = scope.getSimulation().getClock().getCycle();
+		if (now != cycle) {
+			if (cycle >= 0) { complete(); }
+			cycle = now;
+		}
+		counts[EVALUATED] += evaluatedByAgent;
+		counts[SKIPPED] += skippedByAgent;
+		counts[VIOLATED] += violatedByAgent;
+		counts[APPLIED] += appliedByAgent;
+	}
+
+	/**
+	 * Makes the counts being accumulated the last completed ones.
+	 */
+	private void complete() {
+		completedCycle = cycle;
+		System.arraycopy(counts, 0, completed, 0, counts.length);
+		Arrays.fill(counts, 0);
+	}
+
+	/**
+	 * Returns the counts of the last completed cycle as a map.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the map, with the keys cycle (-1 if no cycle has been completed yet), evaluated, skipped, violated and
+	 *         applied
+	 */
+	public synchronized IMap<String, Integer> toMap(final IScope scope) {
+		// The counts being accumulated are complete once the clock has moved to the next cycle
+		if (cycle >= 0 && cycle < scope.getSimulation().getClock().getCycle()) {
+			complete();
+			cycle = -1;
+		}
+		final IMap<String, Integer> result = GamaMapFactory.create(Types.STRING, Types.INT);
+		result.put("cycle", (int) completedCycle);
+		result.put("evaluated", completed[EVALUATED]);
+		result.put("skipped", completed[SKIPPED]);
+		result.put("violated", completed[VIOLATED]);
+		result.put("applied", completed[APPLIED]);
+		return result;
+	}
+
+}
@@ -11,7 +11,9 @@
 
 package gaml.extension.simplebdi;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import gama.core.annotations.common.interfaces.IKeyword;
 import gama.core.annotations.precompiler.IConcept;
@@ -148,6 +150,62 @@ public class PerceiveStatement extends AbstractStatementSequence {
 
 	/** The target. */
 	private final IExpression target = getFacet(IKeyword.TARGET);
+
+	/** The index of the target of the perception, shared by the perceiving agents during a cycle. */
+	private volatile TargetIndex targetIndex;
+
+	/**
+	 * The index of the agents of a target container during a cycle. The grid is only built the second time the same
+	 * container is perceived during the cycle: a target that yields a new container at each evaluation is never
+	 * indexed.
+	 */
+	private static final class TargetIndex {
+
+		/** The simulation. */
+		final Object simulation;
+
+		/** The cycle. */
+		final long cycle;
+
+		/** The target container. */
+		final Object target;
+
+		/** The grid of the agents of the container, or null if it has not been built yet. */
+		final AgentGrid grid;
+
+		/**
+		 * Instantiates a new target index.
+		 *
+		 * @param simulation
+		 *            the simulation
+		 * @param cycle
+		 *            the cycle
+		 * @param target
+		 *            the target container
+		 * @param grid
+		 *            the grid (possibly null)
+		 */
+		TargetIndex(final Object simulation, final long cycle, final Object target, final AgentGrid grid) {
+			this.simulation = simulation;
+			this.cycle = cycle;
+			this.target = target;
+			this.grid = grid;
+		}
+
+		/**
+		 * Checks if the index can be used for the given target during the current cycle.
+		 *
+		 * @param scope
+		 *            the scope
+		 * @param container
+		 *            the target container
+		 * @return true, if the index is up to date
+		 */
+		boolean isValid(final IScope scope, final Object container) {
+			return target == container && simulation == scope.getSimulation()
+					&& cycle == scope.getSimulation().getClock().getCycle();
+		}
+	}
 	// AD Dangerous as it may still contain a value after the execution. Better
 	// to use temp arrays
 	// private final Object[] result = new Object[1];
@@ -211,8 +269,14 @@ public class PerceiveStatement extends AbstractStatementSequence {
 				if (threshold == null || emotion != null && threshold != null && SimpleBdiArchitecture.getEmotion(scope,
 						(Emotion) emotion.value(scope)).intensity >= (Double) threshold.value(scope)) {
 					if (inArg instanceof Float || inArg instanceof Integer || inArg instanceof Double) {
-						IList temp = GamaListFactory.create();
 						final double dist = Cast.asFloat(scope, inArg);
+						final AgentGrid grid = obj instanceof IContainer && usePerceptionIndex(scope)
+								? getTargetIndex(scope, (IContainer) obj, dist) : null;
+						if (grid != null) {
+							grid.visitWithin(ag, dist, other -> scope.execute(sequence, other, null).passed());
+							return this;
+						}
+						IList temp = GamaListFactory.create();
 						if (obj instanceof IContainer) {
 							temp = gaml.core.operators.Spatial.Queries.at_distance(scope, (IContainer) obj,
 									Cast.asFloat(scope, inArg));
@@ -250,6 +314,54 @@ public class PerceiveStatement extends AbstractStatementSequence {
 
 	}
 
+	/**
+	 * Checks if the perceiving agent uses the perception index.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return true, if the targets are looked up in an index shared by the perceiving agents
+	 */
+	private boolean usePerceptionIndex(final IScope scope) {
+		final Object use = scope.getAgent().getAttribute(SimpleBdiArchitecture.USE_PERCEPTION_INDEX);
+		return use instanceof Boolean b && b;
+	}
+
+	/**
+	 * Returns the index of the agents of the target container for the current cycle, building it if the container is
+	 * perceived for the second time in the cycle. The index holds the agents of the container, and their shapes, when
+	 * it is built.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param container
+	 *            the target container
+	 * @param dist
+	 *            the distance of perception, used as the size of the cells
+	 * @return the grid of the agents of the container, or null if the targets must be looked up without index
+	 */
+	private AgentGrid getTargetIndex(final IScope scope, final IContainer container, final double dist) {
+		TargetIndex index = targetIndex;
+		if (index != null && index.grid != null && index.isValid(scope, container)) return index.grid;
+		synchronized (this) {
+			index = targetIndex;
+			final long cycle = scope.getSimulation().getClock().getCycle();
+			if (index == null || !index.isValid(scope, container)) {
+				// First perception of this container during the cycle
+				targetIndex = new TargetIndex(scope.getSimulation(), cycle, container, null);
+				return null;
+			}
+			if (index.grid == null) {
+				final List<IAgent> snapshot = new ArrayList<>();
+				for (final Object o : container.iterable(scope)) {
+					if (o instanceof IAgent) { snapshot.add((IAgent) o); }
+				}
+				index = new TargetIndex(scope.getSimulation(), cycle, container, new AgentGrid(scope, snapshot, dist));
+				targetIndex = index;
+			}
+			return index.grid;
+		}
+	}
+
 	/**
 	 * Transform agent to list.
 	 *
@@ -0,0 +1,136 @@
+/*******************************************************************************************************
+ *
+ * PlanIndex.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gama.core.runtime.IScope;
+import gaml.core.expressions.IExpression;
+
+/**
+ * An index of the plans (or norms) of a species by the name of the predicate of their intention. It is built once per
+ * species and shared by all its agents.
+ *
+ * A plan can only be chosen for the current intention if its intention predicate has the same name (see
+ * {@link Predicate#equalsIntentionPlan(Object)}). When this predicate is a constant, the plan is indexed under its name,
+ * and it is not considered at all (its context is not even evaluated) for the intentions that have another name. The
+ * plans whose intention is not a constant are always considered.
+ *
+ * A plan is only indexed if its context has no side effect, i.e. if it is absent, a constant or a variable (see
+ * {@link RuleNetwork#isStable(IExpression)}), so that skipping its evaluation cannot change the outcome of the
+ * simulation. The contexts that call operators (which may e.g. draw random numbers, like flip or rnd) are evaluated
+ * for every intention, in the same order as without the index.
+ *
+ * @param <T>
+ *            the type of the plans
+ */
+public class PlanIndex<T> {
+
+	/** The indexed plans, by name of intention predicate. */
+	private final Map<String, Set<T>> byName = new HashMap<>();
+
+	/** The indexed plans. */
+	private final Set<T> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Instantiates a new, empty, plan index.
+	 */
+	private PlanIndex() {}
+
+	/**
+	 * Builds the index of the plans of a species. A plan without intention can be chosen for any intention, so it is not
+	 * indexed.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param plans
+	 *            the plans
+	 * @return the index
+	 */
+	public static PlanIndex<BDIPlan> ofPlans(final IScope scope, final List<BDIPlan> plans) {
+		final PlanIndex<BDIPlan> index = new PlanIndex<>();
+		for (final BDIPlan plan : plans) {
+			final IExpression intention = plan.getPlanStatement().getIntentionExpression();
+			if (intention == null || !intention.isConst()
+					|| !RuleNetwork.isStable(plan.getPlanStatement().getContextExpression())) {
+				continue;
+			}
+			if (intention.value(scope) instanceof Predicate pred) { index.put(plan, pred.getName()); }
+		}
+		return index;
+	}
+
+	/**
+	 * Builds the index of the norms of a species. A norm is considered for an intention if either its intention or its
+	 * obligation has the same name, and it is never considered if it has neither of them.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param norms
+	 *            the norms
+	 * @return the index
+	 */
+	public static PlanIndex<Norm> ofNorms(final IScope scope, final List<Norm> norms) {
+		final PlanIndex<Norm> index = new PlanIndex<>();
+		for (final Norm norm : norms) {
+			final NormStatement statement = norm.getNormStatement();
+			final IExpression intention = statement.getIntentionExpression();
+			final IExpression obligation = statement.getObligationExpression();
+			if (intention != null && !intention.isConst() || obligation != null && !obligation.isConst()
+					|| !RuleNetwork.isStable(statement.getContextExpression())) {
+				continue;
+			}
+			index.indexed.add(norm);
+			if (intention != null && intention.value(scope) instanceof Predicate pred) {
+				index.put(norm, pred.getName());
+			}
+			if (obligation != null && obligation.value(scope) instanceof Predicate pred) {
+				index.put(norm, pred.getName());
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Indexes a plan under the given name.
+	 *
+	 * @param plan
+	 *            the plan
+	 * @param name
+	 *            the name of the predicate
+	 */
+	private void put(final T plan, final String name) {
+		indexed.add(plan);
+		byName.computeIfAbsent(name, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(plan);
+	}
+
+	/**
+	 * Checks if a plan can be chosen for the given intention.
+	 *
+	 * @param plan
+	 *            the plan
+	 * @param intention
+	 *            the predicate of the current intention (possibly null)
+	 * @return false if the plan can be ignored, true if its conditions must be evaluated
+	 */
+	public boolean isCandidate(final T plan, final Predicate intention) {
+		if (!indexed.contains(plan)) return true;
+		if (intention == null) return false;
+		final Set<T> candidates = byName.get(intention.getName());
+		return candidates != null && candidates.contains(plan);
+	}
+
+}
@@ -11,8 +11,8 @@
 package gaml.extension.simplebdi;
 
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import gama.core.annotations.precompiler.GamlAnnotations.doc;
 import gama.core.annotations.precompiler.GamlAnnotations.getter;
@@ -65,6 +65,12 @@ import gaml.core.types.Types;
 				doc = @doc ("the agent causing the predicate")) })
 public class Predicate implements IValue {
 
+	/** The pool of the names of the predicates, so that the names are usually compared by identity. */
+	private static final Map<String, String> NAMES = new ConcurrentHashMap<>();
+
+	/** The maximal number of pooled names (the names built on the fly, e.g. by "and", are not all kept). */
+	private static final int MAX_POOLED_NAMES = 1 << 16;
+
 	/** The name. */
 	String name;
 
@@ -97,7 +103,7 @@ public class Predicate implements IValue {
 	boolean isUpdated = false;
 
 	/** The no agent cause. */
-	private boolean noAgentCause = true;
+	boolean noAgentCause = true;
 
 	/**
 	 * Gets the name.
@@ -248,7 +254,7 @@ public class Predicate implements IValue {
 	 *            the name
 	 */
 	public Predicate(final String name) {
-		this.name = name;
+		this.name = pooledName(name);
 		everyPossibleValues = true;
 		this.agentCause = null;
 	}
@@ -262,7 +268,7 @@ public class Predicate implements IValue {
 	 *            the ist
 	 */
 	public Predicate(final String name, final boolean ist) {
-		this.name = name;
+		this.name = pooledName(name);
 		everyPossibleValues = true;
 		is_true = ist;
 		this.agentCause = null;
@@ -285,7 +291,7 @@ public class Predicate implements IValue {
 	 *            the values
 	 */
 	public Predicate(final String name, final IMap<String, Object> values) {
-		this.name = name;
+		this.name = pooledName(name);
 		this.values = values;
 		everyPossibleValues = values == null;
 		this.agentCause = null;
@@ -300,7 +306,7 @@ public class Predicate implements IValue {
 	 *            the ag
 	 */
 	public Predicate(final String name, final IAgent ag) {
-		this.name = name;
+		this.name = pooledName(name);
 		this.agentCause = ag;
 		this.noAgentCause = ag == null;
 		everyPossibleValues = true;
@@ -317,7 +323,7 @@ public class Predicate implements IValue {
 	 *            the truth
 	 */
 	public Predicate(final String name, final IMap<String, Object> values, final Boolean truth) {
-		this.name = name;
+		this.name = pooledName(name);
 		this.values = values;
 		this.is_true = truth;
 		everyPossibleValues = values == null;
@@ -344,7 +350,7 @@ public class Predicate implements IValue {
 	 *            the ag
 	 */
 	public Predicate(final String name, final IMap<String, Object> values, final IAgent ag) {
-		this.name = name;
+		this.name = pooledName(name);
 		this.values = values;
 		everyPossibleValues = values == null;
 		this.agentCause = ag;
@@ -373,7 +379,7 @@ public class Predicate implements IValue {
 	 *            the ag
 	 */
 	public Predicate(final String name, final IMap<String, Object> values, final Boolean truth, final IAgent ag) {
-		this.name = name;
+		this.name = pooledName(name);
 		this.values = values;
 		this.is_true = truth;
 		everyPossibleValues = values == null;
@@ -410,7 +416,8 @@ public class Predicate implements IValue {
 	 *            the new name
 	 */
 	public void setName(final String name) {
-		this.name = name;
+		if (this.name != null && !this.name.equals(name)) { MentalStateBase.renamed(); }
+		this.name = pooledName(name);
 
 	}
 
@@ -466,13 +473,63 @@ public class Predicate implements IValue {
 	 */
 	public boolean isSimilarName(final Predicate other) {
 		if (this == other) return true;
-		if ((other == null) || !Objects.equals(name, other.name)) return false;
+		if (other == null || !sameName(other)) return false;
+		return true;
+	}
+
+	/**
+	 * Checks if the other predicate has the same name. The names are pooled, so that this is usually a pointer
+	 * comparison.
+	 *
+	 * @param other
+	 *            the other predicate
+	 * @return true, if the names are equal
+	 */
+	private boolean sameName(final Predicate other) {
+		return name == other.name || name != null && name.equals(other.name);
+	}
+
+	/**
+	 * Checks if the values of the keys shared by the two predicates are equal. Neither map is modified.
+	 *
+	 * @param other
+	 *            the other predicate (both predicates have values)
+	 * @return true, if the shared values are equal
+	 */
+	private boolean sameSharedValues(final Predicate other) {
+		if (values == other.values) return true;
+		final boolean smaller = values.size() <= other.values.size();
+		for (final String k : smaller ? values.keySet() : other.values.keySet()) {
+			if (!(smaller ? other.values : values).containsKey(k)) { continue; }
+			final Object value = values.get(k);
+			final Object otherValue = other.values.get(k);
+			if (value == null ? otherValue != null : !value.equals(otherValue)) return false;
+		}
 		return true;
 	}
 
+	/**
+	 * Returns the pooled instance of a name.
+	 *
+	 * @param name
+	 *            the name (possibly null)
+	 * @return the pooled name, or the name itself if the pool is full
+	 */
+	static String pooledName(final String name) {
+		if (name == null) return null;
+		final String pooled = NAMES.get(name);
+		if (pooled != null) return pooled;
+		if (NAMES.size() >= MAX_POOLED_NAMES) return name;
+		final String previous = NAMES.putIfAbsent(name, name);
+		return previous == null ? name : previous;
+	}
+
+	/**
+	 * Only depends on the name, as two predicates with different values (or agent causes) can be equal.
+	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(name, values);
+		return name == null ? 0 : name.hashCode();
 	}
 
 	@Override
@@ -499,7 +556,7 @@ public class Predicate implements IValue {
 		// !superIntention.getPredicate().partialEquality(other.superIntention.getPredicate())) {
 		// return false;
 		// }
-		if (!Objects.equals(name, other.name) || (is_true != other.is_true)) return false;
+		if (!sameName(other) || (is_true != other.is_true)) return false;
 		// if(lifetime!=-1 || other.lifetime!=1){
 		// if(lifetime!=other.lifetime){return false;}
 		// }
@@ -507,12 +564,7 @@ public class Predicate implements IValue {
 		/*
 		 * if ( values == null ) { if ( other.values != null ) { return false; } } else //
 		 */ if (values != null && other.values != null && !values.isEmpty() && !other.values.isEmpty()) {
-			final Set<String> keys = values.keySet();
-			keys.retainAll(other.values.keySet());
-			for (final String k : keys) {
-				if (this.values.get(k) == null && other.values.get(k) != null) return false;
-				if (!values.get(k).equals(other.values.get(k))) return false;
-			}
+			if (!sameSharedValues(other)) return false;
 			return true;
 		}
 		// if (values != null && other.values != null && !values.equals(other.values)) {
@@ -619,7 +671,7 @@ public class Predicate implements IValue {
 		// return false;
 		// }
 		// }
-		if (!Objects.equals(name, other.name) || (is_true != other.is_true)) return false;
+		if (!sameName(other) || (is_true != other.is_true)) return false;
 		// if(lifetime!=-1 || other.lifetime!=1){
 		// if(lifetime!=other.lifetime){return false;}
 		// }
@@ -628,12 +680,7 @@ public class Predicate implements IValue {
 		 * if ( values == null ) { if ( other.values != null ) { return false; } } else
 		 */
 		if (values != null && other.values != null && !values.isEmpty() && !other.values.isEmpty()) {
-			final Set<String> keys = values.keySet();
-			keys.retainAll(other.values.keySet());
-			for (final String k : keys) {
-				if (this.values.get(k) == null && other.values.get(k) != null) return false;
-				if (!values.get(k).equals(other.values.get(k))) return false;
-			}
+			if (!sameSharedValues(other)) return false;
 			return true;
 		}
 		// if (values != null && other.values != null && !values.equals(other.values)) {
@@ -679,18 +726,13 @@ public class Predicate implements IValue {
 		// !superIntention.getPredicate().partialEquality(other.superIntention.getPredicate())) {
 		// return false;
 		// }
-		if (!Objects.equals(name, other.name) || (is_true == other.is_true)) return false;
+		if (!sameName(other) || (is_true == other.is_true)) return false;
 		if (everyPossibleValues && noAgentCause || other.everyPossibleValues && other.noAgentCause) return true;
 		/*
 		 * if ( values == null ) { if ( other.values != null ) { return false; } } else
 		 */
 		if (values != null && other.values != null && !values.isEmpty() && !other.values.isEmpty()) {
-			final Set<String> keys = values.keySet();
-			keys.retainAll(other.values.keySet());
-			for (final String k : keys) {
-				if (this.values.get(k) == null && other.values.get(k) != null) return false;
-				if (!values.get(k).equals(other.values.get(k))) return false;
-			}
+			if (!sameSharedValues(other)) return false;
 		}
 		// if (values != null && other.values != null && !values.equals(other.values)) {
 		// return false;
@@ -736,7 +778,7 @@ public class Predicate implements IValue {
 		// !superIntention.getPredicate().partialEquality(other.superIntention.getPredicate())) {
 		// return false;
 		// }
-		if (!Objects.equals(name, other.name) || (is_true != other.is_true)) return false;
+		if (!sameName(other) || (is_true != other.is_true)) return false;
 		// if(lifetime!=-1 || other.lifetime!=1){
 		// if(lifetime!=other.lifetime){return false;}
 		// }
@@ -745,12 +787,7 @@ public class Predicate implements IValue {
 		 * if ( values == null ) { if ( other.values != null ) { return false; } } else
 		 */
 		if (values != null && other.values != null && !values.isEmpty() && !other.values.isEmpty()) {
-			final Set<String> keys = values.keySet();
-			keys.retainAll(other.values.keySet());
-			for (final String k : keys) {
-				if (this.values.get(k) == null && other.values.get(k) != null) return false;
-				if (!values.get(k).equals(other.values.get(k))) return false;
-			}
+			if (!sameSharedValues(other)) return false;
 		}
 		// if (values != null && other.values != null && !values.equals(other.values)) {
 		// return false;
@@ -0,0 +1,311 @@
+/*******************************************************************************************************
+ *
+ * RuleNetwork.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.List;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gaml.core.expressions.IExpression;
+import gaml.core.expressions.IVarExpression;
+
+/**
+ * The rules of a species, compiled into a network that links each rule to the mental states and emotions tested by its
+ * conditions. It is shared by all the agents of the species (see {@link SimpleBdiArchitecture#USE_COMPILED_RULES}).
+ *
+ * The outcome of a rule only depends on the values of its condition facets and on the content of the bases for the
+ * predicate (or emotion) names they refer to. When the conditions of a rule are not satisfied, the network records, in
+ * the agent, these values and the stamp of the last modification of these names (see {@link MentalStateBase#stamp}).
+ * At the next steps, the rule is not evaluated again as long as the values are the same objects and none of these names
+ * has been modified. A rule whose conditions were satisfied is always evaluated again, as its effects (e.g. a new
+ * emotion) can accumulate.
+ *
+ * Only the rules whose condition facets are constants or variables (whose evaluation has no side effect) and that have
+ * no threshold (the intensity of an emotion can change without its base being modified) are compiled. The other ones
+ * are evaluated at every step, as usual. A compiled rule that is executed reuses the values of its conditions computed
+ * by the network, and the indexes of the bases are only looked up again once a rule has been executed, as only the
+ * execution of a rule can modify the bases.
+ */
+public class RuleNetwork {
+
+	/** The name of the agent attribute holding the state of the network. */
+	private static final String STATE = "%rule_network";
+
+	/** The rules, in the order of the species. */
+	private final RuleStatement[] rules;
+
+	/** For each rule, whether it is compiled. */
+	private final boolean[] compiled;
+
+	/**
+	 * The state of the network for one agent.
+	 */
+	private static class State {
+
+		/** The network. */
+		final RuleNetwork network;
+
+		/** For each rule, the values of its conditions when they were last not satisfied, or null. */
+		final Object[][] inputs;
+
+		/** For each rule, the stamp of the names tested by its conditions when they were last not satisfied. */
+		final long[] stamps;
+
+		/**
+		 * Instantiates a new state.
+		 *
+		 * @param network
+		 *            the network
+		 */
+		State(final RuleNetwork network) {
+			this.network = network;
+			inputs = new Object[network.rules.length][];
+			stamps = new long[network.rules.length];
+		}
+	}
+
+	/**
+	 * The indexes of the bases of the agent, looked up once for all the rules skipped in a row.
+	 */
+	private static class Bases {
+
+		/** The indexes of the belief, desire, uncertainty, ideal and obligation bases (null if missing or stale). */
+		MentalStateBase beliefs, desires, uncertainties, ideals, obligations;
+
+		/** The index of the emotion base (null if missing or stale). */
+		EmotionBase emotions;
+
+		/** Whether the indexes have been looked up since the last execution of a rule. */
+		boolean resolved;
+
+		/**
+		 * Looks up the indexes, if not already done.
+		 *
+		 * @param scope
+		 *            the scope
+		 * @return this
+		 */
+		Bases resolve(final IScope scope) {
+			if (resolved) return this;
+			beliefs = MentalStateBase.current(scope, SimpleBdiArchitecture.BELIEF_BASE);
+			desires = MentalStateBase.current(scope, SimpleBdiArchitecture.DESIRE_BASE);
+			uncertainties = MentalStateBase.current(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE);
+			ideals = MentalStateBase.current(scope, SimpleBdiArchitecture.IDEAL_BASE);
+			obligations = MentalStateBase.current(scope, SimpleBdiArchitecture.OBLIGATION_BASE);
+			emotions = EmotionBase.current(scope, SimpleBdiArchitecture.EMOTION_BASE);
+			resolved = true;
+			return this;
+		}
+	}
+
+	/**
+	 * Instantiates a new rule network.
+	 *
+	 * @param rules
+	 *            the rules of the species
+	 */
+	public RuleNetwork(final List<RuleStatement> rules) {
+		this.rules = rules.toArray(new RuleStatement[rules.size()]);
+		compiled = new boolean[this.rules.length];
+		for (int i = 0; i < this.rules.length; i++) {
+			final RuleStatement rule = this.rules[i];
+			boolean stable = rule.threshold == null;
+			for (final IExpression condition : conditions(rule)) {
+				stable = stable && isStable(condition);
+			}
+			compiled[i] = stable;
+		}
+	}
+
+	/**
+	 * Returns the condition facets of a rule, in a fixed order.
+	 *
+	 * @param rule
+	 *            the rule
+	 * @return the condition facets (possibly null)
+	 */
+	private static IExpression[] conditions(final RuleStatement rule) {
+		return new IExpression[] { rule.when, rule.belief, rule.desire, rule.uncertainty, rule.ideal, rule.obligation,
+				rule.emotion, rule.beliefs, rule.desires, rule.uncertainties, rule.ideals, rule.obligations,
+				rule.emotions };
+	}
+
+	/**
+	 * Checks if a condition can be evaluated any number of times without side effect.
+	 *
+	 * @param condition
+	 *            the condition (possibly null)
+	 * @return true, if the condition is absent, constant or a variable
+	 */
+	static boolean isStable(final IExpression condition) {
+		return condition == null || condition.isConst() || condition instanceof IVarExpression;
+	}
+
+	/**
+	 * Executes the rules for the current agent, skipping the compiled ones whose conditions cannot have changed.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return false if the agent has died while executing the rules, true otherwise
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	public boolean execute(final IScope scope) throws GamaRuntimeException {
+		final IAgent agent = scope.getAgent();
+		final State state = stateOf(agent);
+		final Bases bases = new Bases();
+		for (int i = 0; i < rules.length; i++) {
+			final RuleStatement rule = rules[i];
+			if (!compiled[i]) {
+				bases.resolved = false;
+				rule.executeOn(scope);
+				if (agent.dead()) return false;
+				continue;
+			}
+			final Object[] inputs = evaluate(scope, rule);
+			final long stamp = stamp(bases.resolve(scope), inputs);
+			if (stamp <= state.stamps[i] && isSame(inputs, state.inputs[i])) { continue; }
+			bases.resolved = false;
+			final Object fired = rule.executeOn(scope, inputs);
+			if (agent.dead()) return false;
+			if (Boolean.TRUE.equals(fired) || stamp == Long.MAX_VALUE) {
+				state.inputs[i] = null;
+			} else {
+				state.inputs[i] = inputs;
+				state.stamps[i] = stamp;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the state of the network stored in the agent, creating it if necessary.
+	 *
+	 * @param agent
+	 *            the agent
+	 * @return the state
+	 */
+	private State stateOf(final IAgent agent) {
+		if (agent.getAttribute(STATE) instanceof State state && state.network == this) return state;
+		final State state = new State(this);
+		agent.setAttribute(STATE, state);
+		return state;
+	}
+
+	/**
+	 * Evaluates the condition facets of a rule.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param rule
+	 *            the rule
+	 * @return the values, in the order of {@link #conditions(RuleStatement)} (null for absent facets)
+	 */
+	private static Object[] evaluate(final IScope scope, final RuleStatement rule) {
+		final IExpression[] conditions = conditions(rule);
+		final Object[] inputs = new Object[conditions.length];
+		for (int i = 0; i < conditions.length; i++) {
+			if (conditions[i] != null) { inputs[i] = conditions[i].value(scope); }
+		}
+		return inputs;
+	}
+
+	/**
+	 * Checks if the values of the conditions are the same objects as the recorded ones.
+	 *
+	 * @param inputs
+	 *            the values of the conditions
+	 * @param recorded
+	 *            the recorded values (possibly null)
+	 * @return true, if they are the same
+	 */
+	private static boolean isSame(final Object[] inputs, final Object[] recorded) {
+		if (recorded == null) return false;
+		for (int i = 0; i < inputs.length; i++) {
+			if (inputs[i] != recorded[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the stamp of the names tested by the conditions of a rule, i.e. the greatest stamp of these names in the
+	 * bases of the agent.
+	 *
+	 * @param bases
+	 *            the indexes of the bases of the agent
+	 * @param inputs
+	 *            the values of the conditions
+	 * @return the stamp, or {@link Long#MAX_VALUE} if one of the bases is missing or is not indexed
+	 */
+	private static long stamp(final Bases bases, final Object[] inputs) {
+		long stamp = 0;
+		stamp = Math.max(stamp, stampOf(bases.beliefs, inputs[1]));
+		stamp = Math.max(stamp, stampOf(bases.desires, inputs[2]));
+		stamp = Math.max(stamp, stampOf(bases.uncertainties, inputs[3]));
+		stamp = Math.max(stamp, stampOf(bases.ideals, inputs[4]));
+		if (inputs[5] != null) {
+			// The obligation facet is tested against the whole base
+			stamp = Math.max(stamp, bases.obligations == null ? Long.MAX_VALUE : bases.obligations.stamp());
+		}
+		stamp = Math.max(stamp, stampOf(bases.emotions, inputs[6]));
+		stamp = Math.max(stamp, stampOf(bases.beliefs, inputs[7]));
+		stamp = Math.max(stamp, stampOf(bases.desires, inputs[8]));
+		stamp = Math.max(stamp, stampOf(bases.uncertainties, inputs[9]));
+		stamp = Math.max(stamp, stampOf(bases.ideals, inputs[10]));
+		stamp = Math.max(stamp, stampOf(bases.obligations, inputs[11]));
+		stamp = Math.max(stamp, stampOf(bases.emotions, inputs[12]));
+		return stamp;
+	}
+
+	/**
+	 * Computes the stamp of the names referred to by the value of a condition in the given emotion base.
+	 *
+	 * @param emotions
+	 *            the index of the base (null if missing or stale)
+	 * @param input
+	 *            the value of the condition: an emotion or a list of emotions (possibly null)
+	 * @return the stamp, or {@link Long#MAX_VALUE} if the base is missing or is not indexed
+	 */
+	private static long stampOf(final EmotionBase emotions, final Object input) {
+		if (input == null) return 0;
+		if (emotions == null) return Long.MAX_VALUE;
+		if (input instanceof Emotion emo) return emotions.stamp(emo.getName());
+		if (!(input instanceof List<?> list)) return Long.MAX_VALUE;
+		long stamp = 0;
+		for (final Object o : list) {
+			stamp = Math.max(stamp, o instanceof Emotion emo ? emotions.stamp(emo.getName()) : Long.MAX_VALUE);
+		}
+		return stamp;
+	}
+
+	/**
+	 * Computes the stamp of the names referred to by the value of a condition in the given mental state base.
+	 *
+	 * @param base
+	 *            the index of the base (null if missing or stale)
+	 * @param input
+	 *            the value of the condition: a predicate or a list of predicates (possibly null)
+	 * @return the stamp, or {@link Long#MAX_VALUE} if the base is missing or is not indexed
+	 */
+	private static long stampOf(final MentalStateBase base, final Object input) {
+		if (input == null) return 0;
+		if (base == null) return Long.MAX_VALUE;
+		if (input instanceof Predicate pred) return base.stamp(pred.getName());
+		if (!(input instanceof List<?> list)) return Long.MAX_VALUE;
+		long stamp = 0;
+		for (final Object o : list) {
+			stamp = Math.max(stamp, o instanceof Predicate pred ? base.stamp(pred.getName()) : Long.MAX_VALUE);
+		}
+		return stamp;
+	}
+
+}
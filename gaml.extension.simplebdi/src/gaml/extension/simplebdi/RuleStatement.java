@@ -11,7 +11,6 @@
 
 package gaml.extension.simplebdi;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import gama.core.annotations.common.interfaces.IKeyword;
@@ -519,6 +518,12 @@ public class RuleStatement extends AbstractStatement {
 	/** The lifetime. */
 	final IExpression lifetime;
 
+	/**
+	 * The values of the condition facets already evaluated by the rule network for the next execution of a rule in this
+	 * thread, in the order of {@link RuleNetwork}, or null.
+	 */
+	private static final ThreadLocal<Object[]> EVALUATED = new ThreadLocal<>();
+
 	/**
 	 * Instantiates a new rule statement.
 	 *
@@ -570,9 +575,57 @@ public class RuleStatement extends AbstractStatement {
 		all = getFacet(RuleStatement.ALL);
 	}
 
+	/**
+	 * Executes the rule with the values of its condition facets already evaluated, instead of evaluating them again.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param evaluated
+	 *            the values of the condition facets, in the order of {@link RuleNetwork}
+	 * @return the result of {@link #executeOn(IScope)}
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	Object executeOn(final IScope scope, final Object[] evaluated) throws GamaRuntimeException {
+		EVALUATED.set(evaluated);
+		try {
+			return executeOn(scope);
+		} finally {
+			EVALUATED.remove();
+		}
+	}
+
+	/**
+	 * Returns the value of a condition facet, taken from the values already evaluated if any.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param evaluated
+	 *            the values already evaluated, or null
+	 * @param index
+	 *            the index of the facet in these values
+	 * @param condition
+	 *            the facet
+	 * @return the value
+	 */
+	private static Object valueOf(final IScope scope, final Object[] evaluated, final int index,
+			final IExpression condition) {
+		return evaluated == null ? condition.value(scope) : evaluated[index];
+	}
+
+	/**
+	 * Executes the rule.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return true if the conditions of the rule were satisfied and its effects have been applied, false or null
+	 *         otherwise
+	 */
 	@SuppressWarnings ("unchecked")
 	@Override
 	protected Object privateExecuteIn(final IScope scope) throws GamaRuntimeException {
+		final Object[] evaluated = EVALUATED.get();
+		EVALUATED.remove();
 		if (newBelief == null && newDesire == null && newEmotion == null && newUncertainty == null
 				&& removeBelief == null && removeDesire == null && removeIntention == null && removeEmotion == null
 				&& removeUncertainty == null && newBeliefs == null && newDesires == null && newEmotions == null
@@ -580,86 +633,75 @@ public class RuleStatement extends AbstractStatement {
 				&& removeUncertainties == null)
 			return null;
 		boolean allVal = all != null && Cast.asBool(scope, all.value(scope));
+		boolean fired = false;
 		List<Predicate> predBeliefList = null;
 		List<Predicate> predUncertaintyList = null;
 		List<Predicate> predIdealList = null;
-		if (when == null || Cast.asBool(scope, when.value(scope))) {
+		if (when == null || Cast.asBool(scope, valueOf(scope, evaluated, 0, when))) {
 			final MentalState tempBelief = new MentalState("Belief");
 			boolean has_belief = true;
 			if (belief != null) {
-				tempBelief.setPredicate((Predicate) belief.value(scope));
+				tempBelief.setPredicate((Predicate) valueOf(scope, evaluated, 1, belief));
 				has_belief = SimpleBdiArchitecture.hasBelief(scope, tempBelief);
 				if (has_belief) {
-					predBeliefList = new ArrayList<>();
-					for (final MentalState mental : SimpleBdiArchitecture.getBase(scope,
-							SimpleBdiArchitecture.BELIEF_BASE)) {
-						if (mental.getPredicate() != null && tempBelief.getPredicate().equals(mental.getPredicate())) {
-							predBeliefList.add(mental.getPredicate());
-						}
-					}
+					predBeliefList = MentalStateBase.matchingPredicates(scope,
+							SimpleBdiArchitecture.BELIEF_BASE, tempBelief);
 				}
 			}
 			if (belief == null || SimpleBdiArchitecture.hasBelief(scope, tempBelief)) {
 				final MentalState tempDesire = new MentalState("Desire");
-				if (desire != null) { tempDesire.setPredicate((Predicate) desire.value(scope)); }
+				if (desire != null) { tempDesire.setPredicate((Predicate) valueOf(scope, evaluated, 2, desire)); }
 				if (desire == null || SimpleBdiArchitecture.hasDesire(scope, tempDesire)) {
 					final MentalState tempUncertainty = new MentalState("Uncertainty");
 					boolean has_uncertainty = true;
 					if (uncertainty != null) {
-						tempUncertainty.setPredicate((Predicate) uncertainty.value(scope));
+						tempUncertainty.setPredicate((Predicate) valueOf(scope, evaluated, 3, uncertainty));
 						has_uncertainty = SimpleBdiArchitecture.hasUncertainty(scope, tempUncertainty);
 						if (has_uncertainty) {
-							predUncertaintyList = new ArrayList<>();
-							for (final MentalState mental : SimpleBdiArchitecture.getBase(scope,
-									SimpleBdiArchitecture.UNCERTAINTY_BASE)) {
-								if (mental.getPredicate() != null
-										&& tempBelief.getPredicate().equals(mental.getPredicate())) {
-									predUncertaintyList.add(mental.getPredicate());
-								}
-							}
+							predUncertaintyList = MentalStateBase.matchingPredicates(scope,
+									SimpleBdiArchitecture.UNCERTAINTY_BASE, tempBelief);
 						}
 					}
 					if (uncertainty == null || SimpleBdiArchitecture.hasUncertainty(scope, tempUncertainty)) {
 						final MentalState tempIdeal = new MentalState("Ideal");
 						boolean has_ideal = true;
 						if (ideal != null) {
-							tempIdeal.setPredicate((Predicate) ideal.value(scope));
+							tempIdeal.setPredicate((Predicate) valueOf(scope, evaluated, 4, ideal));
 							has_ideal = SimpleBdiArchitecture.hasIdeal(scope, tempIdeal);
 							if (has_ideal) {
-								predIdealList = new ArrayList<>();
-								for (final MentalState mental : SimpleBdiArchitecture.getBase(scope,
-										SimpleBdiArchitecture.IDEAL_BASE)) {
-									if (mental.getPredicate() != null
-											&& tempBelief.getPredicate().equals(mental.getPredicate())) {
-										predIdealList.add(mental.getPredicate());
-									}
-								}
+								predIdealList = MentalStateBase.matchingPredicates(scope,
+										SimpleBdiArchitecture.IDEAL_BASE, tempBelief);
 							}
 						}
 						if (ideal == null || SimpleBdiArchitecture.hasIdeal(scope, tempIdeal)) {
 							final MentalState tempObligation = new MentalState("Obligation");
 							if (obligation != null) {
-								tempObligation.setPredicate((Predicate) obligation.value(scope));
+								tempObligation.setPredicate((Predicate) valueOf(scope, evaluated, 5, obligation));
 							}
 							if ((obligation == null || SimpleBdiArchitecture.hasObligation(scope, tempUncertainty))
 									&& (emotion == null || SimpleBdiArchitecture.hasEmotion(scope,
-											(Emotion) emotion.value(scope)))) {
-								if ((beliefs == null || hasBeliefs(scope, (List<Predicate>) beliefs.value(scope)))
+											(Emotion) valueOf(scope, evaluated, 6, emotion)))) {
+								if ((beliefs == null
+										|| hasBeliefs(scope, (List<Predicate>) valueOf(scope, evaluated, 7, beliefs)))
 										&& (desires == null
-												|| hasDesires(scope, (List<Predicate>) desires.value(scope)))) {
+												|| hasDesires(scope,
+														(List<Predicate>) valueOf(scope, evaluated, 8, desires)))) {
 									if (uncertainties == null
-											|| hasUncertainties(scope, (List<Predicate>) uncertainties.value(scope))) {
-										if (ideals == null || hasIdeals(scope, (List<Predicate>) ideals.value(scope))) {
+											|| hasUncertainties(scope,
+													(List<Predicate>) valueOf(scope, evaluated, 9, uncertainties))) {
+										if (ideals == null || hasIdeals(scope,
+												(List<Predicate>) valueOf(scope, evaluated, 10, ideals))) {
 											if (obligations == null || hasObligations(scope,
-													(List<Predicate>) obligations.value(scope))) {
-												if (emotions == null
-														|| hasEmotions(scope, (List<Emotion>) emotions.value(scope))) {
+													(List<Predicate>) valueOf(scope, evaluated, 11, obligations))) {
+												if (emotions == null || hasEmotions(scope,
+														(List<Emotion>) valueOf(scope, evaluated, 12, emotions))) {
 
 													if (threshold == null || emotion != null && threshold != null
 															&& SimpleBdiArchitecture.getEmotion(scope,
 																	(Emotion) emotion.value(
 																			scope)).intensity >= (Double) threshold
 																					.value(scope)) {
+														fired = true;
 														if (newDesire != null) {
 															if (allVal) {
 																if (predBeliefList != null) {
@@ -1381,7 +1423,7 @@ public class RuleStatement extends AbstractStatement {
 				}
 			}
 		}
-		return null;
+		return fired;
 	}
 
 	/**
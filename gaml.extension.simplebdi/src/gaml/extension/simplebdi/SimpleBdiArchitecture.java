@@ -10,23 +10,36 @@
  ********************************************************************************************************/
 package gaml.extension.simplebdi;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import gama.core.annotations.precompiler.IConcept;
 import gama.core.annotations.precompiler.GamlAnnotations.action;
 import gama.core.annotations.precompiler.GamlAnnotations.arg;
 import gama.core.annotations.precompiler.GamlAnnotations.doc;
 import gama.core.annotations.precompiler.GamlAnnotations.example;
+import gama.core.annotations.precompiler.GamlAnnotations.getter;
+import gama.core.annotations.precompiler.GamlAnnotations.setter;
 import gama.core.annotations.precompiler.GamlAnnotations.skill;
 import gama.core.annotations.precompiler.GamlAnnotations.variable;
 import gama.core.annotations.precompiler.GamlAnnotations.vars;
+import gama.core.common.util.FileUtils;
 import gama.core.metamodel.agent.IAgent;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaListFactory;
 import gama.core.util.IList;
+import gama.core.util.IMap;
 import gaml.core.architecture.reflex.ReflexArchitecture;
 import gaml.core.compilation.ISymbol;
 import gaml.core.operators.Maths;
@@ -78,6 +91,21 @@ import gaml.core.types.Types;
 				type = IType.BOOL,
 				init = "false",
 				doc = @doc ("indicates if the persistence coefficient is computed with personality (false) or with the value given by the modeler")),
+		@variable (
+				name = SimpleBdiArchitecture.USE_LIFETIME_SCHEDULER,
+				type = IType.BOOL,
+				init = "false",
+				doc = @doc ("indicates if, at each step, only the mental states with a finite lifetime and the emotions with a decay are updated (true) instead of all the bases (false). With true, a lifetime or a decay set on a mental state or an emotion already in a base is only taken into account once this base is modified outside of the architecture actions")),
+		@variable (
+				name = SimpleBdiArchitecture.USE_PERCEPTION_INDEX,
+				type = IType.BOOL,
+				init = "false",
+				doc = @doc ("indicates if the perceptions with a distance (in: facet) look for their targets in a grid built once per cycle and shared by all the perceiving agents (true) instead of making a spatial query for each agent (false). With true, the grid is built when the same target container is perceived for the second time in the cycle (a target that gives a new container at each evaluation is never indexed), the targets are the agents of the container, with their shapes, at that time, and the distance is the euclidean distance between the shapes of the agents, whatever the topology")),
+		@variable (
+				name = SimpleBdiArchitecture.USE_COMPILED_RULES,
+				type = IType.BOOL,
+				init = "false",
+				doc = @doc ("indicates if a rule whose conditions were not satisfied is only evaluated again once the values of its conditions or the mental states and emotions they test have changed (true) instead of at every step (false). Only applies to the rules whose conditions are constants or variables and that have no threshold. With true, the predicates used in the conditions must not be modified in place (e.g. with with_values)")),
 		@variable (
 				name = SimpleBdiArchitecture.OBEDIENCE,
 				type = IType.FLOAT,
@@ -129,6 +157,11 @@ import gaml.core.types.Types;
 				type = IType.LIST,
 				init = "[]",
 				doc = @doc ("the list of the last thoughts of the agent")),
+		@variable (
+				name = SimpleBdiArchitecture.THINKING_MODE,
+				type = IType.STRING,
+				init = "'" + SimpleBdiArchitecture.THINKING_RING + "'",
+				doc = @doc ("how the last thoughts of the agent are recorded: 'off' (not recorded, thinking keeps its value), 'ring' (recorded as events in a buffer of fixed size and only turned into strings when thinking is read) or 'full' (turned into strings as soon as they occur)")),
 		@variable (
 				name = SimpleBdiArchitecture.INTENTION_BASE,
 				type = IType.LIST,
@@ -240,6 +273,18 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	/** The Constant USE_PERSISTENCE. */
 	public static final String USE_PERSISTENCE = "use_persistence";
 	
+	/** The Constant USE_LIFETIME_SCHEDULER. */
+	public static final String USE_LIFETIME_SCHEDULER = "use_lifetime_scheduler";
+
+	/** The Constant USE_PERCEPTION_INDEX. */
+	public static final String USE_PERCEPTION_INDEX = "use_perception_index";
+
+	/** The Constant USE_COMPILED_RULES. */
+	public static final String USE_COMPILED_RULES = "use_compiled_rules";
+
+	/** The name of the agent attribute holding the random generator of the agent during a parallel cycle. */
+	static final String CYCLE_RANDOM = "%cycle_random";
+
 	/** The Constant USE_NORMS. */
 	public static final String USE_NORMS = "use_norms";
 	
@@ -280,6 +325,21 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	/** The Constant LAST_THOUGHTS_SIZE. */
 	public static final Integer LAST_THOUGHTS_SIZE = 5;
 
+	/** The Constant THINKING_MODE. */
+	public static final String THINKING_MODE = "thinking_mode";
+
+	/** The Constant THINKING_OFF. */
+	public static final String THINKING_OFF = "off";
+
+	/** The Constant THINKING_RING. */
+	public static final String THINKING_RING = "ring";
+
+	/** The Constant THINKING_FULL. */
+	public static final String THINKING_FULL = "full";
+
+	/** The name of the agent attribute holding the trace of the last thoughts in the 'ring' mode. */
+	static final String THOUGHT_TRACE = "%thought_trace";
+
 	/** The Constant EMOTION. */
 	public static final String EMOTION = "emotion";
 	
@@ -401,7 +461,16 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	
 	/** The rules number. */
 	protected int _rulesNumber = 0;
-	
+
+	/** The rule network, compiled from the rules when first needed. */
+	private volatile RuleNetwork _ruleNetwork;
+
+	/** The index of the plans by intention, built when first needed. */
+	private volatile PlanIndex<BDIPlan> _planIndex;
+
+	/** The index of the norms by intention and obligation, built when first needed. */
+	private volatile PlanIndex<Norm> _normIndex;
+
 	/** The coping number. */
 	protected int _copingNumber = 0;
 	
@@ -415,11 +484,14 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	protected void clearBehaviors() {
 		super.clearBehaviors();
 		_plans.clear();
+		_planIndex = null;
 		_rules.clear();
+		_ruleNetwork = null;
 		_coping.clear();
 		_perceptions.clear();
 		_laws.clear();
 		_norms.clear();
+		_normIndex = null;
 		_sanctions.clear();
 	}
 
@@ -437,6 +509,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			// final String statementKeyword = c.getDescription().getKeyword();
 			_plans.add(new BDIPlan((SimpleBdiPlanStatement) c));
 			_plansNumber++;
+			_planIndex = null;
 		} else if (c instanceof PerceiveStatement) {
 			// final String statementKeyword = c.getDescription().getKeyword();
 			_perceptions.add((PerceiveStatement) c);
@@ -445,6 +518,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			// final String statementKeyword = c.getDescription().getKeyword();
 			_rules.add((RuleStatement) c);
 			_rulesNumber++;
+			_ruleNetwork = null;
 		} else if (c instanceof CopingStatement) {
 			// final String statementKeyword = c.getDescription().getKeyword();
 			_coping.add((CopingStatement) c);
@@ -457,6 +531,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			// final String statementKeyword = c.getDescription().getKeyword();
 			_norms.add(new Norm((NormStatement) c));
 			_normNumber++;
+			_normIndex = null;
 		} else if (c instanceof SanctionStatement) {
 			// final String statementKeyword = c.getDescription().getKeyword();
 			_sanctions.add(new Sanction((SanctionStatement) c));
@@ -471,19 +546,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		super.executeOn(scope);
 		final IAgent agent = scope.getAgent();
 		if (agent.dead()) { return null; }
-		final Boolean use_personality = scope.hasArg(USE_PERSONALITY) ? scope.getBoolArg(USE_PERSONALITY)
-				: (Boolean) scope.getAgent().getAttribute(USE_PERSONALITY);
-		if (use_personality) {
-			final Double expressivity = (Double) scope.getAgent().getAttribute(EXTRAVERSION);
-			final Double neurotisme = (Double) scope.getAgent().getAttribute(NEUROTISM);
-			final Double conscience = (Double) scope.getAgent().getAttribute(CONSCIENTIOUSNESS);
-			final Double agreeableness = (Double) scope.getAgent().getAttribute(AGREEABLENESS);
-			scope.getAgent().setAttribute(CHARISMA, expressivity);
-			scope.getAgent().setAttribute(RECEPTIVITY, 1 - neurotisme);
-			scope.getAgent().setAttribute(PERSISTENCE_COEFFICIENT_PLANS, Maths.sqrt(scope, conscience));
-			scope.getAgent().setAttribute(PERSISTENCE_COEFFICIENT_INTENTIONS, Maths.sqrt(scope, conscience));
-			scope.getAgent().setAttribute(OBEDIENCE, Maths.sqrt(scope, (conscience + agreeableness) * 0.5));
-		}
+		updatePersonality(scope);
 		if (_sanctionNumber > 0) {
 			scope.getAgent().setAttribute(SANCTION_BASE, _sanctions);
 		}
@@ -493,12 +556,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				if (agent.dead()) { return null; }
 			}
 		}
-		if (_rulesNumber > 0) {
-			for (int i = 0; i < _rulesNumber; i++) {
-				_rules.get(i).executeOn(scope);
-				if (agent.dead()) { return null; }
-			}
-		}
+		if (!executeRules(scope)) { return null; }
 		// cleanObligation(scope);
 		if (_lawsNumber > 0) {
 			for (int i = 0; i < _lawsNumber; i++) {
@@ -566,15 +624,14 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				BDIPlan _persistentTask = (BDIPlan) agent.getAttribute(CURRENT_PLAN);
 				Norm _persistentNorm = (Norm) agent.getAttribute(CURRENT_NORM);
 				// RANDOMLY REMOVE (last)INTENTION
-				Boolean flipResultintention = gaml.core.operators.Random.opFlip(scope, persistenceCoefficientintention);
+				Boolean flipResultintention = flip(scope, persistenceCoefficientintention);
 				while (!flipResultintention && intentionBase.size() > 0) {
-					flipResultintention = gaml.core.operators.Random.opFlip(scope, persistenceCoefficientintention);
+					flipResultintention = flip(scope, persistenceCoefficientintention);
 					if (intentionBase.size() > 0) {
 						final int toremove = intentionBase.size() - 1;
 						final Predicate previousint = intentionBase.get(toremove).getPredicate();
 						intentionBase.remove(toremove);
-						final String think = "check what happens if I remove: " + previousint;
-						addThoughts(scope, think);
+						addThoughts(scope, ThoughtTrace.REMOVE_INTENTION, previousint, null);
 						_persistentTask = null;
 						agent.setAttribute(CURRENT_PLAN, _persistentTask);
 						_persistentNorm = null;
@@ -583,14 +640,14 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				}
 				// If current intention has no plan/norm or is on hold, choose a new
 				// Desire/Obligation
+				final MentalState current = currentIntention(scope);
 				MentalState intentionTemp;
-				if (currentIntention(scope) != null) {
-					intentionTemp = currentIntention(scope);
+				if (current != null) {
+					intentionTemp = current;
 				} else {
-					intentionTemp = new MentalState("Intention", currentIntention(scope));
+					intentionTemp = new MentalState("Intention", current);
 				}
-				if (testOnHold(scope, intentionTemp) || currentIntention(scope) == null
-						|| currentIntention(scope).getPredicate() == null
+				if (testOnHold(scope, intentionTemp) || current == null || current.getPredicate() == null
 						|| listExecutablePlans(scope).isEmpty() && listExecutableNorms(scope).isEmpty()) {
 					if (!selectObligationWithHighestPriority(scope)) {
 						selectDesireWithHighestPriority(scope);
@@ -609,22 +666,22 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				// _persistentTask = null;
 				// agent.setAttribute(CURRENT_PLAN, _persistentTask);
 				// }
-				final Boolean flipResult = gaml.core.operators.Random.opFlip(scope, persistenceCoefficientPlans);
+				final Boolean flipResult = flip(scope, persistenceCoefficientPlans);
 
 				if (!flipResult) {
 					if (_persistentTask != null) {
-						addThoughts(scope, "check what happens if I stop: " + _persistentTask.getName());
+						addThoughts(scope, ThoughtTrace.STOP_PLAN, _persistentTask.getName(), null);
 					}
 					_persistentTask = selectExecutablePlanWithHighestPriority(scope);
 					agent.setAttribute(CURRENT_PLAN, _persistentTask);
 
 					if (_persistentTask != null) {
-						addThoughts(scope, "lets do instead " + _persistentTask.getName());
+						addThoughts(scope, ThoughtTrace.CHANGE_PLAN, _persistentTask.getName(), null);
 					}
 
 				}
 				if (currentIntention(scope) == null) {
-					addThoughts(scope, "I want nothing...");
+					addThoughts(scope, ThoughtTrace.NOTHING, null, null);
 					// update the lifetime of beliefs
 					// updateLifeTimePredicates(scope);
 					// updateEmotionsIntensity(scope);
@@ -637,7 +694,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 						selectDesireWithHighestPriority(scope);
 					}
 					if (currentIntention(scope) != null && currentIntention(scope).getPredicate() == null) {
-						addThoughts(scope, "I want nothing...");
+						addThoughts(scope, ThoughtTrace.NOTHING, null, null);
 						// update the lifetime of beliefs
 						// updateLifeTimePredicates(scope);
 						// updateEmotionsIntensity(scope);
@@ -646,8 +703,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					_persistentNorm = selectExecutableNormWithHighestPriority(scope);
 					agent.setAttribute(CURRENT_NORM, _persistentNorm);
 					if (currentIntention(scope) != null && _persistentTask != null) {
-						addThoughts(scope, "ok, new intention: " + currentIntention(scope).getPredicate()
-								+ " with norm " + _persistentNorm.getName());
+						addThoughts(scope, ThoughtTrace.NEW_INTENTION_NORM, currentIntention(scope).getPredicate(),
+								_persistentNorm.getName());
 					}
 				}
 				// choose a plan for the current intention
@@ -655,7 +712,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 						&& currentIntention(scope).getPredicate() == null) {
 					selectDesireWithHighestPriority(scope);
 					if (currentIntention(scope) != null && currentIntention(scope).getPredicate() == null) {
-						addThoughts(scope, "I want nothing...");
+						addThoughts(scope, ThoughtTrace.NOTHING, null, null);
 						// update the lifetime of beliefs
 						// updateLifeTimePredicates(scope);
 						// updateEmotionsIntensity(scope);
@@ -664,8 +721,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					_persistentTask = selectExecutablePlanWithHighestPriority(scope);
 					agent.setAttribute(CURRENT_PLAN, _persistentTask);
 					if (currentIntention(scope) != null && _persistentTask != null) {
-						addThoughts(scope, "ok, new intention: " + currentIntention(scope).getPredicate()
-								+ " with plan " + _persistentTask.getName());
+						addThoughts(scope, ThoughtTrace.NEW_INTENTION_PLAN, currentIntention(scope).getPredicate(),
+								_persistentTask.getName());
 					}
 				}
 				if (currentIntention(scope) != null && _persistentTask == null
@@ -679,10 +736,10 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 						agent.setAttribute(CURRENT_PLAN, _persistentTask);
 					}
 					if (_persistentNorm != null) {
-						addThoughts(scope, "use norm : " + _persistentNorm.getName());
+						addThoughts(scope, ThoughtTrace.USE_NORM, _persistentNorm.getName(), null);
 					}
 					if (_persistentTask != null) {
-						addThoughts(scope, "use plan : " + _persistentTask.getName());
+						addThoughts(scope, ThoughtTrace.USE_PLAN, _persistentTask.getName(), null);
 					}
 				}
 				if (_persistentNorm != null) {
@@ -772,12 +829,12 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					priority_list[i] = desireBaseTest.get(i).getStrength();
 				}
 				final IList priorities = GamaListFactory.create(scope, Types.FLOAT, priority_list);
-				final int index_choice = gaml.core.operators.Random.opRndChoice(scope, priorities);
+				final int index_choice = rndChoice(scope, priorities);
 				newIntention = desireBaseTest.get(index_choice);
 				newIntStrength = desireBaseTest.get(index_choice).getStrength();
 				if (desireBaseTest.size() > intentionBase.size()) {
 					while (intentionBase.contains(newIntention)) {
-						final int index_choice2 = gaml.core.operators.Random.opRndChoice(scope, priorities);
+						final int index_choice2 = rndChoice(scope, priorities);
 						newIntention = desireBaseTest.get(index_choice2);
 						newIntStrength = desireBaseTest.get(index_choice2).getStrength();
 					}
@@ -814,7 +871,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		} else {
 			final List<MentalState> desireBaseTest = GamaListFactory.create();
 			final IList<MentalState> desires = getBase(scope, DESIRE_BASE);
-			scope.getRandom().shuffleInPlace(desires);
+			shuffle(scope, desires);
 			for (final MentalState tempDesire : desires) {
 				if (listPlans != null) {
 					for (final BDIPlan tempPlan : listPlans) {
@@ -929,12 +986,12 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 						priority_list[i] = obligationBaseTest.get(i).getStrength();
 					}
 					final IList priorities = GamaListFactory.create(scope, Types.FLOAT, priority_list);
-					final int index_choice = gaml.core.operators.Random.opRndChoice(scope, priorities);
+					final int index_choice = rndChoice(scope, priorities);
 					newIntention = obligationBaseTest.get(index_choice);
 					newIntStrength = obligationBaseTest.get(index_choice).getStrength();
 					if (obligationBaseTest.size() > intentionBase.size()) {
 						while (intentionBase.contains(newIntention)) {
-							final int index_choice2 = gaml.core.operators.Random.opRndChoice(scope, priorities);
+							final int index_choice2 = rndChoice(scope, priorities);
 							newIntention = obligationBaseTest.get(index_choice2);
 							newIntStrength = obligationBaseTest.get(index_choice2).getStrength();
 						}
@@ -972,7 +1029,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			} else {
 				final List<MentalState> obligationBaseTest = GamaListFactory.create();
 				final IList<MentalState> obligations = getBase(scope, OBLIGATION_BASE);
-				scope.getRandom().shuffleInPlace(obligations);
+				shuffle(scope, obligations);
 				for (final MentalState tempObligation : obligations) {
 					for (final Norm tempNorm : listNorm) {
 						if (tempNorm == null) {
@@ -1065,16 +1122,18 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		double highestPriority = Double.MIN_VALUE;
 		final List<BDIPlan> temp_plan = new ArrayList<>();
 		final IList priorities = GamaListFactory.create(Types.FLOAT);
+		final PlanIndex<BDIPlan> planIndex = getPlanIndex(scope);
+		final Predicate intention = currentIntentionPredicate(scope);
 		final List<BDIPlan> plansCopy = new ArrayList(_plans);
-		scope.getRandom().shuffleInPlace(plansCopy);
+		shuffle(scope, plansCopy);
 		for (final Object BDIPlanstatement : plansCopy) {
+			if (!planIndex.isCandidate((BDIPlan) BDIPlanstatement, intention)) { continue; }
 			final SimpleBdiPlanStatement statement = ((BDIPlan) BDIPlanstatement).getPlanStatement();
 			final boolean isContextConditionSatisfied = statement.getContextExpression() == null
 					|| gaml.core.operators.Cast.asBool(scope, statement.getContextExpression().value(scope));
 			final boolean isIntentionConditionSatisfied = statement.getIntentionExpression() == null
 					|| statement.getIntentionExpression().value(scope) == null
-					|| ((Predicate) statement.getIntentionExpression().value(scope))
-							.equalsIntentionPlan(currentIntention(scope).getPredicate());
+					|| ((Predicate) statement.getIntentionExpression().value(scope)).equalsIntentionPlan(intention);
 			final boolean isEmotionConditionSatisfied = statement.getEmotionExpression() == null
 					|| getEmotionBase(scope, EMOTION_BASE).contains(statement.getEmotionExpression().value(scope));
 			final boolean thresholdSatisfied = statement.getThreshold() == null
@@ -1109,7 +1168,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 						priorities.add(1.0);
 					}
 				}
-				final int index_plan = gaml.core.operators.Random.opRndChoice(scope, priorities);
+				final int index_plan = rndChoice(scope, priorities);
 				resultStatement = temp_plan.get(index_plan);
 			}
 		}
@@ -1147,23 +1206,26 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			tempNorm.setSanctioned(false);
 			;
 		}
+		final PlanIndex<Norm> normIndex = getNormIndex(scope);
+		final Predicate intention = currentIntentionPredicate(scope);
 		final List<Norm> normsCopy = new ArrayList(_norms);
-		scope.getRandom().shuffleInPlace(normsCopy);
+		shuffle(scope, normsCopy);
 		for (final Object Normstatement : normsCopy) {
+			if (!normIndex.isCandidate((Norm) Normstatement, intention)) { continue; }
 			final NormStatement statement = ((Norm) Normstatement).getNormStatement();
 			final boolean isContextConditionSatisfied = statement.getContextExpression() == null
 					|| gaml.core.operators.Cast.asBool(scope, statement.getContextExpression().value(scope));
 			boolean isIntentionConditionSatisfied = false;
 			if (statement.getIntentionExpression() != null && statement.getIntentionExpression().value(scope) != null) {
-				isIntentionConditionSatisfied = ((Predicate) statement.getIntentionExpression().value(scope))
-						.equalsIntentionPlan(currentIntention(scope).getPredicate());
+				isIntentionConditionSatisfied =
+						((Predicate) statement.getIntentionExpression().value(scope)).equalsIntentionPlan(intention);
 			}
 			boolean isObligationConditionSatisfied = false;
 			if (statement.getObligationExpression() != null && statement.getObligationExpression().value(scope) != null
 					&& hasObligation(scope, new MentalState("Obligation",
 							(Predicate) statement.getObligationExpression().value(scope)))) {
-				isObligationConditionSatisfied = ((Predicate) statement.getObligationExpression().value(scope))
-						.equalsIntentionPlan(currentIntention(scope).getPredicate());
+				isObligationConditionSatisfied =
+						((Predicate) statement.getObligationExpression().value(scope)).equalsIntentionPlan(intention);
 			}
 			final boolean thresholdSatisfied = statement.getThreshold() == null
 					|| obedienceValue >= (Double) statement.getThreshold().value(scope);
@@ -1223,7 +1285,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 						priorities.add(1.0);
 					}
 				}
-				final int index_plan = gaml.core.operators.Random.opRndChoice(scope, priorities);
+				final int index_plan = rndChoice(scope, priorities);
 				resultStatement = temp_norm.get(index_plan);
 			}
 		}
@@ -1245,6 +1307,10 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @param scope the scope
 	 */
 	protected void updateLifeTimePredicates(final IScope scope) {
+		if (useLifetimeScheduler(scope)) {
+			updateExpiringPredicates(scope);
+			return;
+		}
 		for (final MentalState mental : getBase(scope, BELIEF_BASE)) {
 			mental.isUpdated = false;
 		}
@@ -1292,6 +1358,191 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		}
 	}
 
+	/**
+	 * Computes the charisma, receptivity, persistence coefficients and obedience of the agent from its personality, if
+	 * it uses it.
+	 *
+	 * @param scope the scope
+	 */
+	protected void updatePersonality(final IScope scope) {
+		final Boolean use_personality = scope.hasArg(USE_PERSONALITY) ? scope.getBoolArg(USE_PERSONALITY)
+				: (Boolean) scope.getAgent().getAttribute(USE_PERSONALITY);
+		if (use_personality) {
+			final Double expressivity = (Double) scope.getAgent().getAttribute(EXTRAVERSION);
+			final Double neurotisme = (Double) scope.getAgent().getAttribute(NEUROTISM);
+			final Double conscience = (Double) scope.getAgent().getAttribute(CONSCIENTIOUSNESS);
+			final Double agreeableness = (Double) scope.getAgent().getAttribute(AGREEABLENESS);
+			scope.getAgent().setAttribute(CHARISMA, expressivity);
+			scope.getAgent().setAttribute(RECEPTIVITY, 1 - neurotisme);
+			scope.getAgent().setAttribute(PERSISTENCE_COEFFICIENT_PLANS, Maths.sqrt(scope, conscience));
+			scope.getAgent().setAttribute(PERSISTENCE_COEFFICIENT_INTENTIONS, Maths.sqrt(scope, conscience));
+			scope.getAgent().setAttribute(OBEDIENCE, Maths.sqrt(scope, (conscience + agreeableness) * 0.5));
+		}
+	}
+
+	/**
+	 * Executes the rules of the species, through the rule network if the agent uses it.
+	 *
+	 * @param scope the scope
+	 * @return false if the agent has died while executing the rules, true otherwise
+	 */
+	protected boolean executeRules(final IScope scope) {
+		if (_rulesNumber == 0) { return true; }
+		if (useCompiledRules(scope)) { return getRuleNetwork().execute(scope); }
+		final IAgent agent = scope.getAgent();
+		for (int i = 0; i < _rulesNumber; i++) {
+			_rules.get(i).executeOn(scope);
+			if (agent.dead()) { return false; }
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the random generator of the current agent during a parallel cycle (see
+	 * {@link SimpleBdiArchitectureParallel#USE_PARALLEL_CYCLE}).
+	 *
+	 * @param scope the scope
+	 * @return the generator, or null if the agent uses the one of the simulation
+	 */
+	private static SplittableRandom cycleRandom(final IScope scope) {
+		final IAgent agent = scope.getAgent();
+		return agent != null && agent.getAttribute(CYCLE_RANDOM) instanceof SplittableRandom random ? random : null;
+	}
+
+	/**
+	 * Same as the flip operator, but uses the generator of the agent during a parallel cycle.
+	 *
+	 * @param scope the scope
+	 * @param probability the probability
+	 * @return the boolean
+	 */
+	protected static Boolean flip(final IScope scope, final Double probability) {
+		final SplittableRandom random = cycleRandom(scope);
+		if (random == null) { return gaml.core.operators.Random.opFlip(scope, probability); }
+		return probability >= 1.0 || probability > 0.0 && random.nextDouble() < probability;
+	}
+
+	/**
+	 * Same as the rnd_choice operator, but uses the generator of the agent during a parallel cycle.
+	 *
+	 * @param scope the scope
+	 * @param distribution the weights
+	 * @return the index chosen
+	 */
+	protected static Integer rndChoice(final IScope scope, final IList distribution) {
+		final SplittableRandom random = cycleRandom(scope);
+		if (random == null) { return gaml.core.operators.Random.opRndChoice(scope, distribution); }
+		final double[] weights = new double[distribution.size()];
+		double sum = 0.0;
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = gaml.core.operators.Cast.asFloat(scope, distribution.get(i));
+			if (weights[i] < 0.0)
+				throw GamaRuntimeException.error("Distribution elements should be positive.", scope);
+			sum += weights[i];
+		}
+		if (sum == 0.0) throw GamaRuntimeException.error("Distribution elements should not be all equal to 0", scope);
+		double value = random.nextDouble();
+		for (int i = 0; i < weights.length; i++) {
+			value -= weights[i] / sum;
+			if (value <= 0) { return i; }
+		}
+		return -1;
+	}
+
+	/**
+	 * Shuffles a list in place, using the generator of the agent during a parallel cycle.
+	 *
+	 * @param scope the scope
+	 * @param list the list
+	 */
+	protected static void shuffle(final IScope scope, final List list) {
+		final SplittableRandom random = cycleRandom(scope);
+		if (random == null) {
+			scope.getRandom().shuffleInPlace(list);
+			return;
+		}
+		for (int i = list.size() - 1; i > 0; i--) {
+			Collections.swap(list, i, random.nextInt(i + 1));
+		}
+	}
+
+	/**
+	 * Checks if the rules are executed through the rule network.
+	 *
+	 * @param scope the scope
+	 * @return true, if the compiled rules are used
+	 */
+	private boolean useCompiledRules(final IScope scope) {
+		final Boolean useCompiled = scope.hasArg(USE_COMPILED_RULES) ? scope.getBoolArg(USE_COMPILED_RULES)
+				: (Boolean) scope.getAgent().getAttribute(USE_COMPILED_RULES);
+		return useCompiled != null && useCompiled;
+	}
+
+	/**
+	 * Gets the rule network of the species, compiling it if necessary.
+	 *
+	 * @return the rule network
+	 */
+	private RuleNetwork getRuleNetwork() {
+		RuleNetwork network = _ruleNetwork;
+		if (network == null) {
+			synchronized (this) {
+				network = _ruleNetwork;
+				if (network == null) { _ruleNetwork = network = new RuleNetwork(_rules); }
+			}
+		}
+		return network;
+	}
+
+	/**
+	 * Checks if the lifetimes and decays are only updated for the mental states and emotions that can expire.
+	 *
+	 * @param scope the scope
+	 * @return true, if the lifetime scheduler is used
+	 */
+	private boolean useLifetimeScheduler(final IScope scope) {
+		final Boolean useScheduler = scope.hasArg(USE_LIFETIME_SCHEDULER) ? scope.getBoolArg(USE_LIFETIME_SCHEDULER)
+				: (Boolean) scope.getAgent().getAttribute(USE_LIFETIME_SCHEDULER);
+		return useScheduler != null && useScheduler;
+	}
+
+	/**
+	 * Update the lifetime of the mental states that have a finite lifetime only. Same as the sweep done in
+	 * {@link #updateLifeTimePredicates(IScope)}, but the cost only depends on the number of mental states that can
+	 * expire.
+	 *
+	 * @param scope the scope
+	 */
+	private void updateExpiringPredicates(final IScope scope) {
+		// The indexes are resolved once: their expiry queues follow the removals made below
+		final MentalStateBase beliefs = MentalStateBase.of(scope, BELIEF_BASE);
+		final MentalStateBase desires = MentalStateBase.of(scope, DESIRE_BASE);
+		final MentalStateBase intentions = MentalStateBase.of(scope, INTENTION_BASE);
+		final MentalStateBase uncertainties = MentalStateBase.of(scope, UNCERTAINTY_BASE);
+		final MentalStateBase obligations = MentalStateBase.of(scope, OBLIGATION_BASE);
+		for (final MentalStateBase index : new MentalStateBase[] { beliefs, desires, intentions, uncertainties,
+				obligations }) {
+			for (final MentalState mental : index.expiring()) {
+				mental.isUpdated = false;
+			}
+		}
+		for (final MentalState mental : beliefs.updateLifetimes()) {
+			removeBelief(scope, mental);
+		}
+		for (final MentalState mental : desires.updateLifetimes()) {
+			removeDesire(scope, mental);
+		}
+		for (final MentalState mental : intentions.updateLifetimes()) {
+			removeIntention(scope, mental);
+		}
+		for (final MentalState mental : uncertainties.updateLifetimes()) {
+			removeUncertainty(scope, mental);
+		}
+		for (final MentalState mental : obligations.updateLifetimes()) {
+			removeObligation(scope, mental);
+		}
+	}
+
 	/**
 	 * List beliefs life time null.
 	 *
@@ -1372,6 +1623,51 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		return tempPred;
 	}
 
+	/**
+	 * Gets the predicate of the current intention, without failing when there is no current intention.
+	 *
+	 * @param scope the scope
+	 * @return the predicate, or null
+	 */
+	private Predicate currentIntentionPredicate(final IScope scope) {
+		final MentalState current = currentIntention(scope);
+		return current == null ? null : current.getPredicate();
+	}
+
+	/**
+	 * Gets the index of the plans of the species by intention, building it if necessary.
+	 *
+	 * @param scope the scope
+	 * @return the plan index
+	 */
+	private PlanIndex<BDIPlan> getPlanIndex(final IScope scope) {
+		PlanIndex<BDIPlan> index = _planIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = _planIndex;
+				if (index == null) { _planIndex = index = PlanIndex.ofPlans(scope, _plans); }
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the index of the norms of the species by intention and obligation, building it if necessary.
+	 *
+	 * @param scope the scope
+	 * @return the norm index
+	 */
+	private PlanIndex<Norm> getNormIndex(final IScope scope) {
+		PlanIndex<Norm> index = _normIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = _normIndex;
+				if (index == null) { _normIndex = index = PlanIndex.ofNorms(scope, _norms); }
+			}
+		}
+		return index;
+	}
+
 	/**
 	 * List executable plans.
 	 *
@@ -1380,22 +1676,24 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 */
 	protected final List<SimpleBdiPlanStatement> listExecutablePlans(final IScope scope) {
 		final List<SimpleBdiPlanStatement> plans = new ArrayList<>();
+		final MentalState current = currentIntention(scope);
+		final Predicate intention = current == null ? null : current.getPredicate();
+		final PlanIndex<BDIPlan> planIndex = getPlanIndex(scope);
 		final List<BDIPlan> plansCopy = new ArrayList(_plans);
-		scope.getRandom().shuffleInPlace(plansCopy);
+		shuffle(scope, plansCopy);
 		for (final BDIPlan BDIPlanstatement : plansCopy) {
+			if (current == null) { break; }
+			if (!planIndex.isCandidate(BDIPlanstatement, intention)) { continue; }
 			final SimpleBdiPlanStatement statement = BDIPlanstatement.getPlanStatement();
 
 			if (statement.getContextExpression() != null
 					&& !gaml.core.operators.Cast.asBool(scope, statement.getContextExpression().value(scope))) {
 				continue;
 			}
-			if (currentIntention(scope) != null) {
-				if (statement.getIntentionExpression() == null
-						|| (Predicate) statement.getIntentionExpression().value(scope) == null
-						|| ((Predicate) statement.getIntentionExpression().value(scope))
-								.equalsIntentionPlan(currentIntention(scope).getPredicate())) {
-					plans.add(statement);
-				}
+			if (statement.getIntentionExpression() == null
+					|| (Predicate) statement.getIntentionExpression().value(scope) == null
+					|| ((Predicate) statement.getIntentionExpression().value(scope)).equalsIntentionPlan(intention)) {
+				plans.add(statement);
 			}
 			// }
 		}
@@ -1410,28 +1708,30 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 */
 	protected final List<NormStatement> listExecutableNorms(final IScope scope) {
 		final List<NormStatement> norms = new ArrayList<>();
+		final MentalState current = currentIntention(scope);
+		final Predicate intention = current == null ? null : current.getPredicate();
+		final PlanIndex<Norm> normIndex = getNormIndex(scope);
 		final List<Norm> normsCopy = new ArrayList(_norms);
-		scope.getRandom().shuffleInPlace(normsCopy);
+		shuffle(scope, normsCopy);
 		for (final Norm Normstatement : normsCopy) {
+			if (current == null) { break; }
+			if (!normIndex.isCandidate(Normstatement, intention)) { continue; }
 			final NormStatement statement = Normstatement.getNormStatement();
 
 			if (statement.getContextExpression() != null
 					&& !gaml.core.operators.Cast.asBool(scope, statement.getContextExpression().value(scope))) {
 				continue;
 			}
-			if (currentIntention(scope) != null) {
-				if (statement.getIntentionExpression() != null
-						&& (Predicate) statement.getIntentionExpression().value(scope) != null
-						&& ((Predicate) statement.getIntentionExpression().value(scope))
-								.equalsIntentionPlan(currentIntention(scope).getPredicate())) {
-					norms.add(statement);
-				}
-				if (statement.getObligationExpression() != null
-						&& (Predicate) statement.getObligationExpression().value(scope) != null
-						&& ((Predicate) statement.getObligationExpression().value(scope))
-								.equalsIntentionPlan(currentIntention(scope).getPredicate())) {
-					norms.add(statement);
-				}
+			if (statement.getIntentionExpression() != null
+					&& (Predicate) statement.getIntentionExpression().value(scope) != null
+					&& ((Predicate) statement.getIntentionExpression().value(scope)).equalsIntentionPlan(intention)) {
+				norms.add(statement);
+			}
+			if (statement.getObligationExpression() != null
+					&& (Predicate) statement.getObligationExpression().value(scope) != null
+					&& ((Predicate) statement.getObligationExpression().value(scope))
+							.equalsIntentionPlan(intention)) {
+				norms.add(statement);
 			}
 		}
 
@@ -1457,9 +1757,34 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the thoughts
 	 */
 	public IList<String> getThoughts(final IScope scope) {
-		final IAgent agent = getCurrentAgent(scope);
-		final IList<String> thoughts = (IList<String>) agent.getAttribute(LAST_THOUGHTS);
-		return thoughts;
+		return getLastThoughts(getCurrentAgent(scope));
+	}
+
+	/**
+	 * Gets the last thoughts of the agent, formatting the recorded events in the 'ring' mode.
+	 *
+	 * @param agent the agent
+	 * @return the thoughts
+	 */
+	@getter (LAST_THOUGHTS)
+	public IList<String> getLastThoughts(final IAgent agent) {
+		if (THINKING_RING.equals(agent.getAttribute(THINKING_MODE))
+				&& agent.getAttribute(THOUGHT_TRACE) instanceof ThoughtTrace trace) {
+			return trace.toList();
+		}
+		return (IList<String>) agent.getAttribute(LAST_THOUGHTS);
+	}
+
+	/**
+	 * Sets the last thoughts of the agent. In the 'ring' mode, the next thoughts are recorded after these ones.
+	 *
+	 * @param agent the agent
+	 * @param thoughts the thoughts
+	 */
+	@setter (LAST_THOUGHTS)
+	public void setLastThoughts(final IAgent agent, final IList<String> thoughts) {
+		agent.setAttribute(LAST_THOUGHTS, thoughts);
+		if (agent.getAttribute(THOUGHT_TRACE) instanceof ThoughtTrace trace) { trace.reset(thoughts); }
 	}
 
 	/**
@@ -1471,6 +1796,13 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 */
 	public IList<String> addThoughts(final IScope scope, final String think) {
 		final IAgent agent = getCurrentAgent(scope);
+		final Object mode = agent.getAttribute(THINKING_MODE);
+		if (THINKING_OFF.equals(mode)) { return (IList<String>) agent.getAttribute(LAST_THOUGHTS); }
+		if (THINKING_RING.equals(mode)) {
+			final ThoughtTrace trace = thoughtTrace(agent);
+			trace.record(ThoughtTrace.TEXT, think, null);
+			return trace.toList();
+		}
 		final IList<String> thoughts = (IList<String>) agent.getAttribute(LAST_THOUGHTS);
 		final IList newthoughts = GamaListFactory.create(Types.STRING);
 		newthoughts.add(think);
@@ -1481,6 +1813,39 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		return newthoughts;
 	}
 
+	/**
+	 * Adds a thought given as an event, which is only formatted if the thoughts are recorded as strings.
+	 *
+	 * @param scope the scope
+	 * @param code the code of the event (see {@link ThoughtTrace})
+	 * @param first the first argument of the event
+	 * @param second the second argument of the event
+	 */
+	private void addThoughts(final IScope scope, final int code, final Object first, final Object second) {
+		final IAgent agent = getCurrentAgent(scope);
+		final Object mode = agent.getAttribute(THINKING_MODE);
+		if (THINKING_OFF.equals(mode)) { return; }
+		if (THINKING_RING.equals(mode)) {
+			thoughtTrace(agent).record(code, first, second);
+			return;
+		}
+		addThoughts(scope, ThoughtTrace.format(code, first, second));
+	}
+
+	/**
+	 * Returns the trace of the last thoughts of the agent, creating it from the current thoughts if necessary.
+	 *
+	 * @param agent the agent
+	 * @return the trace
+	 */
+	private static ThoughtTrace thoughtTrace(final IAgent agent) {
+		if (agent.getAttribute(THOUGHT_TRACE) instanceof ThoughtTrace trace) { return trace; }
+		final ThoughtTrace trace = new ThoughtTrace(LAST_THOUGHTS_SIZE);
+		trace.reset((IList<String>) agent.getAttribute(LAST_THOUGHTS));
+		agent.setAttribute(THOUGHT_TRACE, trace);
+		return trace;
+	}
+
 	/**
 	 * Test on hold.
 	 *
@@ -1566,7 +1931,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			for (final Object subintention : (ArrayList) cond) {
 				if (desbase.contains(subintention)) { return true; }
 			}
-			addThoughts(scope, "no more subintention for" + intention);
+			addThoughts(scope, ThoughtTrace.NO_MORE_SUBINTENTION, intention, null);
 			/* Must remove the current plan to change for a new one */
 			final IAgent agent = getCurrentAgent(scope);
 			BDIPlan _persistentTask = (BDIPlan) agent.getAttribute(CURRENT_PLAN);
@@ -1753,8 +2118,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 */
 	public static boolean removeFromBase(final IScope scope, final MentalState predicateItem,
 			final String factBaseName) {
-		final IList<MentalState> factBase = getBase(scope, factBaseName);
-		return factBase.remove(predicateItem);
+		return MentalStateBase.of(scope, factBaseName).remove(predicateItem);
 	}
 
 	/**
@@ -1766,8 +2130,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return true, if successful
 	 */
 	public static boolean removeFromBase(final IScope scope, final Emotion emotionItem, final String factBaseName) {
-		final IList<Emotion> factBase = getEmotionBase(scope, factBaseName);
-		return factBase.remove(emotionItem);
+		return EmotionBase.of(scope, factBaseName).remove(emotionItem);
 	}
 
 	/**
@@ -1804,7 +2167,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return true, if successful
 	 */
 	public static boolean addToBase(final IScope scope, final MentalState mentalItem, final String factBaseName) {
-		return addToBase(scope, mentalItem, getBase(scope, factBaseName));
+		return MentalStateBase.of(scope, factBaseName).add(mentalItem);
 	}
 
 	/**
@@ -1816,7 +2179,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return true, if successful
 	 */
 	public static boolean addToBase(final IScope scope, final Emotion emotionItem, final String factBaseName) {
-		return addToBase(scope, emotionItem, getEmotionBase(scope, factBaseName));
+		return EmotionBase.of(scope, factBaseName).add(emotionItem);
 	}
 
 	/**
@@ -1917,31 +2280,31 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				createHappyForFromMentalState(scope, predicateDirect); // (seulement si le prédicat est sur une
 																		// émotion).
 			}
-			for (final MentalState predTest : getBase(scope, SimpleBdiArchitecture.BELIEF_BASE)) {
-				if (predTest.getPredicate() != null && predicateDirect.getPredicate() != null
-						&& predTest.getPredicate().equalsButNotTruth(predicateDirect.getPredicate())) {
-					predTemp = predTest;
+			if (predicateDirect.getPredicate() != null) {
+				for (final MentalState predTest : MentalStateBase.of(scope, BELIEF_BASE)
+						.withName(predicateDirect.getPredicate().getName())) {
+					if (predTest.getPredicate().equalsButNotTruth(predicateDirect.getPredicate())) {
+						predTemp = predTest;
+					}
 				}
 			}
 			if (predTemp != null) {
 				removeFromBase(scope, predTemp, BELIEF_BASE);
 			}
-			if (getBase(scope, SimpleBdiArchitecture.INTENTION_BASE).contains(predicateDirect)) {
+			if (MentalStateBase.of(scope, INTENTION_BASE).contains(predicateDirect)) {
 				removeFromBase(scope, predicateDirect, DESIRE_BASE);
 				removeFromBase(scope, predicateDirect, INTENTION_BASE);
 				scope.getAgent().setAttribute(CURRENT_PLAN, null);
 				scope.getAgent().setAttribute(CURRENT_NORM, null);
 			}
-			if (getBase(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE).contains(predicateDirect)) {
-				removeFromBase(scope, predicateDirect, UNCERTAINTY_BASE);
-			}
-			if (getBase(scope, SimpleBdiArchitecture.OBLIGATION_BASE).contains(predicateDirect)) {
-				removeFromBase(scope, predicateDirect, OBLIGATION_BASE);
-			}
-			for (final MentalState predTest : getBase(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE)) {
-				if (predTest.getPredicate() != null && predicateDirect.getPredicate() != null
-						&& predTest.getPredicate().equalsButNotTruth(predicateDirect.getPredicate())) {
-					predTemp = predTest;
+			removeFromBase(scope, predicateDirect, UNCERTAINTY_BASE);
+			removeFromBase(scope, predicateDirect, OBLIGATION_BASE);
+			if (predicateDirect.getPredicate() != null) {
+				for (final MentalState predTest : MentalStateBase.of(scope, UNCERTAINTY_BASE)
+						.withName(predicateDirect.getPredicate().getName())) {
+					if (predTest.getPredicate().equalsButNotTruth(predicateDirect.getPredicate())) {
+						predTemp = predTest;
+					}
 				}
 			}
 			if (predTemp != null) {
@@ -2174,7 +2537,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean hasBelief(final IScope scope, final MentalState predicateDirect) {
-		return getBase(scope, BELIEF_BASE).contains(predicateDirect);
+		return MentalStateBase.contains(scope, BELIEF_BASE, predicateDirect);
 
 	}
 
@@ -2186,7 +2549,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean hasDesire(final IScope scope, final MentalState predicateDirect) {
-		return getBase(scope, DESIRE_BASE).contains(predicateDirect);
+		return MentalStateBase.contains(scope, DESIRE_BASE, predicateDirect);
 	}
 
 	/**
@@ -2388,13 +2751,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					examples = { @example ("get_belief_with_name(\"has_water\")") }))
 	public MentalState getBeliefName(final IScope scope) throws GamaRuntimeException {
 		final String predicateName = (String) (scope.hasArg("name") ? scope.getArg("name", IType.STRING) : null);
-		if (predicateName != null) {
-			for (final MentalState mental : getBase(scope, BELIEF_BASE)) {
-				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
-					return mental;
-				}
-			}
-		}
+		if (predicateName != null) { return MentalStateBase.firstWithName(scope, BELIEF_BASE, predicateName); }
 		return null;
 	}
 
@@ -2419,13 +2776,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	public IList<MentalState> getBeliefsName(final IScope scope) throws GamaRuntimeException {
 		final String predicateName = (String) (scope.hasArg("name") ? scope.getArg("name", IType.STRING) : null);
 		final IList<MentalState> predicates = GamaListFactory.create();
-		if (predicateName != null) {
-			for (final MentalState mental : getBase(scope, BELIEF_BASE)) {
-				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
-					predicates.add(mental);
-				}
-			}
-		}
+		if (predicateName != null) { predicates.addAll(MentalStateBase.withName(scope, BELIEF_BASE, predicateName)); }
 		return predicates;
 	}
 
@@ -2604,7 +2955,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				(Predicate) (scope.hasArg(PREDICATE) ? scope.getArg(PREDICATE, PredicateType.id) : null);
 		if (predicateDirect != null) {
 			final MentalState temp = new MentalState("Desire", predicateDirect);
-			return getBase(scope, DESIRE_BASE).contains(temp);
+			return hasDesire(scope, temp);
 		}
 		return false;
 	}
@@ -2659,7 +3010,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				(MentalState) (scope.hasArg("mental_state") ? scope.getArg("mental_state", MentalStateType.id) : null);
 		if (predicateDirect != null) {
 			final MentalState temp = new MentalState("Desire", predicateDirect);
-			return getBase(scope, DESIRE_BASE).contains(temp);
+			return hasDesire(scope, temp);
 		}
 		return false;
 	}
@@ -3136,13 +3487,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					examples = { @example ("get_desire_with_name(\"has_water\")") }))
 	public MentalState getDesireName(final IScope scope) throws GamaRuntimeException {
 		final String predicateName = (String) (scope.hasArg("name") ? scope.getArg("name", IType.STRING) : null);
-		if (predicateName != null) {
-			for (final MentalState mental : getBase(scope, DESIRE_BASE)) {
-				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
-					return mental;
-				}
-			}
-		}
+		if (predicateName != null) { return MentalStateBase.firstWithName(scope, DESIRE_BASE, predicateName); }
 		return null;
 	}
 
@@ -3167,13 +3512,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	public List<MentalState> getDesiresName(final IScope scope) throws GamaRuntimeException {
 		final String predicateName = (String) (scope.hasArg("name") ? scope.getArg("name", IType.STRING) : null);
 		final List<MentalState> predicates = GamaListFactory.create();
-		if (predicateName != null) {
-			for (final MentalState mental : getBase(scope, DESIRE_BASE)) {
-				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
-					predicates.add(mental);
-				}
-			}
-		}
+		if (predicateName != null) { predicates.addAll(MentalStateBase.withName(scope, DESIRE_BASE, predicateName)); }
 		return predicates;
 	}
 
@@ -3185,7 +3524,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeBelief(final IScope scope, final MentalState pred) {
-		return getBase(scope, BELIEF_BASE).remove(pred);
+		return MentalStateBase.of(scope, BELIEF_BASE).remove(pred);
 	}
 
 	/**
@@ -3272,7 +3611,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				(Predicate) (scope.hasArg("old_predicate") ? scope.getArg("old_predicate", PredicateType.id) : null);
 		boolean ok = true;
 		if (oldPredicate != null) {
-			ok = getBase(scope, BELIEF_BASE).remove(new MentalState("Belief", oldPredicate));
+			ok = removeBelief(scope, new MentalState("Belief", oldPredicate));
 		} else {
 			ok = false;
 		}
@@ -3281,12 +3620,11 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		if (newPredicate != null) {
 			final MentalState temp = new MentalState("Belief", newPredicate);
 			// Predicate current_intention = currentIntention(scope);
-			if (getBase(scope, SimpleBdiArchitecture.INTENTION_BASE)
-					.contains(new MentalState("Intention", newPredicate))) {
+			if (MentalStateBase.of(scope, INTENTION_BASE).contains(new MentalState("Intention", newPredicate))) {
 				removeFromBase(scope, temp, DESIRE_BASE);
 				removeFromBase(scope, temp, INTENTION_BASE);
 			}
-			if (getBase(scope, SimpleBdiArchitecture.DESIRE_BASE).contains(new MentalState("Desire", newPredicate))) {
+			if (hasDesire(scope, new MentalState("Desire", newPredicate))) {
 				removeFromBase(scope, temp, DESIRE_BASE);
 			}
 			for (final Object statement : getBase(scope, SimpleBdiArchitecture.INTENTION_BASE)) {
@@ -3320,8 +3658,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeDesire(final IScope scope, final MentalState pred) {
-		getBase(scope, DESIRE_BASE).remove(pred);
-		getBase(scope, INTENTION_BASE).remove(pred);
+		MentalStateBase.of(scope, DESIRE_BASE).remove(pred);
+		MentalStateBase.of(scope, INTENTION_BASE).remove(pred);
 		for (final Object statement : getBase(scope, SimpleBdiArchitecture.INTENTION_BASE)) {
 			if (((MentalState) statement).getPredicate() != null) {
 				final List<MentalState> statementSubintention =
@@ -3693,13 +4031,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					examples = { @example ("get_intention_with_name(\"has_water\")") }))
 	public MentalState getIntentionName(final IScope scope) throws GamaRuntimeException {
 		final String predicateName = (String) (scope.hasArg("name") ? scope.getArg("name", IType.STRING) : null);
-		if (predicateName != null) {
-			for (final MentalState mental : getBase(scope, INTENTION_BASE)) {
-				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
-					return mental;
-				}
-			}
-		}
+		if (predicateName != null) { return MentalStateBase.firstWithName(scope, INTENTION_BASE, predicateName); }
 		return null;
 	}
 
@@ -3724,13 +4056,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	public List<MentalState> getIntentionsName(final IScope scope) throws GamaRuntimeException {
 		final String predicateName = (String) (scope.hasArg("name") ? scope.getArg("name", IType.STRING) : null);
 		final List<MentalState> predicates = GamaListFactory.create();
-		if (predicateName != null) {
-			for (final MentalState mental : getBase(scope, INTENTION_BASE)) {
-				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
-					predicates.add(mental);
-				}
-			}
-		}
+		if (predicateName != null) { predicates.addAll(MentalStateBase.withName(scope, INTENTION_BASE, predicateName)); }
 		return predicates;
 	}
 
@@ -3742,7 +4068,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeIntention(final IScope scope, final MentalState pred) {
-		getBase(scope, INTENTION_BASE).remove(pred);
+		MentalStateBase.of(scope, INTENTION_BASE).remove(pred);
 		for (final Object statement : getBase(scope, SimpleBdiArchitecture.INTENTION_BASE)) {
 			if (((MentalState) statement).getPredicate() != null) {
 				final List<MentalState> statementSubintention = ((MentalState) statement).getSubintentions();
@@ -3795,8 +4121,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					scope.hasArg(REMOVE_DESIRE_AND_INTENTION) ? scope.getBoolArg(REMOVE_DESIRE_AND_INTENTION) : false;
 			// getBase(scope, INTENTION_BASE).remove(temp);
 			if (dodesire) {
-				getBase(scope, DESIRE_BASE).remove(temp);
-				getBase(scope, OBLIGATION_BASE).remove(temp);
+				removeFromBase(scope, temp, DESIRE_BASE);
+				removeFromBase(scope, temp, OBLIGATION_BASE);
 			}
 			if (currentIntention(scope) != null && predicateDirect.equals(currentIntention(scope).getPredicate())) {
 				scope.getAgent().setAttribute(CURRENT_PLAN, null);
@@ -3820,7 +4146,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 					}
 				}
 			}
-			getBase(scope, INTENTION_BASE).remove(temp);
+			removeFromBase(scope, temp, INTENTION_BASE);
 
 			return true;
 		}
@@ -3859,9 +4185,9 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		if (predicateDirect != null) {
 			final Boolean dodesire =
 					scope.hasArg(REMOVE_DESIRE_AND_INTENTION) ? scope.getBoolArg(REMOVE_DESIRE_AND_INTENTION) : false;
-			getBase(scope, INTENTION_BASE).remove(temp);
+			removeFromBase(scope, temp, INTENTION_BASE);
 			if (dodesire) {
-				getBase(scope, DESIRE_BASE).remove(temp);
+				removeFromBase(scope, temp, DESIRE_BASE);
 			}
 
 			return true;
@@ -3986,6 +4312,12 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @param scope the scope
 	 */
 	protected void updateEmotionsIntensity(final IScope scope) {
+		if (useLifetimeScheduler(scope)) {
+			for (final Emotion emo : EmotionBase.of(scope, EMOTION_BASE).updateIntensities()) {
+				removeFromBase(scope, emo, EMOTION_BASE);
+			}
+			return;
+		}
 		for (final Emotion emo : getEmotionBase(scope, SimpleBdiArchitecture.EMOTION_BASE)) {
 			emo.decayIntensity();
 		}
@@ -4084,7 +4416,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		final Boolean use_personality = scope.hasArg(USE_PERSONALITY) ? scope.getBoolArg(USE_PERSONALITY)
 				: (Boolean) scope.getAgent().getAttribute(USE_PERSONALITY);
 		if (predTest.getPredicate() != null) {
-			if (getBase(scope, SimpleBdiArchitecture.DESIRE_BASE).contains(predTest)) {
+			if (hasDesire(scope, predTest)) {
 				final Emotion joy = new Emotion("joy", predTest.getPredicate());
 				final IAgent agentTest = predTest.getPredicate().getAgentCause();
 				if (agentTest != null) {
@@ -4212,7 +4544,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		final Boolean use_personality = scope.hasArg(USE_PERSONALITY) ? scope.getBoolArg(USE_PERSONALITY)
 				: (Boolean) scope.getAgent().getAttribute(USE_PERSONALITY);
 		if (predTest.getPredicate() != null) {
-			if (getBase(scope, SimpleBdiArchitecture.DESIRE_BASE).contains(predTest)) {
+			if (hasDesire(scope, predTest)) {
 				final Emotion hope = new Emotion("hope", predTest.getPredicate());
 				final IAgent agentTest = predTest.getPredicate().getAgentCause();
 				if (agentTest != null) {
@@ -5414,6 +5746,141 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		return addEmotion(scope, emotionDirect);
 	}
 
+	/**
+	 * Prim spread emotion.
+	 *
+	 * @param scope the scope
+	 * @return the number of receivers whose emotion base has been modified
+	 * @throws GamaRuntimeException the gama runtime exception
+	 */
+	@action (
+			name = "spread_emotion",
+			args = { @arg (
+					name = EMOTION,
+					type = EmotionType.EMOTIONTYPE_ID,
+					optional = false,
+					doc = @doc ("the emotion to spread")),
+					@arg (
+							name = "receivers",
+							type = IType.LIST,
+							optional = false,
+							doc = @doc ("the agents that can receive the emotion")),
+					@arg (
+							name = "emitters",
+							type = IType.LIST,
+							optional = true,
+							doc = @doc ("the agents that can transmit the emotion (the receivers by default)")),
+					@arg (
+							name = "distance",
+							type = IType.FLOAT,
+							optional = false,
+							doc = @doc ("the maximal distance between an emitter and a receiver")),
+					@arg (
+							name = "threshold",
+							type = IType.FLOAT,
+							optional = true,
+							doc = @doc ("the minimal value of the charisma of the emitter times the receptivity of the receiver (0.25 by default)")),
+					@arg (
+							name = "decay",
+							type = IType.FLOAT,
+							optional = true,
+							doc = @doc ("the decay of the received emotions (the one of the emitted emotion by default)")) },
+			doc = @doc (
+					value = "spreads an emotion in a population in a single pass, as if each receiver executed an emotional_contagion about the emitters it perceives within the distance. The emitters are read before any receiver is modified, and the distances are computed in parallel.",
+					returns = "the number of receivers that have received the emotion.",
+					examples = { @example ("do spread_emotion emotion: fearConfirmed receivers: list(people) distance: 10.0;") }))
+	public Integer primSpreadEmotion(final IScope scope) throws GamaRuntimeException {
+		final Emotion emotionDirect = (Emotion) scope.getArg(EMOTION, EmotionType.EMOTIONTYPE_ID);
+		if (emotionDirect == null) return 0;
+		final IList<IAgent> receivers = agentsOf(scope, scope.getListArg("receivers"));
+		final IList<IAgent> emitters = scope.hasArg("emitters") ? agentsOf(scope, scope.getListArg("emitters")) : receivers;
+		final double distance = scope.getFloatArg("distance");
+		final double threshold = scope.hasArg("threshold") ? scope.getFloatArg("threshold") : 0.25;
+		final Double decay = scope.hasArg("decay") ? scope.getFloatArg("decay") : null;
+		return new ContagionKernel(emotionDirect, threshold, decay).spread(scope, emitters, receivers, distance);
+	}
+
+	/**
+	 * Keeps the agents of a list.
+	 *
+	 * @param scope the scope
+	 * @param list the list (possibly null)
+	 * @return the agents of the list
+	 */
+	private static IList<IAgent> agentsOf(final IScope scope, final IList<?> list) {
+		final IList<IAgent> agents = GamaListFactory.create(Types.AGENT);
+		if (list == null) return agents;
+		for (final Object o : list) {
+			if (o instanceof IAgent) { agents.add((IAgent) o); }
+		}
+		return agents;
+	}
+
+	/**
+	 * Saves the BDI state of agents in a binary file.
+	 *
+	 * @param scope the scope
+	 * @return the number of agents saved
+	 * @throws GamaRuntimeException the gama runtime exception
+	 */
+	@action (
+			name = "save_bdi_state",
+			args = { @arg (
+					name = "to",
+					type = IType.STRING,
+					optional = false,
+					doc = @doc ("the path of the file, resolved like the paths of the other files of the model (its folders are created if needed)")),
+					@arg (
+							name = "agents",
+							type = IType.LIST,
+							optional = true,
+							doc = @doc ("the agents whose state is saved (the agents of the species of the caller by default)")) },
+			doc = @doc (
+					value = "saves in a compact binary file the BDI state of agents: personality, belief, desire, intention, obligation, uncertainty, ideal, emotion and social link bases, current plan and current norm. The values of the predicates can be nil, booleans, integers, floats, strings, points, agents, lists, maps, predicates, mental states and emotions.",
+					returns = "the number of agents saved.",
+					examples = { @example ("do save_bdi_state to: \"../snapshots/step_100.bdi\";") }))
+	public Integer primSaveBdiState(final IScope scope) throws GamaRuntimeException {
+		final String path = FileUtils.constructAbsoluteFilePath(scope, scope.getStringArg("to"), false);
+		final IList<IAgent> agents = scope.hasArg("agents") ? agentsOf(scope, scope.getListArg("agents"))
+				: agentsOf(scope, scope.getAgent().getPopulation());
+		final Path file = Path.of(path);
+		try {
+			if (file.getParent() != null) { Files.createDirectories(file.getParent()); }
+			try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+				return BdiSnapshot.write(scope, agents, stream);
+			}
+		} catch (final IOException e) {
+			throw GamaRuntimeException.create(e, scope);
+		}
+	}
+
+	/**
+	 * Restores the BDI state of agents from a binary file.
+	 *
+	 * @param scope the scope
+	 * @return the number of agents restored
+	 * @throws GamaRuntimeException the gama runtime exception
+	 */
+	@action (
+			name = "restore_bdi_state",
+			args = { @arg (
+					name = "from",
+					type = IType.STRING,
+					optional = false,
+					doc = @doc ("the path of a file written by save_bdi_state")) },
+			doc = @doc (
+					value = "restores the BDI state of the agents saved by save_bdi_state. The agents are found by their species and their index in the current simulation, or in the population of their host for the agents of micro-species: the agents that no longer exist are ignored, and the references to them in the restored mental states, emotions and social links become nil. The current plan and norm are found by their name in the plans and norms of the agents.",
+					returns = "the number of agents restored.",
+					examples = { @example ("do restore_bdi_state from: \"../snapshots/step_100.bdi\";") }))
+	public Integer primRestoreBdiState(final IScope scope) throws GamaRuntimeException {
+		final String path = FileUtils.constructAbsoluteFilePath(scope, scope.getStringArg("from"), true);
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(Path.of(path)))) {
+			return BdiSnapshot.read(scope, stream);
+		} catch (final IOException e) {
+			throw GamaRuntimeException.create(e, scope);
+		}
+	}
+
 	/**
 	 * Adds the emotion.
 	 *
@@ -5582,7 +6049,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeEmotion(final IScope scope, final Emotion emo) {
-		return getEmotionBase(scope, EMOTION_BASE).remove(emo);
+		return removeFromBase(scope, emo, EMOTION_BASE);
 	}
 
 	/**
@@ -5894,7 +6361,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean hasUncertainty(final IScope scope, final MentalState predicateDirect) {
-		return getBase(scope, UNCERTAINTY_BASE).contains(predicateDirect);
+		return MentalStateBase.contains(scope, UNCERTAINTY_BASE, predicateDirect);
 	}
 
 	/**
@@ -5984,7 +6451,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeUncertainty(final IScope scope, final MentalState pred) {
-		return getBase(scope, UNCERTAINTY_BASE).remove(pred);
+		return MentalStateBase.of(scope, UNCERTAINTY_BASE).remove(pred);
 	}
 
 	/**
@@ -6315,7 +6782,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean hasIdeal(final IScope scope, final MentalState predicateDirect) {
-		return getBase(scope, IDEAL_BASE).contains(predicateDirect);
+		return MentalStateBase.contains(scope, IDEAL_BASE, predicateDirect);
 	}
 
 	/**
@@ -6405,7 +6872,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeIdeal(final IScope scope, final MentalState pred) {
-		return getBase(scope, IDEAL_BASE).remove(pred);
+		return MentalStateBase.of(scope, IDEAL_BASE).remove(pred);
 	}
 
 	/**
@@ -6578,7 +7045,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean hasObligation(final IScope scope, final MentalState predicateDirect) {
-		return getBase(scope, OBLIGATION_BASE).contains(predicateDirect);
+		return MentalStateBase.contains(scope, OBLIGATION_BASE, predicateDirect);
 	}
 
 	/**
@@ -6615,7 +7082,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 	 * @return the boolean
 	 */
 	public static Boolean removeObligation(final IScope scope, final MentalState pred) {
-		return getBase(scope, OBLIGATION_BASE).remove(pred);
+		return MentalStateBase.of(scope, OBLIGATION_BASE).remove(pred);
 	}
 
 	/**
@@ -7144,10 +7611,13 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		final IAgent agent = getCurrentAgent(scope);
 		final Boolean use_social_architecture = scope.hasArg(USE_SOCIAL_ARCHITECTURE)
 				? scope.getBoolArg(USE_SOCIAL_ARCHITECTURE) : (Boolean) agent.getAttribute(USE_SOCIAL_ARCHITECTURE);
-		if (use_social_architecture) {
+		// Only search the base for links towards dead agents when one of them has died
+		final SocialLinkWatcher watcher = use_social_architecture ? SocialLinkWatcher.of(scope) : null;
+		if (use_social_architecture && watcher.mustPurge(agent, getSocialBase(scope, SOCIALLINK_BASE))) {
 			for (final SocialLink tempLink : listSocialAgentDead(scope)) {
 				removeFromBase(scope, tempLink, SimpleBdiArchitecture.SOCIALLINK_BASE);
 			}
+			watcher.purged(agent);
 			// for (final SocialLink tempLink : getSocialBase(scope, SOCIALLINK_BASE)) {
 			// updateSocialLink(scope, tempLink);
 			// }
@@ -7167,6 +7637,22 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		updateFamiliarity(scope, social);
 	}
 
+	/**
+	 * Lists the emotions of the agent of the scope caused by the given agent, using the index of the emotion base if it
+	 * is up to date. Otherwise, returns the whole base, whose emotions are then filtered by the caller. The agent of the
+	 * scope must be the agent being executed: the emotion base of another agent is read directly.
+	 *
+	 * @param scope the scope
+	 * @param cause the agent cause
+	 * @return the emotions, in the order of the base
+	 */
+	static private List<Emotion> emotionsCausedBy(final IScope scope, final IAgent cause) {
+		final EmotionBase emotions = EmotionBase.current(scope, EMOTION_BASE);
+		if (emotions != null) return emotions.causedBy(cause);
+		final List<Emotion> base = getEmotionBase(scope, EMOTION_BASE);
+		return base == null ? Collections.emptyList() : base;
+	}
+
 	// Lier les coeffiscient à la personnalité
 
 	/**
@@ -7189,7 +7675,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			coefModification = 1 - neurotisme;
 		}
 		Double appreciationModif = social.getLiking();
-		for (final Emotion emo : getEmotionBase(scope, EMOTION_BASE)) {
+		for (final Emotion emo : emotionsCausedBy(scope, agentCause)) {
 			if (emo.getAgentCause() != null && emo.getAgentCause().equals(agentCause)) {
 				if (emo.getName().equals("joy") || emo.getName().equals("hope")) {
 					tempPositif = tempPositif + 1.0;
@@ -7249,7 +7735,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			coefModification = 1 - neurotisme;
 		}
 		Double dominanceModif = social.getDominance();
-		for (final Emotion emo : getEmotionBase(scope, EMOTION_BASE)) {
+		for (final Emotion emo : emotionsCausedBy(scope, agentCause)) {
 			if (emo.getAgentCause() != null && emo.getAgentCause().equals(agentCause)) {
 				if (emo.getName().equals("sadness") || emo.getName().equals("fear")) {
 					tempNegatif = tempNegatif + 1.0;
@@ -7318,7 +7804,7 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			coefModifEmo = 1 - neurotisme;
 		}
 		Double solidarityModif = social.getSolidarity();
-		for (final Emotion emo : getEmotionBase(scope, EMOTION_BASE)) {
+		for (final Emotion emo : emotionsCausedBy(scope, agentCause)) {
 			if (emo.getAgentCause() != null && emo.getAgentCause().equals(agentCause)) {
 				if (emo.getName().equals("sadness") || emo.getName().equals("fear")) {
 					tempEmoNeg = tempEmoNeg + 1.0;
@@ -7443,39 +7929,69 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		final IAgent agent = getCurrentAgent(scope);
 		final Norm _persistentNorm = (Norm) agent.getAttribute(CURRENT_NORM);
 		// Double obedienceValue = (Double) scope.getAgent().getAttribute("obedience");
-
+		// The current intention does not change while the norms are tested
+		final MentalState current = currentIntention(scope);
+		int evaluated = 0;
+		int skipped = 0;
+		int violated = 0;
+		int applied = 0;
 		for (final Norm tempNorm : getNorms(scope)) {
 			// si la norme est activable mais n'est pas activée, alors elle est violée (non prise en compte des
 			// obligations)
 			final NormStatement statement = tempNorm.getNormStatement();
 			if (statement != null) {
-				final boolean isContextConditionSatisfied = statement.getContextExpression() == null
-						|| gaml.core.operators.Cast.asBool(scope, statement.getContextExpression().value(scope));
-				boolean isIntentionConditionSatisfied = false;
-				if (currentIntention(scope) == null || statement.getIntentionExpression() == null
-						|| statement.getIntentionExpression().value(scope) == null
-						|| ((Predicate) statement.getIntentionExpression().value(scope))
-								.equalsIntentionPlan(currentIntention(scope).getPredicate())) {
-					isIntentionConditionSatisfied = true;
+				// Each expression of the norm is evaluated at most once, and the context is only evaluated if the
+				// intention or the obligation of the norm matches the current intention
+				boolean isIntentionConditionSatisfied = current == null || statement.getIntentionExpression() == null;
+				if (!isIntentionConditionSatisfied) {
+					final Object intention = statement.getIntentionExpression().value(scope);
+					isIntentionConditionSatisfied =
+							intention == null || ((Predicate) intention).equalsIntentionPlan(current.getPredicate());
 				}
 				boolean isObligationConditionSatisfied = false;
-				if (currentIntention(scope) != null && statement.getObligationExpression() != null
-						&& statement.getObligationExpression().value(scope) != null) {
-					isObligationConditionSatisfied = ((Predicate) statement.getObligationExpression().value(scope))
-							.equalsIntentionPlan(currentIntention(scope).getPredicate());
+				if (!isIntentionConditionSatisfied && current != null && statement.getObligationExpression() != null) {
+					final Object obligation = statement.getObligationExpression().value(scope);
+					isObligationConditionSatisfied =
+							obligation != null && ((Predicate) obligation).equalsIntentionPlan(current.getPredicate());
 				}
+				if (!isIntentionConditionSatisfied && !isObligationConditionSatisfied) {
+					skipped++;
+					continue;
+				}
+				evaluated++;
+				final boolean isContextConditionSatisfied = statement.getContextExpression() == null
+						|| gaml.core.operators.Cast.asBool(scope, statement.getContextExpression().value(scope));
 				// final boolean thresholdSatisfied = statement.getThreshold() == null
 				// || obedienceValue >= (Double) statement.getThreshold().value(scope);
-				if (isContextConditionSatisfied && isIntentionConditionSatisfied
-						|| isContextConditionSatisfied && isObligationConditionSatisfied /* && thresholdSatisfied */) {
+				if (isContextConditionSatisfied /* && thresholdSatisfied */) {
 					if (_persistentNorm == null || !statement.equals(_persistentNorm.getNormStatement())) {
 						tempNorm.violated(scope);
+						violated++;
 					} else if (statement.equals(_persistentNorm.getNormStatement())) {
 						tempNorm.applied(scope);
+						applied++;
 					}
 				}
 			}
 		}
+		NormStatistics.of(scope).record(scope, evaluated, skipped, violated, applied);
+	}
+
+	/**
+	 * Prim get norm statistics.
+	 *
+	 * @param scope the scope
+	 * @return the statistics
+	 * @throws GamaRuntimeException the gama runtime exception
+	 */
+	@action (
+			name = "get_norm_statistics",
+			doc = @doc (
+					value = "get the number of norms of the species that have been evaluated (their context has been tested), skipped (their intention and obligation did not match the current intention), violated and applied during the last completed cycle, for all the agents of the species in the simulation of the agent",
+					returns = "a map with the keys cycle (the last completed cycle, -1 if there is none yet), evaluated, skipped, violated and applied",
+					examples = { @example ("map<string, int> stats <- get_norm_statistics();") }))
+	public IMap<String, Integer> primGetNormStatistics(final IScope scope) throws GamaRuntimeException {
+		return NormStatistics.of(scope).toMap(scope);
 	}
 
 	/**
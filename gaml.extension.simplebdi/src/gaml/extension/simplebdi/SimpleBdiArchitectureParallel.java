@@ -10,11 +10,16 @@
  ********************************************************************************************************/
 package gaml.extension.simplebdi;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
 
 import gama.core.annotations.precompiler.IConcept;
 import gama.core.annotations.precompiler.GamlAnnotations.doc;
 import gama.core.annotations.precompiler.GamlAnnotations.skill;
+import gama.core.annotations.precompiler.GamlAnnotations.variable;
+import gama.core.annotations.precompiler.GamlAnnotations.vars;
 import gama.core.metamodel.agent.IAgent;
 import gama.core.metamodel.population.IPopulation;
 import gama.core.runtime.IScope;
@@ -24,9 +29,9 @@ import gaml.core.descriptions.ConstantExpressionDescription;
 import gaml.core.descriptions.IDescription;
 import gaml.core.expressions.IExpression;
 import gaml.core.operators.Cast;
-import gaml.core.operators.Maths;
 import gaml.core.statements.AbstractStatement;
 import gaml.core.statements.IStatement;
+import gaml.core.types.IType;
 
 /**
  * The Class SimpleBdiArchitectureParallel.
@@ -35,15 +40,29 @@ import gaml.core.statements.IStatement;
 		name = SimpleBdiArchitectureParallel.PARALLEL_BDI,
 		concept = { IConcept.BDI, IConcept.ARCHITECTURE })
 @doc ("compute the bdi architecture in parallel. This skill inherit all actions and variables from SimpleBdiArchitecture")
+@vars ({ @variable (
+		name = SimpleBdiArchitectureParallel.USE_PARALLEL_CYCLE,
+		type = IType.BOOL,
+		init = "false",
+		doc = @doc ("indicates if the cycle of each agent is computed in a few phases over all the agents (true) instead of statement by statement (false). With true, the perceptions of all the agents are computed in parallel, then their effects on the agents (emotional contagion, socialize) are applied in the scheduling order, then the rules, laws, social links and coping of all the agents are computed in parallel, then the plans and norms are executed in the scheduling order, and finally the lifetimes and intensities are updated in parallel. The random choices of the architecture use a generator drawn for each agent from the one of the simulation, so that the results do not depend on the threads. Plans and norms can therefore draw random numbers and modify other agents (ask, send...), but the conditions and bodies of the perceptions, rules, laws and coping must not: the random operators of GAML use the generator of the simulation, shared by all the threads. All the agents of the species must have the same value")) })
 @SuppressWarnings ({ "unchecked", "rawtypes" })
 public class SimpleBdiArchitectureParallel extends SimpleBdiArchitecture {
 
 	/** The Constant PARALLEL_BDI. */
 	public static final String PARALLEL_BDI = "parallel_bdi";
+
+	/** The Constant USE_PARALLEL_CYCLE. */
+	public static final String USE_PARALLEL_CYCLE = "use_parallel_cycle";
+
+	/** The name of the agent attribute holding the writes deferred during the perception phase of a parallel cycle. */
+	static final String DEFERRED_WRITES = "%deferred_writes";
 	
 	/** The parallel. */
 	IExpression parallel = ConstantExpressionDescription.TRUE_EXPR_DESCRIPTION;
 
+	/** Whether the current step of the species is computed as a parallel cycle. */
+	private volatile boolean parallelCycle;
+
 	/**
 	 * The Class UpdateEmotions.
 	 */
@@ -132,11 +151,215 @@ public class SimpleBdiArchitectureParallel extends SimpleBdiArchitecture {
 
 	}
 
+	/**
+	 * The Class Perceive. First phase of a parallel cycle: the perceptions of the agent.
+	 */
+	public class Perceive extends AbstractStatement {
+
+		/**
+		 * Instantiates a new perceive.
+		 *
+		 * @param desc the desc
+		 */
+		public Perceive(IDescription desc) {
+			super(desc);
+		}
+
+		@Override
+		protected Object privateExecuteIn(IScope scope) throws GamaRuntimeException {
+			final IAgent agent = scope.getAgent();
+			if (agent.dead()) return null;
+			updatePersonality(scope);
+			if (_sanctionNumber > 0) { agent.setAttribute(SANCTION_BASE, _sanctions); }
+			for (int i = 0; i < _perceptionNumber; i++) {
+				_perceptions.get(i).executeOn(scope);
+				if (agent.dead()) return null;
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * The Class ApplyDeferredWrites. Second phase of a parallel cycle: the effects of the perceptions are applied.
+	 */
+	public class ApplyDeferredWrites extends AbstractStatement {
+
+		/**
+		 * Instantiates a new apply deferred writes.
+		 *
+		 * @param desc the desc
+		 */
+		public ApplyDeferredWrites(IDescription desc) {
+			super(desc);
+		}
+
+		@Override
+		protected Object privateExecuteIn(IScope scope) throws GamaRuntimeException {
+			final IAgent agent = scope.getAgent();
+			final Object writes = agent.getAttribute(DEFERRED_WRITES);
+			agent.setAttribute(DEFERRED_WRITES, null);
+			if (writes instanceof List list && !agent.dead()) {
+				for (final Object write : list) {
+					((Consumer<IScope>) write).accept(scope);
+				}
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * The Class Deliberate. Third phase of a parallel cycle: rules, laws, social links and coping. These statements
+	 * only modify the agent itself.
+	 */
+	public class Deliberate extends AbstractStatement {
+
+		/**
+		 * Instantiates a new deliberate.
+		 *
+		 * @param desc the desc
+		 */
+		public Deliberate(IDescription desc) {
+			super(desc);
+		}
+
+		@Override
+		protected Object privateExecuteIn(IScope scope) throws GamaRuntimeException {
+			final IAgent agent = scope.getAgent();
+			if (agent.dead() || !executeRules(scope)) return null;
+			for (int i = 0; i < _lawsNumber; i++) {
+				_laws.get(i).executeOn(scope);
+				if (agent.dead()) return null;
+			}
+			updateSocialLinks(scope);
+			for (int i = 0; i < _copingNumber; i++) {
+				_coping.get(i).executeOn(scope);
+				if (agent.dead()) return null;
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * The Class Act. Fourth phase of a parallel cycle, executed sequentially in the scheduling order: plans and norms,
+	 * which can draw random numbers and modify other agents.
+	 */
+	public class Act extends AbstractStatement {
+
+		/**
+		 * Instantiates a new act.
+		 *
+		 * @param desc the desc
+		 */
+		public Act(IDescription desc) {
+			super(desc);
+		}
+
+		@Override
+		protected Object privateExecuteIn(IScope scope) throws GamaRuntimeException {
+			final IAgent agent = scope.getAgent();
+			try {
+				if (agent.dead()) return null;
+				executePlans(scope);
+				if (!agent.dead()) {
+					updateNormViolation(scope);
+					updateNormLifetime(scope);
+				}
+			} finally {
+				agent.setAttribute(CYCLE_RANDOM, null);
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * Buffers a write made on the agent of the scope by a perception statement while the agents perceive in parallel,
+	 * or applies it immediately otherwise. The buffered writes are applied once all the agents have perceived, in the
+	 * order of the agents and, for each agent, in the order in which they were made.
+	 *
+	 * @param scope the scope of the agent that is modified
+	 * @param write the write
+	 */
+	static void writeOrDefer(final IScope scope, final Consumer<IScope> write) {
+		final IAgent agent = scope == null ? null : scope.getAgent();
+		if (agent != null && agent.getAttribute(DEFERRED_WRITES) instanceof List writes) {
+			writes.add(write);
+		} else {
+			write.accept(scope);
+		}
+	}
+
+	/**
+	 * Checks if the species computes the cycle of its agents in phases.
+	 *
+	 * @param scope the scope
+	 * @param agents the scheduled agents
+	 * @return true, if a parallel cycle is used
+	 * @throws GamaRuntimeException if the agents do not all have the same value of {@link #USE_PARALLEL_CYCLE}
+	 */
+	private boolean useParallelCycle(final IScope scope, final List<? extends IAgent> agents)
+			throws GamaRuntimeException {
+		if (agents.isEmpty()) return false;
+		final boolean use = Boolean.TRUE.equals(agents.get(0).getAttribute(USE_PARALLEL_CYCLE));
+		for (final IAgent agent : agents) {
+			if (Boolean.TRUE.equals(agent.getAttribute(USE_PARALLEL_CYCLE)) != use) {
+				throw GamaRuntimeException.error("All the agents of " + agent.getSpecies().getName()
+						+ " must have the same value of " + USE_PARALLEL_CYCLE + ", but " + agents.get(0).getName()
+						+ " and " + agent.getName() + " differ", scope);
+			}
+		}
+		return use;
+	}
+
+	/**
+	 * Computes the whole cycle of the agents: reflexes sequentially, then perceptions in parallel, then the effects of
+	 * the perceptions sequentially, then the rules, laws, social links and coping in parallel, then the plans and norms
+	 * sequentially, and finally the lifetimes and intensities in parallel.
+	 *
+	 * @param scope the scope
+	 * @param agents the scheduled agents
+	 */
+	private void executeParallelCycle(final IScope scope, final List<? extends IAgent> agents) {
+		if (_reflexes != null)
+			for (final IStatement r : _reflexes) {
+				if (!scope.interrupted()) {
+					GamaExecutorService.execute(scope, r, agents, ConstantExpressionDescription.FALSE_EXPR_DESCRIPTION);
+				}
+			}
+		if (scope.interrupted()) return;
+		for (final IAgent agent : agents) {
+			if (agent.dead()) { continue; }
+			agent.setAttribute(CYCLE_RANDOM,
+					new SplittableRandom(Double.doubleToLongBits(scope.getRandom().next())));
+			agent.setAttribute(DEFERRED_WRITES, new ArrayList<>());
+		}
+		GamaExecutorService.execute(scope, new Perceive(null), agents, parallel);
+		GamaExecutorService.execute(scope, new ApplyDeferredWrites(null), agents,
+				ConstantExpressionDescription.FALSE_EXPR_DESCRIPTION);
+		if (!scope.interrupted()) { GamaExecutorService.execute(scope, new Deliberate(null), agents, parallel); }
+		if (!scope.interrupted()) {
+			GamaExecutorService.execute(scope, new Act(null), agents,
+					ConstantExpressionDescription.FALSE_EXPR_DESCRIPTION);
+		}
+		if (!scope.interrupted()) {
+			GamaExecutorService.execute(scope, new UpdateLifeTimePredicates(null), agents, parallel);
+			GamaExecutorService.execute(scope, new UpdateEmotionsIntensity(null), agents, parallel);
+		}
+	}
+
 	@Override
 	public void preStep(final IScope scope, IPopulation<? extends IAgent> gamaPopulation) {
 		final IExpression schedule = gamaPopulation.getSpecies().getSchedule();
 		final List<? extends IAgent> agents =
 				schedule == null ? gamaPopulation : Cast.asList(scope, schedule.value(scope));
+		parallelCycle = useParallelCycle(scope, agents);
+		if (parallelCycle) {
+			executeParallelCycle(scope, agents);
+			return;
+		}
 
 		GamaExecutorService.execute(scope, new UpdateLifeTimePredicates(null), agents, parallel);
 		GamaExecutorService.execute(scope, new UpdateEmotionsIntensity(null), agents, parallel);
@@ -186,19 +409,9 @@ public class SimpleBdiArchitectureParallel extends SimpleBdiArchitecture {
 
 	@Override
 	public Object executeOn(final IScope scope) throws GamaRuntimeException {
-		final Boolean use_personality = scope.hasArg(USE_PERSONALITY) ? scope.getBoolArg(USE_PERSONALITY)
-				: (Boolean) scope.getAgent().getAttribute(USE_PERSONALITY);
-		if (use_personality) {
-			Double expressivity = (Double) scope.getAgent().getAttribute(EXTRAVERSION);
-			Double neurotisme = (Double) scope.getAgent().getAttribute(NEUROTISM);
-			Double conscience = (Double) scope.getAgent().getAttribute(CONSCIENTIOUSNESS);
-			Double agreeableness = (Double) scope.getAgent().getAttribute(AGREEABLENESS);
-			scope.getAgent().setAttribute(CHARISMA, expressivity);
-			scope.getAgent().setAttribute(RECEPTIVITY, 1 - neurotisme);
-			scope.getAgent().setAttribute(PERSISTENCE_COEFFICIENT_PLANS, Maths.sqrt(scope, conscience));
-			scope.getAgent().setAttribute(PERSISTENCE_COEFFICIENT_INTENTIONS, Maths.sqrt(scope, conscience));
-			scope.getAgent().setAttribute(OBEDIENCE, Maths.sqrt(scope, (conscience + agreeableness) * 0.5));
-		}
+		// The whole cycle has already been computed in preStep
+		if (parallelCycle) return null;
+		updatePersonality(scope);
 		// return executePlans(scope);
 		Object result = executePlans(scope);
 		if (!scope.getAgent().dead()) {
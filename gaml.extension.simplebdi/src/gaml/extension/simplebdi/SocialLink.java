@@ -72,19 +72,19 @@ public class SocialLink implements IValue {
 	Double trust = 0.0;
 	
 	/** The no liking. */
-	private Boolean noLiking = true;
+	Boolean noLiking = true;
 	
 	/** The no dominance. */
-	private Boolean noDominance = true;
+	Boolean noDominance = true;
 	
 	/** The no solidarity. */
-	private Boolean noSolidarity = true;
+	Boolean noSolidarity = true;
 	
 	/** The no familiarity. */
-	private Boolean noFamiliarity = true;
+	Boolean noFamiliarity = true;
 	
 	/** The no trust. */
-	private Boolean noTrust = true;
+	Boolean noTrust = true;
 
 	/**
 	 * Gets the agent.
@@ -174,7 +174,10 @@ public class SocialLink implements IValue {
 	 *
 	 * @param ag the new agent
 	 */
-	public void setAgent(final IAgent ag) { this.agent = ag; }
+	public void setAgent(final IAgent ag) {
+		if (agent != null && agent != ag) { SocialLinkWatcher.relinked(); }
+		this.agent = ag;
+	}
 
 	/**
 	 * Sets the liking.
@@ -0,0 +1,331 @@
+/*******************************************************************************************************
+ *
+ * SocialLinkWatcher.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.population.IPopulation;
+import gama.core.runtime.IScope;
+import gama.core.util.IList;
+
+/**
+ * Keeps track, for a simulation, of the agents that have a social link towards each agent ("who links to me"), and
+ * listens to the removal of the agents from their populations, so that the social link bases only have to be searched
+ * for links towards dead agents when one of these agents has actually died (see
+ * {@link SimpleBdiArchitecture#updateSocialLinks(IScope)}).
+ *
+ * The first time the social link base of an agent is searched, it is replaced by an equal {@link WatchedList}, so that
+ * the links added to or removed from it afterwards, whatever the way, are registered or unregistered as they go. When
+ * the base has been modified in a way that is not reported link by link (e.g. sorted, or assigned in GAML), or when the
+ * agent of a link has been changed in place (which is counted globally, see {@link #relinked()}), all its links are
+ * registered again and the base is searched as before. All these checks take constant time. The registrations of an
+ * agent are dropped when it dies, and the ones towards the agents it no longer has a link to are dropped when a link is
+ * removed from its base, so that the watcher does not grow with the agents that come and go.
+ */
+public class SocialLinkWatcher implements IPopulation.Listener {
+
+	/** The name of the simulation attribute holding the watcher. */
+	private static final String WATCHER = "%social_link_watcher";
+
+	/** The name of the agent attribute holding the state of its social link base. */
+	private static final String STATE = "%social_link_state";
+
+	/** The number of social links whose agent has been changed in place. */
+	private static final AtomicLong RELINKS = new AtomicLong();
+
+	/** For each agent, the agents that have a social link towards it. */
+	private final Map<IAgent, Set<IAgent>> linkers = new HashMap<>();
+
+	/** For each agent, the agents towards which it has a social link (the converse of {@link #linkers}). */
+	private final Map<IAgent, Set<IAgent>> targets = new HashMap<>();
+
+	/** The agents whose social link base may contain links towards dead agents. */
+	private final Set<IAgent> withDeadLinks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/** The populations listened to. */
+	private final Set<IPopulation<? extends IAgent>> populations = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * The state of the social link base of an agent, which watches the base and registers its links as they are added
+	 * or removed.
+	 */
+	private class State implements WatchedList.Watcher<SocialLink> {
+
+		/** The agent. */
+		final IAgent owner;
+
+		/** The base. */
+		final IList<SocialLink> base;
+
+		/** The value of {@link #RELINKS} when the links of the base were registered. */
+		final long relinks = RELINKS.get();
+
+		/** Whether the base has been modified in a way the state could not follow, or has been replaced. */
+		boolean stale;
+
+		/**
+		 * Instantiates a new state.
+		 *
+		 * @param owner
+		 *            the agent
+		 * @param base
+		 *            its social link base
+		 */
+		State(final IAgent owner, final IList<SocialLink> base) {
+			this.owner = owner;
+			this.base = base;
+		}
+
+		/**
+		 * Checks if the links of the base are registered.
+		 *
+		 * @return true, if it is synchronized
+		 */
+		boolean isSynchronized() {
+			return !stale && relinks == RELINKS.get();
+		}
+
+		@Override
+		public void added(final SocialLink link) {
+			if (!stale && link != null) { watch(owner, link.getAgent()); }
+		}
+
+		@Override
+		public void removed(final SocialLink link) {
+			if (stale || link == null || link.getAgent() == null) return;
+			// The removed link may have been the only one towards its agent
+			for (final SocialLink other : base) { if (other != null && other.getAgent() == link.getAgent()) return; }
+			unwatch(owner, link.getAgent());
+		}
+
+		@Override
+		public void invalidated() {
+			stale = true;
+		}
+	}
+
+	/**
+	 * Returns the watcher of the simulation of the scope, creating it if necessary.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the watcher
+	 */
+	public static SocialLinkWatcher of(final IScope scope) {
+		final IAgent simulation = scope.getSimulation();
+		if (simulation.getAttribute(WATCHER) instanceof SocialLinkWatcher watcher) return watcher;
+		synchronized (simulation) {
+			if (simulation.getAttribute(WATCHER) instanceof SocialLinkWatcher watcher) return watcher;
+			final SocialLinkWatcher watcher = new SocialLinkWatcher();
+			simulation.setAttribute(WATCHER, watcher);
+			return watcher;
+		}
+	}
+
+	/**
+	 * Registers a social link of an agent.
+	 *
+	 * @param owner
+	 *            the agent owning the link
+	 * @param target
+	 *            the agent of the link (possibly null)
+	 */
+	private synchronized void watch(final IAgent owner, final IAgent target) {
+		if (target == null) return;
+		if (target.dead()) {
+			withDeadLinks.add(owner);
+			return;
+		}
+		linkers.computeIfAbsent(target, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(owner);
+		targets.computeIfAbsent(owner, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(target);
+		listen(target.getPopulation());
+		listen(owner.getPopulation());
+	}
+
+	/**
+	 * Listens to a population, if not already done.
+	 *
+	 * @param population
+	 *            the population (possibly null)
+	 */
+	private void listen(final IPopulation<? extends IAgent> population) {
+		if (population != null && populations.add(population)) { population.addListener(this); }
+	}
+
+	/**
+	 * Unregisters an agent as having a social link towards another one.
+	 *
+	 * @param owner
+	 *            the agent owning the link
+	 * @param target
+	 *            the agent of the link
+	 */
+	private synchronized void unwatch(final IAgent owner, final IAgent target) {
+		final Set<IAgent> owners = linkers.get(target);
+		if (owners != null && owners.remove(owner) && owners.isEmpty()) { linkers.remove(target); }
+		final Set<IAgent> linked = targets.get(owner);
+		if (linked != null && linked.remove(target) && linked.isEmpty()) { targets.remove(owner); }
+	}
+
+	/**
+	 * Records that the agent of a social link has been changed in place. The links of all the bases are registered
+	 * again before they are used.
+	 */
+	static void relinked() {
+		RELINKS.incrementAndGet();
+	}
+
+	/**
+	 * Unregisters all the social links of an agent.
+	 *
+	 * @param owner
+	 *            the agent
+	 */
+	private synchronized void forget(final IAgent owner) {
+		final Set<IAgent> linked = targets.remove(owner);
+		if (linked == null) return;
+		for (final IAgent target : linked) {
+			final Set<IAgent> owners = linkers.get(target);
+			if (owners != null && owners.remove(owner) && owners.isEmpty()) { linkers.remove(target); }
+		}
+	}
+
+	/**
+	 * Registers again all the social links of an agent, forgetting the agents it no longer has a link to.
+	 *
+	 * @param owner
+	 *            the agent
+	 * @param base
+	 *            its social link base
+	 */
+	private synchronized void rewatch(final IAgent owner, final IList<SocialLink> base) {
+		forget(owner);
+		for (final SocialLink link : base) { watch(owner, link.getAgent()); }
+	}
+
+	/**
+	 * Checks whether the social link base of an agent has to be searched for links towards dead agents. If its links
+	 * are not registered (or no longer are), the base is watched and its links are registered again.
+	 *
+	 * @param owner
+	 *            the agent
+	 * @param base
+	 *            its social link base
+	 * @return true, if the base must be searched
+	 */
+	public boolean mustPurge(final IAgent owner, final IList<SocialLink> base) {
+		if (owner.getAttribute(STATE) instanceof State state && state.base == base && state.isSynchronized()) {
+			synchronized (this) {
+				return withDeadLinks.remove(owner);
+			}
+		}
+		rewatch(owner, watchBase(owner, base));
+		return true;
+	}
+
+	/**
+	 * Watches the social link base of an agent, replacing it by an equal watched list if it is the one of the agent.
+	 * The state of the previous base, if any, is no longer used.
+	 *
+	 * @param owner
+	 *            the agent
+	 * @param base
+	 *            its social link base
+	 * @return the base to register the links of
+	 */
+	private IList<SocialLink> watchBase(final IAgent owner, final IList<SocialLink> base) {
+		if (owner.getAttribute(STATE) instanceof State previous) { previous.stale = true; }
+		WatchedList<SocialLink> watched = null;
+		if (base instanceof WatchedList<SocialLink> list) {
+			watched = list;
+		} else if (owner.getAttribute(SimpleBdiArchitecture.SOCIALLINK_BASE) == base) {
+			watched = new WatchedList<>(base.getGamlType().getContentType(), base);
+			owner.setAttribute(SimpleBdiArchitecture.SOCIALLINK_BASE, watched);
+		}
+		if (watched == null) {
+			// A base passed as argument is searched every time
+			owner.setAttribute(STATE, null);
+			return base;
+		}
+		final State state = new State(owner, watched);
+		watched.setWatcher(state);
+		owner.setAttribute(STATE, state);
+		return watched;
+	}
+
+	/**
+	 * Records that the social link base of an agent has been searched.
+	 *
+	 * @param owner
+	 *            the agent
+	 */
+	public synchronized void purged(final IAgent owner) {
+		withDeadLinks.remove(owner);
+	}
+
+	/**
+	 * Flags the agents that have a link towards an agent that has been removed, and forgets the links of this agent.
+	 *
+	 * @param agent
+	 *            the removed agent
+	 */
+	private synchronized void removed(final IAgent agent) {
+		forget(agent);
+		withDeadLinks.remove(agent);
+		final Set<IAgent> owners = linkers.remove(agent);
+		if (owners == null) return;
+		for (final IAgent owner : owners) {
+			final Set<IAgent> linked = targets.get(owner);
+			if (linked != null && linked.remove(agent) && linked.isEmpty()) { targets.remove(owner); }
+			if (!owner.dead()) { withDeadLinks.add(owner); }
+		}
+	}
+
+	@Override
+	public void notifyAgentRemoved(final IScope scope, final IPopulation<? extends IAgent> pop, final IAgent agent) {
+		removed(agent);
+	}
+
+	@Override
+	public void notifyAgentAdded(final IScope scope, final IPopulation<? extends IAgent> pop, final IAgent agent) {}
+
+	@Override
+	public void notifyAgentsAdded(final IScope scope, final IPopulation<? extends IAgent> pop,
+			final Collection<? extends IAgent> agents) {}
+
+	@Override
+	public void notifyAgentsRemoved(final IScope scope, final IPopulation<? extends IAgent> pop,
+			final Collection<? extends IAgent> agents) {
+		for (final IAgent agent : agents) {
+			removed(agent);
+		}
+	}
+
+	@Override
+	public void notifyPopulationCleared(final IScope scope, final IPopulation<? extends IAgent> pop) {
+		synchronized (this) {
+			final List<IAgent> gone = new ArrayList<>();
+			for (final IAgent agent : linkers.keySet()) { if (agent.getPopulation() == pop) { gone.add(agent); } }
+			for (final IAgent agent : targets.keySet()) { if (agent.getPopulation() == pop) { gone.add(agent); } }
+			for (final IAgent agent : gone) { removed(agent); }
+		}
+	}
+
+}
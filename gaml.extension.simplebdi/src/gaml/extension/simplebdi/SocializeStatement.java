@@ -144,11 +144,14 @@ public class SocializeStatement extends AbstractStatement{
 					if (agent != null){
 						tempSocial.setAgent((IAgent)agent.value(scopeMySelf));
 					}
-					SimpleBdiArchitecture.addSocialLink(scopeMySelf, tempSocial);
+					final SocialLink created = tempSocial;
+					SimpleBdiArchitectureParallel.writeOrDefer(scopeMySelf,
+							s -> SimpleBdiArchitecture.addSocialLink(s, created));
 				} else{
 					/*update le social link.*/
-					tempSocial = SimpleBdiArchitecture.getSocialLink(scopeMySelf, tempSocial);
-					SimpleBdiArchitecture.updateSocialLink(scopeMySelf, tempSocial);
+					final SocialLink existing = SimpleBdiArchitecture.getSocialLink(scopeMySelf, tempSocial);
+					SimpleBdiArchitectureParallel.writeOrDefer(scopeMySelf,
+							s -> SimpleBdiArchitecture.updateSocialLink(s, existing));
 				}
 			}
 			GAMA.releaseScope(scopeMySelf);
@@ -0,0 +1,167 @@
+/*******************************************************************************************************
+ *
+ * ThoughtTrace.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.List;
+
+import gama.core.util.GamaListFactory;
+import gama.core.util.IList;
+import gaml.core.types.Types;
+
+/**
+ * The last thoughts of an agent, recorded as events (a code and up to two arguments) in a ring buffer of fixed size, and
+ * only formatted into the strings of the {@code thinking} variable when it is read (see
+ * {@link SimpleBdiArchitecture#THINKING_MODE}). Recording a thought does not allocate anything.
+ */
+public class ThoughtTrace {
+
+	/** A thought given as a string. */
+	public static final int TEXT = 0;
+
+	/** An intention has been randomly removed. */
+	public static final int REMOVE_INTENTION = 1;
+
+	/** The current plan has been randomly stopped. */
+	public static final int STOP_PLAN = 2;
+
+	/** Another plan has been chosen after the current one has been stopped. */
+	public static final int CHANGE_PLAN = 3;
+
+	/** The agent has no intention. */
+	public static final int NOTHING = 4;
+
+	/** A new intention has been chosen, with a norm. */
+	public static final int NEW_INTENTION_NORM = 5;
+
+	/** A new intention has been chosen, with a plan. */
+	public static final int NEW_INTENTION_PLAN = 6;
+
+	/** A norm is used for the current intention. */
+	public static final int USE_NORM = 7;
+
+	/** A plan is used for the current intention. */
+	public static final int USE_PLAN = 8;
+
+	/** An intention has no more subintention. */
+	public static final int NO_MORE_SUBINTENTION = 9;
+
+	/** The codes of the events, the most recent one being at {@link #head}. */
+	private final int[] codes;
+
+	/** The first argument of the events. */
+	private final Object[] firsts;
+
+	/** The second argument of the events. */
+	private final Object[] seconds;
+
+	/** The position of the most recent event. */
+	private int head = -1;
+
+	/** The number of events. */
+	private int count;
+
+	/** The formatted thoughts, or null if an event has been recorded since they were formatted. */
+	private IList<String> formatted;
+
+	/**
+	 * Instantiates a new, empty, trace.
+	 *
+	 * @param size
+	 *            the number of thoughts to keep
+	 */
+	public ThoughtTrace(final int size) {
+		codes = new int[size];
+		firsts = new Object[size];
+		seconds = new Object[size];
+	}
+
+	/**
+	 * Records a thought.
+	 *
+	 * @param code
+	 *            the code of the event
+	 * @param first
+	 *            the first argument (possibly null)
+	 * @param second
+	 *            the second argument (possibly null)
+	 */
+	public void record(final int code, final Object first, final Object second) {
+		head = (head + 1) % codes.length;
+		codes[head] = code;
+		firsts[head] = first;
+		seconds[head] = second;
+		if (count < codes.length) { count++; }
+		formatted = null;
+	}
+
+	/**
+	 * Replaces the recorded thoughts by the given ones (e.g. when the {@code thinking} variable is assigned).
+	 *
+	 * @param thoughts
+	 *            the thoughts, the most recent one first (possibly null)
+	 */
+	public void reset(final List<?> thoughts) {
+		head = -1;
+		count = 0;
+		for (int i = 0; i < codes.length; i++) {
+			firsts[i] = seconds[i] = null;
+		}
+		if (thoughts != null) {
+			for (int i = Math.min(thoughts.size(), codes.length) - 1; i >= 0; i--) {
+				record(TEXT, thoughts.get(i), null);
+			}
+		}
+		formatted = null;
+	}
+
+	/**
+	 * Returns the recorded thoughts as strings, the most recent one first.
+	 *
+	 * @return the thoughts
+	 */
+	public IList<String> toList() {
+		if (formatted != null) return formatted;
+		final IList<String> result = GamaListFactory.create(Types.STRING);
+		for (int i = 0; i < count; i++) {
+			final int pos = (head - i + codes.length) % codes.length;
+			result.add(format(codes[pos], firsts[pos], seconds[pos]));
+		}
+		formatted = result;
+		return result;
+	}
+
+	/**
+	 * Formats a thought, as the architecture used to do when it was recorded.
+	 *
+	 * @param code
+	 *            the code of the event
+	 * @param first
+	 *            the first argument
+	 * @param second
+	 *            the second argument
+	 * @return the thought
+	 */
+	public static String format(final int code, final Object first, final Object second) {
+		return switch (code) {
+			case REMOVE_INTENTION -> "check what happens if I remove: " + first;
+			case STOP_PLAN -> "check what happens if I stop: " + first;
+			case CHANGE_PLAN -> "lets do instead " + first;
+			case NOTHING -> "I want nothing...";
+			case NEW_INTENTION_NORM -> "ok, new intention: " + first + " with norm " + second;
+			case NEW_INTENTION_PLAN -> "ok, new intention: " + first + " with plan " + second;
+			case USE_NORM -> "use norm : " + first;
+			case USE_PLAN -> "use plan : " + first;
+			case NO_MORE_SUBINTENTION -> "no more subintention for" + first;
+			default -> String.valueOf(first);
+		};
+	}
+
+}
@@ -179,7 +179,9 @@ public class UnconsciousContagionStatement extends AbstractStatement {
 						if (decayValue < 0.0) { decayValue = 0.0; }
 						temp.setDecay(decayValue);
 					}
-					SimpleBdiArchitecture.addEmotion(scopeMySelf, temp);
+					final Emotion created = temp;
+					SimpleBdiArchitectureParallel.writeOrDefer(scopeMySelf,
+							s -> SimpleBdiArchitecture.addEmotion(s, created));
 				}
 			}
 		}
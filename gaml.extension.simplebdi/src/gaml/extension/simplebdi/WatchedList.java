@@ -0,0 +1,231 @@
+/*******************************************************************************************************
+ *
+ * WatchedList.java, in gaml.extension.simplebdi, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.simplebdi;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import gama.core.util.GamaList;
+import gaml.core.types.IType;
+
+/**
+ * A GAML list that reports its modifications to a {@link Watcher}, whatever the path they take (the architecture, a
+ * GAML statement or operator, or Java code). The bases of a simple_bdi agent are replaced by such lists the first time
+ * they are modified through the architecture, so that their indexes ({@link MentalStateBase}, {@link EmotionBase},
+ * {@link SocialLinkWatcher}) are kept up to date, or know that they are stale, without comparing their content with the
+ * list.
+ *
+ * Additions at the end of the list and removals are reported element by element. Any other modification (insertion in
+ * the middle, replacement, sorting, bulk removal, modification through a sub-list...) only invalidates the watcher.
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+public class WatchedList<E> extends GamaList<E> {
+
+	/**
+	 * The interface of the objects watching a list.
+	 *
+	 * @param <E>
+	 *            the type of the elements
+	 */
+	public interface Watcher<E> {
+
+		/**
+		 * Called after an element has been added at the end of the list.
+		 *
+		 * @param element
+		 *            the element
+		 */
+		void added(E element);
+
+		/**
+		 * Called after an element has been removed from the list.
+		 *
+		 * @param element
+		 *            the element
+		 */
+		void removed(E element);
+
+		/**
+		 * Called after the list has been modified in a way that is not reported element by element.
+		 */
+		void invalidated();
+	}
+
+	/** The watcher, or null. */
+	private Watcher<E> watcher;
+
+	/** The list the watcher has been set on: a shallow clone of the list is not watched. */
+	private WatchedList<E> watched;
+
+	/**
+	 * Instantiates a new watched list holding the given elements.
+	 *
+	 * @param contentType
+	 *            the content type
+	 * @param elements
+	 *            the elements
+	 */
+	public WatchedList(final IType<?> contentType, final Collection<? extends E> elements) {
+		super(elements.size(), contentType);
+		super.addAll(elements);
+	}
+
+	/**
+	 * Returns the watcher of the list.
+	 *
+	 * @return the watcher, or null
+	 */
+	public Watcher<E> getWatcher() { return watched == this ? watcher : null; }
+
+	/**
+	 * Sets the watcher of the list.
+	 *
+	 * @param watcher
+	 *            the new watcher (possibly null)
+	 */
+	public void setWatcher(final Watcher<E> watcher) {
+		this.watcher = watcher;
+		watched = this;
+	}
+
+	/**
+	 * Reports an element added at the end of the list.
+	 *
+	 * @param element
+	 *            the element
+	 */
+	private void added(final E element) {
+		final Watcher<E> w = getWatcher();
+		if (w != null) { w.added(element); }
+	}
+
+	/**
+	 * Invalidates the watcher.
+	 */
+	private void invalidated() {
+		final Watcher<E> w = getWatcher();
+		if (w != null) { w.invalidated(); }
+	}
+
+	@Override
+	public boolean add(final E element) {
+		super.add(element);
+		added(element);
+		return true;
+	}
+
+	@Override
+	public void add(final int index, final E element) {
+		final boolean last = index == size();
+		super.add(index, element);
+		if (last) {
+			added(element);
+		} else {
+			invalidated();
+		}
+	}
+
+	@Override
+	public boolean addAll(final Collection<? extends E> elements) {
+		final int from = size();
+		if (!super.addAll(elements)) return false;
+		for (int i = from, n = size(); i < n; i++) { added(get(i)); }
+		return true;
+	}
+
+	@Override
+	public boolean addAll(final int index, final Collection<? extends E> elements) {
+		if (index == size()) return addAll(elements);
+		if (!super.addAll(index, elements)) return false;
+		invalidated();
+		return true;
+	}
+
+	@Override
+	public E set(final int index, final E element) {
+		final E previous = super.set(index, element);
+		if (previous != element) { invalidated(); }
+		return previous;
+	}
+
+	@Override
+	public E remove(final int index) {
+		final E removed = super.remove(index);
+		final Watcher<E> w = getWatcher();
+		if (w != null) { w.removed(removed); }
+		return removed;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		final int index = indexOf(o);
+		if (index < 0) return false;
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		invalidated();
+	}
+
+	@Override
+	protected void removeRange(final int from, final int to) {
+		super.removeRange(from, to);
+		invalidated();
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		final boolean modified = super.removeAll(c);
+		if (modified) { invalidated(); }
+		return modified;
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		final boolean modified = super.retainAll(c);
+		if (modified) { invalidated(); }
+		return modified;
+	}
+
+	@Override
+	public boolean removeIf(final java.util.function.Predicate<? super E> filter) {
+		final boolean modified = super.removeIf(filter);
+		if (modified) { invalidated(); }
+		return modified;
+	}
+
+	@Override
+	public void replaceAll(final UnaryOperator<E> operator) {
+		super.replaceAll(operator);
+		invalidated();
+	}
+
+	@Override
+	public void sort(final Comparator<? super E> c) {
+		super.sort(c);
+		invalidated();
+	}
+
+	@Override
+	public List<E> subList(final int from, final int to) {
+		// Sub-lists write directly into the array of the list
+		invalidated();
+		return super.subList(from, to);
+	}
+
+}
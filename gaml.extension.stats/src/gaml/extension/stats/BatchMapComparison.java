@@ -0,0 +1,367 @@
+/*******************************************************************************************************
+ *
+ * BatchMapComparison.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The comparison of a reference map with many candidate maps (e.g. the replicates of a stochastic simulation), used by
+ * the batch operators of {@link MapComparison}. The maps are arrays of category indices, resolved once, and the
+ * candidates are compared in parallel, by chunks, each chunk reusing the same contingency buffers for all its
+ * candidates. The indicators are computed exactly as by the operators comparing two maps. The candidates must all have
+ * the size of the reference, which is checked by the operators.
+ */
+class BatchMapComparison {
+
+	/** The number of chunks of candidates per processor, to balance the load between threads. */
+	private static final int CHUNKS_PER_PROCESSOR = 4;
+
+	/** The number of values of the maps. */
+	final int nb;
+
+	/** The weight of each value (null if they all weigh 1). */
+	private final double[] weights;
+
+	/** The sum of the weights. */
+	private final double total;
+
+	/**
+	 * Instantiates the comparison of maps of a given size.
+	 *
+	 * @param nb
+	 *            the number of values of the maps
+	 * @param weights
+	 *            the weight of each value, or null
+	 */
+	BatchMapComparison(final int nb, final double[] weights) {
+		this.nb = nb;
+		this.weights = weights;
+		double sum = 0;
+		for (int i = 0; i < nb; i++) { sum += weight(i); }
+		total = sum;
+	}
+
+	/**
+	 * Returns the weight of a value.
+	 *
+	 * @param i
+	 *            the index of the value
+	 * @return the weight
+	 */
+	private double weight(final int i) {
+		return weights == null ? 1.0 : weights[i];
+	}
+
+	/**
+	 * A task on a candidate.
+	 */
+	@FunctionalInterface
+	private interface CandidateTask {
+
+		/**
+		 * Processes a candidate.
+		 *
+		 * @param c
+		 *            the index of the candidate
+		 * @param buffers
+		 *            the buffers of the chunk, to be reset by the task
+		 */
+		void process(int c, double[][] buffers);
+	}
+
+	/**
+	 * Runs a task on all the candidates, the chunks of candidates being processed in parallel.
+	 *
+	 * @param nbCandidates
+	 *            the number of candidates
+	 * @param nbBuffers
+	 *            the number of buffers needed by the task
+	 * @param bufferSize
+	 *            their size
+	 * @param task
+	 *            the task
+	 */
+	private static void forEachCandidate(final int nbCandidates, final int nbBuffers, final int bufferSize,
+			final CandidateTask task) {
+		final int nbChunks =
+				Math.min(nbCandidates, Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR);
+		if (nbChunks == 0) return;
+		IntStream.range(0, nbChunks).parallel().forEach(chunk -> {
+			final double[][] buffers = new double[nbBuffers][bufferSize];
+			final int end = (int) ((long) nbCandidates * (chunk + 1) / nbChunks);
+			for (int c = (int) ((long) nbCandidates * chunk / nbChunks); c < end; c++) { task.process(c, buffers); }
+		});
+	}
+
+	/**
+	 * Computes the kappa of a reference map with each candidate.
+	 *
+	 * @param reference
+	 *            the categories of the reference
+	 * @param candidates
+	 *            the categories of the candidates
+	 * @param nbCat
+	 *            the number of categories
+	 * @return the kappas
+	 */
+	double[] kappas(final int[] reference, final int[][] candidates, final int nbCat) {
+		final double[] X = new double[nbCat];
+		for (int i = 0; i < nb; i++) { X[reference[i]] += weight(i); }
+		for (int j = 0; j < nbCat; j++) { X[j] /= total; }
+		final double[] result = new double[candidates.length];
+		// Buffers: the weights of the categories of the candidate and of the agreements
+		forEachCandidate(candidates.length, 2, nbCat, (c, buffers) -> {
+			final int[] candidate = candidates[c];
+			final double[] Y = buffers[0], agreements = buffers[1];
+			Arrays.fill(Y, 0);
+			Arrays.fill(agreements, 0);
+			for (int i = 0; i < nb; i++) {
+				final double weight = weight(i);
+				Y[candidate[i]] += weight;
+				if (reference[i] == candidate[i]) { agreements[candidate[i]] += weight; }
+			}
+			double po = 0;
+			double pe = 0;
+			for (int j = 0; j < nbCat; j++) {
+				po += agreements[j] / total;
+				pe += X[j] * (Y[j] / total);
+			}
+			result[c] = pe == 1 ? 1 : (po - pe) / (1 - pe);
+		});
+		return result;
+	}
+
+	/**
+	 * Computes the kappa simulation of an initial and an observed maps with each simulated map.
+	 *
+	 * @param init
+	 *            the categories of the initial map
+	 * @param obs
+	 *            the categories of the observed map
+	 * @param sims
+	 *            the categories of the simulated maps
+	 * @param nbCat
+	 *            the number of categories
+	 * @return the kappa simulations
+	 */
+	double[] kappaSimulations(final int[] init, final int[] obs, final int[][] sims, final int nbCat) {
+		final double[] O = new double[nbCat];
+		final double[][] contigencyOA = new double[nbCat][nbCat];
+		for (int i = 0; i < nb; i++) {
+			final double weight = weight(i);
+			O[init[i]] += weight;
+			contigencyOA[init[i]][obs[i]] += weight;
+		}
+		for (int j = 0; j < nbCat; j++) {
+			if (O[j] > 0) { for (int k = 0; k < nbCat; k++) { contigencyOA[j][k] /= O[j]; } }
+		}
+		final double[] result = new double[sims.length];
+		// Buffers: the agreements between the observed and simulated maps, and the transitions of the simulated map
+		forEachCandidate(sims.length, 2, nbCat * nbCat, (c, buffers) -> {
+			final int[] sim = sims[c];
+			final double[] agreements = buffers[0], contigencyOS = buffers[1];
+			Arrays.fill(agreements, 0);
+			Arrays.fill(contigencyOS, 0);
+			for (int i = 0; i < nb; i++) {
+				final double weight = weight(i);
+				if (obs[i] == sim[i]) { agreements[sim[i]] += weight; }
+				contigencyOS[init[i] * nbCat + sim[i]] += weight;
+			}
+			double po = 0;
+			double pe = 0;
+			for (int j = 0; j < nbCat; j++) {
+				po += agreements[j] / total;
+				double sum = 0;
+				for (int k = 0; k < nbCat; k++) {
+					final double os = O[j] > 0 ? contigencyOS[j * nbCat + k] / O[j] : contigencyOS[j * nbCat + k];
+					sum += contigencyOA[j][k] * os;
+				}
+				pe += O[j] / total * sum;
+			}
+			result[c] = pe == 1 ? 1 : (po - pe) / (1 - pe);
+		});
+		return result;
+	}
+
+	/**
+	 * Computes the percent absolute deviation of observed values with each series of simulated values.
+	 *
+	 * @param observed
+	 *            the observed values
+	 * @param simulated
+	 *            the simulated values
+	 * @return the percent absolute deviations
+	 */
+	static double[] percentAbsoluteDeviations(final double[] observed, final double[][] simulated) {
+		double coeff = 0;
+		for (final double val : observed) { coeff += val; }
+		final double sumObserved = coeff;
+		final double[] result = new double[simulated.length];
+		forEachCandidate(simulated.length, 0, 0, (c, buffers) -> {
+			final double[] sim = simulated[c];
+			if (sumObserved == 0) return;
+			double sum = 0;
+			for (int i = 0; i < observed.length; i++) { sum += Math.abs(observed[i] - sim[i]) * 100.0; }
+			result[c] = sum / sumObserved;
+		});
+		return result;
+	}
+
+	/**
+	 * Computes the fuzzy kappa of a reference map with each candidate, the neighbours of each agent being known.
+	 *
+	 * @param reference
+	 *            the categories of the reference
+	 * @param candidates
+	 *            the categories of the candidates
+	 * @param fuzzyCategories
+	 *            the similarity between each pair of categories
+	 * @param neighbours
+	 *            the indices of the neighbours of each agent
+	 * @param coefficients
+	 *            their distance coefficients
+	 * @param rings
+	 *            the distances of the rings around the center of the agents
+	 * @param ringsPn
+	 *            the number of agents in each ring or closer
+	 * @return the fuzzy kappas
+	 */
+	double[] fuzzyKappas(final int[] reference, final int[][] candidates, final double[][] fuzzyCategories,
+			final int[][] neighbours, final double[][] coefficients, final List<Double> rings,
+			final Map<Double, Integer> ringsPn) {
+		final int nbCat = fuzzyCategories.length;
+		final double[] X = new double[nbCat];
+		for (int i = 0; i < nb; i++) { X[reference[i]] += weight(i); }
+		for (int j = 0; j < nbCat; j++) { X[j] /= total; }
+		final double[] result = new double[candidates.length];
+		// Buffers: the weights of the categories of the candidate
+		forEachCandidate(candidates.length, 1, nbCat, (c, buffers) -> {
+			final int[] candidate = candidates[c];
+			final double[] Y = buffers[0];
+			Arrays.fill(Y, 0);
+			double meanSimilarity = 0;
+			for (int i = 0; i < nb; i++) {
+				final double weight = weight(i);
+				Y[candidate[i]] += weight;
+				final int cat1 = reference[i], cat2 = candidate[i];
+				if (cat1 == cat2) {
+					meanSimilarity += weight;
+					continue;
+				}
+				final double[] crisp1 = fuzzyCategories[cat1], crisp2 = fuzzyCategories[cat2];
+				final int[] ids = neighbours[i];
+				final double[] coeffs = coefficients[i];
+				double s1Max = -1 * Double.MAX_VALUE;
+				double s2Max = -1 * Double.MAX_VALUE;
+				for (int j = 0; j < nbCat; j++) {
+					double max1 = 0.0;
+					double max2 = 0.0;
+					for (int n = 0; n < ids.length; n++) {
+						final double val1 = fuzzyCategories[reference[ids[n]]][j] * coeffs[n];
+						final double val2 = fuzzyCategories[candidate[ids[n]]][j] * coeffs[n];
+						if (val1 > max1) { max1 = val1; }
+						if (val2 > max2) { max2 = val2; }
+					}
+					final double s1 = Math.min(max1, crisp2[j]);
+					final double s2 = Math.min(max2, crisp1[j]);
+					if (s1 > s1Max) { s1Max = s1; }
+					if (s2 > s2Max) { s2Max = s2; }
+				}
+				meanSimilarity += weight * Math.min(s1Max, s2Max);
+			}
+			meanSimilarity /= total;
+			for (int j = 0; j < nbCat; j++) { Y[j] /= total; }
+			final double similarityExpected =
+					MapComparison.computeExpectedSim(nbCat, X, Y, rings.size(), rings, ringsPn);
+			result[c] =
+					similarityExpected == 1 ? 1 : (meanSimilarity - similarityExpected) / (1 - similarityExpected);
+		});
+		return result;
+	}
+
+	/**
+	 * Computes the fuzzy kappa simulation of an initial and an observed maps with each simulated map, the neighbours
+	 * of each agent being known.
+	 *
+	 * @param init
+	 *            the categories of the initial map
+	 * @param obs
+	 *            the categories of the observed map
+	 * @param sims
+	 *            the categories of the simulated maps
+	 * @param nbCat
+	 *            the number of categories
+	 * @param transitions
+	 *            the similarity between two transitions (from a to b, with index a + nbCat * b)
+	 * @param neighbours
+	 *            the indices of the neighbours of each agent
+	 * @param coefficients
+	 *            their distance coefficients
+	 * @param expectedAgreements
+	 *            the expected agreement of each triple of initial, observed and simulated categories
+	 * @return the fuzzy kappa simulations
+	 */
+	double[] fuzzyKappaSimulations(final int[] init, final int[] obs, final int[][] sims, final int nbCat,
+			final double[][] transitions, final int[][] neighbours, final double[][] coefficients,
+			final double[][][] expectedAgreements) {
+		final double[] nbInit = new double[nbCat];
+		final double[][] nbInitObs = new double[nbCat][nbCat];
+		for (int i = 0; i < nb; i++) {
+			final double weight = weight(i);
+			nbInit[init[i]] += weight;
+			nbInitObs[init[i]][obs[i]] += weight;
+		}
+		final double[] result = new double[sims.length];
+		// Buffers: the weights of the transitions of the simulated map
+		forEachCandidate(sims.length, 1, nbCat * nbCat, (c, buffers) -> {
+			final int[] sim = sims[c];
+			final double[] nbInitSim = buffers[0];
+			Arrays.fill(nbInitSim, 0);
+			double po = 0;
+			for (int i = 0; i < nb; i++) {
+				final double weight = weight(i);
+				nbInitSim[init[i] * nbCat + sim[i]] += weight;
+				final double[] fromSimulated = transitions[init[i] + nbCat * sim[i]];
+				final double[] fromObserved = transitions[init[i] + nbCat * obs[i]];
+				// The agent itself, with a coefficient of 1
+				double xa = Math.max(0, fromSimulated[init[i] + nbCat * obs[i]]);
+				double xs = Math.max(0, fromObserved[init[i] + nbCat * sim[i]]);
+				final int[] ids = neighbours[i];
+				final double[] coeffs = coefficients[i];
+				for (int n = 0; n < ids.length; n++) {
+					final int id = ids[n];
+					final double valxa = fromSimulated[init[id] + nbCat * obs[id]] * coeffs[n];
+					final double valxs = fromObserved[init[id] + nbCat * sim[id]] * coeffs[n];
+					if (valxa > xa) { xa = valxa; }
+					if (valxs > xs) { xs = valxs; }
+				}
+				po += weight * Math.min(xa, xs);
+			}
+			po /= total;
+			double pe = 0;
+			for (int i = 0; i < nbCat; i++) {
+				for (int j = 0; j < nbCat; j++) {
+					for (int k = 0; k < nbCat; k++) {
+						final double poas =
+								nbInit[i] == 0 ? 0 : nbInitObs[i][j] / nbInit[i] * nbInitSim[i * nbCat + k] / total;
+						pe += expectedAgreements[i][j][k] * poas;
+					}
+				}
+			}
+			result[c] = pe == 1 ? 1 : (po - pe) / (1 - pe);
+		});
+		return result;
+	}
+
+}
@@ -0,0 +1,499 @@
+/*******************************************************************************************************
+ *
+ * CsvColumns.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The numerical columns of a CSV file with a header (e.g. the results of an exploration), read as arrays of doubles.
+ *
+ * The file is memory-mapped and parsed window after window, so that it is never loaded in memory as text, and the
+ * values are parsed directly from the bytes into the arrays of the columns, without creating a string per value for
+ * the usual decimal numbers. The rows are counted first, so that the arrays are allocated once with their final size.
+ * The separator is the comma, or the semicolon if the header only contains semicolons. The quoted values may contain
+ * separators and line breaks, and a byte order mark at the beginning of the file is ignored. The booleans are read as 1
+ * and 0, and the other values that are not numbers (or missing) as NaN.
+ */
+class CsvColumns {
+
+	/** The size of the windows of the file mapped in memory. */
+	private static final int WINDOW = 1 << 26;
+
+	/** The largest integer whose conversion to a double is exact. */
+	private static final long MAX_EXACT = 1L << 53;
+
+	/** The powers of ten whose conversion to a double is exact. */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** The names of the columns. */
+	final String[] names;
+
+	/** The values of each column (the arrays may be larger than the number of rows if some lines are blank). */
+	private final double[][] columns;
+
+	/** The number of rows. */
+	private int size;
+
+	/** The separator of the values. */
+	private final byte separator;
+
+	/**
+	 * Instantiates the columns of a file, without any row.
+	 *
+	 * @param names
+	 *            the names of the columns
+	 * @param separator
+	 *            the separator
+	 * @param capacity
+	 *            the expected number of rows
+	 */
+	private CsvColumns(final String[] names, final byte separator, final int capacity) {
+		this.names = names;
+		this.separator = separator;
+		columns = new double[names.length][capacity];
+	}
+
+	/**
+	 * Reads the columns of a file.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the columns
+	 * @throws IOException
+	 *             if the file can not be read or has no header
+	 */
+	static CsvColumns read(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final long length = channel.size();
+			final Reader reader = new Reader(Math.max(0, countLines(channel, length) - 1));
+			long position = 0;
+			int window = WINDOW;
+			while (position < length) {
+				final int size = (int) Math.min(window, length - position);
+				final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+				final boolean last = position + size == length;
+				int lineStart = 0;
+				// A window always begins at the beginning of a line, outside of any quoted value
+				boolean quoted = false;
+				for (int i = 0; i < size; i++) {
+					final byte b = buffer.get(i);
+					if (b == '"') {
+						quoted = !quoted;
+					} else if (b == '\n' && !quoted) {
+						reader.line(buffer, lineStart, i);
+						lineStart = i + 1;
+					}
+				}
+				if (last) {
+					if (lineStart < size) { reader.line(buffer, lineStart, size); }
+					position = length;
+				} else if (lineStart == 0) {
+					// A line longer than the window
+					window = (int) Math.min(Integer.MAX_VALUE - 8, 2L * window);
+				} else {
+					// The last line of the window, if incomplete, is read again at the beginning of the next one
+					position += lineStart;
+				}
+			}
+			if (reader.result == null) throw new IOException("The file " + file.getName() + " has no header");
+			return reader.result;
+		}
+	}
+
+	/**
+	 * Counts the lines of a file that are not blank, the line breaks of the quoted values excepted.
+	 *
+	 * @param channel
+	 *            the channel of the file
+	 * @param length
+	 *            the length of the file
+	 * @return the number of lines
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private static int countLines(final FileChannel channel, final long length) throws IOException {
+		int lines = 0;
+		boolean quoted = false, content = false;
+		for (long position = 0; position < length; position += WINDOW) {
+			final int size = (int) Math.min(WINDOW, length - position);
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+			for (int i = 0; i < size; i++) {
+				final byte b = buffer.get(i);
+				if (b == '"') { quoted = !quoted; }
+				if (b == '\n' && !quoted) {
+					if (content) { lines++; }
+					content = false;
+				} else if (b != '\r') { content = true; }
+			}
+		}
+		return content ? lines + 1 : lines;
+	}
+
+	/**
+	 * The reader of the lines of a file.
+	 */
+	private static class Reader {
+
+		/** The columns, created when the header is read. */
+		CsvColumns result;
+
+		/** The expected number of rows. */
+		final int capacity;
+
+		/**
+		 * Instantiates a new reader.
+		 *
+		 * @param capacity
+		 *            the expected number of rows
+		 */
+		Reader(final int capacity) {
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Reads a line.
+		 *
+		 * @param buffer
+		 *            the buffer
+		 * @param start
+		 *            the index of the first byte of the line
+		 * @param end
+		 *            the index after the last byte of the line
+		 */
+		void line(final MappedByteBuffer buffer, final int start, final int end) {
+			int last = end;
+			if (last > start && buffer.get(last - 1) == '\r') { last--; }
+			if (last == start) return;
+			if (result == null) {
+				result = header(buffer, start, last, capacity);
+			} else {
+				result.row(buffer, start, last);
+			}
+		}
+
+		/**
+		 * Reads the header.
+		 *
+		 * @param buffer
+		 *            the buffer
+		 * @param start
+		 *            the index of the first byte of the line
+		 * @param end
+		 *            the index after the last byte of the line
+		 * @param capacity
+		 *            the expected number of rows
+		 * @return the columns
+		 */
+		private static CsvColumns header(final MappedByteBuffer buffer, final int start, final int end,
+				final int capacity) {
+			final byte[] bytes = new byte[end - start];
+			buffer.get(start, bytes);
+			// The byte order mark written by some spreadsheets is not part of the first name
+			final boolean bom = bytes.length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB
+					&& bytes[2] == (byte) 0xBF;
+			final String line = bom ? new String(bytes, 3, bytes.length - 3, StandardCharsets.UTF_8)
+					: new String(bytes, StandardCharsets.UTF_8);
+			final char separator = line.indexOf(',') < 0 && line.indexOf(';') >= 0 ? ';' : ',';
+			final List<String> names = new ArrayList<>();
+			final StringBuilder name = new StringBuilder();
+			boolean quoted = false;
+			for (int i = 0; i < line.length(); i++) {
+				final char c = line.charAt(i);
+				if (c == '"') {
+					quoted = !quoted;
+				} else if (c == separator && !quoted) {
+					names.add(name.toString().trim());
+					name.setLength(0);
+				} else {
+					name.append(c);
+				}
+			}
+			names.add(name.toString().trim());
+			return new CsvColumns(names.toArray(new String[0]), (byte) separator, capacity);
+		}
+	}
+
+	/**
+	 * Reads a row.
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param start
+	 *            the index of the first byte of the line
+	 * @param end
+	 *            the index after the last byte of the line
+	 */
+	private void row(final MappedByteBuffer buffer, final int start, final int end) {
+		if (size == columns[0].length) {
+			// Only if the file has changed since its lines were counted
+			for (int j = 0; j < columns.length; j++) { columns[j] = Arrays.copyOf(columns[j], Math.max(16, 2 * size)); }
+		}
+		int fieldStart = start;
+		int column = 0;
+		boolean quoted = false;
+		for (int i = start; i <= end && column < columns.length; i++) {
+			if (i < end) {
+				final byte b = buffer.get(i);
+				if (b == '"') { quoted = !quoted; }
+				if (b != separator || quoted) { continue; }
+			}
+			columns[column++][size] = parse(buffer, fieldStart, i);
+			fieldStart = i + 1;
+		}
+		for (; column < columns.length; column++) { columns[column][size] = Double.NaN; }
+		size++;
+	}
+
+	/**
+	 * Parses a value. The decimal numbers with at most 15 significant digits are computed exactly (as by
+	 * {@link Double#parseDouble(String)}) from their digits, and the others are parsed from a string.
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param from
+	 *            the index of the first byte of the value
+	 * @param to
+	 *            the index after the last byte of the value
+	 * @return the value
+	 */
+	private static double parse(final MappedByteBuffer buffer, final int from, final int to) {
+		int start = from, end = to;
+		while (start < end && isBlank(buffer.get(start))) { start++; }
+		while (end > start && isBlank(buffer.get(end - 1))) { end--; }
+		if (end - start >= 2 && buffer.get(start) == '"' && buffer.get(end - 1) == '"') {
+			start++;
+			end--;
+		}
+		if (start == end) return Double.NaN;
+		int i = start;
+		final boolean negative = buffer.get(i) == '-';
+		if (negative || buffer.get(i) == '+') { i++; }
+		long mantissa = 0;
+		int digits = 0, decimals = 0;
+		boolean point = false, any = false;
+		for (; i < end && digits <= 15; i++) {
+			final byte b = buffer.get(i);
+			if (b >= '0' && b <= '9') {
+				any = true;
+				mantissa = mantissa * 10 + (b - '0');
+				if (mantissa > 0) { digits++; }
+				if (point) { decimals++; }
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (i == end && any && digits <= 15 && mantissa < MAX_EXACT && decimals < POWERS_OF_TEN.length) {
+			final double value = mantissa / POWERS_OF_TEN[decimals];
+			return negative ? -value : value;
+		}
+		final byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		final String text = new String(bytes, StandardCharsets.UTF_8);
+		if ("true".equalsIgnoreCase(text)) return 1;
+		if ("false".equalsIgnoreCase(text)) return 0;
+		try {
+			return Double.parseDouble(text);
+		} catch (final NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Whether a byte is a space or a tabulation.
+	 *
+	 * @param b
+	 *            the byte
+	 * @return true if it is blank
+	 */
+	private static boolean isBlank(final byte b) {
+		return b == ' ' || b == '\t';
+	}
+
+	/**
+	 * Returns the number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the values of a column.
+	 *
+	 * @param j
+	 *            the index of the column
+	 * @return the values, which must not be modified
+	 */
+	double[] column(final int j) {
+		if (columns[j].length != size) { columns[j] = Arrays.copyOf(columns[j], size); }
+		return columns[j];
+	}
+
+	/**
+	 * Returns a view of the first columns as a list of rows, each row being a read-only map from the names of the
+	 * columns to their values, in the order of the columns. The values are boxed only when they are read.
+	 *
+	 * @param count
+	 *            the number of columns
+	 * @return the list of the rows
+	 */
+	List<Map<String, Object>> rows(final int count) {
+		final double[][] values = new double[count][];
+		final Map<String, Integer> index = new HashMap<>();
+		for (int j = 0; j < count; j++) {
+			values[j] = column(j);
+			index.put(names[j], j);
+		}
+		return new AbstractList<>() {
+
+			@Override
+			public Map<String, Object> get(final int i) {
+				if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+				return new Row(names, values, index, i);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * A row of some columns, as a read-only map.
+	 */
+	private static class Row extends AbstractMap<String, Object> {
+
+		/** The names of the columns. */
+		final String[] names;
+
+		/** The values of the columns. */
+		final double[][] values;
+
+		/** The index of each column, by name. */
+		final Map<String, Integer> index;
+
+		/** The index of the row. */
+		final int row;
+
+		/**
+		 * Instantiates a new row.
+		 *
+		 * @param names
+		 *            the names of the columns
+		 * @param values
+		 *            the values of the columns
+		 * @param index
+		 *            the index of each column, by name
+		 * @param row
+		 *            the index of the row
+		 */
+		Row(final String[] names, final double[][] values, final Map<String, Integer> index, final int row) {
+			this.names = names;
+			this.values = values;
+			this.index = index;
+			this.row = row;
+		}
+
+		@Override
+		public Object get(final Object key) {
+			final Integer j = index.get(key);
+			return j == null ? null : values[j][row];
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return index.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<>() {
+
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return new Iterator<>() {
+
+						/** The next column. */
+						int j;
+
+						@Override
+						public boolean hasNext() {
+							return j < values.length;
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							if (j >= values.length) throw new NoSuchElementException();
+							final Entry<String, Object> entry = new SimpleImmutableEntry<>(names[j], values[j][row]);
+							j++;
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return values.length;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Returns a view of the values of a column as a list, the values being boxed only when they are read.
+	 *
+	 * @param j
+	 *            the index of the column
+	 * @return the list
+	 */
+	List<Double> list(final int j) {
+		final double[] values = column(j);
+		return new AbstractList<>() {
+
+			@Override
+			public Double get(final int index) {
+				return values[index];
+			}
+
+			@Override
+			public int size() {
+				return values.length;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************************************
+ *
+ * DoubleValues.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.Arrays;
+
+import gama.core.runtime.IScope;
+import gama.core.util.IContainer;
+import gama.core.util.IList;
+import gama.core.util.matrix.GamaFloatMatrix;
+import gama.core.util.matrix.GamaIntMatrix;
+import gaml.core.operators.Cast;
+
+/**
+ * The extraction of the values of GAMA containers into arrays of doubles, shared by the statistical operators.
+ *
+ * The float matrices and fields give access to the array that holds their values, which is then returned without any
+ * copy: the arrays returned by {@link #floats(IScope, IContainer)} and {@link #numbers(IScope, IContainer)} must
+ * therefore only be read. The operators that need to modify the values (e.g. to sort them) use
+ * {@link #copyOfFloats(IScope, IContainer)}. The integer matrices are converted from their array of ints, and the
+ * lists are read by index, the values that are already floats or integers being unboxed without going through
+ * {@link Cast#asFloat(IScope, Object)}.
+ */
+class DoubleValues {
+
+	/**
+	 * Returns all the values of a container, the ones that are not numbers being cast to float.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param values
+	 *            the container (possibly null)
+	 * @return the values, which must not be modified
+	 */
+	static double[] floats(final IScope scope, final IContainer values) {
+		if (values instanceof GamaFloatMatrix m) return m.getMatrix();
+		return extract(scope, values, true);
+	}
+
+	/**
+	 * Returns a copy of all the values of a container, the ones that are not numbers being cast to float.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param values
+	 *            the container (possibly null)
+	 * @return the values, which can be modified
+	 */
+	static double[] copyOfFloats(final IScope scope, final IContainer values) {
+		if (values instanceof GamaFloatMatrix m) return m.getMatrix().clone();
+		return extract(scope, values, true);
+	}
+
+	/**
+	 * Returns the numerical values of a container, the other ones being ignored.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param values
+	 *            the container (possibly null)
+	 * @return the values, which must not be modified
+	 */
+	static double[] numbers(final IScope scope, final IContainer values) {
+		if (values instanceof GamaFloatMatrix m) return m.getMatrix();
+		return extract(scope, values, false);
+	}
+
+	/**
+	 * Converts the values of a container.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param values
+	 *            the container (possibly null)
+	 * @param cast
+	 *            whether the values that are not numbers are cast to float (true) or ignored (false)
+	 * @return a new array of values
+	 */
+	private static double[] extract(final IScope scope, final IContainer values, final boolean cast) {
+		if (values == null) return new double[0];
+		if (values instanceof GamaIntMatrix m) {
+			final int[] ints = m.getMatrix();
+			final double[] result = new double[ints.length];
+			for (int i = 0; i < ints.length; i++) { result[i] = ints[i]; }
+			return result;
+		}
+		double[] result = new double[values.length(scope)];
+		int n = 0;
+		if (values instanceof IList<?> list) {
+			for (int i = 0; i < result.length; i++) {
+				final Object o = list.get(i);
+				if (o instanceof Number number) {
+					result[n++] = number.doubleValue();
+				} else if (cast) { result[n++] = Cast.asFloat(scope, o); }
+			}
+		} else {
+			for (final Object o : values.iterable(scope)) {
+				if (n == result.length) { result = Arrays.copyOf(result, 2 * n + 1); }
+				if (o instanceof Number number) {
+					result[n++] = number.doubleValue();
+				} else if (cast) { result[n++] = Cast.asFloat(scope, o); }
+			}
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************************************
+ *
+ * DynamicTimeWarping.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * The dynamic time warping (step pattern symmetric1, absolute difference as local cost) of series of doubles,
+ * optionally constrained by a Sakoe-Chiba band, and its use to compare a query with many series.
+ *
+ * The computation can be abandoned as soon as the smallest cumulated cost of a row exceeds a threshold (e.g. the
+ * smallest distance found so far), since the costs are never negative. Before computing it, the LB_Keogh lower bound
+ * (the distance of each value of the series to the envelope of the values of the query it can be matched with) allows
+ * to discard the series that are further away than the threshold in linear time.
+ */
+class DynamicTimeWarping {
+
+	/**
+	 * Returns the dynamic time warping between two series.
+	 *
+	 * @param s1
+	 *            the first series
+	 * @param s2
+	 *            the second series
+	 * @param radius
+	 *            the radius of the Sakoe-Chiba band (no band if negative)
+	 * @param threshold
+	 *            the distance above which the computation is abandoned
+	 * @return the distance, or positive infinity if it is greater than the threshold or if the band does not allow to
+	 *         match the ends of the series
+	 */
+	static double distance(final double[] s1, final double[] s2, final int radius, final double threshold) {
+		final int n1 = s1.length;
+		final int n2 = s2.length;
+		// The band does not allow to match the ends of the series
+		if (radius >= 0 && Math.abs(n1 - n2) > radius) return Double.POSITIVE_INFINITY;
+		final int r = radius < 0 ? Math.max(n1, n2) : radius;
+		double[] previous = new double[n2 + 1];
+		double[] current = new double[n2 + 1];
+		Arrays.fill(previous, Double.POSITIVE_INFINITY);
+		Arrays.fill(current, Double.POSITIVE_INFINITY);
+		previous[0] = 0;
+		for (int i = 1; i <= n1; i++) {
+			final int start = Math.max(1, i - r);
+			final int end = Math.min(n2, i + r);
+			current[start - 1] = Double.POSITIVE_INFINITY;
+			if (end < n2) { current[end + 1] = Double.POSITIVE_INFINITY; }
+			final double x = s1[i - 1];
+			double rowMin = Double.POSITIVE_INFINITY;
+			for (int j = start; j <= end; j++) {
+				double min = previous[j - 1];
+				if (min > previous[j]) { min = previous[j]; }
+				if (min > current[j - 1]) { min = current[j - 1]; }
+				final double value = Math.abs(x - s2[j - 1]) + min;
+				current[j] = value;
+				if (value < rowMin) { rowMin = value; }
+			}
+			if (!(rowMin <= threshold)) return Double.POSITIVE_INFINITY;
+			final double[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[n2] <= threshold ? previous[n2] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * The envelope of a query: for each index i, the minimum and maximum of the values of the query that can be matched
+	 * with the value of index i of another series, i.e. whose indices are between i - radius and i + radius.
+	 */
+	static class Envelope {
+
+		/** The length of the query. */
+		final int length;
+
+		/** The radius of the band (negative if there is none). */
+		final int radius;
+
+		/** The minimum and maximum of the query around each index (computed up to length + radius - 1). */
+		final double[] lower, upper;
+
+		/**
+		 * Computes the envelope of a query, with a deque of the indices of the candidate minima (resp. maxima), in
+		 * linear time.
+		 *
+		 * @param query
+		 *            the query
+		 * @param radius
+		 *            the radius of the band (no band if negative)
+		 */
+		Envelope(final double[] query, final int radius) {
+			length = query.length;
+			this.radius = radius;
+			if (radius < 0 || length == 0) {
+				double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+				for (final double x : query) {
+					min = Math.min(min, x);
+					max = Math.max(max, x);
+				}
+				lower = new double[] { min };
+				upper = new double[] { max };
+				return;
+			}
+			final int size = length + radius;
+			lower = new double[size];
+			upper = new double[size];
+			final int[] minima = new int[length], maxima = new int[length];
+			int minHead = 0, minTail = 0, maxHead = 0, maxTail = 0;
+			int next = 0;
+			for (int i = 0; i < size; i++) {
+				for (final int last = Math.min(length - 1, i + radius); next <= last; next++) {
+					while (minTail > minHead && query[minima[minTail - 1]] >= query[next]) { minTail--; }
+					minima[minTail++] = next;
+					while (maxTail > maxHead && query[maxima[maxTail - 1]] <= query[next]) { maxTail--; }
+					maxima[maxTail++] = next;
+				}
+				while (minima[minHead] < i - radius) { minHead++; }
+				while (maxima[maxHead] < i - radius) { maxHead++; }
+				lower[i] = query[minima[minHead]];
+				upper[i] = query[maxima[maxHead]];
+			}
+		}
+
+		/**
+		 * Returns the LB_Keogh lower bound of the dynamic time warping between the query and a series.
+		 *
+		 * @param series
+		 *            the series
+		 * @param threshold
+		 *            the value above which the computation is abandoned
+		 * @return the lower bound, or positive infinity if it is greater than the threshold or if the band does not
+		 *         allow to match the ends of the series
+		 */
+		double lowerBound(final double[] series, final double threshold) {
+			final int n = series.length;
+			if (n == 0 || length == 0) return n == length ? 0 : Double.POSITIVE_INFINITY;
+			if (radius >= 0 && Math.abs(n - length) > radius) return Double.POSITIVE_INFINITY;
+			final boolean banded = radius >= 0;
+			double sum = 0;
+			for (int i = 0; i < n; i++) {
+				final double x = series[i];
+				final double l = banded ? lower[i] : lower[0];
+				final double u = banded ? upper[i] : upper[0];
+				if (x > u) {
+					sum += x - u;
+				} else if (x < l) { sum += l - x; }
+				if (sum > threshold) return Double.POSITIVE_INFINITY;
+			}
+			return sum;
+		}
+
+	}
+
+	/**
+	 * Returns the distances between a query and series, computed in parallel.
+	 *
+	 * @param query
+	 *            the query
+	 * @param series
+	 *            the series
+	 * @param radius
+	 *            the radius of the band (no band if negative)
+	 * @return the distances
+	 */
+	static double[] distances(final double[] query, final double[][] series, final int radius) {
+		final double[] result = new double[series.length];
+		IntStream.range(0, series.length).parallel()
+				.forEach(i -> result[i] = distance(query, series[i], radius, Double.POSITIVE_INFINITY));
+		return result;
+	}
+
+	/**
+	 * Returns the index of the series nearest to a query. The series are examined in parallel, by increasing lower
+	 * bound, and the ones whose lower bound, or the partial computation of the distance, exceeds the smallest distance
+	 * found so far are discarded.
+	 *
+	 * @param query
+	 *            the query
+	 * @param series
+	 *            the series
+	 * @param radius
+	 *            the radius of the band (no band if negative)
+	 * @return the index of the nearest series (the first one in case of ties), or -1 if there are none or if none
+	 *         can be matched with the query
+	 */
+	static int nearest(final double[] query, final double[][] series, final int radius) {
+		final int n = series.length;
+		final Envelope envelope = new Envelope(query, radius);
+		final double[] bounds = new double[n];
+		IntStream.range(0, n).parallel()
+				.forEach(i -> bounds[i] = envelope.lowerBound(series[i], Double.POSITIVE_INFINITY));
+		final int[] order = IntStream.range(0, n).boxed().sorted((a, b) -> Double.compare(bounds[a], bounds[b]))
+				.mapToInt(Integer::intValue).toArray();
+		// The distances are positive, so that their bits are ordered like them
+		final AtomicLong best = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+		final double[] distances = new double[n];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		IntStream.range(0, n).parallel().forEach(k -> {
+			final int i = order[k];
+			final double threshold = Double.longBitsToDouble(best.get());
+			if (bounds[i] > threshold) return;
+			final double d = distance(query, series[i], radius, threshold);
+			distances[i] = d;
+			if (d < Double.POSITIVE_INFINITY) { best.accumulateAndGet(Double.doubleToLongBits(d), Math::min); }
+		});
+		// A series at the smallest distance is never discarded, since the thresholds are never below it
+		final double min = Double.longBitsToDouble(best.get());
+		if (min == Double.POSITIVE_INFINITY) return -1;
+		for (int i = 0; i < n; i++) { if (distances[i] == min) return i; }
+		return -1;
+	}
+
+}
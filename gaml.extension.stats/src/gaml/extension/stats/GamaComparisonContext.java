@@ -0,0 +1,278 @@
+/*******************************************************************************************************
+ *
+ * GamaComparisonContext.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import gama.core.annotations.precompiler.GamlAnnotations.doc;
+import gama.core.annotations.precompiler.GamlAnnotations.getter;
+import gama.core.annotations.precompiler.GamlAnnotations.variable;
+import gama.core.annotations.precompiler.GamlAnnotations.vars;
+import gama.core.common.interfaces.IValue;
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.shape.GamaPoint;
+import gama.core.metamodel.topology.filter.IAgentFilter;
+import gama.core.metamodel.topology.filter.In;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.core.util.GamaListFactory;
+import gama.core.util.GamaMapFactory;
+import gama.core.util.IAddressableContainer;
+import gama.core.util.IList;
+import gaml.core.operators.Containers;
+import gaml.core.types.IType;
+import gaml.core.types.Types;
+
+/**
+ * The spatial structure used by the fuzzy kappa indicators to compare maps defined on a set of agents: the neighbours
+ * of each agent within the fuzzy distance and their distance coefficients, the neighbourhood of the agent at the
+ * center of the set and the rings of distances around it. It only depends on the agents and on the distance, and not
+ * on the maps, so that it can be built once and passed to the fuzzy_kappa and fuzzy_kappa_sim operators to compare
+ * many maps of the same agents (e.g. in a calibration).
+ *
+ * The whole structure is computed when the context is built, from the locations of the agents at that time: it is not
+ * updated if the agents move afterwards. A context is immutable, so that it can be shared by several threads and is its
+ * own copy.
+ */
+@vars ({ @variable (
+		name = "agents",
+		type = IType.LIST,
+		of = IType.AGENT,
+		doc = { @doc ("the agents on which the maps are defined") }),
+		@variable (
+				name = "distance",
+				type = IType.FLOAT,
+				doc = { @doc ("the fuzzy distance") }) })
+public class GamaComparisonContext implements IValue {
+
+	/** The agents. */
+	final IList<IAgent> agents = GamaListFactory.create(Types.AGENT);
+
+	/** The number of agents. */
+	final int nb;
+
+	/** The fuzzy distance. */
+	final double distance;
+
+	/** The filter of the agents. */
+	private final IAgentFilter filter;
+
+	/** The index of each agent. */
+	private final Map<IAgent, Integer> agentsId = GamaMapFactory.create();
+
+	/** The indices of the neighbours of each agent. */
+	private final int[][] neighbours;
+
+	/** The distance coefficients of the neighbours of each agent. */
+	private final double[][] coefficients;
+
+	/** The distance coefficients of the agent at the center and of its neighbours. */
+	private final double[] centralCoefficients;
+
+	/** The distances of the rings around the center. */
+	private final List<Double> rings;
+
+	/** The number of agents in each ring or closer to the center. */
+	private final Map<Double, Integer> ringsPn;
+
+	/**
+	 * Instantiates a new comparison context.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param agents
+	 *            the agents
+	 * @param distance
+	 *            the fuzzy distance
+	 */
+	GamaComparisonContext(final IScope scope, final IAddressableContainer<Integer, IAgent, Integer, IAgent> agents,
+			final Double distance) {
+		for (final IAgent ag : agents.iterable(scope)) { this.agents.add(ag); }
+		this.nb = this.agents.size();
+		this.distance = distance == null ? 0 : distance;
+		this.filter = In.list(scope, agents);
+		for (int i = 0; i < nb; i++) { agentsId.put(this.agents.get(i), i); }
+		neighbours = new int[nb][];
+		coefficients = new double[nb][];
+		for (int i = 0; i < nb; i++) {
+			final List<Integer> ids = new ArrayList<>();
+			coefficients[i] = computeNeighbours(scope, this.agents.get(i), ids);
+			neighbours[i] = ids.stream().mapToInt(Integer::intValue).toArray();
+		}
+		if (filter == null || nb == 0) {
+			centralCoefficients = new double[0];
+			rings = Collections.emptyList();
+			ringsPn = Collections.emptyMap();
+			return;
+		}
+		final Object[] center = center(scope);
+		final GamaPoint centralLoc = (GamaPoint) center[0];
+		final IAgent centralAg = (IAgent) center[1];
+		final double[] coeffs = computeNeighbours(scope, centralAg, new ArrayList<>());
+		centralCoefficients = new double[coeffs.length + 1];
+		centralCoefficients[0] = 1.0;
+		System.arraycopy(coeffs, 0, centralCoefficients, 1, coeffs.length);
+		final Map<Double, Integer> counts = GamaMapFactory.create();
+		if (this.distance != 0) {
+			for (final IAgent ag : scope.getTopology().getNeighborsOf(scope, centralAg, this.distance, filter)) {
+				final double dist = centralLoc.euclidianDistanceTo(ag.getLocation());
+				if (dist == 0) { continue; }
+				counts.merge(dist, 1, Integer::sum);
+			}
+		}
+		final List<Double> sorted = new ArrayList<>(counts.keySet());
+		Collections.sort(sorted);
+		int cumulated = 0;
+		final Map<Double, Integer> pn = GamaMapFactory.create();
+		for (final Double dist : sorted) {
+			cumulated += counts.get(dist);
+			pn.put(dist, cumulated);
+		}
+		rings = Collections.unmodifiableList(sorted);
+		ringsPn = Collections.unmodifiableMap(pn);
+	}
+
+	/**
+	 * Computes the neighbours of an agent within the fuzzy distance, and their distance coefficients, 1 / (1 +
+	 * distance / size of the agent).
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param agent
+	 *            the agent
+	 * @param ids
+	 *            the indices of the neighbours, computed
+	 * @return the coefficients of the neighbours
+	 */
+	private double[] computeNeighbours(final IScope scope, final IAgent agent, final List<Integer> ids) {
+		if (distance == 0 || filter == null) return new double[0];
+		final double sizeNorm = Math.sqrt(agent.getEnvelope().getArea());
+		final List<Double> coeffs = new ArrayList<>();
+		for (final IAgent ag : scope.getTopology().getNeighborsOf(scope, agent, distance, filter)) {
+			final Integer id = agentsId.get(ag);
+			if (id == null) { continue; }
+			ids.add(id);
+			final double euclidDist = agent.getLocation().euclidianDistanceTo(ag.getLocation());
+			coeffs.add(1 / (1.0 + euclidDist / sizeNorm));
+		}
+		final double[] result = new double[coeffs.size()];
+		for (int k = 0; k < result.length; k++) { result[k] = coeffs.get(k); }
+		return result;
+	}
+
+	/**
+	 * Returns the indices of the neighbours of an agent (itself excluded). The array must not be modified.
+	 *
+	 * @param i
+	 *            the index of the agent
+	 * @return the indices of its neighbours
+	 */
+	int[] neighbours(final int i) {
+		return neighbours[i];
+	}
+
+	/**
+	 * Returns the distance coefficients of the neighbours of an agent, in the order of {@link #neighbours(int)}. The
+	 * array must not be modified.
+	 *
+	 * @param i
+	 *            the index of the agent
+	 * @return the coefficients
+	 */
+	double[] coefficients(final int i) {
+		return coefficients[i];
+	}
+
+	/**
+	 * Returns the agent closest to the mean of the locations of the agents.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the central location (first) and agent (second)
+	 */
+	private Object[] center(final IScope scope) {
+		final IList<GamaPoint> locs = GamaListFactory.create(Types.POINT);
+		for (final IAgent ag : agents.iterable(scope)) { locs.add(ag.getLocation()); }
+		final GamaPoint centralLoc = (GamaPoint) Containers.opMean(scope, locs);
+		return new Object[] { centralLoc, scope.getTopology().getAgentClosestTo(scope, centralLoc, filter) };
+	}
+
+	/**
+	 * Returns the distance coefficients of the agent at the center (1) and of its neighbours (none if there are no
+	 * agents to search). The array must not be modified.
+	 *
+	 * @return the coefficients
+	 */
+	double[] centralCoefficients() {
+		return centralCoefficients;
+	}
+
+	/**
+	 * Returns the distances of the rings of neighbours around the center of the agents, in increasing order.
+	 *
+	 * @return the distances
+	 */
+	List<Double> rings() {
+		return rings;
+	}
+
+	/**
+	 * Returns the number of neighbours of the center in each ring or closer.
+	 *
+	 * @return the numbers, by distance of the rings
+	 */
+	Map<Double, Integer> ringsPn() {
+		return ringsPn;
+	}
+
+	/**
+	 * Gets the agents.
+	 *
+	 * @return a copy of the agents
+	 */
+	@getter ("agents")
+	public IList<IAgent> getAgents() {
+		final IList<IAgent> result = GamaListFactory.create(Types.AGENT);
+		result.addAll(agents);
+		return result;
+	}
+
+	/**
+	 * Gets the distance.
+	 *
+	 * @return the distance
+	 */
+	@getter ("distance")
+	public Double getDistance() { return distance; }
+
+	@Override
+	public String serialize(final boolean includingBuiltIn) {
+		return stringValue(null);
+	}
+
+	@Override
+	public IType<?> getGamlType() { return Types.get(GamaComparisonContextType.id); }
+
+	@Override
+	public String stringValue(final IScope scope) throws GamaRuntimeException {
+		return "comparison context of " + nb + " agents (fuzzy distance: " + distance + ")";
+	}
+
+	@Override
+	public GamaComparisonContext copy(final IScope scope) throws GamaRuntimeException {
+		// Immutable
+		return this;
+	}
+
+}
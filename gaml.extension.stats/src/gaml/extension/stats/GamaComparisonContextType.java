@@ -0,0 +1,55 @@
+/*******************************************************************************************************
+ *
+ * GamaComparisonContextType.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and
+ * simulation platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import gama.core.annotations.precompiler.IConcept;
+import gama.core.annotations.precompiler.ISymbolKind;
+import gama.core.annotations.precompiler.GamlAnnotations.doc;
+import gama.core.annotations.precompiler.GamlAnnotations.type;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gaml.core.types.GamaType;
+import gaml.core.types.IType;
+
+/**
+ * The Class GamaComparisonContextType.
+ */
+@type (
+		name = "comparison_context",
+		id = GamaComparisonContextType.id,
+		wraps = { GamaComparisonContext.class },
+		kind = ISymbolKind.Variable.REGULAR,
+		concept = { IConcept.TYPE, IConcept.MAP },
+		doc = { @doc (
+				value = "Type of variables that hold the neighbourhoods of a set of agents within a fuzzy distance, "
+						+ "which can be passed to fuzzy_kappa and fuzzy_kappa_sim to compare many maps of the same agents without computing them again (see build_comparison_context)") })
+public class GamaComparisonContextType extends GamaType<GamaComparisonContext> {
+
+	/** The Constant id. */
+	public final static int id = IType.AVAILABLE_TYPES + 546672;
+
+	@Override
+	public boolean canCastToConst() {
+		return false;
+	}
+
+	@Override
+	@doc ("Returns the argument if it is a comparison context, otherwise nil")
+	public GamaComparisonContext cast(final IScope scope, final Object obj, final Object param, final boolean copy)
+			throws GamaRuntimeException {
+		if (obj instanceof GamaComparisonContext context) return context;
+		return null;
+	}
+
+	@Override
+	public GamaComparisonContext getDefault() { return null; }
+
+}
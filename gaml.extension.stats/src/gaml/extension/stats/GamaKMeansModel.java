@@ -0,0 +1,174 @@
+/*******************************************************************************************************
+ *
+ * GamaKMeansModel.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import gama.core.annotations.precompiler.GamlAnnotations.doc;
+import gama.core.annotations.precompiler.GamlAnnotations.getter;
+import gama.core.annotations.precompiler.GamlAnnotations.variable;
+import gama.core.annotations.precompiler.GamlAnnotations.vars;
+import gama.core.common.interfaces.IValue;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.core.util.GamaListFactory;
+import gama.core.util.IList;
+import gaml.core.types.IType;
+import gaml.core.types.Types;
+
+/**
+ * The result of a k-means clustering: the centers of the clusters and the cluster of each instance. It can be passed
+ * back to the kmeans_fit and kmeans_mini_batch operators to start the clustering of new (or moved) instances from its
+ * centers instead of new ones, which requires far fewer iterations when the instances have not moved much.
+ */
+@vars ({ @variable (
+		name = "centroids",
+		type = IType.LIST,
+		of = IType.LIST,
+		doc = { @doc ("the centers of the clusters (lists of floats)") }),
+		@variable (
+				name = "clusters",
+				type = IType.LIST,
+				of = IType.LIST,
+				doc = { @doc ("the clusters (lists of indices of instances), in the order of the centroids") }),
+		@variable (
+				name = "assignments",
+				type = IType.LIST,
+				of = IType.INT,
+				doc = { @doc ("the index of the cluster of each instance") }),
+		@variable (
+				name = "inertia",
+				type = IType.FLOAT,
+				doc = { @doc ("the sum of the squared distances between the instances and the centers of their clusters") }),
+		@variable (
+				name = "iterations",
+				type = IType.INT,
+				doc = { @doc ("the number of iterations (or of mini-batches) done to compute the centroids") }) })
+public class GamaKMeansModel implements IValue {
+
+	/** The number of clusters. */
+	final int k;
+
+	/** The number of coordinates of the centers. */
+	final int dims;
+
+	/** The coordinates of the centers, one after the other. */
+	final double[] centers;
+
+	/** The index of the cluster of each instance. */
+	final int[] assignments;
+
+	/** The inertia. */
+	final double inertia;
+
+	/** The number of iterations. */
+	final int iterations;
+
+	/**
+	 * Instantiates a new k-means model.
+	 *
+	 * @param k
+	 *            the number of clusters
+	 * @param dims
+	 *            the number of coordinates of the centers
+	 * @param centers
+	 *            the coordinates of the centers, one after the other
+	 * @param assignments
+	 *            the index of the cluster of each instance
+	 * @param inertia
+	 *            the inertia
+	 * @param iterations
+	 *            the number of iterations
+	 */
+	GamaKMeansModel(final int k, final int dims, final double[] centers, final int[] assignments, final double inertia,
+			final int iterations) {
+		this.k = k;
+		this.dims = dims;
+		this.centers = centers;
+		this.assignments = assignments;
+		this.inertia = inertia;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Gets the centroids.
+	 *
+	 * @return the centroids
+	 */
+	@getter ("centroids")
+	public IList<IList<Double>> getCentroids() {
+		final IList<IList<Double>> result = GamaListFactory.create(Types.LIST.of(Types.FLOAT));
+		for (int c = 0; c < k; c++) {
+			final IList<Double> center = GamaListFactory.create(Types.FLOAT);
+			for (int d = 0; d < dims; d++) { center.add(centers[c * dims + d]); }
+			result.add(center);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the clusters.
+	 *
+	 * @return the clusters
+	 */
+	@getter ("clusters")
+	public IList<IList<Integer>> getClusters() {
+		final IList<IList<Integer>> result = GamaListFactory.create(Types.LIST.of(Types.INT));
+		for (int c = 0; c < k; c++) { result.add(GamaListFactory.create(Types.INT)); }
+		for (int i = 0; i < assignments.length; i++) { result.get(assignments[i]).add(i); }
+		return result;
+	}
+
+	/**
+	 * Gets the assignments.
+	 *
+	 * @return the assignments
+	 */
+	@getter ("assignments")
+	public IList<Integer> getAssignments() {
+		final IList<Integer> result = GamaListFactory.create(Types.INT);
+		for (final int c : assignments) { result.add(c); }
+		return result;
+	}
+
+	/**
+	 * Gets the inertia.
+	 *
+	 * @return the inertia
+	 */
+	@getter ("inertia")
+	public Double getInertia() { return inertia; }
+
+	/**
+	 * Gets the iterations.
+	 *
+	 * @return the iterations
+	 */
+	@getter ("iterations")
+	public Integer getIterations() { return iterations; }
+
+	@Override
+	public String serialize(final boolean includingBuiltIn) {
+		return stringValue(null);
+	}
+
+	@Override
+	public IType<?> getGamlType() { return Types.get(GamaKMeansModelType.id); }
+
+	@Override
+	public String stringValue(final IScope scope) throws GamaRuntimeException {
+		return "kmeans model of " + k + " clusters of " + assignments.length + " instances (inertia: " + inertia + ")";
+	}
+
+	@Override
+	public GamaKMeansModel copy(final IScope scope) throws GamaRuntimeException {
+		return new GamaKMeansModel(k, dims, centers.clone(), assignments.clone(), inertia, iterations);
+	}
+
+}
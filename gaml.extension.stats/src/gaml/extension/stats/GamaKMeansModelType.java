@@ -0,0 +1,55 @@
+/*******************************************************************************************************
+ *
+ * GamaKMeansModelType.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import gama.core.annotations.precompiler.IConcept;
+import gama.core.annotations.precompiler.ISymbolKind;
+import gama.core.annotations.precompiler.GamlAnnotations.doc;
+import gama.core.annotations.precompiler.GamlAnnotations.type;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gaml.core.types.GamaType;
+import gaml.core.types.IType;
+
+/**
+ * The Class GamaKMeansModelType.
+ */
+@type (
+		name = "kmeans_model",
+		id = GamaKMeansModelType.id,
+		wraps = { GamaKMeansModel.class },
+		kind = ISymbolKind.Variable.REGULAR,
+		concept = { IConcept.TYPE, IConcept.CLUSTERING },
+		doc = { @doc (
+				value = "Type of variables that hold the result of a k-means clustering (centroids, clusters, inertia), "
+						+ "which can be used to start the clustering of the next step from the current centroids (see kmeans_fit and kmeans_mini_batch)") })
+public class GamaKMeansModelType extends GamaType<GamaKMeansModel> {
+
+	/** The Constant id. */
+	public final static int id = IType.AVAILABLE_TYPES + 546671;
+
+	@Override
+	public boolean canCastToConst() {
+		return false;
+	}
+
+	@Override
+	@doc ("Returns the argument if it is a kmeans model (or a copy of it), otherwise nil")
+	public GamaKMeansModel cast(final IScope scope, final Object obj, final Object param, final boolean copy)
+			throws GamaRuntimeException {
+		if (obj instanceof GamaKMeansModel model) return copy ? model.copy(scope) : model;
+		return null;
+	}
+
+	@Override
+	public GamaKMeansModel getDefault() { return null; }
+
+}
@@ -47,7 +47,7 @@ import gaml.core.types.Types;
 			name = "residuals",
 			type = IType.LIST,
 			of = IType.FLOAT,
-			doc = { @doc ("error terms associated to each observation of the sample") })	
+			doc = { @doc ("error terms associated to each observation of the sample (empty for the online regressions, which do not keep their observations)") })	
 	})
 public class GamaRegression implements IValue {
 
@@ -66,6 +66,9 @@ public class GamaRegression implements IValue {
 	/** The rsquare. */
 	double rsquare;
 
+	/** The regression updated with each new observation (null if the regression is built once from all the data). */
+	OnlineRegression online;
+
 	/**
 	 * Instantiates a new gama regression.
 	 *
@@ -75,20 +78,83 @@ public class GamaRegression implements IValue {
 	 */
 	public GamaRegression(final IScope scope, final GamaMatrix<?> data) throws Exception {
 		final OLSMultipleLinearRegression regressionMethod = new OLSMultipleLinearRegression();
-		final int nbFeatures = data.numCols - 1;
+		nbFeatures = data.numCols - 1;
 		final int nbInstances = data.numRows;
-
-		final double[] instances = new double[data.numCols * data.numRows];
-
-		for (int i = 0; i < data.length(scope); i++) {
-			instances[i] = Cast.asFloat(scope, data.getNthElement(i));
-		}
+		// The data are copied by the regression method
+		final double[] instances = DoubleValues.floats(scope, data);
 		regressionMethod.newSampleData(instances, nbInstances, nbFeatures);
 		param = regressionMethod.estimateRegressionParameters();
 		rsquare = regressionMethod.calculateAdjustedRSquared();
 		error = regressionMethod.estimateResiduals();
 	}
 
+	/**
+	 * Instantiates a new online regression, without observations, whose parameters are estimated again each time
+	 * observations are added.
+	 *
+	 * @param nbFeatures the nb features
+	 */
+	public GamaRegression(final int nbFeatures) {
+		this.nbFeatures = nbFeatures;
+		this.online = new OnlineRegression(nbFeatures);
+	}
+
+	/**
+	 * Adds observations to an online regression, in O(p²) each, and estimates its parameters again.
+	 *
+	 * @param scope the scope
+	 * @param data the observations (a row = an instance, the first value of each row is the y value)
+	 */
+	public void addObservations(final IScope scope, final GamaMatrix<?> data) {
+		checkOnline(scope);
+		if (data.numCols != nbFeatures + 1) {
+			throw GamaRuntimeException.error("The observations must have " + (nbFeatures + 1)
+					+ " columns (the y value and the features), not " + data.numCols, scope);
+		}
+		final double[] values = DoubleValues.floats(scope, data);
+		for (int i = 0; i < data.numRows; i++) {
+			online.add(values, i * data.numCols);
+		}
+		update();
+	}
+
+	/**
+	 * Adds an observation to an online regression, in O(p²), and estimates its parameters again.
+	 *
+	 * @param scope the scope
+	 * @param observation the observation (the y value followed by the values of the features)
+	 */
+	public void addObservation(final IScope scope, final IList<?> observation) {
+		checkOnline(scope);
+		final double[] values = DoubleValues.floats(scope, observation);
+		if (values.length != nbFeatures + 1) {
+			throw GamaRuntimeException.error("The observation must have " + (nbFeatures + 1)
+					+ " values (the y value and the features), not " + values.length, scope);
+		}
+		online.add(values, 0);
+		update();
+	}
+
+	/**
+	 * Checks that the regression is an online one.
+	 *
+	 * @param scope the scope
+	 */
+	private void checkOnline(final IScope scope) {
+		if (online == null) {
+			throw GamaRuntimeException.error(
+					"Observations can only be added to the regressions built by build_online", scope);
+		}
+	}
+
+	/**
+	 * Estimates the parameters of an online regression from its observations.
+	 */
+	private void update() {
+		param = online.parameters();
+		rsquare = online.adjustedRSquared();
+	}
+
 	/**
 	 * Instantiates a new gama regression.
 	 *
@@ -119,6 +185,31 @@ public class GamaRegression implements IValue {
 		return val;
 	}
 
+	/**
+	 * Predicts the values of several instances.
+	 *
+	 * @param scope the scope
+	 * @param instances the instances (a row = an instance)
+	 * @return the predicted values, in the order of the rows
+	 */
+	public IList<Double> predict(final IScope scope, final GamaMatrix<?> instances) {
+		final IList<Double> result = GamaListFactory.create(Types.FLOAT);
+		if (param == null) { return result; }
+		if (instances.numCols != param.length - 1) {
+			throw GamaRuntimeException.error("The instances must have " + (param.length - 1)
+					+ " columns (the features), not " + instances.numCols, scope);
+		}
+		final double[] values = DoubleValues.floats(scope, instances);
+		for (int row = 0, offset = 0; row < instances.numRows; row++) {
+			double val = param[0];
+			for (int i = 1; i < param.length; i++) {
+				val += param[i] * values[offset++];
+			}
+			result.add(val);
+		}
+		return result;
+	}
+
 	/**
 	 * Gets the parameters.
 	 *
@@ -188,7 +279,10 @@ public class GamaRegression implements IValue {
 
 	@Override
 	public IValue copy(final IScope scope) throws GamaRuntimeException {
-		final GamaRegression gr = new GamaRegression(param.clone(), nbFeatures, regressionResults);
+		final GamaRegression gr =
+				new GamaRegression(param == null ? null : param.clone(), nbFeatures, regressionResults);
+		gr.rsquare = rsquare;
+		if (online != null) { gr.online = new OnlineRegression(online); }
 		return gr;
 	}
 
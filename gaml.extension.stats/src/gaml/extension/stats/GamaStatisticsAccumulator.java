@@ -0,0 +1,334 @@
+/*******************************************************************************************************
+ *
+ * GamaStatisticsAccumulator.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and
+ * simulation platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import gama.core.annotations.precompiler.GamlAnnotations.doc;
+import gama.core.annotations.precompiler.GamlAnnotations.getter;
+import gama.core.annotations.precompiler.GamlAnnotations.variable;
+import gama.core.annotations.precompiler.GamlAnnotations.vars;
+import gama.core.common.interfaces.IValue;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.core.util.IList;
+import gama.core.util.IMap;
+import gaml.core.operators.Cast;
+import gaml.core.types.IType;
+import gaml.core.types.Types;
+
+/**
+ * The statistics of a stream of values, updated in constant time each time a value is added: the count, sum, minimum
+ * and maximum, the mean and the central moments up to the fourth order (Welford's algorithm, extended by Pébay to the
+ * higher orders and to the merge of two accumulators) and a {@link QuantileDigest} for the median and the quantiles.
+ * The variance and standard deviation are the ones of the population, as computed by the variance and
+ * standard_deviation operators, and the skewness and kurtosis are the ones computed by the skewness and kurtosis
+ * operators.
+ *
+ * An accumulator is serialized as the cast of a map holding its state (see {@link #serialize(boolean)}), which gives
+ * back the same accumulator when it is evaluated.
+ */
+@vars ({ @variable (
+		name = "count",
+		type = IType.INT,
+		doc = { @doc ("the number of values accumulated") }),
+		@variable (
+				name = "sum",
+				type = IType.FLOAT,
+				doc = { @doc ("the sum of the values") }),
+		@variable (
+				name = "min",
+				type = IType.FLOAT,
+				doc = { @doc ("the minimum of the values (nil if there are none)") }),
+		@variable (
+				name = "max",
+				type = IType.FLOAT,
+				doc = { @doc ("the maximum of the values (nil if there are none)") }),
+		@variable (
+				name = "mean",
+				type = IType.FLOAT,
+				doc = { @doc ("the mean of the values") }),
+		@variable (
+				name = "variance",
+				type = IType.FLOAT,
+				doc = { @doc ("the variance of the values (the one of the population)") }),
+		@variable (
+				name = "standard_deviation",
+				type = IType.FLOAT,
+				doc = { @doc ("the standard deviation of the values (the one of the population)") }),
+		@variable (
+				name = "skewness",
+				type = IType.FLOAT,
+				doc = { @doc ("the skewness of the values (NaN if there are less than 3 values)") }),
+		@variable (
+				name = "kurtosis",
+				type = IType.FLOAT,
+				doc = { @doc ("the kurtosis of the values (NaN if there are less than 4 values)") }),
+		@variable (
+				name = "median",
+				type = IType.FLOAT,
+				doc = { @doc ("the estimated median of the values") }) })
+public class GamaStatisticsAccumulator implements IValue {
+
+	/** The key of the centroids of the digest in the map of the state of an accumulator. */
+	static final String CENTROIDS = "centroids";
+
+	/** The number of values. */
+	long n;
+
+	/** The sum, minimum and maximum of the values. */
+	double sum, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+	/** The mean and the sums of the powers of the differences to the mean, of order 2, 3 and 4. */
+	double mean, m2, m3, m4;
+
+	/** The digest of the values, for the quantiles. */
+	QuantileDigest digest = new QuantileDigest();
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param x
+	 *            the value
+	 */
+	public void add(final double x) {
+		final long n1 = n;
+		n++;
+		final double delta = x - mean;
+		final double deltaN = delta / n;
+		final double deltaN2 = deltaN * deltaN;
+		final double term1 = delta * deltaN * n1;
+		mean += deltaN;
+		m4 += term1 * deltaN2 * ((double) n * n - 3 * n + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+		m3 += term1 * deltaN * (n - 2) - 3 * deltaN * m2;
+		m2 += term1;
+		sum += x;
+		if (x < min) { min = x; }
+		if (x > max) { max = x; }
+		digest.add(x);
+	}
+
+	/**
+	 * Adds all the values of another accumulator, as if they had been added to this one.
+	 *
+	 * @param other
+	 *            the other accumulator
+	 */
+	public void add(final GamaStatisticsAccumulator other) {
+		if (other.n == 0) return;
+		if (n == 0) {
+			n = other.n;
+			sum = other.sum;
+			min = other.min;
+			max = other.max;
+			mean = other.mean;
+			m2 = other.m2;
+			m3 = other.m3;
+			m4 = other.m4;
+			digest = other.digest.copy();
+			return;
+		}
+		final double na = n, nb = other.n, nt = na + nb;
+		final double delta = other.mean - mean;
+		final double delta2 = delta * delta;
+		final double newM2 = m2 + other.m2 + delta2 * na * nb / nt;
+		final double newM3 = m3 + other.m3 + delta2 * delta * na * nb * (na - nb) / (nt * nt)
+				+ 3 * delta * (na * other.m2 - nb * m2) / nt;
+		final double newM4 = m4 + other.m4 + delta2 * delta2 * na * nb * (na * na - na * nb + nb * nb) / (nt * nt * nt)
+				+ 6 * delta2 * (na * na * other.m2 + nb * nb * m2) / (nt * nt) + 4 * delta * (na * other.m3 - nb * m3) / nt;
+		mean += delta * nb / nt;
+		m2 = newM2;
+		m3 = newM3;
+		m4 = newM4;
+		n += other.n;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		digest.add(other.digest.copy());
+	}
+
+	/**
+	 * Estimates a quantile of the values.
+	 *
+	 * @param p
+	 *            the probability, between 0 and 1
+	 * @return the quantile, or NaN if there are no values
+	 */
+	public double quantile(final double p) {
+		return n == 0 ? Double.NaN : digest.quantile(p, min, max);
+	}
+
+	/**
+	 * Gets the count.
+	 *
+	 * @return the count
+	 */
+	@getter ("count")
+	public Integer getCount() { return (int) Math.min(Integer.MAX_VALUE, n); }
+
+	/**
+	 * Gets the sum.
+	 *
+	 * @return the sum
+	 */
+	@getter ("sum")
+	public Double getSum() { return sum; }
+
+	/**
+	 * Gets the min.
+	 *
+	 * @return the min
+	 */
+	@getter ("min")
+	public Double getMin() { return n == 0 ? null : min; }
+
+	/**
+	 * Gets the max.
+	 *
+	 * @return the max
+	 */
+	@getter ("max")
+	public Double getMax() { return n == 0 ? null : max; }
+
+	/**
+	 * Gets the mean.
+	 *
+	 * @return the mean
+	 */
+	@getter ("mean")
+	public Double getMean() { return n == 0 ? Double.NaN : mean; }
+
+	/**
+	 * Gets the variance.
+	 *
+	 * @return the variance
+	 */
+	@getter ("variance")
+	public Double getVariance() { return n == 0 ? Double.NaN : m2 / n; }
+
+	/**
+	 * Gets the standard deviation.
+	 *
+	 * @return the standard deviation
+	 */
+	@getter ("standard_deviation")
+	public Double getStandardDeviation() { return Math.sqrt(getVariance()); }
+
+	/**
+	 * Gets the skewness.
+	 *
+	 * @return the skewness
+	 */
+	@getter ("skewness")
+	public Double getSkewness() {
+		if (n < 3) return Double.NaN;
+		final double variance = m2 / (n - 1);
+		if (variance < 10E-20) return 0.0;
+		return (double) n / ((n - 1) * (n - 2)) * m3 / (variance * Math.sqrt(variance));
+	}
+
+	/**
+	 * Gets the kurtosis.
+	 *
+	 * @return the kurtosis
+	 */
+	@getter ("kurtosis")
+	public Double getKurtosis() {
+		if (n < 4) return Double.NaN;
+		final double variance = m2 / (n - 1);
+		if (variance < 10E-20) return 0.0;
+		final double n0 = n;
+		return n0 * (n0 + 1) / ((n0 - 1) * (n0 - 2) * (n0 - 3)) * m4 / (variance * variance)
+				- 3 * (n0 - 1) * (n0 - 1) / ((n0 - 2) * (n0 - 3));
+	}
+
+	/**
+	 * Gets the median.
+	 *
+	 * @return the median
+	 */
+	@getter ("median")
+	public Double getMedian() { return quantile(0.5); }
+
+	/**
+	 * Rebuilds an accumulator from the map of its state, as written by {@link #serialize(boolean)}.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param state
+	 *            the state
+	 * @return the accumulator
+	 * @throws GamaRuntimeException
+	 *             if the state is not complete
+	 */
+	static GamaStatisticsAccumulator of(final IScope scope, final IMap<?, ?> state) throws GamaRuntimeException {
+		final GamaStatisticsAccumulator result = new GamaStatisticsAccumulator();
+		for (final String key : new String[] { "count", "sum", "min", "max", "mean", "m2", "m3", "m4" }) {
+			if (!state.containsKey(key)) throw GamaRuntimeException
+					.error("The state of a statistics accumulator must contain the key " + key, scope);
+		}
+		result.n = Cast.asInt(scope, state.get("count"));
+		result.sum = Cast.asFloat(scope, state.get("sum"));
+		result.min = Cast.asFloat(scope, state.get("min"));
+		result.max = Cast.asFloat(scope, state.get("max"));
+		result.mean = Cast.asFloat(scope, state.get("mean"));
+		result.m2 = Cast.asFloat(scope, state.get("m2"));
+		result.m3 = Cast.asFloat(scope, state.get("m3"));
+		result.m4 = Cast.asFloat(scope, state.get("m4"));
+		final IList<?> centroids = Cast.asList(scope, state.get(CENTROIDS));
+		final double[] means = new double[centroids.size()], weights = new double[centroids.size()];
+		for (int i = 0; i < means.length; i++) {
+			final IList<?> centroid = Cast.asList(scope, centroids.get(i));
+			means[i] = Cast.asFloat(scope, centroid.get(0));
+			weights[i] = Cast.asFloat(scope, centroid.get(1));
+		}
+		result.digest.addCentroids(means, weights);
+		return result;
+	}
+
+	/**
+	 * Serializes the accumulator as the cast of the map of its state, e.g.
+	 * statistics_accumulator(["count"::2,"sum"::3.0,"min"::1.0,"max"::2.0,"mean"::1.5,"m2"::0.5,"m3"::0.0,"m4"::0.125,
+	 * "centroids"::[[1.0,1.0],[2.0,1.0]]]).
+	 */
+	@Override
+	public String serialize(final boolean includingBuiltIn) {
+		if (n == 0) return "statistics_accumulator([])";
+		final StringBuilder sb = new StringBuilder("statistics_accumulator([\"count\"::").append(n);
+		sb.append(",\"sum\"::").append(Cast.toGaml(sum)).append(",\"min\"::").append(Cast.toGaml(min));
+		sb.append(",\"max\"::").append(Cast.toGaml(max)).append(",\"mean\"::").append(Cast.toGaml(mean));
+		sb.append(",\"m2\"::").append(Cast.toGaml(m2)).append(",\"m3\"::").append(Cast.toGaml(m3));
+		sb.append(",\"m4\"::").append(Cast.toGaml(m4)).append(",\"").append(CENTROIDS).append("\"::[");
+		final double[][] centroids = digest.centroids();
+		for (int i = 0; i < centroids[0].length; i++) {
+			if (i > 0) { sb.append(','); }
+			sb.append('[').append(Cast.toGaml(centroids[0][i])).append(',').append(Cast.toGaml(centroids[1][i]))
+					.append(']');
+		}
+		return sb.append("]])").toString();
+	}
+
+	@Override
+	public IType<?> getGamlType() { return Types.get(GamaStatisticsAccumulatorType.id); }
+
+	@Override
+	public String stringValue(final IScope scope) throws GamaRuntimeException {
+		if (n == 0) return "statistics of no value";
+		return "statistics of " + n + " values (mean: " + mean + ", standard deviation: " + getStandardDeviation()
+				+ ", min: " + min + ", max: " + max + ")";
+	}
+
+	@Override
+	public GamaStatisticsAccumulator copy(final IScope scope) throws GamaRuntimeException {
+		final GamaStatisticsAccumulator result = new GamaStatisticsAccumulator();
+		result.add(this);
+		return result;
+	}
+
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************************************
+ *
+ * GamaStatisticsAccumulatorType.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and
+ * simulation platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import gama.core.annotations.precompiler.IConcept;
+import gama.core.annotations.precompiler.ISymbolKind;
+import gama.core.annotations.precompiler.GamlAnnotations.doc;
+import gama.core.annotations.precompiler.GamlAnnotations.type;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.core.util.IContainer;
+import gama.core.util.IMap;
+import gaml.core.types.GamaType;
+import gaml.core.types.IType;
+
+/**
+ * The Class GamaStatisticsAccumulatorType.
+ */
+@type (
+		name = "statistics_accumulator",
+		id = GamaStatisticsAccumulatorType.id,
+		wraps = { GamaStatisticsAccumulator.class },
+		kind = ISymbolKind.Variable.REGULAR,
+		concept = { IConcept.TYPE, IConcept.STATISTIC },
+		doc = { @doc (
+				value = "Type of variables that accumulate the statistics (count, sum, min, max, mean, variance, standard deviation, skewness, kurtosis, median and quantiles) of a stream of values, "
+						+ "so that they can be updated with the new values at each step (see accumulate) instead of being computed again from the whole series") })
+public class GamaStatisticsAccumulatorType extends GamaType<GamaStatisticsAccumulator> {
+
+	/** The Constant id. */
+	public final static int id = IType.AVAILABLE_TYPES + 546670;
+
+	@Override
+	public boolean canCastToConst() {
+		return false;
+	}
+
+	@Override
+	@doc ("Returns the argument if it is a statistics accumulator (or a copy of it), the accumulator whose state is described by the argument if it is a map with a \"centroids\" key (as written when an accumulator is serialized), or a new accumulator of the numerical values of the argument if it is a container or a number (empty if it is nil)")
+	public GamaStatisticsAccumulator cast(final IScope scope, final Object obj, final Object param, final boolean copy)
+			throws GamaRuntimeException {
+		if (obj instanceof GamaStatisticsAccumulator acc) return copy ? acc.copy(scope) : acc;
+		final GamaStatisticsAccumulator result = new GamaStatisticsAccumulator();
+		if (obj instanceof IMap<?, ?> state && state.containsKey(GamaStatisticsAccumulator.CENTROIDS))
+			return GamaStatisticsAccumulator.of(scope, state);
+		if (obj instanceof Number number) {
+			result.add(number.doubleValue());
+		} else if (obj instanceof IContainer container) {
+			for (final double x : DoubleValues.numbers(scope, container)) { result.add(x); }
+		}
+		return result;
+	}
+
+	@Override
+	public GamaStatisticsAccumulator getDefault() { return null; }
+
+}
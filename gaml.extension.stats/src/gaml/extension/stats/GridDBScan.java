@@ -0,0 +1,262 @@
+/*******************************************************************************************************
+ *
+ * GridDBScan.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The DBSCAN clustering of points, the neighbours of each point being searched in a uniform grid built over (at most)
+ * the first three coordinates of the points, with cells whose size is the radius of the neighbourhood. The clusters are
+ * the same, and in the same order, as the ones of the DBSCAN of Apache Commons Math, which compares each point with
+ * all the others:
+ * <ul>
+ * <li>the points are visited in order, and a cluster is started from each point not yet visited that has at least
+ * minPts neighbours (itself excluded) within the radius;</li>
+ * <li>the cluster is then expanded in the order of the indices of the neighbours, the neighbours of the core points
+ * being added to the points to visit.</li>
+ * </ul>
+ * The points that have enough neighbours are found in parallel before the clusters are built. The state of the points
+ * is kept in bit sets, so that the points left out of the clusters (the noise) are found in linear time.
+ */
+class GridDBScan {
+
+	/** The number of bits of the coordinates of a cell in its key. */
+	private static final int BITS = 21;
+
+	/** The maximal coordinate of a cell along a dimension. */
+	private static final int MAX_CELL = (1 << BITS - 1) - 1;
+
+	/** The points. */
+	private final double[][] points;
+
+	/** The radius of the neighbourhood. */
+	private final double eps;
+
+	/** The minimal number of neighbours of a core point. */
+	private final int minPts;
+
+	/** The number of dimensions of the grid. */
+	private final int dims;
+
+	/** The origin and size of the cells along each dimension of the grid. */
+	private final double[] origin, cellSize;
+
+	/** The coordinates of the cell of each point. */
+	private final int[][] cells;
+
+	/** The points of each non-empty cell, by key. */
+	private final Map<Long, int[]> grid = new HashMap<>();
+
+	/**
+	 * Instantiates the clustering of points.
+	 *
+	 * @param points
+	 *            the points, which must all have the same number of coordinates
+	 * @param eps
+	 *            the radius of the neighbourhood
+	 * @param minPts
+	 *            the minimal number of neighbours of a core point
+	 */
+	GridDBScan(final double[][] points, final double eps, final int minPts) {
+		this.points = points;
+		this.eps = eps;
+		this.minPts = minPts;
+		final int n = points.length;
+		dims = n == 0 ? 0 : Math.min(3, points[0].length);
+		origin = new double[dims];
+		cellSize = new double[dims];
+		for (int d = 0; d < dims; d++) {
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+			for (final double[] p : points) {
+				min = Math.min(min, p[d]);
+				max = Math.max(max, p[d]);
+			}
+			origin[d] = min;
+			// Cells bigger than eps keep the search correct when the extent is too large for the keys
+			double size = Math.max(eps, (max - min) / MAX_CELL);
+			if (!(size > 0)) { size = 1; }
+			cellSize[d] = size;
+		}
+		cells = new int[n][dims];
+		final Map<Long, Integer> counts = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			for (int d = 0; d < dims; d++) {
+				cells[i][d] = Math.min(MAX_CELL, (int) ((points[i][d] - origin[d]) / cellSize[d]));
+			}
+			counts.merge(keyOf(cells[i]), 1, Integer::sum);
+		}
+		counts.forEach((key, count) -> grid.put(key, new int[count]));
+		final Map<Long, Integer> filled = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			final long key = keyOf(cells[i]);
+			final int position = filled.merge(key, 1, Integer::sum) - 1;
+			grid.get(key)[position] = i;
+		}
+	}
+
+	/**
+	 * Returns the key of a cell.
+	 *
+	 * @param cell
+	 *            the coordinates of the cell
+	 * @return the key
+	 */
+	private static long keyOf(final int[] cell) {
+		long key = 0;
+		for (int d = 0; d < cell.length; d++) { key |= (long) cell[d] << BITS * d; }
+		return key;
+	}
+
+	/**
+	 * Checks if two points are neighbours.
+	 *
+	 * @param i
+	 *            the index of the first point
+	 * @param j
+	 *            the index of the second point
+	 * @return true, if their euclidean distance is lower than or equal to the radius
+	 */
+	private boolean areNeighbours(final int i, final int j) {
+		final double[] a = points[i];
+		final double[] b = points[j];
+		double sum = 0;
+		for (int d = 0; d < a.length; d++) {
+			final double delta = a[d] - b[d];
+			sum += delta * delta;
+		}
+		return Math.sqrt(sum) <= eps;
+	}
+
+	/**
+	 * Visits the neighbours of a point (itself excluded), in no particular order, until the visitor asks to stop.
+	 *
+	 * @param i
+	 *            the index of the point
+	 * @param visitor
+	 *            the visitor, which returns false to stop the visit
+	 */
+	private void visitNeighbours(final int i, final IntPredicate visitor) {
+		final int[] cell = cells[i];
+		final int[] neighbour = new int[dims];
+		final int nbCells = (int) Math.pow(3, dims);
+		for (int c = 0; c < nbCells; c++) {
+			int code = c;
+			boolean inside = true;
+			for (int d = 0; d < dims; d++) {
+				neighbour[d] = cell[d] + code % 3 - 1;
+				code /= 3;
+				if (neighbour[d] < 0 || neighbour[d] > MAX_CELL) { inside = false; }
+			}
+			if (!inside) { continue; }
+			final int[] candidates = grid.get(keyOf(neighbour));
+			if (candidates == null) { continue; }
+			for (final int j : candidates) {
+				if (j != i && areNeighbours(i, j) && !visitor.test(j)) return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the neighbours of a point (itself excluded), in the order of their indices.
+	 *
+	 * @param i
+	 *            the index of the point
+	 * @return the indices of the neighbours
+	 */
+	private int[] neighboursOf(final int i) {
+		final int[][] buffer = { new int[16] };
+		final int[] count = new int[1];
+		visitNeighbours(i, j -> {
+			if (count[0] == buffer[0].length) { buffer[0] = Arrays.copyOf(buffer[0], 2 * count[0]); }
+			buffer[0][count[0]++] = j;
+			return true;
+		});
+		final int[] result = Arrays.copyOf(buffer[0], count[0]);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Computes the clusters.
+	 *
+	 * @return the clusters (lists of indices of points), followed by the points that do not belong to any cluster, each
+	 *         in its own list
+	 */
+	int[][] cluster() {
+		final int n = points.length;
+		// Region queries, in parallel: only the number of neighbours matters at this stage
+		final boolean[] core = new boolean[n];
+		IntStream.range(0, n).parallel().forEach(i -> {
+			if (minPts <= 0) {
+				core[i] = true;
+				return;
+			}
+			final int[] count = new int[1];
+			visitNeighbours(i, j -> ++count[0] < minPts);
+			core[i] = count[0] >= minPts;
+		});
+
+		final BitSet visited = new BitSet(n);
+		final BitSet clustered = new BitSet(n);
+		final BitSet seeded = new BitSet(n);
+		final List<int[]> result = new ArrayList<>();
+		int[] seeds = new int[16];
+		for (int p = 0; p < n; p++) {
+			if (visited.get(p)) { continue; }
+			visited.set(p);
+			if (!core[p]) { continue; }
+			// Expansion of the cluster of p
+			int nbSeeds = 0;
+			for (final int j : neighboursOf(p)) {
+				if (nbSeeds == seeds.length) { seeds = Arrays.copyOf(seeds, 2 * nbSeeds); }
+				seeds[nbSeeds++] = j;
+				seeded.set(j);
+			}
+			int size = 1;
+			int[] members = new int[Math.max(16, nbSeeds + 1)];
+			members[0] = p;
+			clustered.set(p);
+			for (int index = 0; index < nbSeeds; index++) {
+				final int current = seeds[index];
+				if (!visited.get(current)) {
+					visited.set(current);
+					if (core[current]) {
+						for (final int j : neighboursOf(current)) {
+							if (j == p || seeded.get(j)) { continue; }
+							if (nbSeeds == seeds.length) { seeds = Arrays.copyOf(seeds, 2 * nbSeeds); }
+							seeds[nbSeeds++] = j;
+							seeded.set(j);
+						}
+					}
+				}
+				if (!clustered.get(current)) {
+					clustered.set(current);
+					if (size == members.length) { members = Arrays.copyOf(members, 2 * size); }
+					members[size++] = current;
+				}
+			}
+			for (int index = 0; index < nbSeeds; index++) { seeded.clear(seeds[index]); }
+			result.add(Arrays.copyOf(members, size));
+		}
+		for (int i = clustered.nextClearBit(0); i < n; i = clustered.nextClearBit(i + 1)) {
+			result.add(new int[] { i });
+		}
+		return result.toArray(new int[result.size()][]);
+	}
+
+}
@@ -0,0 +1,384 @@
+/*******************************************************************************************************
+ *
+ * KMeans.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * The k-means clustering of points stored in a flat array (the coordinates of the point i being at the indices i *
+ * dims to (i + 1) * dims - 1), and of centers stored in the same way.
+ *
+ * The initial centers are either chosen with the k-means++ method or given (warm start, e.g. the centers computed at a
+ * previous step). The centers are then either refined with Lloyd's algorithm, which reproduces the results of the
+ * KMeansPlusPlusClusterer of Apache Commons Math (same initial centers for the same generator, same handling of the
+ * empty clusters, same stop condition), or updated with random mini-batches of points (Sculley, 2010), whose cost does
+ * not depend on the number of points. The points are assigned to their nearest centers in parallel when there are
+ * enough of them.
+ */
+class KMeans {
+
+	/** The number of distances to compute above which the points are assigned in parallel. */
+	private static final int PARALLEL_THRESHOLD = 10_000;
+
+	/** The coordinates of the points. */
+	private final double[] points;
+
+	/** The number of points. */
+	private final int n;
+
+	/** The number of coordinates of the points. */
+	private final int dims;
+
+	/** The generator used to choose the initial centers, the points of the mini-batches and to fill empty clusters. */
+	private final RandomGenerator random;
+
+	/**
+	 * Instantiates the clustering of points.
+	 *
+	 * @param points
+	 *            the coordinates of the points
+	 * @param n
+	 *            the number of points
+	 * @param dims
+	 *            the number of coordinates of each point
+	 * @param random
+	 *            the random generator
+	 */
+	KMeans(final double[] points, final int n, final int dims, final RandomGenerator random) {
+		this.points = points;
+		this.n = n;
+		this.dims = dims;
+		this.random = random;
+	}
+
+	/**
+	 * Returns the number of points.
+	 *
+	 * @return the number of points
+	 */
+	int size() {
+		return n;
+	}
+
+	/**
+	 * Returns the squared distance between a point and a center.
+	 *
+	 * @param i
+	 *            the index of the point
+	 * @param centers
+	 *            the centers
+	 * @param c
+	 *            the index of the center
+	 * @return the squared euclidean distance
+	 */
+	private double distance2(final int i, final double[] centers, final int c) {
+		final int pi = i * dims, ci = c * dims;
+		double sum = 0;
+		for (int d = 0; d < dims; d++) {
+			final double delta = points[pi + d] - centers[ci + d];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the index of the center nearest to a point (the first one in case of ties).
+	 *
+	 * @param i
+	 *            the index of the point
+	 * @param centers
+	 *            the centers
+	 * @param k
+	 *            the number of centers
+	 * @return the index of the nearest center
+	 */
+	private int nearest(final int i, final double[] centers, final int k) {
+		int result = 0;
+		double min = Double.MAX_VALUE;
+		for (int c = 0; c < k; c++) {
+			final double d = distance2(i, centers, c);
+			if (d < min) {
+				min = d;
+				result = c;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Chooses the initial centers with the k-means++ method: the first one is drawn uniformly among the points, and the
+	 * next ones with a probability proportional to their squared distance to the nearest center already chosen.
+	 *
+	 * @param k
+	 *            the number of centers, which must not be greater than the number of points
+	 * @return the centers
+	 */
+	double[] initialCenters(final int k) {
+		final double[] centers = new double[k * dims];
+		final boolean[] taken = new boolean[n];
+		final double[] minDistance2 = new double[n];
+		final int first = random.nextInt(n);
+		System.arraycopy(points, first * dims, centers, 0, dims);
+		taken[first] = true;
+		for (int i = 0; i < n; i++) {
+			if (i != first) {
+				// The square of the distance, and not the squared distance, to draw the same centers as Apache
+				final double d = Math.sqrt(distance2(i, centers, 0));
+				minDistance2[i] = d * d;
+			}
+		}
+		int chosen = 1;
+		while (chosen < k) {
+			double sum = 0;
+			for (int i = 0; i < n; i++) { if (!taken[i]) { sum += minDistance2[i]; } }
+			final double r = random.nextDouble() * sum;
+			int next = -1;
+			sum = 0;
+			for (int i = 0; i < n; i++) {
+				if (!taken[i]) {
+					sum += minDistance2[i];
+					if (sum >= r) {
+						next = i;
+						break;
+					}
+				}
+			}
+			if (next == -1) {
+				for (int i = n - 1; i >= 0; i--) {
+					if (!taken[i]) {
+						next = i;
+						break;
+					}
+				}
+			}
+			if (next == -1) { break; }
+			System.arraycopy(points, next * dims, centers, chosen * dims, dims);
+			taken[next] = true;
+			chosen++;
+			if (chosen < k) {
+				for (int i = 0; i < n; i++) {
+					if (!taken[i]) {
+						final double d = Math.sqrt(distance2(i, centers, chosen - 1));
+						if (d * d < minDistance2[i]) { minDistance2[i] = d * d; }
+					}
+				}
+			}
+		}
+		// Fewer points than centers: the remaining centers are copies of the last one chosen
+		for (int c = chosen; c < k; c++) { System.arraycopy(centers, (chosen - 1) * dims, centers, c * dims, dims); }
+		return centers;
+	}
+
+	/**
+	 * Assigns each point to its nearest center, in parallel if there are enough points.
+	 *
+	 * @param centers
+	 *            the centers
+	 * @param k
+	 *            the number of centers
+	 * @param assignments
+	 *            the index of the center of each point, updated
+	 * @return the number of points whose center has changed
+	 */
+	int assign(final double[] centers, final int k, final int[] assignments) {
+		IntStream range = IntStream.range(0, n);
+		if ((long) n * k * dims > PARALLEL_THRESHOLD) { range = range.parallel(); }
+		return range.map(i -> {
+			final int c = nearest(i, centers, k);
+			if (c == assignments[i]) return 0;
+			assignments[i] = c;
+			return 1;
+		}).sum();
+	}
+
+	/**
+	 * Refines centers with Lloyd's algorithm, until no point changes of cluster or the maximal number of iterations is
+	 * reached. A cluster that becomes empty is given a point of the cluster whose distances to its center vary the
+	 * most.
+	 *
+	 * @param centers
+	 *            the initial centers, updated
+	 * @param k
+	 *            the number of centers
+	 * @param maxIterations
+	 *            the maximal number of iterations (no maximum if negative)
+	 * @param assignments
+	 *            the index of the center of each point, computed
+	 * @return the number of iterations done
+	 */
+	int lloyd(final double[] centers, final int k, final int maxIterations, final int[] assignments) {
+		Arrays.fill(assignments, 0);
+		assign(centers, k, assignments);
+		if (n == 0) return 0;
+		final int max = maxIterations < 0 ? Integer.MAX_VALUE : maxIterations;
+		final double[] sums = new double[k * dims];
+		final int[] counts = new int[k];
+		for (int iteration = 0; iteration < max; iteration++) {
+			Arrays.fill(sums, 0);
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < n; i++) {
+				final int c = assignments[i];
+				counts[c]++;
+				final int pi = i * dims, ci = c * dims;
+				for (int d = 0; d < dims; d++) { sums[ci + d] += points[pi + d]; }
+			}
+			boolean empty = false;
+			for (int c = 0; c < k; c++) { if (counts[c] == 0) { empty = true; } }
+			double[] former = null;
+			if (empty) {
+				former = centers.clone();
+				updateWithEmptyClusters(centers, k, assignments);
+			} else {
+				for (int c = 0; c < k; c++) {
+					for (int d = 0; d < dims; d++) { centers[c * dims + d] = sums[c * dims + d] / counts[c]; }
+				}
+			}
+			final int changes = assign(centers, k, assignments);
+			// Apache goes on as long as a cluster is empty, and never stops if it remains so (e.g. duplicate points)
+			if (changes == 0 && (!empty || Arrays.equals(former, centers))) return iteration + 1;
+		}
+		return max;
+	}
+
+	/**
+	 * Computes the new centers when some clusters are empty: the clusters are processed in order, an empty cluster
+	 * taking a random point of the cluster whose distances to its (former) center have the largest variance, and the
+	 * other clusters being centered on the points that remain in them.
+	 *
+	 * @param centers
+	 *            the centers, updated
+	 * @param k
+	 *            the number of centers
+	 * @param assignments
+	 *            the index of the center of each point
+	 */
+	private void updateWithEmptyClusters(final double[] centers, final int k, final int[] assignments) {
+		final int[] counts = new int[k];
+		for (final int c : assignments) { counts[c]++; }
+		final int[][] members = new int[k][];
+		for (int c = 0; c < k; c++) { members[c] = new int[counts[c]]; }
+		final int[] sizes = new int[k];
+		for (int i = 0; i < n; i++) { members[assignments[i]][sizes[assignments[i]]++] = i; }
+		final double[] former = centers.clone();
+		for (int c = 0; c < k; c++) {
+			if (sizes[c] == 0) {
+				int selected = -1;
+				double maxVariance = Double.NEGATIVE_INFINITY;
+				for (int other = 0; other < k; other++) {
+					if (sizes[other] == 0) { continue; }
+					final double variance = varianceOfDistances(members[other], sizes[other], former, other);
+					if (variance > maxVariance) {
+						maxVariance = variance;
+						selected = other;
+					}
+				}
+				if (selected == -1) { continue; }
+				final int index = random.nextInt(sizes[selected]);
+				final int point = members[selected][index];
+				System.arraycopy(members[selected], index + 1, members[selected], index, sizes[selected] - index - 1);
+				sizes[selected]--;
+				System.arraycopy(points, point * dims, centers, c * dims, dims);
+			} else {
+				for (int d = 0; d < dims; d++) {
+					double sum = 0;
+					for (int m = 0; m < sizes[c]; m++) { sum += points[members[c][m] * dims + d]; }
+					centers[c * dims + d] = sum / sizes[c];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the (bias-corrected) variance of the distances between points and a center.
+	 *
+	 * @param members
+	 *            the indices of the points
+	 * @param size
+	 *            the number of points
+	 * @param centers
+	 *            the centers
+	 * @param c
+	 *            the index of the center
+	 * @return the variance, 0 if there is only one point
+	 */
+	private double varianceOfDistances(final int[] members, final int size, final double[] centers, final int c) {
+		if (size == 1) return 0;
+		final double[] distances = new double[size];
+		double sum = 0;
+		for (int m = 0; m < size; m++) {
+			distances[m] = Math.sqrt(distance2(members[m], centers, c));
+			sum += distances[m];
+		}
+		double mean = sum / size;
+		double correction = 0;
+		for (final double d : distances) { correction += d - mean; }
+		mean += correction / size;
+		double accum = 0, accum2 = 0;
+		for (final double d : distances) {
+			final double deviation = d - mean;
+			accum += deviation * deviation;
+			accum2 += deviation;
+		}
+		return (accum - accum2 * accum2 / size) / (size - 1);
+	}
+
+	/**
+	 * Updates centers with mini-batches: at each iteration, a batch of points is drawn at random, the points are
+	 * assigned to their nearest centers, and each center is moved towards its points with a rate that decreases with
+	 * the number of points it has received since the beginning.
+	 *
+	 * @param centers
+	 *            the initial centers, updated
+	 * @param k
+	 *            the number of centers
+	 * @param batchSize
+	 *            the number of points of each batch
+	 * @param iterations
+	 *            the number of batches
+	 */
+	void miniBatch(final double[] centers, final int k, final int batchSize, final int iterations) {
+		if (n == 0 || batchSize <= 0) return;
+		final long[] received = new long[k];
+		final int[] batch = new int[batchSize];
+		final int[] nearest = new int[batchSize];
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			for (int b = 0; b < batchSize; b++) { batch[b] = random.nextInt(n); }
+			IntStream range = IntStream.range(0, batchSize);
+			if ((long) batchSize * k * dims > PARALLEL_THRESHOLD) { range = range.parallel(); }
+			range.forEach(b -> nearest[b] = nearest(batch[b], centers, k));
+			for (int b = 0; b < batchSize; b++) {
+				final int c = nearest[b];
+				final double rate = 1.0 / ++received[c];
+				final int pi = batch[b] * dims, ci = c * dims;
+				for (int d = 0; d < dims; d++) { centers[ci + d] += rate * (points[pi + d] - centers[ci + d]); }
+			}
+		}
+	}
+
+	/**
+	 * Returns the sum of the squared distances between the points and the centers they are assigned to.
+	 *
+	 * @param centers
+	 *            the centers
+	 * @param assignments
+	 *            the index of the center of each point
+	 * @return the inertia
+	 */
+	double inertia(final double[] centers, final int[] assignments) {
+		double result = 0;
+		for (int i = 0; i < n; i++) { result += distance2(i, centers, assignments[i]); }
+		return result;
+	}
+
+}
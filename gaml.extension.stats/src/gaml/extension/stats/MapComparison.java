@@ -13,7 +13,6 @@ package gaml.extension.stats;
 import static gaml.core.operators.Cast.asFloat;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -27,18 +26,16 @@ import gama.core.annotations.precompiler.GamlAnnotations.no_test;
 import gama.core.annotations.precompiler.GamlAnnotations.operator;
 import gama.core.annotations.precompiler.GamlAnnotations.usage;
 import gama.core.metamodel.agent.IAgent;
-import gama.core.metamodel.shape.GamaPoint;
-import gama.core.metamodel.topology.filter.IAgentFilter;
-import gama.core.metamodel.topology.filter.In;
 import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaListFactory;
 import gama.core.util.GamaMapFactory;
 import gama.core.util.IAddressableContainer;
 import gama.core.util.IContainer;
 import gama.core.util.IList;
+import gama.core.util.matrix.GamaIntMatrix;
 import gama.core.util.matrix.GamaMatrix;
 import gaml.core.operators.Cast;
-import gaml.core.operators.Containers;
 import gaml.core.types.IType;
 import gaml.core.types.Types;
 
@@ -350,7 +347,120 @@ public class MapComparison {
 			final IList<Object> vals2, final IList<Double> similarities, final IList<Object> categories,
 			final GamaMatrix<Double> fuzzycategories, final Double distance, final IList<Object> weights) {
 		if (agents == null) return 1;
-		final int nb = agents.length(scope);
+		return fuzzyKappa(scope, new GamaComparisonContext(scope, agents, distance), vals1, vals2, similarities,
+				categories, fuzzycategories, weights);
+	}
+
+	/**
+	 * Build comparison context.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param agents
+	 *            the agents
+	 * @param distance
+	 *            the distance
+	 * @return the gama comparison context
+	 */
+	@operator (
+			value = { "build_comparison_context" },
+			type = GamaComparisonContextType.id,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "builds the comparison context of a list of agents for a fuzzy distance: build_comparison_context(agents_list, fuzzy_distance). "
+					+ "The context can then be passed to fuzzy_kappa and fuzzy_kappa_sim instead of the agents and the distance, so that the neighbourhoods of the agents, "
+					+ "their distance coefficients and the rings of distances are only computed once when many maps of the same agents are compared. "
+					+ "They are computed from the locations of the agents when the context is built, and are not updated if the agents move afterwards.",
+			examples = { @example (
+					value = "comparison_context context <- build_comparison_context(cell as list, 2.0);",
+					isExecutable = false),
+					@example (
+							value = "fuzzy_kappa(context, [cat1,cat1,cat2,cat3,cat2],[cat2,cat1,cat2,cat1,cat2], similarity_per_agents,[cat1,cat2,cat3],[[1,0,0],[0,1,0],[0,0,1]])",
+							isExecutable = false) },
+			see = { "fuzzy_kappa", "fuzzy_kappa_sim" })
+	@no_test
+	public static GamaComparisonContext buildComparisonContext(final IScope scope,
+			final IAddressableContainer<Integer, IAgent, Integer, IAgent> agents, final Double distance) {
+		if (agents == null) throw GamaRuntimeException.error("No agents to build the comparison context of", scope);
+		return new GamaComparisonContext(scope, agents, distance);
+	}
+
+	/**
+	 * Fuzzy kappa.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param vals1
+	 *            the vals 1
+	 * @param vals2
+	 *            the vals 2
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzycategories
+	 *            the fuzzycategories
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa indicator for 2 map comparisons, the agents and the fuzzy distance being given by a comparison context: fuzzy_kappa(comparison_context,list_vals1,list_vals2, output_similarity_per_agents,categories,fuzzy_categories_matrix). Reference: Visser, H., and T. de Nijs, 2006. The map comparison kit, Environmental Modelling & Software, 21",
+			examples = { @example (
+					value = "fuzzy_kappa(build_comparison_context([ag1, ag2, ag3, ag4, ag5], 2),[cat1,cat1,cat2,cat3,cat2],[cat2,cat1,cat2,cat1,cat2], similarity_per_agents,[cat1,cat2,cat3],[[1,0,0],[0,1,0],[0,0,1]])",
+					isExecutable = false) },
+			see = { "build_comparison_context" })
+	@no_test
+	public static double fuzzyKappa(final IScope scope, final GamaComparisonContext context, final IList<Object> vals1,
+			final IList<Object> vals2, final IList<Double> similarities, final IList<Object> categories,
+			final GamaMatrix<Double> fuzzycategories) {
+		return fuzzyKappa(scope, context, vals1, vals2, similarities, categories, fuzzycategories, null);
+	}
+
+	/**
+	 * Fuzzy kappa.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param vals1
+	 *            the vals 1
+	 * @param vals2
+	 *            the vals 2
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzycategories
+	 *            the fuzzycategories
+	 * @param weights
+	 *            the weights
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = {})
+	@doc (
+			value = "fuzzy kappa indicator for 2 map comparisons, the agents and the fuzzy distance being given by a comparison context: fuzzy_kappa(comparison_context,list_vals1,list_vals2, output_similarity_per_agents,categories,fuzzy_categories_matrix, weights). Reference: Visser, H., and T. de Nijs, 2006. The map comparison kit, Environmental Modelling & Software, 21",
+			examples = { @example (
+					value = "fuzzy_kappa(context,[cat1,cat1,cat2,cat3,cat2],[cat2,cat1,cat2,cat1,cat2], similarity_per_agents,[cat1,cat2,cat3],[[1,0,0],[0,1,0],[0,0,1]], [1.0,3.0,2.0,2.0,4.0])",
+					isExecutable = false) },
+			see = { "build_comparison_context" })
+	@no_test
+	public static double fuzzyKappa(final IScope scope, final GamaComparisonContext context, final IList<Object> vals1,
+			final IList<Object> vals2, final IList<Double> similarities, final IList<Object> categories,
+			final GamaMatrix<Double> fuzzycategories, final IList<Object> weights) {
+		if (context == null) return 1;
+		final int nb = context.nb;
 		if (nb < 1) return 1;
 		final int nbCat = categories.size();
 		similarities.clear();
@@ -363,17 +473,15 @@ public class MapComparison {
 		final double[] Y = new double[nbCat];
 		final Map<Object, Integer> categoriesId = GamaMapFactory.create();
 		for (int i = 0; i < nbCat; i++) { categoriesId.put(categories.get(i), i); }
-		final IAgentFilter filter = In.list(scope, agents);
 
 		computeXYCrispVector(scope, categoriesId, categories, vals1, vals2, fuzzycategories, nbCat, nb, crispVector1,
 				crispVector2, X, Y, sim, weights);
-		final double meanSimilarity = computeSimilarity(scope, filter, distance, vals1, vals2, agents, nbCat, nb,
-				crispVector1, crispVector2, sim, fuzzyVector1, fuzzyVector2, similarities, weights);
+		final double meanSimilarity = computeSimilarity(scope, context, nbCat, nb, crispVector1, crispVector2, sim,
+				fuzzyVector1, fuzzyVector2, similarities, weights);
 
-		final List<Double> rings = new ArrayList<>();
-		final Map<Double, Integer> ringsPn = GamaMapFactory.create();
-		final int nbRings = buildRings(scope, filter, distance, rings, ringsPn, agents);
-		final double similarityExpected = computeExpectedSim(nbCat, X, Y, nbRings, rings, ringsPn);
+		final List<Double> rings = context.rings();
+		final double similarityExpected =
+				computeExpectedSim(nbCat, X, Y, rings.size(), rings, context.ringsPn());
 		if (similarityExpected == 1) return 1;
 		return (meanSimilarity - similarityExpected) / (1 - similarityExpected);
 	}
@@ -463,7 +571,92 @@ public class MapComparison {
 			final IList<Object> categories, final GamaMatrix<Double> fuzzytransitions, final Double distance,
 			final IList<Object> weights) {
 		if (agents == null) return 1;
-		final int nb = agents.length(scope);
+		return fuzzyKappaSimulation(scope, new GamaComparisonContext(scope, agents, distance), valsInit, valsObs,
+				valsSim, similarities, categories, fuzzytransitions, weights);
+	}
+
+	/**
+	 * Fuzzy kappa simulation.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param valsInit
+	 *            the vals init
+	 * @param valsObs
+	 *            the vals obs
+	 * @param valsSim
+	 *            the vals sim
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa_sim" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa simulation indicator for 2 map comparisons, the agents and the fuzzy distance being given by a comparison context: fuzzy_kappa_sim(comparison_context,list_vals1,list_vals2, output_similarity_per_agents,fuzzy_transitions_matrix). Reference: Jasper van Vliet, Alex Hagen-Zanker, Jelle Hurkens, Hedwig van Delden, A fuzzy set approach to assess the predictive accuracy of land use simulations, Ecological Modelling, 24 July 2013, Pages 32-42, ISSN 0304-3800, ",
+			examples = { @example (
+					value = "fuzzy_kappa_sim(context, [cat1,cat1,cat2,cat3,cat2],[cat2,cat1,cat2,cat1,cat2], similarity_per_agents,[cat1,cat2,cat3],fuzzy_transitions)",
+					isExecutable = false) },
+			see = { "build_comparison_context" })
+	@no_test
+	public static double fuzzyKappaSimulation(final IScope scope, final GamaComparisonContext context,
+			final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> valsSim,
+			final IList<Double> similarities, final IList<Object> categories,
+			final GamaMatrix<Double> fuzzytransitions) {
+		return fuzzyKappaSimulation(scope, context, valsInit, valsObs, valsSim, similarities, categories,
+				fuzzytransitions, null);
+	}
+
+	/**
+	 * Fuzzy kappa simulation.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param valsInit
+	 *            the vals init
+	 * @param valsObs
+	 *            the vals obs
+	 * @param valsSim
+	 *            the vals sim
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @param weights
+	 *            the weights
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa_sim" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa simulation indicator for 2 map comparisons, the agents and the fuzzy distance being given by a comparison context: fuzzy_kappa_sim(comparison_context,list_vals1,list_vals2, output_similarity_per_agents,fuzzy_transitions_matrix, weights). Reference: Jasper van Vliet, Alex Hagen-Zanker, Jelle Hurkens, Hedwig van Delden, A fuzzy set approach to assess the predictive accuracy of land use simulations, Ecological Modelling, 24 July 2013, Pages 32-42, ISSN 0304-3800, ",
+			examples = { @example (
+					value = "fuzzy_kappa_sim(context, [cat1,cat1,cat2,cat3,cat2],[cat2,cat1,cat2,cat1,cat2], similarity_per_agents,[cat1,cat2,cat3],fuzzy_transitions,[1.0,3.0,2.0,2.0,4.0])",
+					isExecutable = false) },
+			see = { "build_comparison_context" })
+	@no_test
+	public static double fuzzyKappaSimulation(final IScope scope, final GamaComparisonContext context,
+			final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> valsSim,
+			final IList<Double> similarities, final IList<Object> categories,
+			final GamaMatrix<Double> fuzzytransitions, final IList<Object> weights) {
+		if (context == null) return 1;
+		final int nb = context.nb;
 		if (nb < 1) return 1;
 		similarities.clear();
 		final int nbCat = categories.size();
@@ -473,10 +666,6 @@ public class MapComparison {
 		final double[][] nbInitObs = new double[nbCat][nbCat];
 		final double[][] nbInitSim = new double[nbCat][nbCat];
 		final Map<Object, Integer> categoriesId = GamaMapFactory.create();
-
-		final Map<List<Integer>, Map<Double, Double>> XaPerTransition = GamaMapFactory.create();
-		final Map<List<Integer>, Map<Double, Double>> XsPerTransition = GamaMapFactory.create();
-		final Set<Double> Xvals = new LinkedHashSet<>();
 		for (int i = 0; i < nbCat; i++) { categoriesId.put(categories.get(i), i); }
 
 		for (int i = 0; i < nbCat; i++) {
@@ -488,7 +677,6 @@ public class MapComparison {
 				nbInitSim[i][j] = 0;
 			}
 		}
-		final IAgentFilter filter = In.list(scope, agents);
 		double total = 0;
 		for (int i = 0; i < nb; i++) {
 			final double weight = weights == null ? 1.0 : Cast.asFloat(scope, weights.get(i));
@@ -503,11 +691,43 @@ public class MapComparison {
 			nbInitObs[idCatInit][idCatObs] += weight;
 			nbInitSim[idCatInit][idCatSim] += weight;
 		}
-		final double po = computePo(scope, filter, categoriesId, fuzzytransitions, distance, valsInit, valsObs, valsSim,
-				agents, nbCat, nb, similarities, weights);
+		final double po = computePo(scope, context, categoriesId, fuzzytransitions, valsInit, valsObs, valsSim, nbCat,
+				nb, similarities, weights);
 		double pe = 0;
-		computeXaXsTransitions(scope, filter, fuzzytransitions, distance, agents, nbCat, XaPerTransition,
-				XsPerTransition, Xvals);
+		final double[][][] emu = computeExpectedAgreements(scope, context, fuzzytransitions, nbCat);
+		for (int i = 0; i < nbCat; i++) {
+			for (int j = 0; j < nbCat; j++) {
+				for (int k = 0; k < nbCat; k++) {
+					final double poas = nbInit[i] == 0 ? 0 : nbInitObs[i][j] / nbInit[i] * nbInitSim[i][k] / total;
+					pe += emu[i][j][k] * poas;
+				}
+			}
+		}
+		if (pe == 1) return 1;
+		return (po - pe) / (1 - pe);
+	}
+
+	/**
+	 * Computes the expected agreement of the transitions of an agent, for each triple of initial, observed and
+	 * simulated categories. It only depends on the comparison context and on the fuzzy transitions.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @param nbCat
+	 *            the nb cat
+	 * @return the expected agreements, by initial, observed and simulated category
+	 */
+	private static double[][][] computeExpectedAgreements(final IScope scope, final GamaComparisonContext context,
+			final GamaMatrix<Double> fuzzytransitions, final int nbCat) {
+		final Map<List<Integer>, Map<Double, Double>> XaPerTransition = GamaMapFactory.create();
+		final Map<List<Integer>, Map<Double, Double>> XsPerTransition = GamaMapFactory.create();
+		final Set<Double> Xvals = new LinkedHashSet<>();
+		computeXaXsTransitions(scope, context, fuzzytransitions, nbCat, XaPerTransition, XsPerTransition, Xvals);
+		final double[][][] result = new double[nbCat][nbCat][nbCat];
 		for (int i = 0; i < nbCat; i++) {
 			for (int j = 0; j < nbCat; j++) {
 				for (int k = 0; k < nbCat; k++) {
@@ -524,153 +744,428 @@ public class MapComparison {
 						final double proba = xval * XaVal * XsVal;
 						emu += proba;
 					}
-
-					final double poas = nbInit[i] == 0 ? 0 : nbInitObs[i][j] / nbInit[i] * nbInitSim[i][k] / total;
-					pe += emu * poas;
+					result[i][j][k] = emu;
 				}
 			}
 		}
-		if (pe == 1) return 1;
-		return (po - pe) / (1 - pe);
+		return result;
 	}
 
 	/**
-	 * Compute po.
+	 * Fuzzy kappa.
 	 *
 	 * @param scope
 	 *            the scope
-	 * @param filter
-	 *            the filter
-	 * @param categoriesId
-	 *            the categories id
-	 * @param fuzzytransitions
-	 *            the fuzzytransitions
+	 * @param map1
+	 *            the map 1
+	 * @param map2
+	 *            the map 2
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzycategories
+	 *            the fuzzycategories
 	 * @param distance
 	 *            the distance
-	 * @param valsInit
-	 *            the vals init
-	 * @param valsObs
-	 *            the vals obs
-	 * @param valsSim
-	 *            the vals sim
-	 * @param agents
-	 *            the agents
-	 * @param nbCat
-	 *            the nb cat
-	 * @param nb
-	 *            the nb
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa indicator for 2 maps given as matrices of categories (e.g. a grid whose cells have a category): fuzzy_kappa(matrix_vals1,matrix_vals2, output_similarity_per_cells,categories,fuzzy_categories_matrix, fuzzy_distance). Reference: Visser, H., and T. de Nijs, 2006. The map comparison kit, Environmental Modelling & Software, 21",
+			comment = "The fuzzy distance is expressed in number of cells: the neighbourhood of a cell is made of the cells whose centers are within this distance, with a weight of 1 / (1 + distance). "
+					+ "The cells whose value is not one of the categories (e.g. no data) are ignored, and their similarity is NaN. "
+					+ "This version is much faster than the one on agents, and can be used on large rasters: the matrix of the categories of a grid can be built with as_matrix.",
+			examples = { @example (
+					value = "fuzzy_kappa(matrix([[1,1,2],[3,2,1]]), matrix([[2,1,2],[1,2,1]]), similarity_per_cells,[1,2,3],[[1,0,0],[0,1,0],[0,0,1]], 2)",
+					isExecutable = false) })
+	@no_test
+	public static double fuzzyKappa(final IScope scope, final GamaMatrix<?> map1, final GamaMatrix<?> map2,
+			final IList<Double> similarities, final IList<Object> categories, final GamaMatrix<Double> fuzzycategories,
+			final Double distance) {
+		return fuzzyKappa(scope, map1, map2, similarities, categories, fuzzycategories, distance, null);
+	}
+
+	/**
+	 * Fuzzy kappa.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param map1
+	 *            the map 1
+	 * @param map2
+	 *            the map 2
 	 * @param similarities
 	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzycategories
+	 *            the fuzzycategories
+	 * @param distance
+	 *            the distance
 	 * @param weights
 	 *            the weights
 	 * @return the double
 	 */
-	private static double computePo(final IScope scope, final IAgentFilter filter,
-			final Map<Object, Integer> categoriesId, final GamaMatrix<Double> fuzzytransitions, final Double distance,
-			final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> valsSim,
-			final IAddressableContainer<Integer, IAgent, Integer, IAgent> agents, final int nbCat, final int nb,
-			final IList<Double> similarities, final IList<Object> weights) {
-		final Map<IAgent, Integer> agsId = GamaMapFactory.create();
-		for (int i = 0; i < agents.length(scope); i++) { agsId.put(agents.get(scope, i), i); }
-
-		for (int i = 0; i < nb; i++) {
-			final Object valObs = valsObs.get(i);
-			final Object valSim = valsSim.get(i);
-			final Object valInit = valsInit.get(i);
-			final int valObsId = categoriesId.get(valObs);
-			final int valSimId = categoriesId.get(valSim);
-			final int valInitId = categoriesId.get(valInit);
-			final IAgent agent = agents.get(scope, i);
-			final double[] XaXs = computeXaXs(scope, filter, categoriesId, agsId, valObsId, valSimId, valInitId,
-					fuzzytransitions, distance, agent, valsInit, valsObs, valsSim, agents, nbCat);
-			similarities.add(Math.min(XaXs[0], XaXs[1]));
+	@operator (
+			value = { "fuzzy_kappa" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = {})
+	@doc (
+			value = "fuzzy kappa indicator for 2 maps given as matrices of categories: fuzzy_kappa(matrix_vals1,matrix_vals2, output_similarity_per_cells,categories,fuzzy_categories_matrix, fuzzy_distance, weights), the weights of the cells being given in a matrix or a list (row after row). Reference: Visser, H., and T. de Nijs, 2006. The map comparison kit, Environmental Modelling & Software, 21",
+			examples = { @example (
+					value = "fuzzy_kappa(matrix([[1,1,2],[3,2,1]]), matrix([[2,1,2],[1,2,1]]), similarity_per_cells,[1,2,3],[[1,0,0],[0,1,0],[0,0,1]], 2, matrix([[1.0,3.0,2.0],[2.0,4.0,1.0]]))",
+					isExecutable = false) })
+	@no_test
+	public static double fuzzyKappa(final IScope scope, final GamaMatrix<?> map1, final GamaMatrix<?> map2,
+			final IList<Double> similarities, final IList<Object> categories, final GamaMatrix<Double> fuzzycategories,
+			final Double distance, final IContainer<?, ?> weights) {
+		checkSameSize(scope, map1, map2);
+		final int nbCat = categories.size();
+		final Map<Object, Integer> categoriesId = GamaMapFactory.create();
+		for (int i = 0; i < nbCat; i++) { categoriesId.put(categories.get(i), i); }
+		final int[] cats1 = categoryIndices(scope, map1, categoriesId);
+		final int[] cats2 = categoryIndices(scope, map2, categoriesId);
+		final double[] w = weightsOf(scope, weights, cats1.length);
+		final double[][] fuzzy = valuesOf(scope, fuzzycategories, nbCat);
+		final RasterMapComparison comparison =
+				new RasterMapComparison(map1.numCols, map1.numRows, distance == null ? 0 : distance);
+		final double[] cellSimilarities = new double[cats1.length];
+		comparison.fuzzySimilarities(cats1, cats2, fuzzy, cellSimilarities);
+		if (similarities != null) {
+			similarities.clear();
+			for (final double sim : cellSimilarities) { similarities.add(sim); }
 		}
-		double meanSimilarity = 0;
+		final double[] X = new double[nbCat];
+		final double[] Y = new double[nbCat];
 		double total = 0;
-		for (int i = 0; i < nb; i++) {
-			final double weight = weights == null ? 1.0 : Cast.asFloat(scope, weights.get(i));
-			final double val = weight * similarities.get(i);
+		double meanSimilarity = 0;
+		for (int i = 0; i < cats1.length; i++) {
+			if (Double.isNaN(cellSimilarities[i])) { continue; }
+			final double weight = w == null ? 1.0 : w[i];
 			total += weight;
-			meanSimilarity += val;
+			X[cats1[i]] += weight;
+			Y[cats2[i]] += weight;
+			meanSimilarity += weight * cellSimilarities[i];
 		}
+		if (total == 0) return 1;
 		meanSimilarity /= total;
-		return meanSimilarity;
+		for (int j = 0; j < nbCat; j++) {
+			X[j] /= total;
+			Y[j] /= total;
+		}
+		final List<Double> rings = new ArrayList<>();
+		final Map<Double, Integer> ringsPn = GamaMapFactory.create();
+		int nbCells = 0;
+		for (final double dist : comparison.neighbourDistances()) {
+			nbCells++;
+			if (rings.isEmpty() || rings.get(rings.size() - 1) != dist) { rings.add(dist); }
+			ringsPn.put(dist, nbCells);
+		}
+		final double similarityExpected = computeExpectedSim(nbCat, X, Y, rings.size(), rings, ringsPn);
+		if (similarityExpected == 1) return 1;
+		return (meanSimilarity - similarityExpected) / (1 - similarityExpected);
 	}
 
 	/**
-	 * Compute xa xs.
+	 * Fuzzy kappa simulation.
 	 *
 	 * @param scope
 	 *            the scope
-	 * @param filter
-	 *            the filter
-	 * @param categoriesId
-	 *            the categories id
-	 * @param agsId
-	 *            the ags id
-	 * @param valObsId
-	 *            the val obs id
-	 * @param valSimId
-	 *            the val sim id
-	 * @param valInitId
-	 *            the val init id
+	 * @param mapInit
+	 *            the map init
+	 * @param mapObs
+	 *            the map obs
+	 * @param mapSim
+	 *            the map sim
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
 	 * @param fuzzytransitions
 	 *            the fuzzytransitions
 	 * @param distance
 	 *            the distance
-	 * @param agent
-	 *            the agent
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa_sim" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa simulation indicator for 2 maps given as matrices of categories (e.g. a grid whose cells have a category): fuzzy_kappa_sim(matrix_vals_init,matrix_vals_obs,matrix_vals_sim, output_similarity_per_cells,categories,fuzzy_transitions_matrix, fuzzy_distance). Reference: Jasper van Vliet, Alex Hagen-Zanker, Jelle Hurkens, Hedwig van Delden, A fuzzy set approach to assess the predictive accuracy of land use simulations, Ecological Modelling, 24 July 2013, Pages 32-42, ISSN 0304-3800, ",
+			comment = "The fuzzy distance is expressed in number of cells: the neighbourhood of a cell is made of the cells whose centers are within this distance, with a weight of 1 / (1 + distance). "
+					+ "The cells whose value is not one of the categories (e.g. no data) are ignored, and their similarity is NaN.",
+			examples = { @example (
+					value = "fuzzy_kappa_sim(matrix([[1,1,2],[3,2,1]]), matrix([[2,1,2],[1,2,1]]), matrix([[2,1,1],[1,2,3]]), similarity_per_cells,[1,2,3],fuzzy_transitions, 2)",
+					isExecutable = false) })
+	@no_test
+	public static double fuzzyKappaSimulation(final IScope scope, final GamaMatrix<?> mapInit,
+			final GamaMatrix<?> mapObs, final GamaMatrix<?> mapSim, final IList<Double> similarities,
+			final IList<Object> categories, final GamaMatrix<Double> fuzzytransitions, final Double distance) {
+		return fuzzyKappaSimulation(scope, mapInit, mapObs, mapSim, similarities, categories, fuzzytransitions,
+				distance, null);
+	}
+
+	/**
+	 * Fuzzy kappa simulation.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param mapInit
+	 *            the map init
+	 * @param mapObs
+	 *            the map obs
+	 * @param mapSim
+	 *            the map sim
+	 * @param similarities
+	 *            the similarities
+	 * @param categories
+	 *            the categories
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @param distance
+	 *            the distance
+	 * @param weights
+	 *            the weights
+	 * @return the double
+	 */
+	@operator (
+			value = { "fuzzy_kappa_sim" },
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa simulation indicator for 2 maps given as matrices of categories: fuzzy_kappa_sim(matrix_vals_init,matrix_vals_obs,matrix_vals_sim, output_similarity_per_cells,categories,fuzzy_transitions_matrix, fuzzy_distance, weights), the weights of the cells being given in a matrix or a list (row after row). Reference: Jasper van Vliet, Alex Hagen-Zanker, Jelle Hurkens, Hedwig van Delden, A fuzzy set approach to assess the predictive accuracy of land use simulations, Ecological Modelling, 24 July 2013, Pages 32-42, ISSN 0304-3800, ",
+			examples = { @example (
+					value = "fuzzy_kappa_sim(matrix([[1,1,2],[3,2,1]]), matrix([[2,1,2],[1,2,1]]), matrix([[2,1,1],[1,2,3]]), similarity_per_cells,[1,2,3],fuzzy_transitions, 2, matrix([[1.0,3.0,2.0],[2.0,4.0,1.0]]))",
+					isExecutable = false) })
+	@no_test
+	public static double fuzzyKappaSimulation(final IScope scope, final GamaMatrix<?> mapInit,
+			final GamaMatrix<?> mapObs, final GamaMatrix<?> mapSim, final IList<Double> similarities,
+			final IList<Object> categories, final GamaMatrix<Double> fuzzytransitions, final Double distance,
+			final IContainer<?, ?> weights) {
+		checkSameSize(scope, mapInit, mapObs);
+		checkSameSize(scope, mapInit, mapSim);
+		final int nbCat = categories.size();
+		final Map<Object, Integer> categoriesId = GamaMapFactory.create();
+		for (int i = 0; i < nbCat; i++) { categoriesId.put(categories.get(i), i); }
+		final int[] init = categoryIndices(scope, mapInit, categoriesId);
+		final int[] obs = categoryIndices(scope, mapObs, categoriesId);
+		final int[] sim = categoryIndices(scope, mapSim, categoriesId);
+		final double[] w = weightsOf(scope, weights, init.length);
+		final double[][] transitions = valuesOf(scope, fuzzytransitions, nbCat * nbCat);
+		final double[] cellSimilarities = new double[init.length];
+		new RasterMapComparison(mapInit.numCols, mapInit.numRows, distance == null ? 0 : distance)
+				.transitionSimilarities(init, obs, sim, nbCat, transitions, cellSimilarities);
+		if (similarities != null) {
+			similarities.clear();
+			for (final double s : cellSimilarities) { similarities.add(s); }
+		}
+		final double[] nbInit = new double[nbCat];
+		final double[][] nbInitObs = new double[nbCat][nbCat];
+		final double[][] nbInitSim = new double[nbCat][nbCat];
+		double total = 0;
+		double po = 0;
+		for (int i = 0; i < init.length; i++) {
+			if (Double.isNaN(cellSimilarities[i])) { continue; }
+			final double weight = w == null ? 1.0 : w[i];
+			total += weight;
+			po += weight * cellSimilarities[i];
+			nbInit[init[i]] += weight;
+			nbInitObs[init[i]][obs[i]] += weight;
+			nbInitSim[init[i]][sim[i]] += weight;
+		}
+		if (total == 0) return 1;
+		po /= total;
+		// As in the version on agents, where the expected agreement of a transition only depends on the fuzzy
+		// transitions matrix (the agent at the center of the neighbourhood having the largest coefficient, 1)
+		double pe = 0;
+		for (int i = 0; i < nbCat; i++) {
+			if (nbInit[i] == 0) { continue; }
+			for (int j = 0; j < nbCat; j++) {
+				for (int k = 0; k < nbCat; k++) {
+					final double xa = transitions[i + nbCat * k][i + nbCat * j];
+					final double xs = transitions[i + nbCat * j][i + nbCat * k];
+					if (xa <= 0 || xa != xs) { continue; }
+					pe += xa * nbInitObs[i][j] / nbInit[i] * nbInitSim[i][k] / total;
+				}
+			}
+		}
+		if (pe == 1) return 1;
+		return (po - pe) / (1 - pe);
+	}
+
+	/**
+	 * Checks that two maps have the same size.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param map1
+	 *            the map 1
+	 * @param map2
+	 *            the map 2
+	 */
+	private static void checkSameSize(final IScope scope, final GamaMatrix<?> map1, final GamaMatrix<?> map2) {
+		if (map1 == null || map2 == null) throw GamaRuntimeException.error("The maps to compare cannot be nil", scope);
+		if (map1.numCols != map2.numCols || map1.numRows != map2.numRows) throw GamaRuntimeException.error(
+				"The maps to compare must have the same size (" + map1.numCols + "x" + map1.numRows + " and "
+						+ map2.numCols + "x" + map2.numRows + ")",
+				scope);
+	}
+
+	/**
+	 * Returns the index of the category of each cell of a map.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param map
+	 *            the map
+	 * @param categoriesId
+	 *            the index of each category
+	 * @return the indices, row after row (-1 for the values that are not categories)
+	 */
+	private static int[] categoryIndices(final IScope scope, final GamaMatrix<?> map,
+			final Map<Object, Integer> categoriesId) {
+		final int[] result = new int[map.numCols * map.numRows];
+		if (map instanceof GamaIntMatrix m) {
+			final int[] values = m.getMatrix();
+			for (int i = 0; i < result.length; i++) {
+				final Integer id = categoriesId.get(values[i]);
+				result[i] = id == null ? -1 : id;
+			}
+		} else {
+			for (int i = 0; i < result.length; i++) {
+				final Integer id = categoriesId.get(map.getNthElement(i));
+				result[i] = id == null ? -1 : id;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the weights of the values (cells or agents) of a map.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param weights
+	 *            the weights (possibly nil), row after row for the cells of a matrix
+	 * @param nb
+	 *            the number of values
+	 * @return the weights, or null if there are none
+	 */
+	private static double[] weightsOf(final IScope scope, final IContainer<?, ?> weights, final int nb) {
+		if (weights == null) return null;
+		final double[] result = DoubleValues.floats(scope, weights);
+		if (result.length != nb) throw GamaRuntimeException
+				.error("There must be as many weights as values in the maps (" + nb + "), not " + result.length, scope);
+		return result;
+	}
+
+	/**
+	 * Compute po.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param categoriesId
+	 *            the categories id
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
 	 * @param valsInit
 	 *            the vals init
 	 * @param valsObs
 	 *            the vals obs
 	 * @param valsSim
 	 *            the vals sim
-	 * @param agents
-	 *            the agents
 	 * @param nbCat
 	 *            the nb cat
-	 * @return the double[]
+	 * @param nb
+	 *            the nb
+	 * @param similarities
+	 *            the similarities
+	 * @param weights
+	 *            the weights
+	 * @return the double
 	 */
-	private static double[] computeXaXs(final IScope scope, final IAgentFilter filter,
-			final Map<Object, Integer> categoriesId, final Map<IAgent, Integer> agsId, final int valObsId,
-			final int valSimId, final int valInitId, final GamaMatrix<Double> fuzzytransitions, final Double distance,
-			final IAgent agent, final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> valsSim,
-			final IContainer.Addressable<Integer, IAgent> agents, final int nbCat) {
-		double xa = 0.0;
-		double xs = 0.0;
-		final double[] XaXs = new double[2];
-		final double sizeNorm = Math.sqrt(agent.getEnvelope().getArea());
-		final List<IAgent> neighbors = distance == 0 || filter == null ? new ArrayList<>()
-				: new ArrayList<>(scope.getTopology().getNeighborsOf(scope, agent, distance, filter));
-
-		final Map<IAgent, Double> distancesCoeff = GamaMapFactory.create();
-		distancesCoeff.put(agent, 1.0);
-		for (final IAgent ag : neighbors) {
-			final double euclidDist = agent.getLocation().euclidianDistanceTo(ag.getLocation());
-			distancesCoeff.put(ag, 1 / (1.0 + euclidDist / sizeNorm));
+	private static double computePo(final IScope scope, final GamaComparisonContext context,
+			final Map<Object, Integer> categoriesId, final GamaMatrix<Double> fuzzytransitions,
+			final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> valsSim, final int nbCat,
+			final int nb, final IList<Double> similarities, final IList<Object> weights) {
+		final int[] initIds = new int[nb];
+		final int[] obsIds = new int[nb];
+		final int[] simIds = new int[nb];
+		for (int i = 0; i < nb; i++) {
+			initIds[i] = categoriesId.get(valsInit.get(i));
+			obsIds[i] = categoriesId.get(valsObs.get(i));
+			simIds[i] = categoriesId.get(valsSim.get(i));
 		}
-		for (final IAgent ag : distancesCoeff.keySet()) {
-			final int id = agsId.get(ag);
-			final Object valI = valsInit.get(id);
-			final Object valO = valsObs.get(id);
-			final Object valS = valsSim.get(id);
-			final int valOId = categoriesId.get(valO);
-			final int valSId = categoriesId.get(valS);
-			final int valIId = categoriesId.get(valI);
-			final double dist = distancesCoeff.get(ag);
+		for (int i = 0; i < nb; i++) {
+			final double[] XaXs = computeXaXs(scope, context, i, initIds, obsIds, simIds, fuzzytransitions, nbCat);
+			similarities.add(Math.min(XaXs[0], XaXs[1]));
+		}
+		double meanSimilarity = 0;
+		double total = 0;
+		for (int i = 0; i < nb; i++) {
+			final double weight = weights == null ? 1.0 : Cast.asFloat(scope, weights.get(i));
+			final double val = weight * similarities.get(i);
+			total += weight;
+			meanSimilarity += val;
+		}
+		meanSimilarity /= total;
+		return meanSimilarity;
+	}
+
+	/**
+	 * Compute xa xs.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param i
+	 *            the index of the agent
+	 * @param initIds
+	 *            the init ids
+	 * @param obsIds
+	 *            the obs ids
+	 * @param simIds
+	 *            the sim ids
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @param nbCat
+	 *            the nb cat
+	 * @return the double[]
+	 */
+	private static double[] computeXaXs(final IScope scope, final GamaComparisonContext context, final int i,
+			final int[] initIds, final int[] obsIds, final int[] simIds, final GamaMatrix<Double> fuzzytransitions,
+			final int nbCat) {
+		final int valInitId = initIds[i];
+		// The agent itself, with a coefficient of 1
+		double xa = fuzzyTransition(scope, fuzzytransitions, nbCat, valInitId, simIds[i], valInitId, obsIds[i]);
+		double xs = fuzzyTransition(scope, fuzzytransitions, nbCat, valInitId, obsIds[i], valInitId, simIds[i]);
+		if (xa < 0) { xa = 0; }
+		if (xs < 0) { xs = 0; }
+		final int[] neighbours = context.neighbours(i);
+		final double[] coefficients = context.coefficients(i);
+		for (int n = 0; n < neighbours.length; n++) {
+			final int id = neighbours[n];
+			final double dist = coefficients[n];
 			final double valxatmp =
-					fuzzyTransition(scope, fuzzytransitions, nbCat, valInitId, valSimId, valIId, valOId) * dist;
+					fuzzyTransition(scope, fuzzytransitions, nbCat, valInitId, simIds[i], initIds[id], obsIds[id]) * dist;
 			final double valxstmp =
-					fuzzyTransition(scope, fuzzytransitions, nbCat, valInitId, valObsId, valIId, valSId) * dist;
-
+					fuzzyTransition(scope, fuzzytransitions, nbCat, valInitId, obsIds[i], initIds[id], simIds[id]) * dist;
 			if (valxatmp > xa) { xa = valxatmp; }
 			if (valxstmp > xs) { xs = valxstmp; }
 		}
-
-		XaXs[0] = xa;
-		XaXs[1] = xs;
-		return XaXs;
+		return new double[] { xa, xs };
 	}
 
 	/**
@@ -702,14 +1197,10 @@ public class MapComparison {
 	 *
 	 * @param scope
 	 *            the scope
-	 * @param filter
-	 *            the filter
+	 * @param context
+	 *            the context
 	 * @param fuzzytransitions
 	 *            the fuzzytransitions
-	 * @param distance
-	 *            the distance
-	 * @param agents
-	 *            the agents
 	 * @param nbCat
 	 *            the nb cat
 	 * @param XaPerTransition
@@ -719,29 +1210,12 @@ public class MapComparison {
 	 * @param Xvals
 	 *            the xvals
 	 */
-	private static void computeXaXsTransitions(final IScope scope, final IAgentFilter filter,
-			final GamaMatrix<Double> fuzzytransitions, final Double distance, final IContainer<Integer, IAgent> agents,
-			final int nbCat, final Map<List<Integer>, Map<Double, Double>> XaPerTransition,
+	private static void computeXaXsTransitions(final IScope scope, final GamaComparisonContext context,
+			final GamaMatrix<Double> fuzzytransitions, final int nbCat,
+			final Map<List<Integer>, Map<Double, Double>> XaPerTransition,
 			final Map<List<Integer>, Map<Double, Double>> XsPerTransition, final Set<Double> Xvals) {
-
-		final IList<GamaPoint> locs = GamaListFactory.create(Types.POINT);
-		for (final IAgent ag : agents.iterable(scope)) { locs.add(ag.getLocation()); }
-		final GamaPoint centralLoc = (GamaPoint) Containers.opMean(scope, locs);
-		if (filter != null) {
-			final IAgent centralAg = scope.getTopology().getAgentClosestTo(scope, centralLoc, filter);
-			final List<IAgent> neighbors = distance == 0 ? new ArrayList<>()
-					: new ArrayList<>(scope.getTopology().getNeighborsOf(scope, centralAg, distance, filter));
-			final double sizeNorm = Math.sqrt(centralAg.getEnvelope().getArea());
-
-			final Map<IAgent, Double> distancesCoeff = GamaMapFactory.create();
-			distancesCoeff.put(centralAg, 1.0);
-			for (final IAgent ag : neighbors) {
-				final double euclidDist = centralAg.getLocation().euclidianDistanceTo(ag.getLocation());
-				final double dist = 1 / (1.0 + euclidDist / sizeNorm);
-				distancesCoeff.put(ag, dist);
-
-			}
-
+		final double[] distancesCoeff = context.centralCoefficients();
+		if (distancesCoeff.length > 0) {
 			for (int i = 0; i < nbCat; i++) {
 				for (int j = 0; j < nbCat; j++) {
 					for (int k = 0; k < nbCat; k++) {
@@ -751,8 +1225,7 @@ public class MapComparison {
 						ca.add(k);
 						double xa = 0;
 						double xs = 0;
-						for (final IAgent ag : distancesCoeff.keySet()) {
-							final double dist = distancesCoeff.get(ag);
+						for (final double dist : distancesCoeff) {
 							final double xatmp = fuzzyTransition(scope, fuzzytransitions, nbCat, i, k, i, j) * dist;
 							final double xstmp = fuzzyTransition(scope, fuzzytransitions, nbCat, i, j, i, k) * dist;
 							if (xatmp > xa) { xa = xatmp; }
@@ -832,7 +1305,7 @@ public class MapComparison {
 	 *            the rings pn
 	 * @return the double
 	 */
-	private static double computeExpectedSim(final int nbCat, final double[] X, final double[] Y, final int nbRings,
+	static double computeExpectedSim(final int nbCat, final double[] X, final double[] Y, final int nbRings,
 			final List<Double> rings, final Map<Double, Integer> ringsPn) {
 		double similarityExpected = 0;
 		for (int j = 0; j < nbCat; j++) { similarityExpected += X[j] * Y[j]; }
@@ -861,16 +1334,8 @@ public class MapComparison {
 	 *
 	 * @param scope
 	 *            the scope
-	 * @param filter
-	 *            the filter
-	 * @param distance
-	 *            the distance
-	 * @param vals1
-	 *            the vals 1
-	 * @param vals2
-	 *            the vals 2
-	 * @param agents
-	 *            the agents
+	 * @param context
+	 *            the context
 	 * @param nbCat
 	 *            the nb cat
 	 * @param nb
@@ -891,38 +1356,23 @@ public class MapComparison {
 	 *            the weights
 	 * @return the double
 	 */
-	private static double computeSimilarity(final IScope scope, final IAgentFilter filter, final Double distance,
-			final IList<Object> vals1, final IList<Object> vals2,
-			final IAddressableContainer<Integer, IAgent, Integer, IAgent> agents, final int nbCat, final int nb,
-			final double[][] crispVector1, final double[][] crispVector2, final boolean[] sim,
+	private static double computeSimilarity(final IScope scope, final GamaComparisonContext context, final int nbCat,
+			final int nb, final double[][] crispVector1, final double[][] crispVector2, final boolean[] sim,
 			final double[][] fuzzyVector1, final double[][] fuzzyVector2, final IList<Double> similarities,
 			final IList<Object> weights) {
-		final Map<IAgent, Integer> agsId = GamaMapFactory.create();
-		for (int i = 0; i < agents.length(scope); i++) { agsId.put(agents.get(scope, i), i); }
-
 		for (int i = 0; i < nb; i++) {
 			if (sim[i]) {
 				similarities.add(1.0);
 			} else {
-				final IAgent agent = agents.get(scope, i);
-				// double sizeNorm = agent.getPerimeter() / 4.0;
-				final double sizeNorm = Math.sqrt(agent.getEnvelope().getArea());
-				final List<IAgent> neighbors = distance == 0 || filter == null ? new ArrayList<>()
-						: new ArrayList<>(scope.getTopology().getNeighborsOf(scope, agent, distance, filter));
-
-				final Map<IAgent, Double> distancesCoeff = GamaMapFactory.create();
-				distancesCoeff.put(agent, 1.0);
-				for (final IAgent ag : neighbors) {
-					final double euclidDist = agent.getLocation().euclidianDistanceTo(ag.getLocation());
-					distancesCoeff.put(ag, 1 / (1.0 + euclidDist / sizeNorm));
-				}
+				final int[] neighbours = context.neighbours(i);
+				final double[] coefficients = context.coefficients(i);
 				for (int j = 0; j < nbCat; j++) {
 					double max1 = 0.0;
 					double max2 = 0.0;
-					for (final IAgent ag : neighbors) {
-						final int id = agsId.get(ag);
-						final double val1 = crispVector1[id][j] * distancesCoeff.get(ag);
-						final double val2 = crispVector2[id][j] * distancesCoeff.get(ag);
+					for (int n = 0; n < neighbours.length; n++) {
+						final int id = neighbours[n];
+						final double val1 = crispVector1[id][j] * coefficients[n];
+						final double val2 = crispVector2[id][j] * coefficients[n];
 
 						if (val1 > max1) { max1 = val1; }
 						if (val2 > max2) { max2 = val2; }
@@ -1022,56 +1472,6 @@ public class MapComparison {
 
 	}
 
-	/**
-	 * Builds the rings.
-	 *
-	 * @param scope
-	 *            the scope
-	 * @param filter
-	 *            the filter
-	 * @param distance
-	 *            the distance
-	 * @param rings
-	 *            the rings
-	 * @param ringsPn
-	 *            the rings pn
-	 * @param agents
-	 *            the agents
-	 * @return the int
-	 */
-	private static int buildRings(final IScope scope, final IAgentFilter filter, final Double distance,
-			final List<Double> rings, final Map<Double, Integer> ringsPn,
-			final IAddressableContainer<Integer, IAgent, Integer, IAgent> agents) {
-
-		final IList<GamaPoint> locs = GamaListFactory.create(Types.POINT);
-		for (final IAgent ag : agents.iterable(scope)) { locs.add(ag.getLocation()); }
-		final GamaPoint centralLoc = (GamaPoint) Containers.opMean(scope, locs);
-		final IAgent centralAg = scope.getTopology().getAgentClosestTo(scope, centralLoc, filter);
-		final List<IAgent> neighbors = distance == 0 || filter == null ? new ArrayList<>()
-				: new ArrayList<>(scope.getTopology().getNeighborsOf(scope, centralAg, distance, filter));
-
-		for (final IAgent ag : neighbors) {
-			final double dist = centralLoc.euclidianDistanceTo(ag.getLocation());
-			if (dist == 0) { continue; }
-			if (!rings.contains(dist)) {
-				rings.add(dist);
-				ringsPn.put(dist, 1);
-			} else {
-				ringsPn.put(dist, 1 + ringsPn.get(dist));
-			}
-		}
-		Collections.sort(rings);
-
-		for (int i = 1; i < rings.size(); i++) {
-			final double dist = rings.get(i);
-			final double dist1 = rings.get(i - 1);
-			ringsPn.put(dist, ringsPn.get(dist) + ringsPn.get(dist1));
-		}
-
-		return rings.size();
-
-	}
-
 	/**
 	 * Percent absolute deviation.
 	 *
@@ -1111,4 +1511,518 @@ public class MapComparison {
 
 	}
 
+	/**
+	 * Returns the index of the category of each value of a map.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param values
+	 *            the values of the map
+	 * @param categoriesId
+	 *            the index of each category
+	 * @param nb
+	 *            the expected number of values
+	 * @return the indices, or null if the map is nil or if its size is not the expected one
+	 */
+	private static int[] categoryIndices(final IScope scope, final Object values,
+			final Map<Object, Integer> categoriesId, final int nb) {
+		if (values == null) return null;
+		final IList<?> list = values instanceof IList<?> l ? l : Cast.asList(scope, values);
+		if (list.size() != nb) return null;
+		final int[] result = new int[nb];
+		for (int i = 0; i < nb; i++) {
+			final Object value = list.get(i);
+			final Integer id = categoriesId.get(value);
+			if (id == null) throw GamaRuntimeException
+					.error("The value " + Cast.toGaml(value) + " is not one of the categories of the maps", scope);
+			result[i] = id;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the category of each value of each candidate map.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param candidates
+	 *            the candidate maps
+	 * @param categoriesId
+	 *            the index of each category
+	 * @param nb
+	 *            the expected number of values
+	 * @return the indices of each map
+	 * @throws GamaRuntimeException
+	 *             if a map is nil or if its size is not the expected one
+	 */
+	private static int[][] candidateIndices(final IScope scope, final IList<?> candidates,
+			final Map<Object, Integer> categoriesId, final int nb) throws GamaRuntimeException {
+		final int[][] result = new int[candidates.size()][];
+		for (int c = 0; c < result.length; c++) {
+			result[c] = categoryIndices(scope, candidates.get(c), categoriesId, nb);
+			if (result[c] == null) throw invalidCandidate(scope, c, candidates.get(c), nb);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the error raised for a candidate map of a batch comparison that is nil or whose size is not the expected
+	 * one.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param index
+	 *            the index of the candidate in the list
+	 * @param candidate
+	 *            the candidate
+	 * @param nb
+	 *            the expected number of values
+	 * @return the error
+	 */
+	private static GamaRuntimeException invalidCandidate(final IScope scope, final int index, final Object candidate,
+			final int nb) {
+		if (candidate == null) return GamaRuntimeException.error("The map at index " + index + " of the list is nil",
+				scope);
+		return GamaRuntimeException.error("The map at index " + index + " of the list has "
+				+ Cast.asList(scope, candidate).size() + " values instead of " + nb, scope);
+	}
+
+	/**
+	 * Returns the index of each category.
+	 *
+	 * @param categories
+	 *            the categories
+	 * @return the indices, by category
+	 */
+	private static Map<Object, Integer> categoriesId(final IList<Object> categories) {
+		final Map<Object, Integer> categoriesId = GamaMapFactory.create();
+		for (int i = 0; i < categories.size(); i++) { categoriesId.put(categories.get(i), i); }
+		return categoriesId;
+	}
+
+	/**
+	 * Returns the values of a square matrix of floats (e.g. fuzzy categories), by column and then by row.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param matrix
+	 *            the matrix
+	 * @param size
+	 *            the number of columns and rows to read
+	 * @return the values
+	 */
+	private static double[][] valuesOf(final IScope scope, final GamaMatrix<?> matrix, final int size) {
+		final double[][] result = new double[size][size];
+		for (int a = 0; a < size; a++) {
+			for (int b = 0; b < size; b++) { result[a][b] = Cast.asFloat(scope, matrix.get(scope, a, b)); }
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a list of indicators.
+	 *
+	 * @param values
+	 *            the values of the indicators
+	 * @return the list
+	 */
+	private static IList<Double> indicators(final double[] values) {
+		final IList<Double> result = GamaListFactory.create(Types.FLOAT);
+		for (final double value : values) { result.add(value); }
+		return result;
+	}
+
+	/**
+	 * Kappa batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param reference
+	 *            the reference
+	 * @param candidates
+	 *            the candidates
+	 * @param categories
+	 *            the categories
+	 * @return the list of kappas
+	 */
+	@operator (
+			value = { "kappa_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "kappa indicator of a reference map with each map of a list (e.g. the replicates of a simulation), computed in parallel: kappa_batch(list_vals_reference,list_of_list_vals,categories). "
+					+ "It returns the same values as kappa(list_vals_reference, list_vals, categories) for each map of the list. An error is raised if a map of the list is nil or if its size differs from the one of the reference.",
+			examples = { @example (
+					value = "kappa_batch([1,3,5,1,5],[[1,1,1,1,5], [1,3,5,1,5]],[1,3,5])",
+					equals = "[0.3333333333333334,1.0]") },
+			see = { "kappa", "kappa_sim_batch", "fuzzy_kappa_batch" })
+	public static IList<Double> kappaBatch(final IScope scope, final IList<Object> reference,
+			final IList<Object> candidates, final IList<Object> categories) {
+		return kappaBatch(scope, reference, candidates, categories, null);
+	}
+
+	/**
+	 * Kappa batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param reference
+	 *            the reference
+	 * @param candidates
+	 *            the candidates
+	 * @param categories
+	 *            the categories
+	 * @param weights
+	 *            the weights
+	 * @return the list of kappas
+	 */
+	@operator (
+			value = { "kappa_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = {})
+	@doc (
+			value = "kappa indicator of a reference map with each map of a list, computed in parallel: kappa_batch(list_vals_reference,list_of_list_vals,categories, weights)",
+			examples = { @example (
+					value = "kappa_batch([\"cat1\",\"cat3\",\"cat2\",\"cat1\",\"cat3\"],[[\"cat1\",\"cat3\",\"cat2\",\"cat3\",\"cat1\"]],[\"cat1\",\"cat2\",\"cat3\"], [1.0, 2.0, 3.0, 1.0, 5.0])",
+					equals = "[0.29411764705882354]") },
+			see = { "kappa" })
+	public static IList<Double> kappaBatch(final IScope scope, final IList<Object> reference,
+			final IList<Object> candidates, final IList<Object> categories, final IList<Object> weights) {
+		if (reference == null) throw GamaRuntimeException.error("The reference map cannot be nil", scope);
+		final Map<Object, Integer> categoriesId = categoriesId(categories);
+		final int nb = reference.size();
+		final BatchMapComparison comparison = new BatchMapComparison(nb, weightsOf(scope, weights, nb));
+		return indicators(comparison.kappas(categoryIndices(scope, reference, categoriesId, nb),
+				candidateIndices(scope, candidates, categoriesId, nb), categories.size()));
+	}
+
+	/**
+	 * Kappa simulation batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param valsInit
+	 *            the vals init
+	 * @param valsObs
+	 *            the vals obs
+	 * @param simulations
+	 *            the simulations
+	 * @param categories
+	 *            the categories
+	 * @return the list of kappa simulations
+	 */
+	@operator (
+			value = { "kappa_sim_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "kappa simulation indicator of an initial and an observed maps with each simulated map of a list (e.g. the replicates of a simulation), computed in parallel: kappa_sim_batch(list_valsInit,list_valsObs,list_of_list_valsSim, categories). "
+					+ "It returns the same values as kappa_sim(list_valsInit, list_valsObs, list_valsSim, categories) for each simulated map. An error is raised if a simulated map is nil or if its size differs from the one of the initial map.",
+			examples = { @example (
+					value = "kappa_sim_batch([\"cat1\",\"cat1\",\"cat2\",\"cat2\",\"cat2\"],[\"cat1\",\"cat3\",\"cat2\",\"cat1\",\"cat3\"],[[\"cat1\",\"cat3\",\"cat2\",\"cat3\",\"cat1\"]],[\"cat1\",\"cat2\",\"cat3\"])",
+					equals = "[0.3333333333333335]") },
+			see = { "kappa_sim", "kappa_batch", "fuzzy_kappa_sim_batch" })
+	public static IList<Double> kappaSimulationBatch(final IScope scope, final IList<Object> valsInit,
+			final IList<Object> valsObs, final IList<Object> simulations, final IList<Object> categories) {
+		return kappaSimulationBatch(scope, valsInit, valsObs, simulations, categories, null);
+	}
+
+	/**
+	 * Kappa simulation batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param valsInit
+	 *            the vals init
+	 * @param valsObs
+	 *            the vals obs
+	 * @param simulations
+	 *            the simulations
+	 * @param categories
+	 *            the categories
+	 * @param weights
+	 *            the weights
+	 * @return the list of kappa simulations
+	 */
+	@operator (
+			value = { "kappa_sim_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = {})
+	@doc (
+			value = "kappa simulation indicator of an initial and an observed maps with each simulated map of a list, computed in parallel: kappa_sim_batch(list_valsInit,list_valsObs,list_of_list_valsSim, categories, weights)",
+			examples = { @example (
+					value = "kappa_sim_batch([\"cat1\",\"cat1\",\"cat2\",\"cat2\",\"cat2\"],[\"cat1\",\"cat3\",\"cat2\",\"cat1\",\"cat3\"],[[\"cat1\",\"cat3\",\"cat2\",\"cat3\",\"cat1\"]],[\"cat1\",\"cat2\",\"cat3\"], [1.0, 2.0, 3.0, 1.0, 5.0])",
+					equals = "[0.2702702702702703]") },
+			see = { "kappa_sim" })
+	public static IList<Double> kappaSimulationBatch(final IScope scope, final IList<Object> valsInit,
+			final IList<Object> valsObs, final IList<Object> simulations, final IList<Object> categories,
+			final IList<Object> weights) {
+		if (valsInit == null || valsObs == null)
+			throw GamaRuntimeException.error("The initial and observed maps cannot be nil", scope);
+		final Map<Object, Integer> categoriesId = categoriesId(categories);
+		final int nb = valsInit.size();
+		final int[] obs = categoryIndices(scope, valsObs, categoriesId, nb);
+		if (obs == null) throw GamaRuntimeException.error("The initial and observed maps must have the same size", scope);
+		final BatchMapComparison comparison = new BatchMapComparison(nb, weightsOf(scope, weights, nb));
+		return indicators(comparison.kappaSimulations(categoryIndices(scope, valsInit, categoriesId, nb), obs,
+				candidateIndices(scope, simulations, categoriesId, nb), categories.size()));
+	}
+
+	/**
+	 * Percent absolute deviation batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param observed
+	 *            the observed
+	 * @param simulations
+	 *            the simulations
+	 * @return the list of percent absolute deviations
+	 */
+	@operator (
+			value = { "percent_absolute_deviation_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "percent absolute deviation indicator of a series of observed values with each series of simulated values of a list, computed in parallel: percent_absolute_deviation_batch(list_vals_observe,list_of_list_vals_sim). "
+					+ "An error is raised if a series of the list is nil or if its size differs from the one of the observed values.",
+			examples = { @example (
+					value = "percent_absolute_deviation_batch([200,300,150,150,200],[[250,250,100,200,200], [200,300,150,150,200]])",
+					equals = "[20.0,0.0]") },
+			see = { "percent_absolute_deviation" })
+	public static IList<Double> percentAbsoluteDeviationBatch(final IScope scope, final IList<Double> observed,
+			final IList<Object> simulations) {
+		if (observed == null) throw GamaRuntimeException.error("The observed values cannot be nil", scope);
+		final double[] obs = DoubleValues.floats(scope, observed);
+		final double[][] sims = new double[simulations.size()][];
+		for (int c = 0; c < sims.length; c++) {
+			final Object o = simulations.get(c);
+			if (o == null) throw invalidCandidate(scope, c, o, obs.length);
+			final double[] sim = DoubleValues.floats(scope, o instanceof IContainer<?, ?> l ? l : Cast.asList(scope, o));
+			if (sim.length != obs.length) throw invalidCandidate(scope, c, o, obs.length);
+			sims[c] = sim;
+		}
+		return indicators(BatchMapComparison.percentAbsoluteDeviations(obs, sims));
+	}
+
+	/**
+	 * Returns the neighbours of each agent of a comparison context, computed beforehand since the batch comparisons
+	 * are done in parallel.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param coefficients
+	 *            the distance coefficients of the neighbours of each agent, filled
+	 * @return the indices of the neighbours of each agent
+	 */
+	private static int[][] neighboursOf(final IScope scope, final GamaComparisonContext context,
+			final double[][] coefficients) {
+		final int[][] result = new int[context.nb][];
+		for (int i = 0; i < context.nb; i++) {
+			result[i] = context.neighbours(i);
+			coefficients[i] = context.coefficients(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Fuzzy kappa batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param reference
+	 *            the reference
+	 * @param candidates
+	 *            the candidates
+	 * @param categories
+	 *            the categories
+	 * @param fuzzycategories
+	 *            the fuzzycategories
+	 * @return the list of fuzzy kappas
+	 */
+	@operator (
+			value = { "fuzzy_kappa_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa indicator of a reference map with each map of a list (e.g. the replicates of a simulation), the agents and the fuzzy distance being given by a comparison context, computed in parallel: fuzzy_kappa_batch(comparison_context,list_vals_reference,list_of_list_vals,categories,fuzzy_categories_matrix). "
+					+ "It returns the same values as fuzzy_kappa(comparison_context, list_vals_reference, list_vals, similarities, categories, fuzzy_categories_matrix) for each map of the list. An error is raised if a map of the list is nil or if its size differs from the number of agents.",
+			examples = { @example (
+					value = "fuzzy_kappa_batch(build_comparison_context(cell as list, 2.0), cell collect each.cat_observed, simulated_maps, [cat1,cat2,cat3],[[1,0,0],[0,1,0],[0,0,1]])",
+					isExecutable = false) },
+			see = { "fuzzy_kappa", "build_comparison_context", "kappa_batch" })
+	@no_test
+	public static IList<Double> fuzzyKappaBatch(final IScope scope, final GamaComparisonContext context,
+			final IList<Object> reference, final IList<Object> candidates, final IList<Object> categories,
+			final GamaMatrix<Double> fuzzycategories) {
+		return fuzzyKappaBatch(scope, context, reference, candidates, categories, fuzzycategories, null);
+	}
+
+	/**
+	 * Fuzzy kappa batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param reference
+	 *            the reference
+	 * @param candidates
+	 *            the candidates
+	 * @param categories
+	 *            the categories
+	 * @param fuzzycategories
+	 *            the fuzzycategories
+	 * @param weights
+	 *            the weights
+	 * @return the list of fuzzy kappas
+	 */
+	@operator (
+			value = { "fuzzy_kappa_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = {})
+	@doc (
+			value = "fuzzy kappa indicator of a reference map with each map of a list, the agents and the fuzzy distance being given by a comparison context, computed in parallel: fuzzy_kappa_batch(comparison_context,list_vals_reference,list_of_list_vals,categories,fuzzy_categories_matrix, weights)",
+			examples = { @example (
+					value = "fuzzy_kappa_batch(context, cell collect each.cat_observed, simulated_maps, [cat1,cat2,cat3],[[1,0,0],[0,1,0],[0,0,1]], cell collect each.weight)",
+					isExecutable = false) },
+			see = { "fuzzy_kappa", "build_comparison_context" })
+	@no_test
+	public static IList<Double> fuzzyKappaBatch(final IScope scope, final GamaComparisonContext context,
+			final IList<Object> reference, final IList<Object> candidates, final IList<Object> categories,
+			final GamaMatrix<Double> fuzzycategories, final IList<Object> weights) {
+		if (context == null) throw GamaRuntimeException.error("The comparison context cannot be nil", scope);
+		final Map<Object, Integer> categoriesId = categoriesId(categories);
+		final int nb = context.nb;
+		final int[] ref = categoryIndices(scope, reference, categoriesId, nb);
+		if (ref == null) throw GamaRuntimeException.error("The reference map must have a value per agent", scope);
+		final int[][] cands = candidateIndices(scope, candidates, categoriesId, nb);
+		final double[][] coefficients = new double[nb][];
+		final int[][] neighbours = neighboursOf(scope, context, coefficients);
+		final BatchMapComparison comparison = new BatchMapComparison(nb, weightsOf(scope, weights, nb));
+		return indicators(comparison.fuzzyKappas(ref, cands, valuesOf(scope, fuzzycategories, categories.size()),
+				neighbours, coefficients, context.rings(), context.ringsPn()));
+	}
+
+	/**
+	 * Fuzzy kappa simulation batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param valsInit
+	 *            the vals init
+	 * @param valsObs
+	 *            the vals obs
+	 * @param simulations
+	 *            the simulations
+	 * @param categories
+	 *            the categories
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @return the list of fuzzy kappa simulations
+	 */
+	@operator (
+			value = { "fuzzy_kappa_sim_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = { IConcept.MAP })
+	@doc (
+			value = "fuzzy kappa simulation indicator of an initial and an observed maps with each simulated map of a list (e.g. the replicates of a simulation), the agents and the fuzzy distance being given by a comparison context, computed in parallel: fuzzy_kappa_sim_batch(comparison_context,list_valsInit,list_valsObs,list_of_list_valsSim,categories,fuzzy_transitions_matrix). "
+					+ "It returns the same values as fuzzy_kappa_sim(comparison_context, list_valsInit, list_valsObs, list_valsSim, similarities, categories, fuzzy_transitions_matrix) for each simulated map. An error is raised if a simulated map is nil or if its size differs from the number of agents.",
+			examples = { @example (
+					value = "fuzzy_kappa_sim_batch(build_comparison_context(cell as list, 2.0), cell collect each.cat_init, cell collect each.cat_observed, simulated_maps, [cat1,cat2,cat3], fuzzy_transitions)",
+					isExecutable = false) },
+			see = { "fuzzy_kappa_sim", "build_comparison_context", "kappa_sim_batch" })
+	@no_test
+	public static IList<Double> fuzzyKappaSimulationBatch(final IScope scope, final GamaComparisonContext context,
+			final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> simulations,
+			final IList<Object> categories, final GamaMatrix<Double> fuzzytransitions) {
+		return fuzzyKappaSimulationBatch(scope, context, valsInit, valsObs, simulations, categories, fuzzytransitions,
+				null);
+	}
+
+	/**
+	 * Fuzzy kappa simulation batch.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param context
+	 *            the context
+	 * @param valsInit
+	 *            the vals init
+	 * @param valsObs
+	 *            the vals obs
+	 * @param simulations
+	 *            the simulations
+	 * @param categories
+	 *            the categories
+	 * @param fuzzytransitions
+	 *            the fuzzytransitions
+	 * @param weights
+	 *            the weights
+	 * @return the list of fuzzy kappa simulations
+	 */
+	@operator (
+			value = { "fuzzy_kappa_sim_batch" },
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.MAP_COMPARAISON },
+			concept = {})
+	@doc (
+			value = "fuzzy kappa simulation indicator of an initial and an observed maps with each simulated map of a list, the agents and the fuzzy distance being given by a comparison context, computed in parallel: fuzzy_kappa_sim_batch(comparison_context,list_valsInit,list_valsObs,list_of_list_valsSim,categories,fuzzy_transitions_matrix, weights)",
+			examples = { @example (
+					value = "fuzzy_kappa_sim_batch(context, cell collect each.cat_init, cell collect each.cat_observed, simulated_maps, [cat1,cat2,cat3], fuzzy_transitions, cell collect each.weight)",
+					isExecutable = false) },
+			see = { "fuzzy_kappa_sim", "build_comparison_context" })
+	@no_test
+	public static IList<Double> fuzzyKappaSimulationBatch(final IScope scope, final GamaComparisonContext context,
+			final IList<Object> valsInit, final IList<Object> valsObs, final IList<Object> simulations,
+			final IList<Object> categories, final GamaMatrix<Double> fuzzytransitions, final IList<Object> weights) {
+		if (context == null) throw GamaRuntimeException.error("The comparison context cannot be nil", scope);
+		final Map<Object, Integer> categoriesId = categoriesId(categories);
+		final int nb = context.nb;
+		final int nbCat = categories.size();
+		final int[] init = categoryIndices(scope, valsInit, categoriesId, nb);
+		final int[] obs = categoryIndices(scope, valsObs, categoriesId, nb);
+		if (init == null || obs == null)
+			throw GamaRuntimeException.error("The initial and observed maps must have a value per agent", scope);
+		final int[][] sims = candidateIndices(scope, simulations, categoriesId, nb);
+		final double[][] coefficients = new double[nb][];
+		final int[][] neighbours = neighboursOf(scope, context, coefficients);
+		final BatchMapComparison comparison = new BatchMapComparison(nb, weightsOf(scope, weights, nb));
+		return indicators(comparison.fuzzyKappaSimulations(init, obs, sims, nbCat,
+				valuesOf(scope, fuzzytransitions, nbCat * nbCat), neighbours, coefficients,
+				computeExpectedAgreements(scope, context, fuzzytransitions, nbCat)));
+	}
+
 }
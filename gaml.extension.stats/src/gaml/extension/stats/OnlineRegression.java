@@ -0,0 +1,159 @@
+/*******************************************************************************************************
+ *
+ * OnlineRegression.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+/**
+ * An ordinary least squares regression (with an intercept) updated one observation at a time, as the
+ * MillerUpdatingRegression of Apache Commons Math: the QR decomposition of the observations is updated by Givens
+ * rotations (algorithm AS 274 of Miller), in O(p²) per observation, without keeping the observations. Unlike it, its
+ * state can be copied.
+ */
+class OnlineRegression {
+
+	/** The relative tolerance under which a diagonal element of the decomposition is considered as null. */
+	private static final double TOLERANCE = 1e-12;
+
+	/** The number of parameters (the intercept and one per feature). */
+	final int nbParameters;
+
+	/** The diagonal of the decomposition (the row multipliers). */
+	private final double[] d;
+
+	/** The upper triangle of the decomposition (its diagonal excluded), row after row. */
+	private final double[] rbar;
+
+	/** The projections of the y values. */
+	private final double[] thetab;
+
+	/** The sum of the squared errors, the sum of the y values and the sum of their squares. */
+	private double sserr, sumy, sumsqy;
+
+	/** The sum of the squared x values of each parameter, used to detect the null diagonal elements. */
+	private final double[] sumsqx;
+
+	/** The number of observations. */
+	long nobs;
+
+	/** The buffer of the observation being added. */
+	private final double[] x;
+
+	/**
+	 * Instantiates a regression without observations.
+	 *
+	 * @param nbFeatures
+	 *            the number of features
+	 */
+	OnlineRegression(final int nbFeatures) {
+		nbParameters = nbFeatures + 1;
+		d = new double[nbParameters];
+		rbar = new double[nbParameters * (nbParameters - 1) / 2];
+		thetab = new double[nbParameters];
+		sumsqx = new double[nbParameters];
+		x = new double[nbParameters];
+	}
+
+	/**
+	 * Instantiates a copy of a regression.
+	 *
+	 * @param other
+	 *            the regression to copy
+	 */
+	OnlineRegression(final OnlineRegression other) {
+		nbParameters = other.nbParameters;
+		d = other.d.clone();
+		rbar = other.rbar.clone();
+		thetab = other.thetab.clone();
+		sumsqx = other.sumsqx.clone();
+		x = new double[nbParameters];
+		sserr = other.sserr;
+		sumy = other.sumy;
+		sumsqy = other.sumsqy;
+		nobs = other.nobs;
+	}
+
+	/**
+	 * Adds an observation.
+	 *
+	 * @param values
+	 *            the array holding the observation: the y value followed by the values of the features
+	 * @param offset
+	 *            the index of the y value in the array
+	 */
+	void add(final double[] values, final int offset) {
+		double y = values[offset];
+		x[0] = 1;
+		for (int i = 1; i < nbParameters; i++) { x[i] = values[offset + i]; }
+		double w = 1;
+		int nextr = 0;
+		for (int i = 0; i < nbParameters; i++) {
+			if (w == 0) { break; }
+			final double xi = x[i];
+			sumsqx[i] += xi * xi;
+			if (xi == 0) {
+				nextr += nbParameters - i - 1;
+				continue;
+			}
+			final double di = d[i];
+			final double dpi = di + w * xi * xi;
+			final double cbar = di / dpi;
+			final double sbar = w * xi / dpi;
+			w *= cbar;
+			d[i] = dpi;
+			for (int k = i + 1; k < nbParameters; k++) {
+				final double xk = x[k];
+				x[k] = xk - xi * rbar[nextr];
+				rbar[nextr] = cbar * rbar[nextr] + sbar * xk;
+				nextr++;
+			}
+			final double yk = y;
+			y = yk - xi * thetab[i];
+			thetab[i] = cbar * thetab[i] + sbar * yk;
+		}
+		sserr += w * y * y;
+		sumy += values[offset];
+		sumsqy += values[offset] * values[offset];
+		nobs++;
+	}
+
+	/**
+	 * Returns the parameters of the regression, by back substitution.
+	 *
+	 * @return the intercept followed by the coefficients of the features, or null if they can not be estimated yet
+	 *         (less observations than parameters, or collinear features)
+	 */
+	double[] parameters() {
+		if (nobs < nbParameters) return null;
+		for (int i = 0; i < nbParameters; i++) { if (d[i] <= TOLERANCE * sumsqx[i]) return null; }
+		final double[] result = new double[nbParameters];
+		for (int i = nbParameters - 1; i >= 0; i--) {
+			double value = thetab[i];
+			// The row i of rbar starts after the rows 0 to i - 1
+			int pos = i * (2 * nbParameters - i - 1) / 2;
+			for (int k = i + 1; k < nbParameters; k++) { value -= rbar[pos++] * result[k]; }
+			result[i] = value;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the adjusted R² of the regression, as computed by the OLSMultipleLinearRegression of Apache Commons
+	 * Math.
+	 *
+	 * @return the adjusted R², or NaN if there are not enough observations
+	 */
+	double adjustedRSquared() {
+		if (nobs <= nbParameters) return Double.NaN;
+		final double n = nobs;
+		final double sst = sumsqy - sumy * sumy / n;
+		return 1 - sserr * (n - 1) / (sst * (n - nbParameters));
+	}
+
+}
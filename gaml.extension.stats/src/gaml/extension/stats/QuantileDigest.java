@@ -0,0 +1,206 @@
+/*******************************************************************************************************
+ *
+ * QuantileDigest.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.Arrays;
+
+/**
+ * A merging t-digest (Dunning and Ertl), used by {@link GamaStatisticsAccumulator} to estimate the quantiles of a
+ * stream of values in a bounded memory. The values are summarized by at most a few times {@link #COMPRESSION}
+ * centroids (a mean and a weight), which are small near the extremes of the distribution, so that its tails are
+ * estimated precisely. The values are first added to a buffer, which is merged with the centroids when it is full.
+ * Two digests can be merged, which gives the same precision as a single digest fed with all the values.
+ */
+class QuantileDigest {
+
+	/** The compression: the bigger, the more centroids and the more precise the quantiles. */
+	static final double COMPRESSION = 100;
+
+	/** The size of the buffer of the values added since the last merge. */
+	private static final int BUFFER_SIZE = 500;
+
+	/** The means and weights of the centroids, sorted by mean. */
+	private double[] means = new double[0], weights = new double[0];
+
+	/** The number of centroids. */
+	private int size;
+
+	/** The values added since the last merge. */
+	private final double[] buffer = new double[BUFFER_SIZE];
+
+	/** The number of values in the buffer. */
+	private int buffered;
+
+	/** The total weight of the centroids and of the buffer. */
+	private double total;
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param x
+	 *            the value
+	 */
+	void add(final double x) {
+		if (buffered == BUFFER_SIZE) { flush(); }
+		buffer[buffered++] = x;
+		total++;
+	}
+
+	/**
+	 * Adds the centroids of another digest.
+	 *
+	 * @param other
+	 *            the other digest
+	 */
+	void add(final QuantileDigest other) {
+		other.flush();
+		flush();
+		merge(other.means, other.weights, other.size);
+		total += other.total;
+	}
+
+	/**
+	 * Merges the buffer with the centroids.
+	 */
+	private void flush() {
+		if (buffered == 0) return;
+		Arrays.sort(buffer, 0, buffered);
+		final double[] ones = new double[buffered];
+		Arrays.fill(ones, 1.0);
+		final int n = buffered;
+		buffered = 0;
+		merge(Arrays.copyOf(buffer, n), ones, n);
+	}
+
+	/**
+	 * Merges sorted centroids with the centroids of the digest.
+	 *
+	 * @param otherMeans
+	 *            the means of the centroids, in ascending order
+	 * @param otherWeights
+	 *            their weights
+	 * @param otherSize
+	 *            their number
+	 */
+	private void merge(final double[] otherMeans, final double[] otherWeights, final int otherSize) {
+		final int n = size + otherSize;
+		if (n == 0) return;
+		double weight = 0;
+		for (int i = 0; i < size; i++) { weight += weights[i]; }
+		for (int i = 0; i < otherSize; i++) { weight += otherWeights[i]; }
+		final double[] newMeans = new double[n];
+		final double[] newWeights = new double[n];
+		int count = 0;
+		int i = 0, j = 0;
+		double soFar = 0;
+		double mean = 0, w = 0;
+		while (i < size || j < otherSize) {
+			final double m, mw;
+			if (j >= otherSize || i < size && means[i] <= otherMeans[j]) {
+				m = means[i];
+				mw = weights[i++];
+			} else {
+				m = otherMeans[j];
+				mw = otherWeights[j++];
+			}
+			if (w == 0) {
+				mean = m;
+				w = mw;
+				continue;
+			}
+			final double proposed = w + mw;
+			final double q = (soFar + proposed / 2) / weight;
+			if (proposed <= 4 * weight * q * (1 - q) / COMPRESSION) {
+				w = proposed;
+				mean += mw * (m - mean) / w;
+			} else {
+				newMeans[count] = mean;
+				newWeights[count++] = w;
+				soFar += w;
+				mean = m;
+				w = mw;
+			}
+		}
+		newMeans[count] = mean;
+		newWeights[count++] = w;
+		means = newMeans;
+		weights = newWeights;
+		size = count;
+	}
+
+	/**
+	 * Estimates a quantile.
+	 *
+	 * @param p
+	 *            the probability, between 0 and 1
+	 * @param min
+	 *            the minimum of the values
+	 * @param max
+	 *            the maximum of the values
+	 * @return the quantile, or NaN if no value has been added
+	 */
+	double quantile(final double p, final double min, final double max) {
+		flush();
+		if (size == 0) return Double.NaN;
+		if (size == 1) return means[0];
+		final double target = Math.max(0, Math.min(1, p)) * total;
+		if (target < weights[0] / 2) return min + (means[0] - min) * target / (weights[0] / 2);
+		double center = weights[0] / 2;
+		for (int i = 0; i < size - 1; i++) {
+			final double next = center + (weights[i] + weights[i + 1]) / 2;
+			if (target <= next) return means[i] + (means[i + 1] - means[i]) * (target - center) / (next - center);
+			center = next;
+		}
+		final double last = weights[size - 1] / 2;
+		return means[size - 1] + (max - means[size - 1]) * Math.min(1, (target - center) / last);
+	}
+
+	/**
+	 * Returns the centroids of the digest, the buffer being merged first.
+	 *
+	 * @return the means of the centroids, in ascending order (first), and their weights (second)
+	 */
+	double[][] centroids() {
+		flush();
+		return new double[][] { Arrays.copyOf(means, size), Arrays.copyOf(weights, size) };
+	}
+
+	/**
+	 * Adds centroids, e.g. the ones of a serialized digest.
+	 *
+	 * @param otherMeans
+	 *            the means of the centroids, in ascending order
+	 * @param otherWeights
+	 *            their weights
+	 */
+	void addCentroids(final double[] otherMeans, final double[] otherWeights) {
+		flush();
+		merge(otherMeans, otherWeights, otherMeans.length);
+		for (final double w : otherWeights) { total += w; }
+	}
+
+	/**
+	 * Returns a copy of the digest.
+	 *
+	 * @return the copy
+	 */
+	QuantileDigest copy() {
+		final QuantileDigest result = new QuantileDigest();
+		result.means = means.clone();
+		result.weights = weights.clone();
+		result.size = size;
+		System.arraycopy(buffer, 0, result.buffer, 0, buffered);
+		result.buffered = buffered;
+		result.total = total;
+		return result;
+	}
+
+}
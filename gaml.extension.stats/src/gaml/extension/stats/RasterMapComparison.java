@@ -0,0 +1,261 @@
+/*******************************************************************************************************
+ *
+ * RasterMapComparison.java, in gaml.extension.stats, is part of the source code of the GAMA modeling and simulation
+ * platform (v.2.0.0).
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.extension.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The fuzzy comparison of maps given as rasters: arrays of category indices (row after row, -1 for the cells without
+ * data), used by the matrix versions of the fuzzy_kappa and fuzzy_kappa_sim operators of {@link MapComparison}.
+ *
+ * The neighbourhood of a cell is a kernel of the offsets of the cells whose centers are within the fuzzy distance (in
+ * number of cells), computed once and sorted by increasing distance, each offset being given the coefficient 1 / (1 +
+ * distance) of the agent versions. The fuzzy vectors are then computed by sweeping the kernel over each cell, which
+ * stops as soon as the remaining (further, hence smaller) coefficients can no longer change the similarity of the
+ * cell. The rows are processed in parallel, by bands.
+ */
+class RasterMapComparison {
+
+	/** The number of rows of the bands processed in parallel. */
+	private static final int BAND = 32;
+
+	/** The number of columns and of rows of the maps. */
+	final int width, height;
+
+	/** The offsets of the kernel, by increasing distance (the first one being the cell itself). */
+	private final int[] dx, dy;
+
+	/** The distance (in cells) and coefficient of each offset of the kernel. */
+	private final double[] distances, coefficients;
+
+	/**
+	 * Instantiates the comparison of maps of a given size.
+	 *
+	 * @param width
+	 *            the number of columns
+	 * @param height
+	 *            the number of rows
+	 * @param radius
+	 *            the fuzzy distance, in number of cells
+	 */
+	RasterMapComparison(final int width, final int height, final double radius) {
+		this.width = width;
+		this.height = height;
+		final int r = (int) Math.floor(Math.max(0, radius));
+		final List<int[]> offsets = new ArrayList<>();
+		for (int y = -r; y <= r; y++) {
+			for (int x = -r; x <= r; x++) { if (x * x + y * y <= radius * radius) { offsets.add(new int[] { x, y }); } }
+		}
+		if (offsets.isEmpty()) { offsets.add(new int[] { 0, 0 }); }
+		offsets.sort(Comparator.comparingInt(o -> o[0] * o[0] + o[1] * o[1]));
+		final int size = offsets.size();
+		dx = new int[size];
+		dy = new int[size];
+		distances = new double[size];
+		coefficients = new double[size];
+		for (int k = 0; k < size; k++) {
+			dx[k] = offsets.get(k)[0];
+			dy[k] = offsets.get(k)[1];
+			distances[k] = Math.sqrt(dx[k] * dx[k] + dy[k] * dy[k]);
+			coefficients[k] = 1 / (1.0 + distances[k]);
+		}
+	}
+
+	/**
+	 * Returns the distances (in cells) of the cells of the neighbourhood, the cell itself excluded.
+	 *
+	 * @return the distances, in increasing order
+	 */
+	double[] neighbourDistances() {
+		return Arrays.copyOfRange(distances, 1, distances.length);
+	}
+
+	/**
+	 * A task on each cell of a band of rows.
+	 */
+	@FunctionalInterface
+	private interface CellTask {
+
+		/**
+		 * Processes a cell.
+		 *
+		 * @param x
+		 *            the column of the cell
+		 * @param y
+		 *            the row of the cell
+		 * @param buffers
+		 *            the buffers of the band
+		 */
+		void process(int x, int y, double[][] buffers);
+	}
+
+	/**
+	 * Runs a task on all the cells, the bands of rows being processed in parallel.
+	 *
+	 * @param nbBuffers
+	 *            the number of buffers needed by the task
+	 * @param bufferSize
+	 *            their size
+	 * @param task
+	 *            the task
+	 */
+	private void forEachCell(final int nbBuffers, final int bufferSize, final CellTask task) {
+		IntStream.range(0, (height + BAND - 1) / BAND).parallel().forEach(band -> {
+			final double[][] buffers = new double[nbBuffers][bufferSize];
+			for (int y = band * BAND, end = Math.min(height, y + BAND); y < end; y++) {
+				for (int x = 0; x < width; x++) { task.process(x, y, buffers); }
+			}
+		});
+	}
+
+	/**
+	 * Computes the fuzzy similarity of each cell of two maps (1 when the categories of the cell are the same), as
+	 * defined by the fuzzy kappa: the minimum of the similarities of the crisp vector of the cell in one map with the
+	 * fuzzy vector of the cell in the other map.
+	 *
+	 * @param map1
+	 *            the categories of the cells in the first map
+	 * @param map2
+	 *            the categories of the cells in the second map
+	 * @param fuzzyCategories
+	 *            the similarity between each pair of categories
+	 * @param similarities
+	 *            the similarity of each cell, computed (NaN for the cells without data)
+	 */
+	void fuzzySimilarities(final int[] map1, final int[] map2, final double[][] fuzzyCategories,
+			final double[] similarities) {
+		final int nbCat = fuzzyCategories.length;
+		double fmax = 0;
+		for (final double[] row : fuzzyCategories) { for (final double f : row) { fmax = Math.max(fmax, f); } }
+		final double maxSimilarity = fmax;
+		// Buffers: the fuzzy vectors of the cell in both maps, and the categories already met in both maps
+		forEachCell(4, nbCat, (x, y, buffers) -> {
+			final int i = y * width + x;
+			final int cat1 = map1[i], cat2 = map2[i];
+			if (cat1 < 0 || cat2 < 0) {
+				similarities[i] = Double.NaN;
+				return;
+			}
+			if (cat1 == cat2) {
+				similarities[i] = 1;
+				return;
+			}
+			final double[] fuzzy1 = buffers[0], fuzzy2 = buffers[1], met1 = buffers[2], met2 = buffers[3];
+			Arrays.fill(fuzzy1, 0);
+			Arrays.fill(fuzzy2, 0);
+			Arrays.fill(met1, 0);
+			Arrays.fill(met2, 0);
+			final double[] crisp1 = fuzzyCategories[cat1], crisp2 = fuzzyCategories[cat2];
+			int nbMet1 = 0, nbMet2 = 0;
+			double s1 = 0, s2 = 0;
+			for (int k = 0; k < dx.length; k++) {
+				final double coefficient = coefficients[k];
+				// The cells further away can not increase the similarity anymore
+				if (coefficient * maxSimilarity <= Math.min(s1, s2) || nbMet1 == nbCat && nbMet2 == nbCat) { break; }
+				final int nx = x + dx[k], ny = y + dy[k];
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height) { continue; }
+				final int n = ny * width + nx;
+				final int c1 = map1[n], c2 = map2[n];
+				if (c1 >= 0 && met1[c1] == 0) {
+					met1[c1] = 1;
+					nbMet1++;
+					s1 = updateFuzzyVector(fuzzy1, fuzzyCategories[c1], coefficient, crisp2);
+				}
+				if (c2 >= 0 && met2[c2] == 0) {
+					met2[c2] = 1;
+					nbMet2++;
+					s2 = updateFuzzyVector(fuzzy2, fuzzyCategories[c2], coefficient, crisp1);
+				}
+			}
+			similarities[i] = Math.min(s1, s2);
+		});
+	}
+
+	/**
+	 * Updates a fuzzy vector with a category met at some distance (the first time it is met, i.e. at its smallest
+	 * distance) and returns its similarity with a crisp vector.
+	 *
+	 * @param fuzzy
+	 *            the fuzzy vector, updated
+	 * @param category
+	 *            the similarities of the category met with all the categories
+	 * @param coefficient
+	 *            the coefficient of its distance
+	 * @param crisp
+	 *            the crisp vector of the cell in the other map
+	 * @return the maximum over the categories of the minimum of the fuzzy and crisp vectors
+	 */
+	private static double updateFuzzyVector(final double[] fuzzy, final double[] category, final double coefficient,
+			final double[] crisp) {
+		double result = 0;
+		for (int j = 0; j < fuzzy.length; j++) {
+			final double value = category[j] * coefficient;
+			if (value > fuzzy[j]) { fuzzy[j] = value; }
+			result = Math.max(result, Math.min(fuzzy[j], crisp[j]));
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the fuzzy similarity of the transitions of each cell, as defined by the fuzzy kappa simulation: the
+	 * minimum of the fuzzy agreement of the simulated transition of the cell with the observed transitions of its
+	 * neighbourhood, and of the observed transition of the cell with the simulated transitions of its neighbourhood.
+	 *
+	 * @param init
+	 *            the categories of the cells in the initial map
+	 * @param obs
+	 *            the categories of the cells in the observed map
+	 * @param sim
+	 *            the categories of the cells in the simulated map
+	 * @param nbCat
+	 *            the number of categories
+	 * @param transitions
+	 *            the similarity between two transitions (from a to b, with index a + nbCat * b), by index of the first
+	 *            and then of the second transition
+	 * @param similarities
+	 *            the similarity of each cell, computed (NaN for the cells without data)
+	 */
+	void transitionSimilarities(final int[] init, final int[] obs, final int[] sim, final int nbCat,
+			final double[][] transitions, final double[] similarities) {
+		final int nbTransitions = nbCat * nbCat;
+		final double[] maxima = new double[nbTransitions];
+		for (int t = 0; t < nbTransitions; t++) {
+			for (final double value : transitions[t]) { maxima[t] = Math.max(maxima[t], value); }
+		}
+		forEachCell(0, 0, (x, y, buffers) -> {
+			final int i = y * width + x;
+			if (init[i] < 0 || obs[i] < 0 || sim[i] < 0) {
+				similarities[i] = Double.NaN;
+				return;
+			}
+			final int simulated = init[i] + nbCat * sim[i];
+			final int observed = init[i] + nbCat * obs[i];
+			final double[] fromSimulated = transitions[simulated], fromObserved = transitions[observed];
+			double xa = 0, xs = 0;
+			for (int k = 0; k < dx.length; k++) {
+				final double coefficient = coefficients[k];
+				if (coefficient * maxima[simulated] <= xa && coefficient * maxima[observed] <= xs) { break; }
+				final int nx = x + dx[k], ny = y + dy[k];
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height) { continue; }
+				final int n = ny * width + nx;
+				if (init[n] < 0) { continue; }
+				if (obs[n] >= 0) { xa = Math.max(xa, fromSimulated[init[n] + nbCat * obs[n]] * coefficient); }
+				if (sim[n] >= 0) { xs = Math.max(xs, fromObserved[init[n] + nbCat * sim[n]] * coefficient); }
+			}
+			similarities[i] = Math.min(xa, xs);
+		});
+	}
+
+}
@@ -13,18 +13,14 @@ package gaml.extension.stats;
 import static gaml.core.operators.Containers.collect;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
-import org.apache.commons.math3.ml.clustering.CentroidCluster;
-import org.apache.commons.math3.ml.clustering.Cluster;
-import org.apache.commons.math3.ml.clustering.DBSCANClusterer;
 import org.apache.commons.math3.ml.clustering.DoublePoint;
-import org.apache.commons.math3.ml.clustering.KMeansPlusPlusClusterer;
-import org.apache.commons.math3.ml.distance.EuclideanDistance;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.stat.descriptive.moment.Kurtosis;
 import org.apache.commons.math3.stat.descriptive.moment.Skewness;
@@ -668,7 +664,7 @@ public class Stats {
 	// ?)
 
 	/**
-	 * D bscan apache.
+	 * Dbscan.
 	 *
 	 * @param scope
 	 *            the scope
@@ -693,37 +689,25 @@ public class Stats {
 					+ " (density-based spatial clustering of applications with noise) algorithm from the "
 					+ "first operand data according to the maximum radius of the neighborhood to be considered (eps) "
 					+ "and the minimum number of points needed for a cluster (minPts). Usage: dbscan(data,eps,minPoints)",
-			special_cases = "if the lengths of two vectors in the right-hand aren't equal, returns 0",
+			comment = "The points that do not belong to any cluster are returned at the end, each in its own list. "
+					+ "The neighbours of the points are searched in a grid, so that large sets of points of low dimension "
+					+ "(e.g. locations of agents) can be clustered",
+			special_cases = "if the instances do not all have the same number of values, an error is raised",
 			examples = { @example (
 					value = "dbscan ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],10,2)",
 					equals = "[[0,1,2,3]]") })
 	public static IList<IList> opDBScan(final IScope scope, final IList data, final Double eps, final Integer minPts)
 			throws GamaRuntimeException {
-		final IList<Integer> remainingData = GamaListFactory.create(Types.INT);
-		final DBSCANClusterer<DoublePoint> dbscan = new DBSCANClusterer(eps, minPts);
-		final List<DoublePoint> instances = new ArrayList<>();
-		for (int i = 0; i < data.size(); i++) {
-			final IList d = (IList) data.get(i);
-			final double point[] = new double[d.size()];
-			for (int j = 0; j < d.size(); j++) { point[j] = Cast.asFloat(scope, d.get(j)); }
-			remainingData.add(i);
-			instances.add(new Instance(i, point));
+		final double[][] points = new double[data.size()][];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = DoubleValues.floats(scope, (IList) data.get(i));
+			if (points[i].length != points[0].length)
+				throw GamaRuntimeException.error("dbscan: all the instances must have the same number of values", scope);
 		}
-		final List<Cluster<DoublePoint>> clusters = dbscan.cluster(instances);
-
 		try (final Collector.AsList results = Collector.getList()) {
-			for (final Cluster<DoublePoint> cl : clusters) {
-				final IList clG = GamaListFactory.create();
-				for (final DoublePoint pt : cl.getPoints()) {
-					final Integer id = ((Instance) pt).getId();
-					clG.addValue(scope, id);
-					remainingData.remove(id);
-				}
-				results.add(clG);
-			}
-			for (final Integer id : remainingData) {
-				final IList clG = GamaListFactory.create();
-				clG.add(id);
+			for (final int[] cluster : new GridDBScan(points, eps, minPts).cluster()) {
+				final IList clG = GamaListFactory.create(Types.INT);
+				for (final int id : cluster) { clG.add(id); }
 				results.add(clG);
 			}
 			return results.items();
@@ -783,36 +767,8 @@ public class Stats {
 					equals = "38.0") })
 	public static Double opDynamicTimeWarping(final IScope scope, final IList vals1, final IList vals2)
 			throws GamaRuntimeException {
-		final int n1 = vals1.size();
-		final int n2 = vals2.size();
-		final double[][] table = new double[2][n2 + 1];
-
-		table[0][0] = 0;
-
-		for (int i = 1; i <= n2; i++) { table[0][i] = Double.POSITIVE_INFINITY; }
-
-		for (int i = 1; i <= n1; i++) {
-			table[1][0] = Double.POSITIVE_INFINITY;
-
-			for (int j = 1; j <= n2; j++) {
-				final double cost =
-						Math.abs(Cast.asFloat(scope, vals1.get(i - 1)) - Cast.asFloat(scope, vals2.get(j - 1)));
-
-				double min = table[0][j - 1];
-
-				if (min > table[0][j]) { min = table[0][j]; }
-
-				if (min > table[1][j - 1]) { min = table[1][j - 1]; }
-
-				table[1][j] = cost + min;
-			}
-
-			final double[] swap = table[0];
-			table[0] = table[1];
-			table[1] = swap;
-		}
-
-		return table[0][n2];
+		return DynamicTimeWarping.distance(DoubleValues.floats(scope, vals1), DoubleValues.floats(scope, vals2), -1,
+				Double.POSITIVE_INFINITY);
 	}
 
 	/**
@@ -838,47 +794,204 @@ public class Stats {
 			concept = { IConcept.STATISTIC })
 	@doc (
 			value = "returns the dynamic time warping between the two series of values"
-					+ " (step pattern used: symetric1) with Sakoe-Chiba band (radius: the window width of Sakoe-Chiba band)",
+					+ " (step pattern used: symetric1) with Sakoe-Chiba band (radius: the window width of Sakoe-Chiba band, no band if negative)",
 			examples = { @example (
 					value = "dtw([10.0,5.0,1.0, 3.0],[1.0,10.0,5.0,1.0], 2)",
 					equals = "11.0") })
 	public static Double opDynamicTimeWarping(final IScope scope, final IList vals1, final IList vals2,
 			final int radius) throws GamaRuntimeException {
-		final int n1 = vals1.size();
-		final int n2 = vals2.size();
-		final double[][] table = new double[2][n2 + 1];
-
-		table[0][0] = 0;
-
-		for (int i = 1; i <= n2; i++) { table[0][i] = Double.POSITIVE_INFINITY; }
-
-		for (int i = 1; i <= n1; i++) {
-			final int start = Math.max(1, i - radius);
-			final int end = Math.min(n2, i + radius);
-
-			table[1][start - 1] = Double.POSITIVE_INFINITY;
-			if (end < n2) { table[1][end + 1] = Double.POSITIVE_INFINITY; }
-
-			for (int j = start; j <= end; j++) {
-				final double cost =
-						Math.abs(Cast.asFloat(scope, vals1.get(i - 1)) - Cast.asFloat(scope, vals2.get(j - 1)));
-
-				double min = table[0][j - 1];
+		return DynamicTimeWarping.distance(DoubleValues.floats(scope, vals1), DoubleValues.floats(scope, vals2),
+				radius, Double.POSITIVE_INFINITY);
+	}
 
-				if (min > table[0][j]) { min = table[0][j]; }
+	/**
+	 * Op dynamic time warping.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vals1
+	 *            the vals 1
+	 * @param vals2
+	 *            the vals 2
+	 * @param radius
+	 *            the radius
+	 * @param maxDistance
+	 *            the max distance
+	 * @return the double
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	@operator (
+			value = "dtw",
+			can_be_const = false,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns the dynamic time warping between the two series of values"
+					+ " (step pattern used: symetric1) with Sakoe-Chiba band (radius: the window width of Sakoe-Chiba band, no band if negative),"
+					+ " or #infinity as soon as it is known to be greater than the maximal distance passed as fourth operand",
+			comment = "A lower bound of the distance (LB_Keogh) is computed first, and the computation of the distance is abandoned as soon as it exceeds the maximal distance,"
+					+ " which makes it much faster to find the series that are close to another one (e.g. by passing the smallest distance found so far).",
+			examples = { @example (
+					value = "dtw([10.0,5.0,1.0, 3.0],[1.0,10.0,5.0,1.0], 2, 20.0)",
+					equals = "11.0"),
+					@example (
+							value = "dtw([10.0,5.0,1.0, 3.0],[1.0,10.0,5.0,1.0], 2, 10.0)",
+							equals = "#infinity") },
+			see = { "dtw_distances", "dtw_nearest" })
+	public static Double opDynamicTimeWarping(final IScope scope, final IList vals1, final IList vals2,
+			final int radius, final double maxDistance) throws GamaRuntimeException {
+		final double[] s1 = DoubleValues.floats(scope, vals1);
+		final double[] s2 = DoubleValues.floats(scope, vals2);
+		if (new DynamicTimeWarping.Envelope(s1, radius).lowerBound(s2, maxDistance) > maxDistance)
+			return Double.POSITIVE_INFINITY;
+		return DynamicTimeWarping.distance(s1, s2, radius, maxDistance);
+	}
 
-				if (min > table[1][j - 1]) { min = table[1][j - 1]; }
+	/**
+	 * Returns the values of each series of a list.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param series
+	 *            the list of series
+	 * @return the values of the series, which must not be modified
+	 */
+	private static double[][] seriesOf(final IScope scope, final IList series) {
+		final double[][] result = new double[series.size()][];
+		for (int i = 0; i < result.length; i++) {
+			final Object o = series.get(i);
+			result[i] = DoubleValues.floats(scope, o instanceof IContainer c ? c : Cast.asList(scope, o));
+		}
+		return result;
+	}
 
-				table[1][j] = cost + min;
-			}
+	/**
+	 * Op dtw distances.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param query
+	 *            the query
+	 * @param series
+	 *            the series
+	 * @return the i list
+	 */
+	@operator (
+			value = "dtw_distances",
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns the list of the dynamic time warpings (step pattern used: symetric1) between the series of values passed as first operand and each series of the list passed as second operand,"
+					+ " computed in parallel",
+			examples = { @example (
+					value = "dtw_distances([32.0,5.0,1.0,3.0],[[1.0,10.0,5.0,1.0], [32.0,5.0,1.0,3.0]])",
+					equals = "[38.0,0.0]") },
+			see = { "dtw", "dtw_nearest" })
+	public static IList<Double> opDtwDistances(final IScope scope, final IList query, final IList series) {
+		return opDtwDistances(scope, query, series, -1);
+	}
 
-			final double[] swap = table[0];
-			table[0] = table[1];
-			table[1] = swap;
-		}
+	/**
+	 * Op dtw distances.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param query
+	 *            the query
+	 * @param series
+	 *            the series
+	 * @param radius
+	 *            the radius
+	 * @return the i list
+	 */
+	@operator (
+			value = "dtw_distances",
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns the list of the dynamic time warpings (step pattern used: symetric1) with Sakoe-Chiba band (radius: the window width of the band, no band if negative)"
+					+ " between the series of values passed as first operand and each series of the list passed as second operand, computed in parallel",
+			masterDoc = true,
+			examples = { @example (
+					value = "dtw_distances([10.0,5.0,1.0, 3.0],[[1.0,10.0,5.0,1.0]], 2)",
+					equals = "[11.0]") },
+			see = { "dtw", "dtw_nearest" })
+	public static IList<Double> opDtwDistances(final IScope scope, final IList query, final IList series,
+			final int radius) {
+		final double[] distances =
+				DynamicTimeWarping.distances(DoubleValues.floats(scope, query), seriesOf(scope, series), radius);
+		final IList<Double> result = GamaListFactory.create(Types.FLOAT);
+		for (final double d : distances) { result.add(d); }
+		return result;
+	}
 
-		return table[0][n2];
+	/**
+	 * Op dtw nearest.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param query
+	 *            the query
+	 * @param series
+	 *            the series
+	 * @return the integer
+	 */
+	@operator (
+			value = "dtw_nearest",
+			can_be_const = false,
+			type = IType.INT,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns the index of the series of the list passed as second operand that is the nearest (by dynamic time warping, step pattern used: symetric1) from the series of values passed as first operand,"
+					+ " or -1 if the list is empty",
+			examples = { @example (
+					value = "dtw_nearest([32.0,5.0,1.0,3.0],[[1.0,10.0,5.0,1.0], [30.0,5.0,1.0,3.0]])",
+					equals = "1") },
+			see = { "dtw", "dtw_distances" })
+	public static Integer opDtwNearest(final IScope scope, final IList query, final IList series) {
+		return opDtwNearest(scope, query, series, -1);
+	}
 
+	/**
+	 * Op dtw nearest.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param query
+	 *            the query
+	 * @param series
+	 *            the series
+	 * @param radius
+	 *            the radius
+	 * @return the integer
+	 */
+	@operator (
+			value = "dtw_nearest",
+			can_be_const = false,
+			type = IType.INT,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns the index of the series of the list passed as second operand that is the nearest (by dynamic time warping, step pattern used: symetric1,"
+					+ " with Sakoe-Chiba band of radius passed as third operand, no band if negative) from the series of values passed as first operand,"
+					+ " or -1 if the list is empty or no series can be matched within the band",
+			comment = "The series are compared in parallel, starting with the ones whose lower bound (LB_Keogh) is the smallest. The series whose lower bound, or the partial computation of the distance,"
+					+ " exceeds the smallest distance found so far are discarded, which makes it much faster than computing all the distances. In case of ties, the first series is returned.",
+			masterDoc = true,
+			examples = { @example (
+					value = "dtw_nearest([10.0,5.0,1.0, 3.0],[[1.0,10.0,5.0,1.0], [10.0,4.0,1.0,3.0]], 2)",
+					equals = "1") },
+			see = { "dtw", "dtw_distances" })
+	public static Integer opDtwNearest(final IScope scope, final IList query, final IList series, final int radius) {
+		return DynamicTimeWarping.nearest(DoubleValues.floats(scope, query), seriesOf(scope, series), radius);
 	}
 
 	/**
@@ -1202,19 +1315,316 @@ public class Stats {
 	@test ("(gini([1.0, 0.5, 2.0]) with_precision 4) = 0.2857")
 
 	public static double opGini(final IScope scope, final IList<Double> vals) {
-		final int N = vals.size();
-		double G = 0.0;
-		double sumXi = 0.0;
-		for (int i = 0; i < N; i++) {
-			final double xi = vals.get(i);
-			sumXi += xi;
-			for (int j = 0; j < N; j++) {
-				final double yi = vals.get(j);
-				G += Math.abs(xi - yi);
+		return giniOfSorted(sortedValues(scope, vals));
+	}
+
+	/**
+	 * Theil index.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vals
+	 *            the vals
+	 * @return the double
+	 */
+	@operator (
+			value = "theil",
+			can_be_const = true,
+			expected_content_type = { IType.INT, IType.FLOAT },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "the Theil index (T) of the given list of positive values, between 0 (perfect equality) and ln(N). "
+					+ "See <a href=\"https://en.wikipedia.org/wiki/Theil_index\">Theil index</a> for more details.",
+			comment = "The null values do not contribute to the sum (0 ln 0 = 0).",
+			examples = { @example (
+					value = "theil([1.0, 0.5, 2.0]) with_precision 4",
+					equals = "0.1429") },
+			see = { "gini", "atkinson", "lorenz_curve", "inequality_indicators" })
+	public static double opTheil(final IScope scope, final IList<Double> vals) {
+		final double[] values = DoubleValues.floats(scope, vals);
+		return theilOf(values, meanOf(values));
+	}
+
+	/**
+	 * Atkinson index.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vals
+	 *            the vals
+	 * @param epsilon
+	 *            the inequality aversion parameter
+	 * @return the double
+	 */
+	@operator (
+			value = "atkinson",
+			can_be_const = true,
+			expected_content_type = { IType.INT, IType.FLOAT },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "the Atkinson index of the given list of positive values (left operand) for the given inequality "
+					+ "aversion parameter epsilon (right operand, positive), between 0 (perfect equality) and 1. "
+					+ "See <a href=\"https://en.wikipedia.org/wiki/Atkinson_index\">Atkinson index</a> for more details.",
+			examples = { @example (
+					value = "atkinson([1.0, 0.5, 2.0], 0.5) with_precision 4",
+					equals = "0.0721"),
+					@example (
+							value = "atkinson([1.0, 0.5, 2.0], 1.0) with_precision 4",
+							equals = "0.1429") },
+			see = { "gini", "theil", "lorenz_curve", "inequality_indicators" })
+	public static double opAtkinson(final IScope scope, final IList<Double> vals, final Double epsilon) {
+		if (epsilon == null || epsilon < 0)
+			throw GamaRuntimeException.error("The parameter of the Atkinson index must be positive", scope);
+		final double[] values = DoubleValues.floats(scope, vals);
+		return atkinsonOf(values, meanOf(values), epsilon);
+	}
+
+	/**
+	 * Lorenz curve.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vals
+	 *            the vals
+	 * @return the list of points
+	 */
+	@operator (
+			value = "lorenz_curve",
+			can_be_const = true,
+			content_type = IType.POINT,
+			expected_content_type = { IType.INT, IType.FLOAT },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "the points of the Lorenz curve of the given list of positive values: for each number i of values, "
+					+ "from 0 to N, the point {i / N, share of the total of the i lowest values}. The curve of values "
+					+ "that are all 0 is the line of perfect equality, and the curve of an empty list is empty. "
+					+ "See <a href=\"https://en.wikipedia.org/wiki/Lorenz_curve\">Lorenz curve</a> for more details.",
+			masterDoc = true,
+			examples = { @example (
+					value = "lorenz_curve([1.0, 0.5, 2.0]) collect (each.y with_precision 2)",
+					equals = "[0.0, 0.14, 0.43, 1.0]") },
+			see = { "gini", "theil", "atkinson", "inequality_indicators" })
+	public static IList<GamaPoint> opLorenzCurve(final IScope scope, final IList<Double> vals) {
+		final double[] values = sortedValues(scope, vals);
+		return lorenzOfSorted(values, values.length);
+	}
+
+	/**
+	 * Lorenz curve.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vals
+	 *            the vals
+	 * @param nbSegments
+	 *            the number of segments of the curve
+	 * @return the list of points
+	 */
+	@operator (
+			value = "lorenz_curve",
+			can_be_const = true,
+			content_type = IType.POINT,
+			expected_content_type = { IType.INT, IType.FLOAT },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "the points of the Lorenz curve of the given list of positive values (left operand), sampled in the "
+					+ "given number of segments (right operand): for each k from 0 to this number, the point {p, share of "
+					+ "the total of the lowest values} where p is the proportion k / number of the values. Useful to "
+					+ "display the curve of large populations. As for the unary form, values that are all 0 give the "
+					+ "line of perfect equality and an empty list gives an empty curve.",
+			examples = { @example (
+					value = "lorenz_curve([1.0, 0.5, 2.0, 3.0], 2) collect (each.y with_precision 2)",
+					equals = "[0.0, 0.23, 1.0]") },
+			see = { "gini", "theil", "atkinson", "inequality_indicators" })
+	public static IList<GamaPoint> opLorenzCurve(final IScope scope, final IList<Double> vals,
+			final Integer nbSegments) {
+		if (nbSegments == null || nbSegments < 1)
+			throw GamaRuntimeException.error("The number of segments of the Lorenz curve must be positive", scope);
+		return lorenzOfSorted(sortedValues(scope, vals), nbSegments);
+	}
+
+	/**
+	 * Inequality indicators.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vals
+	 *            the vals
+	 * @return the map of the indicators
+	 */
+	@operator (
+			value = "inequality_indicators",
+			can_be_const = true,
+			content_type = IType.FLOAT,
+			index_type = IType.STRING,
+			expected_content_type = { IType.INT, IType.FLOAT },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "the inequality indicators of the given list of positive values, computed after a single sort of "
+					+ "the values: the map contains the keys 'mean', 'gini', 'theil', 'atkinson_0.5' and 'atkinson_1' "
+					+ "(Atkinson indices for epsilon = 0.5 and 1), 'top_10' and 'bottom_50' (shares of the total held by "
+					+ "the 10% highest and the 50% lowest values).",
+			examples = { @example (
+					value = "inequality_indicators([1.0, 0.5, 2.0])['gini'] with_precision 4",
+					equals = "0.2857") },
+			see = { "gini", "theil", "atkinson", "lorenz_curve" })
+	public static IMap<String, Double> opInequalityIndicators(final IScope scope, final IList<Double> vals) {
+		final double[] values = sortedValues(scope, vals);
+		final double mean = meanOf(values);
+		final IMap<String, Double> result = GamaMapFactory.create(Types.STRING, Types.FLOAT);
+		result.put("mean", mean);
+		result.put("gini", giniOfSorted(values));
+		result.put("theil", theilOf(values, mean));
+		result.put("atkinson_0.5", atkinsonOf(values, mean, 0.5));
+		result.put("atkinson_1", atkinsonOf(values, mean, 1.0));
+		result.put("top_10", 1.0 - shareOfLowest(values, 0.9));
+		result.put("bottom_50", shareOfLowest(values, 0.5));
+		return result;
+	}
+
+	/**
+	 * Returns the values of a container as floats, sorted in ascending order.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param values
+	 *            the values
+	 * @return the sorted values
+	 */
+	private static double[] sortedValues(final IScope scope, final IContainer values) {
+		final double[] result = DoubleValues.copyOfFloats(scope, values);
+		Arrays.parallelSort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the mean of values.
+	 *
+	 * @param values
+	 *            the values
+	 * @return the mean (NaN if there are no values)
+	 */
+	private static double meanOf(final double[] values) {
+		double sum = 0.0;
+		for (final double x : values) { sum += x; }
+		return sum / values.length;
+	}
+
+	/**
+	 * Returns the Gini index of sorted values: sum |xi - xj| / (2 N sum xi) is computed as sum (2i - N + 1) x(i) / (N
+	 * sum xi), x(i) being the i-th lowest value.
+	 *
+	 * @param sorted
+	 *            the values, in ascending order
+	 * @return the Gini index
+	 */
+	private static double giniOfSorted(final double[] sorted) {
+		final int n = sorted.length;
+		double weighted = 0.0;
+		double sum = 0.0;
+		for (int i = 0; i < n; i++) {
+			weighted += (2.0 * i - n + 1) * sorted[i];
+			sum += sorted[i];
+		}
+		return weighted / (n * sum);
+	}
+
+	/**
+	 * Returns the Theil index of values.
+	 *
+	 * @param values
+	 *            the values
+	 * @param mean
+	 *            their mean
+	 * @return the Theil index
+	 */
+	private static double theilOf(final double[] values, final double mean) {
+		double sum = 0.0;
+		for (final double x : values) {
+			if (x != 0.0) {
+				final double r = x / mean;
+				sum += r * Math.log(r);
 			}
 		}
-		G /= 2 * N * sumXi;
-		return G;
+		return sum / values.length;
+	}
+
+	/**
+	 * Returns the Atkinson index of values.
+	 *
+	 * @param values
+	 *            the values
+	 * @param mean
+	 *            their mean
+	 * @param epsilon
+	 *            the inequality aversion parameter
+	 * @return the Atkinson index
+	 */
+	private static double atkinsonOf(final double[] values, final double mean, final double epsilon) {
+		final int n = values.length;
+		double sum = 0.0;
+		if (epsilon == 1.0) {
+			for (final double x : values) { sum += Math.log(x); }
+			return 1.0 - Math.exp(sum / n) / mean;
+		}
+		final double power = 1.0 - epsilon;
+		for (final double x : values) { sum += Math.pow(x, power); }
+		return 1.0 - Math.pow(sum / n, 1.0 / power) / mean;
+	}
+
+	/**
+	 * Returns the share of the total held by the lowest values.
+	 *
+	 * @param sorted
+	 *            the values, in ascending order
+	 * @param proportion
+	 *            the proportion of the values, between 0 and 1
+	 * @return the share of the total
+	 */
+	private static double shareOfLowest(final double[] sorted, final double proportion) {
+		final double position = proportion * sorted.length;
+		final int whole = (int) position;
+		double lowest = 0.0;
+		double sum = 0.0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i < whole) { lowest += sorted[i]; }
+			sum += sorted[i];
+		}
+		if (whole < sorted.length) { lowest += (position - whole) * sorted[whole]; }
+		return lowest / sum;
+	}
+
+	/**
+	 * Returns the points of the Lorenz curve of sorted values.
+	 *
+	 * @param sorted
+	 *            the values, in ascending order
+	 * @param nbSegments
+	 *            the number of segments of the curve
+	 * @return the points, or an empty list if there are no values
+	 */
+	private static IList<GamaPoint> lorenzOfSorted(final double[] sorted, final int nbSegments) {
+		final int n = sorted.length;
+		final IList<GamaPoint> result = GamaListFactory.create(Types.POINT);
+		if (n == 0) return result;
+		final double[] cumulated = new double[n + 1];
+		for (int i = 0; i < n; i++) { cumulated[i + 1] = cumulated[i] + sorted[i]; }
+		final double total = cumulated[n];
+		for (int k = 0; k <= nbSegments; k++) {
+			final double p = (double) k / nbSegments;
+			final double position = p * n;
+			final int whole = Math.min((int) position, n);
+			double share = cumulated[whole];
+			if (whole < n) { share += (position - whole) * sorted[whole]; }
+			// Values that are all 0 are perfectly equal
+			result.add(new GamaPoint(p, total == 0d ? p : share / total));
+		}
+		return result;
 	}
 
 	/**
@@ -1320,38 +1730,315 @@ public class Stats {
 	 *
 	 *
 	 * @param scope
-	 * @param a
-	 * @param x
-	 * @return
+	 * @param a
+	 * @param x
+	 * @return
+	 */
+	@operator (
+			value = "incomplete_gamma_complement",
+			can_be_const = true,
+			type = IType.FLOAT,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "Returns the complemented regularized incomplete Gamma function of the argument a and integration start point x.",
+			comment = "Is the complement to 1 of incomplete_gamma.",
+			examples = { @example (
+					value = "incomplete_gamma_complement(1,5.3) with_precision(3)",
+					equals = "0.005")
+
+			})
+
+	public static Double opIncompleteGammaComplement(final IScope scope, final Double a, final Double x) {
+		// Returns the complemented regularized incomplete Gamma function of
+		// the
+		// argument a and integration start point x.
+		try {
+			return Gamma.incompleteGammaComplement(a, x);
+		} catch (final IllegalArgumentException | ArithmeticException ex) {
+			throw GamaRuntimeException.error("colt .incompleteGammaComplement reports: " + ex, scope);
+		}
+	}
+
+	/**
+	 * K means plusplus apache.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @param k
+	 *            the k
+	 * @return the i list
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	@operator (
+			value = "kmeans",
+			can_be_const = false,
+			type = IType.LIST,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
+	@doc (
+			value = "returns the list of clusters (list of instance indices) computed with the kmeans++ "
+					+ "algorithm from the first operand data according to the number of clusters to split"
+					+ " the data into (k). Usage: kmeans(data,k)",
+			// special_cases = "if the lengths of two vectors in the right-hand aren't equal, returns 0",
+			usages = { @usage (
+					value = "The maximum number of (third operand) can be omitted.",
+					examples = { @example (
+							value = "kmeans ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],2)",
+							equals = "[[0,2,3],[1]]") }) })
+	public static IList<IList> opKMeans(final IScope scope, final IList data, final Integer k)
+			throws GamaRuntimeException {
+		return opKMeans(scope, data, k, -1);
+	}
+
+	/**
+	 * K means plusplus apache.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @param k
+	 *            the k
+	 * @param maxIt
+	 *            the max it
+	 * @return the i list
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	@operator (
+			value = "kmeans",
+			can_be_const = false,
+			type = IType.LIST,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
+	@doc (
+			value = "returns the list of clusters (list of instance indices) computed with the kmeans++ "
+					+ "algorithm from the first operand data according to the number of clusters to split"
+					+ " the data into (k) and the maximum number of iterations to run the algorithm."
+					+ "(If negative, no maximum will be used) (maxIt). Usage: kmeans(data,k,maxit)",
+			// special_cases = "if the lengths of two vectors in the right-hand aren't equal, returns 0",
+			masterDoc = true,
+			examples = { @example (
+					value = "kmeans ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],2,10)",
+					equals = "[[0,2,3],[1]]") })
+	public static IList<IList> opKMeans(final IScope scope, final IList data, final Integer k, final Integer maxIt)
+			throws GamaRuntimeException {
+		final KMeans engine = kmeansOf(scope, data);
+		checkNbClusters(scope, engine, k);
+		final double[] centers = engine.initialCenters(k);
+		final int[] assignments = new int[engine.size()];
+		engine.lloyd(centers, k, maxIt, assignments);
+		return (IList) new GamaKMeansModel(k, centers.length / k, centers, assignments, 0, 0).getClusters();
+	}
+
+	/**
+	 * Builds the k-means clustering of instances.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the instances (lists of numbers, all of the same length)
+	 * @return the clustering
+	 */
+	private static KMeans kmeansOf(final IScope scope, final IList data) {
+		final int n = data.size();
+		double[] points = new double[0];
+		int dims = 0;
+		for (int i = 0; i < n; i++) {
+			final double[] point = DoubleValues.floats(scope, (IList) data.get(i));
+			if (i == 0) {
+				dims = point.length;
+				points = new double[n * dims];
+			} else if (point.length != dims) throw GamaRuntimeException
+					.error("The instances to cluster must all have the same number of values", scope);
+			System.arraycopy(point, 0, points, i * dims, dims);
+		}
+		// AD 04/21 : Is it ok to use an additional generator here ?
+		return new KMeans(points, n, dims, new MersenneTwister(scope.getRandom().getSeed().longValue()));
+	}
+
+	/**
+	 * Checks that the number of clusters is between 1 and the number of instances.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param engine
+	 *            the clustering
+	 * @param k
+	 *            the number of clusters
+	 */
+	private static void checkNbClusters(final IScope scope, final KMeans engine, final Integer k) {
+		if (k == null || k < 1 || k > engine.size()) throw GamaRuntimeException
+				.error("The number of clusters must be between 1 and the number of instances (" + engine.size() + ")", scope);
+	}
+
+	/**
+	 * Checks that the centroids of a model have as many values as the instances to cluster.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param engine
+	 *            the clustering
+	 * @param data
+	 *            the instances
+	 * @param model
+	 *            the model
+	 */
+	private static void checkDimensions(final IScope scope, final KMeans engine, final IList data,
+			final GamaKMeansModel model) {
+		if (model == null) throw GamaRuntimeException.error("No kmeans model to start from", scope);
+		if (engine.size() > 0 && ((IList) data.get(0)).length(scope) != model.dims) throw GamaRuntimeException
+				.error("The instances must have as many values as the centroids of the model (" + model.dims + ")", scope);
+	}
+
+	/**
+	 * Kmeans fit.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @param k
+	 *            the k
+	 * @return the gama K means model
+	 */
+	@operator (
+			value = "kmeans_fit",
+			can_be_const = false,
+			type = GamaKMeansModelType.id,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
+	@doc (
+			value = "returns the kmeans model (centroids, clusters, inertia) computed with the kmeans++ algorithm from the first operand data "
+					+ "according to the number of clusters to split the data into (k). Usage: kmeans_fit(data,k)",
+			usages = { @usage (
+					value = "The maximum number of iterations (third operand) can be omitted.",
+					examples = { @example (
+							value = "kmeans_fit ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],2).clusters",
+							equals = "[[0,2,3],[1]]") }) },
+			see = { "kmeans", "kmeans_mini_batch" })
+	public static GamaKMeansModel opKMeansFit(final IScope scope, final IList data, final Integer k) {
+		return opKMeansFit(scope, data, k, -1);
+	}
+
+	/**
+	 * Kmeans fit.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @param k
+	 *            the k
+	 * @param maxIt
+	 *            the max it
+	 * @return the gama K means model
+	 */
+	@operator (
+			value = "kmeans_fit",
+			can_be_const = false,
+			type = GamaKMeansModelType.id,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
+	@doc (
+			value = "returns the kmeans model (centroids, clusters, inertia) computed with the kmeans++ algorithm from the first operand data "
+					+ "according to the number of clusters to split the data into (k) and the maximum number of iterations to run the algorithm "
+					+ "(if negative, no maximum will be used). Usage: kmeans_fit(data,k,maxit)",
+			comment = "The clusters are the ones returned by kmeans. The model can then be passed instead of k to start the next clustering "
+					+ "(e.g. of the same agents a few steps later) from its centroids.",
+			masterDoc = true,
+			examples = { @example (
+					value = "kmeans_fit ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],2,10).centroids",
+					equals = "[[7/3,8/3,4.0],[3.0,8.0,2.0]]",
+					isExecutable = false) },
+			see = { "kmeans", "kmeans_mini_batch" })
+	public static GamaKMeansModel opKMeansFit(final IScope scope, final IList data, final Integer k,
+			final Integer maxIt) {
+		final KMeans engine = kmeansOf(scope, data);
+		checkNbClusters(scope, engine, k);
+		final double[] centers = engine.initialCenters(k);
+		final int[] assignments = new int[engine.size()];
+		final int iterations = engine.lloyd(centers, k, maxIt, assignments);
+		return new GamaKMeansModel(k, centers.length / k, centers, assignments, engine.inertia(centers, assignments),
+				iterations);
+	}
+
+	/**
+	 * Kmeans fit.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @param model
+	 *            the model
+	 * @return the gama K means model
+	 */
+	@operator (
+			value = "kmeans_fit",
+			can_be_const = false,
+			type = GamaKMeansModelType.id,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
+	@doc (
+			value = "returns the kmeans model computed from the first operand data, starting from the centroids of the model passed as second operand "
+					+ "(which is not modified), with as many iterations as needed. Usage: kmeans_fit(data,model)",
+			examples = { @example (
+					value = "kmeans_model m <- kmeans_fit(agents_positions, 5);",
+					isExecutable = false),
+					@example (
+							value = "m <- kmeans_fit(agents_positions, m);",
+							isExecutable = false) },
+			see = { "kmeans", "kmeans_mini_batch" })
+	public static GamaKMeansModel opKMeansFit(final IScope scope, final IList data, final GamaKMeansModel model) {
+		return opKMeansFit(scope, data, model, -1);
+	}
+
+	/**
+	 * Kmeans fit.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @param model
+	 *            the model
+	 * @param maxIt
+	 *            the max it
+	 * @return the gama K means model
 	 */
 	@operator (
-			value = "incomplete_gamma_complement",
-			can_be_const = true,
-			type = IType.FLOAT,
+			value = "kmeans_fit",
+			can_be_const = false,
+			type = GamaKMeansModelType.id,
 			category = { IOperatorCategory.STATISTICAL },
-			concept = { IConcept.STATISTIC })
+			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
 	@doc (
-			value = "Returns the complemented regularized incomplete Gamma function of the argument a and integration start point x.",
-			comment = "Is the complement to 1 of incomplete_gamma.",
+			value = "returns the kmeans model computed from the first operand data, starting from the centroids of the model passed as second operand "
+					+ "(which is not modified), with at most the number of iterations passed as third operand (if negative, no maximum will be used). "
+					+ "Usage: kmeans_fit(data,model,maxit)",
+			comment = "When the instances have not moved much since the model was computed, a few iterations are enough to update the clusters.",
 			examples = { @example (
-					value = "incomplete_gamma_complement(1,5.3) with_precision(3)",
-					equals = "0.005")
-
-			})
-
-	public static Double opIncompleteGammaComplement(final IScope scope, final Double a, final Double x) {
-		// Returns the complemented regularized incomplete Gamma function of
-		// the
-		// argument a and integration start point x.
-		try {
-			return Gamma.incompleteGammaComplement(a, x);
-		} catch (final IllegalArgumentException | ArithmeticException ex) {
-			throw GamaRuntimeException.error("colt .incompleteGammaComplement reports: " + ex, scope);
-		}
+					value = "m <- kmeans_fit(agents_positions, m, 10);",
+					isExecutable = false) },
+			see = { "kmeans", "kmeans_mini_batch" })
+	public static GamaKMeansModel opKMeansFit(final IScope scope, final IList data, final GamaKMeansModel model,
+			final Integer maxIt) {
+		final KMeans engine = kmeansOf(scope, data);
+		checkDimensions(scope, engine, data, model);
+		final double[] centers = model.centers.clone();
+		final int[] assignments = new int[engine.size()];
+		final int iterations = engine.lloyd(centers, model.k, maxIt, assignments);
+		return new GamaKMeansModel(model.k, model.dims, centers, assignments, engine.inertia(centers, assignments),
+				iterations);
 	}
 
 	/**
-	 * K means plusplus apache.
+	 * Kmeans mini batch.
 	 *
 	 * @param scope
 	 *            the scope
@@ -1359,85 +2046,94 @@ public class Stats {
 	 *            the data
 	 * @param k
 	 *            the k
-	 * @return the i list
-	 * @throws GamaRuntimeException
-	 *             the gama runtime exception
+	 * @param batchSize
+	 *            the batch size
+	 * @param iterations
+	 *            the iterations
+	 * @return the gama K means model
 	 */
 	@operator (
-			value = "kmeans",
+			value = "kmeans_mini_batch",
 			can_be_const = false,
-			type = IType.LIST,
+			type = GamaKMeansModelType.id,
 			category = { IOperatorCategory.STATISTICAL },
 			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
 	@doc (
-			value = "returns the list of clusters (list of instance indices) computed with the kmeans++ "
-					+ "algorithm from the first operand data according to the number of clusters to split"
-					+ " the data into (k). Usage: kmeans(data,k)",
-			// special_cases = "if the lengths of two vectors in the right-hand aren't equal, returns 0",
-			usages = { @usage (
-					value = "The maximum number of (third operand) can be omitted.",
-					examples = { @example (
-							value = "kmeans ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],2)",
-							equals = "[[0,2,3],[1]]") }) })
-	public static IList<IList> opKMeans(final IScope scope, final IList data, final Integer k)
-			throws GamaRuntimeException {
-		return opKMeans(scope, data, k, -1);
+			value = "returns the kmeans model computed from the first operand data with the mini-batch kmeans algorithm: the centroids, chosen with kmeans++, "
+					+ "are moved towards random batches of instances (of the size passed as third operand) as many times as the fourth operand, "
+					+ "then each instance is assigned to its nearest centroid. Usage: kmeans_mini_batch(data,k,batch_size,iterations)",
+			comment = "The cost of the updates does not depend on the number of instances, which makes it much faster than kmeans_fit on large data, "
+					+ "at the price of slightly less compact clusters.",
+			masterDoc = true,
+			examples = { @example (
+					value = "kmeans_mini_batch(agents_positions, 10, 100, 50)",
+					isExecutable = false) },
+			see = { "kmeans", "kmeans_fit" })
+	public static GamaKMeansModel opKMeansMiniBatch(final IScope scope, final IList data, final Integer k,
+			final Integer batchSize, final Integer iterations) {
+		final KMeans engine = kmeansOf(scope, data);
+		checkNbClusters(scope, engine, k);
+		return miniBatch(engine, k, engine.initialCenters(k), batchSize, iterations);
 	}
 
 	/**
-	 * K means plusplus apache.
+	 * Kmeans mini batch.
 	 *
 	 * @param scope
 	 *            the scope
 	 * @param data
 	 *            the data
-	 * @param k
-	 *            the k
-	 * @param maxIt
-	 *            the max it
-	 * @return the i list
-	 * @throws GamaRuntimeException
-	 *             the gama runtime exception
+	 * @param model
+	 *            the model
+	 * @param batchSize
+	 *            the batch size
+	 * @param iterations
+	 *            the iterations
+	 * @return the gama K means model
 	 */
 	@operator (
-			value = "kmeans",
+			value = "kmeans_mini_batch",
 			can_be_const = false,
-			type = IType.LIST,
+			type = GamaKMeansModelType.id,
 			category = { IOperatorCategory.STATISTICAL },
 			concept = { IConcept.STATISTIC, IConcept.CLUSTERING })
 	@doc (
-			value = "returns the list of clusters (list of instance indices) computed with the kmeans++ "
-					+ "algorithm from the first operand data according to the number of clusters to split"
-					+ " the data into (k) and the maximum number of iterations to run the algorithm."
-					+ "(If negative, no maximum will be used) (maxIt). Usage: kmeans(data,k,maxit)",
-			// special_cases = "if the lengths of two vectors in the right-hand aren't equal, returns 0",
-			masterDoc = true,
+			value = "returns the kmeans model computed from the first operand data with the mini-batch kmeans algorithm, starting from the centroids "
+					+ "of the model passed as second operand (which is not modified). Usage: kmeans_mini_batch(data,model,batch_size,iterations)",
 			examples = { @example (
-					value = "kmeans ([[2,4,5], [3,8,2], [1,1,3], [4,3,4]],2,10)",
-					equals = "[[0,2,3],[1]]") })
-	public static IList<IList> opKMeans(final IScope scope, final IList data, final Integer k, final Integer maxIt)
-			throws GamaRuntimeException {
-		// AD 04/21 : Is it ok to use an additional generator here ?
-		final MersenneTwister rand = new MersenneTwister(scope.getRandom().getSeed().longValue());
-
-		final List<DoublePoint> instances = new ArrayList<>();
-		for (int i = 0; i < data.size(); i++) {
-			final IList d = (IList) data.get(i);
-			final double point[] = new double[d.size()];
-			for (int j = 0; j < d.size(); j++) { point[j] = Cast.asFloat(scope, d.get(j)); }
-			instances.add(new Instance(i, point));
-		}
-		final KMeansPlusPlusClusterer<DoublePoint> kmeans =
-				new KMeansPlusPlusClusterer<>(k, maxIt, new EuclideanDistance(), rand);
-		final List<CentroidCluster<DoublePoint>> clusters = kmeans.cluster(instances);
-		try (final Collector.AsList results = Collector.getList()) {
-			for (final Cluster<DoublePoint> cl : clusters) {
-				final IList clG = GamaListFactory.create();
-				for (final DoublePoint pt : cl.getPoints()) { clG.addValue(scope, ((Instance) pt).getId()); }
-				results.add(clG);
-			}
-			return results.items();
-		}
+					value = "m <- kmeans_mini_batch(agents_positions, m, 100, 5);",
+					isExecutable = false) },
+			see = { "kmeans", "kmeans_fit" })
+	public static GamaKMeansModel opKMeansMiniBatch(final IScope scope, final IList data, final GamaKMeansModel model,
+			final Integer batchSize, final Integer iterations) {
+		final KMeans engine = kmeansOf(scope, data);
+		checkDimensions(scope, engine, data, model);
+		return miniBatch(engine, model.k, model.centers.clone(), batchSize, iterations);
+	}
+
+	/**
+	 * Runs the mini-batch kmeans and assigns all the instances to the resulting centroids.
+	 *
+	 * @param engine
+	 *            the clustering
+	 * @param k
+	 *            the number of clusters
+	 * @param centers
+	 *            the initial centers, updated
+	 * @param batchSize
+	 *            the size of the batches
+	 * @param iterations
+	 *            the number of batches
+	 * @return the model
+	 */
+	private static GamaKMeansModel miniBatch(final KMeans engine, final int k, final double[] centers,
+			final Integer batchSize, final Integer iterations) {
+		final int nbBatches = iterations == null ? 0 : Math.max(0, iterations);
+		engine.miniBatch(centers, k, batchSize == null ? 0 : batchSize, nbBatches);
+		final int[] assignments = new int[engine.size()];
+		engine.assign(centers, k, assignments);
+		return new GamaKMeansModel(k, centers.length / k, centers, assignments, engine.inertia(centers, assignments),
+				nbBatches);
 	}
 
 	/**
@@ -1525,9 +2221,7 @@ public class Stats {
 							equals = "4.8083") })
 	public static Double opKurtosis(final IScope scope, final IList data) throws GamaRuntimeException {
 		final Kurtosis k = new Kurtosis();
-		final double[] values = new double[data.length(scope)];
-		for (int i = 0; i < values.length; i++) { values[i] = Cast.asFloat(scope, data.get(i)); }
-		return k.evaluate(values);
+		return k.evaluate(DoubleValues.floats(scope, data));
 	}
 
 	/**
@@ -2297,6 +2991,319 @@ public class Stats {
 		return regression.getResiduals();
 	}
 
+	/**
+	 * Predicts the values of several instances.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param regression
+	 *            the regression
+	 * @param instances
+	 *            the instances
+	 * @return the list of predicted values
+	 */
+	@operator (
+			value = "predict",
+			can_be_const = false,
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.REGRESSION })
+	@doc (
+			value = "returns the values predicted by the regression for each instance of a matrix (a row = an instance, "
+					+ "with a column per feature), in the order of the rows. Usage: predict(regression, instances)",
+			examples = { @example (
+					value = "predict(my_regression, matrix([[1.0, 2.0], [2.0, 3.0], [3.0, 4.0]]))",
+					isExecutable = false) })
+	@test ("predict(build(matrix([[4.0,1.0,2.0,3.0],[4.0,2.0,3.0,4.0]])), matrix([[4.0, 3.0]])) collect (each with_precision 5) = [3.45455,2.18182]")
+	public static IList<Double> opPredict(final IScope scope, final GamaRegression regression,
+			final GamaMatrix instances) {
+		return regression.predict(scope, instances);
+	}
+
+	/**
+	 * Builds an online regression.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param data
+	 *            the data
+	 * @return the gama regression
+	 */
+	@operator (
+			value = "build_online",
+			can_be_const = false,
+			type = IType.REGRESSION,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.REGRESSION })
+	@doc (
+			value = "returns an online regression built from the matrix data (a row = an instance, the first value of each row is the y value), "
+					+ "to which new observations can then be added with add_observations, in a time that only depends on the number of features. "
+					+ "Its parameters are the ones of the ordinary least squares regression computed by build. Usage: build_online(data)",
+			examples = { @example (
+					value = "regression r <- build_online(matrix([[1.0,2.0,3.0,4.0],[2.0,3.0,4.0,2.0]]));",
+					isExecutable = false) },
+			see = { "build", "add_observations" })
+	@test ("build_online(matrix([[1.0,2.0,3.0,4.0],[2.0,3.0,4.0,2.0],[5.0,1.0,3.0,5.0],[3.0,4.0,5.0,1.0]])).parameters collect (each with_precision 5) = [0.5,2.5,0.0,-1.5]")
+	public static GamaRegression opBuildOnline(final IScope scope, final GamaMatrix data) {
+		final GamaRegression result = new GamaRegression(data.numCols - 1);
+		result.addObservations(scope, data);
+		return result;
+	}
+
+	/**
+	 * Builds an online regression without observations.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param nbFeatures
+	 *            the number of features
+	 * @return the gama regression
+	 */
+	@operator (
+			value = "build_online",
+			can_be_const = false,
+			type = IType.REGRESSION,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.REGRESSION })
+	@doc (
+			value = "returns an online regression without observations, for the given number of features. "
+					+ "Its parameters are estimated as soon as it has as many observations as parameters (the number of features + 1). Usage: build_online(nb_features)",
+			examples = { @example (
+					value = "regression r <- build_online(3);",
+					isExecutable = false) },
+			see = { "build", "add_observations" })
+	@test ("build_online(2).parameters = []")
+	public static GamaRegression opBuildOnline(final IScope scope, final Integer nbFeatures) {
+		if (nbFeatures == null || nbFeatures < 0)
+			throw GamaRuntimeException.error("The number of features cannot be negative", scope);
+		return new GamaRegression(nbFeatures);
+	}
+
+	/**
+	 * Adds observations to an online regression.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param regression
+	 *            the regression
+	 * @param data
+	 *            the observations
+	 * @return the regression
+	 */
+	@operator (
+			value = "add_observations",
+			can_be_const = false,
+			type = IType.REGRESSION,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.REGRESSION })
+	@doc (
+			value = "adds the observations of a matrix (a row = an instance, the first value of each row is the y value) to an online regression built by build_online, "
+					+ "estimates its parameters again and returns it. Each observation is added in a time that only depends on the number of features",
+			masterDoc = true,
+			examples = { @example (
+					value = "r <- r add_observations matrix([[2.0],[1.0],[3.0]]);",
+					isExecutable = false) },
+			see = { "build_online" })
+	@test ("(build_online(1) add_observations matrix([[4.0,1.0,2.0,3.0],[4.0,2.0,3.0,4.0]])).parameters collect (each with_precision 5) = [-1.63636,1.27273]")
+	public static GamaRegression opAddObservations(final IScope scope, final GamaRegression regression,
+			final GamaMatrix data) {
+		regression.addObservations(scope, data);
+		return regression;
+	}
+
+	/**
+	 * Adds an observation to an online regression.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param regression
+	 *            the regression
+	 * @param observation
+	 *            the observation
+	 * @return the regression
+	 */
+	@operator (
+			value = "add_observations",
+			can_be_const = false,
+			type = IType.REGRESSION,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC, IConcept.REGRESSION })
+	@doc (
+			value = "adds an observation (a list made of the y value followed by the values of the features) to an online regression built by build_online, "
+					+ "estimates its parameters again and returns it",
+			examples = { @example (
+					value = "r <- r add_observations [2.0, 1.0, 3.0];",
+					isExecutable = false) },
+			see = { "build_online" })
+	@no_test
+	public static GamaRegression opAddObservations(final IScope scope, final GamaRegression regression,
+			final IList observation) {
+		regression.addObservation(scope, observation);
+		return regression;
+	}
+
+	/**
+	 * Accumulates a value.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param accumulator
+	 *            the accumulator, which is not modified
+	 * @param value
+	 *            the value
+	 * @return a new accumulator
+	 */
+	@operator (
+			value = "accumulate",
+			type = GamaStatisticsAccumulatorType.id,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns a new statistics accumulator holding the statistics of the values of the accumulator (left operand) "
+					+ "and of a value (right operand), in constant time. The left operand is not modified. If it is nil, the new accumulator only holds the value",
+			masterDoc = true,
+			examples = { @example (
+					value = "statistics_accumulator acc <- statistics_accumulator([]);",
+					isExecutable = false),
+					@example (
+							value = "acc <- acc accumulate mean(people collect each.income);",
+							isExecutable = false) },
+			see = { "merge_accumulators" })
+	@test ("(statistics_accumulator([1.0, 2.0]) accumulate 3.0).mean = 2.0")
+	public static GamaStatisticsAccumulator opAccumulate(final IScope scope,
+			final GamaStatisticsAccumulator accumulator, final Double value) {
+		final GamaStatisticsAccumulator result =
+				accumulator == null ? new GamaStatisticsAccumulator() : accumulator.copy(scope);
+		if (value != null) { result.add(value); }
+		return result;
+	}
+
+	/**
+	 * Accumulates values.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param accumulator
+	 *            the accumulator, which is not modified
+	 * @param values
+	 *            the values
+	 * @return a new accumulator
+	 */
+	@operator (
+			value = "accumulate",
+			type = GamaStatisticsAccumulatorType.id,
+			expected_content_type = { IType.INT, IType.FLOAT },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns a new statistics accumulator holding the statistics of the values of the accumulator (left operand) "
+					+ "and of the numerical values of a container (right operand). The left operand is not modified. If it is nil, the new accumulator only holds the values of the container",
+			examples = { @example (
+					value = "acc <- acc accumulate (people collect each.income);",
+					isExecutable = false) },
+			see = { "merge_accumulators" })
+	@test ("(statistics_accumulator([1.0, 2.0]) accumulate [3, 4, 5]).variance = 2.0")
+	public static GamaStatisticsAccumulator opAccumulate(final IScope scope,
+			final GamaStatisticsAccumulator accumulator, final IContainer values) {
+		final GamaStatisticsAccumulator result =
+				accumulator == null ? new GamaStatisticsAccumulator() : accumulator.copy(scope);
+		for (final double x : DoubleValues.numbers(scope, values)) { result.add(x); }
+		return result;
+	}
+
+	/**
+	 * Merges two accumulators.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param first
+	 *            the first accumulator
+	 * @param second
+	 *            the second accumulator
+	 * @return a new accumulator
+	 */
+	@operator (
+			value = "merge_accumulators",
+			type = GamaStatisticsAccumulatorType.id,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns a new statistics accumulator holding the statistics of the values of both accumulators, "
+					+ "e.g. to combine partial statistics computed by different agents or simulations",
+			masterDoc = true,
+			examples = { @example (
+					value = "merge_accumulators(statistics_accumulator([1, 2]), statistics_accumulator([3, 4])).mean",
+					equals = "2.5") },
+			see = { "accumulate" })
+	public static GamaStatisticsAccumulator opMergeAccumulators(final IScope scope,
+			final GamaStatisticsAccumulator first, final GamaStatisticsAccumulator second) {
+		final GamaStatisticsAccumulator result = new GamaStatisticsAccumulator();
+		if (first != null) { result.add(first); }
+		if (second != null) { result.add(second); }
+		return result;
+	}
+
+	/**
+	 * Merges accumulators.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param accumulators
+	 *            the accumulators
+	 * @return a new accumulator
+	 */
+	@operator (
+			value = "merge_accumulators",
+			type = GamaStatisticsAccumulatorType.id,
+			expected_content_type = { GamaStatisticsAccumulatorType.id },
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns a new statistics accumulator holding the statistics of the values of all the accumulators "
+					+ "of the list",
+			examples = { @example (
+					value = "merge_accumulators(people collect each.income_statistics)",
+					isExecutable = false) },
+			see = { "accumulate" })
+	public static GamaStatisticsAccumulator opMergeAccumulators(final IScope scope, final IList accumulators) {
+		final GamaStatisticsAccumulator result = new GamaStatisticsAccumulator();
+		for (final Object o : accumulators) {
+			if (o instanceof GamaStatisticsAccumulator acc) { result.add(acc); }
+		}
+		return result;
+	}
+
+	/**
+	 * Estimates a quantile of the values of an accumulator.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param accumulator
+	 *            the accumulator
+	 * @param phi
+	 *            the probability
+	 * @return the quantile
+	 */
+	@operator (
+			value = "quantile",
+			can_be_const = false,
+			category = { IOperatorCategory.STATISTICAL },
+			concept = { IConcept.STATISTIC })
+	@doc (
+			value = "returns the estimated phi-quantile of the values accumulated by the statistics accumulator, that is, "
+					+ "a value that is greater than a proportion phi of these values. The estimation (t-digest) is more "
+					+ "precise near the extremes (phi close to 0 or 1)",
+			examples = { @example (
+					value = "quantile(statistics_accumulator([1, 2, 3, 4, 5]), 0.5)",
+					equals = "3.0") },
+			see = { "accumulate" })
+	public static Double opQuantile(final IScope scope, final GamaStatisticsAccumulator accumulator,
+			final Double phi) {
+		if (accumulator == null) return Double.NaN;
+		return accumulator.quantile(phi);
+	}
+
 	/**
 	 *
 	 * @param scope
@@ -2349,28 +3356,43 @@ public class Stats {
 			concept = { IConcept.STATISTIC },
 			expected_content_type = { IType.STRING, IType.INT })
 	@doc (
-			value = "Return a string containing the Report of the morris analysis for the corresponding CSV file")
+			value = "Return a string containing the Report of the morris analysis for the corresponding CSV file",
+			comment = "The CSV file has a header, the values of the parameters in the columns before the one of the first output, and the outputs in the following ones. "
+					+ "It is memory-mapped and read as columns of numbers, so that large files can be analysed. The values of the parameters must all be numbers.")
 	@no_test
 	public static String morrisAnalysis(final IScope scope, final String path, final int nb_levels,
 			final int id_firstOutput) {
 
 		String new_path = scope.getExperiment().getWorkingPath() + "/" + path;
-		List<Object> morris_simulation = Morris.readSimulation(new_path, id_firstOutput, scope);
-		List<Map<String, Object>> MySamples = Cast.asList(scope, morris_simulation.get(0));
-		// True or false ? Have to be tested
-		Map<String, List<Double>> output = Cast.asMap(scope, morris_simulation, false);
-		List<String> OutputsNames = output.keySet().stream().toList();
+		// The file is streamed into columns of doubles rather than loaded as rows of objects
+		final CsvColumns csv;
+		try {
+			csv = CsvColumns.read(new File(new_path));
+		} catch (final IOException e) {
+			throw GamaRuntimeException.error("Unable to read the morris simulations of " + path + ": " + e.getMessage(),
+					scope);
+		}
+		if (id_firstOutput < 1 || id_firstOutput >= csv.names.length) throw GamaRuntimeException.error(
+				"The id of the first output must be between 1 and " + (csv.names.length - 1), scope);
+		for (int j = 0; j < id_firstOutput; j++) {
+			final double[] values = csv.column(j);
+			for (int i = 0; i < values.length; i++) {
+				if (Double.isNaN(values[i])) throw GamaRuntimeException.error("The value of the parameter "
+						+ csv.names[j] + " in the simulation " + (i + 1) + " of " + path + " is not a number", scope);
+			}
+		}
+		// Each sample is a view of a row of the parameter columns
+		List<Map<String, Object>> MySamples = csv.rows(id_firstOutput);
+		// The outputs are aggregated one after the other: the aggregation of the core is not known to be thread-safe
 		StringBuilder s = new StringBuilder();
-
-		for (String name : OutputsNames) {
+		for (int j = id_firstOutput; j < csv.names.length; j++) {
 			List<Map<String, Double>> morris_coefficient =
-					Morris.MorrisAggregation_CSV(nb_levels, output.get(name), MySamples);
+					Morris.MorrisAggregation_CSV(nb_levels, csv.list(j), MySamples);
 			Map<String, Double> mu = morris_coefficient.get(0);
 			Map<String, Double> mu_star = morris_coefficient.get(1);
 			Map<String, Double> sigma = morris_coefficient.get(2);
-			s.append(Morris.buildResultTxt(name, mu, mu_star, sigma));
+			s.append(Morris.buildResultTxt(csv.names[j], mu, mu_star, sigma));
 		}
-
 		return s.toString();
 
 	}
@@ -2519,9 +3541,7 @@ public class Stats {
 					equals = "0.0") })
 	public static Double opSkewness(final IScope scope, final IList data) throws GamaRuntimeException {
 		final Skewness sk = new Skewness();
-		final double[] values = new double[data.length(scope)];
-		for (int i = 0; i < values.length; i++) { values[i] = Cast.asFloat(scope, data.get(i)); }
-		return sk.evaluate(values);
+		return sk.evaluate(DoubleValues.floats(scope, data));
 	}
 
 	/**
@@ -2848,13 +3868,7 @@ public class Stats {
 	public static Double opTTest(final IScope scope, final IList seq1, final IList seq2) {
 		TTest t = new TTest();
 
-		double[] s1 = new double[seq1.length(scope)];
-		for (int i = 0; i < seq1.length(scope); i++) { s1[i] = Cast.asFloat(scope, seq1.get(i)); }
-
-		double[] s2 = new double[seq2.length(scope)];
-		for (int i = 0; i < seq2.length(scope); i++) { s2[i] = Cast.asFloat(scope, seq2.get(i)); }
-
-		return t.tTest(s1, s2);
+		return t.tTest(DoubleValues.floats(scope, seq1), DoubleValues.floats(scope, seq2));
 	}
 
 	/**
@@ -2989,10 +4003,9 @@ public class Stats {
 	 * @return the data set
 	 */
 	private static DataSet toDataSet(final IScope scope, final IContainer values) {
-		final DataSet d = new DataSet(values.length(scope));
-		for (final Object o : values.iterable(scope)) {
-			if (o instanceof Number) { d.addValue(((Number) o).doubleValue()); }
-		}
+		final double[] numbers = DoubleValues.numbers(scope, values);
+		final DataSet d = new DataSet(numbers.length);
+		for (final double x : numbers) { d.addValue(x); }
 		return d;
 	}
 
@@ -3006,12 +4019,8 @@ public class Stats {
 	 * @return the double array list
 	 */
 	static DoubleArrayList toDoubleArrayList(final IScope scope, final IContainer values) {
-		final DoubleArrayList d = new DoubleArrayList(values.length(scope));
-		for (final Object o : values.iterable(scope)) {
-			if (o instanceof Number) { d.add(((Number) o).doubleValue()); }
-		}
-
-		return d;
+		// The array is wrapped, not copied, by the list: the Descriptive functions only read it
+		return new DoubleArrayList(DoubleValues.numbers(scope, values));
 	}
 
 	/**